@@ -0,0 +1,30 @@
+package bench;
+
+/**
+ * The fixed corpus of positions every benchmark runs over, so that results stay comparable from
+ * one change to the next. The corpus mixes opening, middlegame and endgame positions, since a
+ * change can speed up crowded boards while slowing down sparse ones, or the other way around.
+ */
+public enum BenchmarkPosition {
+  STARTING_POSITION("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"),
+  //"Kiwipete" - castling, en passant, promotions and pins in one middlegame position
+  KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"),
+  //an open Italian game middlegame
+  ITALIAN_MIDDLEGAME("r1bq1rk1/pppp1ppp/2n2n2/2b1p3/2B1P3/2NP1N2/PPP2PPP/R1BQ1RK1 w - - 0 6"),
+  //a closed middlegame with long pawn chains and many blocked sliders
+  CLOSED_MIDDLEGAME("r2q1rk1/pp1nbppp/2p1pn2/3p4/2PP4/1PN1PN2/P3BPPP/R2Q1RK1 w - - 0 10"),
+  //a rook endgame with discovered checks along the rank of an en passant capture
+  ROOK_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"),
+  //a king and pawn endgame with passed pawns
+  PAWN_ENDGAME("8/5k2/3p4/1p1Pp2p/pP2Pp1P/P4P1K/8/8 b - - 0 1");
+
+  private final String fen;
+
+  BenchmarkPosition(String fen) {
+    this.fen = fen;
+  }
+
+  public String getFen() {
+    return this.fen;
+  }
+}
@@ -0,0 +1,26 @@
+package bench;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite from the IDE. Accepts the standard JMH command line options, so a
+ * subset can be run by passing a benchmark name pattern, for example "PerftBenchmarks" or
+ * "ModelBenchmarks.getLegalMoves", and parameters can be narrowed with "-p modelType=BITBOARD".
+ */
+public final class BenchmarkRunner {
+  private BenchmarkRunner() {
+    //entry point only, should not be instantiated
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .build();
+    new Runner(options).run();
+  }
+}
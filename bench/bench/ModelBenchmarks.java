@@ -0,0 +1,159 @@
+package bench;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Move;
+import model.MutableChessModel;
+import model.PlayerColor;
+import model.RowColPair;
+import model.UndoInfo;
+
+/**
+ * Benchmarks the model operations that move generation, search and the view depend on, for each
+ * model type and each position of the benchmark corpus. Every benchmark returns its result so that
+ * the JIT compiler cannot eliminate the work being measured.
+ * Models remember the legal moves of their position until a move is made, and making and unmaking
+ * a move restores them, so the benchmarks of operations that generate legal moves run on a model
+ * built fresh for each invocation (see FreshModel). Their "Cached" counterparts measure asking the
+ * same model again, which is what a UI or search does after the first time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmarks {
+  @Param
+  public ModelType modelType;
+  @Param
+  public BenchmarkPosition position;
+
+  private MutableChessModel model;
+  private PlayerColor sideToMove;
+  //a fixed legal move of the position, used by the benchmarks that make or check a move
+  private Move move;
+
+  @Setup
+  public void setUp() {
+    model = modelType.buildStarted(position.getFen());
+    sideToMove = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    //sort the legal moves so that every model type benchmarks the same move
+    move = model.getLegalMoves(sideToMove).stream()
+            .min(Comparator.comparing(ModelBenchmarks::squareOrder))
+            .orElseThrow(() -> new IllegalStateException("Benchmark positions must have a legal move"));
+  }
+
+  @Benchmark
+  public Set<Move> getLegalMoves(FreshModel fresh) {
+    return fresh.model.getLegalMoves(sideToMove);
+  }
+
+  @Benchmark
+  public Set<Move> getLegalMovesCached() {
+    return model.getLegalMoves(sideToMove);
+  }
+
+  @Benchmark
+  public Set<RowColPair> getColorTargetSquares(FreshModel fresh) {
+    return fresh.model.getColorTargetSquares(sideToMove);
+  }
+
+  @Benchmark
+  public Set<RowColPair> getColorTargetSquaresCached() {
+    return model.getColorTargetSquares(sideToMove);
+  }
+
+  //the check test that search runs at every node without legal moves
+  @Benchmark
+  public boolean isSquareAttacked() {
+    return model.isSquareAttacked(model.getKingSquare(sideToMove), sideToMove.getOpposite());
+  }
+
+  @Benchmark
+  public Optional<Set<RowColPair>> getTargetSquares(FreshModel fresh) {
+    return fresh.model.getTargetSquares(move.getSourcePosition());
+  }
+
+  @Benchmark
+  public Optional<Set<RowColPair>> getTargetSquaresCached() {
+    return model.getTargetSquares(move.getSourcePosition());
+  }
+
+  @Benchmark
+  public boolean canMakeMove(FreshModel fresh) {
+    return fresh.model.canMakeMove(move);
+  }
+
+  @Benchmark
+  public boolean canMakeMoveCached() {
+    return model.canMakeMove(move);
+  }
+
+  //the move is taken back so that every invocation starts from the same position
+  @Benchmark
+  public UndoInfo makeAndUnmakeMove() {
+    UndoInfo undo = model.makeMove(move);
+    model.unmakeMove(undo);
+    return undo;
+  }
+
+  @Benchmark
+  public MutableChessModel getStrictDeepCopy() {
+    return model.getStrictDeepCopy();
+  }
+
+  @Benchmark
+  public MutableChessModel buildFromFen() {
+    return modelType.build(position.getFen());
+  }
+
+  @Benchmark
+  public String toFen() {
+    return modelType.build(position.getFen()).toString();
+  }
+
+  @Benchmark
+  public long getZobristKey() {
+    return model.getZobristKey();
+  }
+
+  /**
+   * A model of the benchmark position that is built again before every invocation, so that it has
+   * never generated its legal moves. Building it is not part of the measured time, though with
+   * invocations this short the cost of timing each one separately is, so the results are best
+   * compared with each other rather than read as absolute times.
+   */
+  @State(Scope.Thread)
+  public static class FreshModel {
+    private MutableChessModel model;
+
+    @Setup(Level.Invocation)
+    public void setUp(ModelBenchmarks benchmarks) {
+      model = benchmarks.modelType.buildStarted(benchmarks.position.getFen());
+    }
+  }
+
+  private static int squareOrder(Move m) {
+    RowColPair src = m.getSourcePosition();
+    RowColPair dest = m.getDestinationPosition();
+    return ((src.getRow() * 8 + src.getCol()) * 64 + dest.getRow() * 8 + dest.getCol()) * 16
+            + m.getFlag().ordinal();
+  }
+}
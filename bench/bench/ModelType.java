@@ -0,0 +1,37 @@
+package bench;
+
+import model.BitboardChessModel;
+import model.MutableChessModel;
+import model.StrictChessModel;
+
+/**
+ * The chess model implementations that can be benchmarked against each other.
+ */
+public enum ModelType {
+  STRICT {
+    @Override
+    public MutableChessModel build(String fen) {
+      return new StrictChessModel.Builder(fen).build();
+    }
+  },
+  BITBOARD {
+    @Override
+    public MutableChessModel build(String fen) {
+      return new BitboardChessModel.Builder(fen).build();
+    }
+  };
+
+  /**
+   * Builds a new, not yet started model of this type from the given FEN string.
+   */
+  public abstract MutableChessModel build(String fen);
+
+  /**
+   * Builds a new model of this type from the given FEN string, with its game already started.
+   */
+  public MutableChessModel buildStarted(String fen) {
+    MutableChessModel model = build(fen);
+    model.startGame();
+    return model;
+  }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.MutableChessModel;
+import perft.Perft;
+
+/**
+ * Benchmarks single threaded perft at fixed depths, which measures move generation together with
+ * making and taking back moves. Depths are kept low enough that the strict model finishes each
+ * invocation in reasonable time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmarks {
+  @Param
+  public ModelType modelType;
+  @Param
+  public BenchmarkPosition position;
+  @Param({"1", "2", "3"})
+  public int depth;
+
+  private MutableChessModel model;
+
+  @Setup
+  public void setUp() {
+    model = modelType.buildStarted(position.getFen());
+  }
+
+  @Benchmark
+  public long perft() {
+    return Perft.count(model, depth);
+  }
+}
@@ -0,0 +1,446 @@
+package engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+import model.PlayerColor;
+import model.StrictChessModel;
+import model.UndoInfo;
+
+/**
+ * Searches for the best move of a position with negamax alpha-beta search, driven by iterative
+ * deepening: the position is searched to depth one, then depth two, and so on until the depth,
+ * time or node limit is reached. Each iteration searches the best move the previous one found for
+ * each position first, followed by the other moves in MoveOrderer's order, which makes cutoffs
+ * more likely, and a search that runs out of time still has the result of its last completed
+ * iteration to report.
+ * Results are shared between iterations, and between consecutive searches in a game, through the
+ * searcher's transposition table, which is never cleared by a search.
+ * Searches run on a deep copy of the given model, so the model itself is never modified and its
+ * listeners are not notified of the moves made during the search.
+ * A searcher runs one search at a time, but stop() may be called from any thread.
+ */
+public final class AlphaBetaSearcher {
+  //the deepest ply the search can reach, which bounds the size of the principal variation table
+  private static final int MAX_PLY = 2 * SearchLimits.MAX_DEPTH;
+  //the clock is only read every this many nodes, since reading it is slow compared to a node
+  private static final int NODES_BETWEEN_LIMIT_CHECKS = 1024;
+  public static final int DEFAULT_TABLE_SIZE_MEGABYTES = 16;
+
+  private final Evaluator evaluator;
+  private final TranspositionTable table;
+  private final MoveOrderer orderer;
+  private volatile boolean stopRequested;
+  //state for the search in progress
+  private MutableChessModel position;
+  private long deadlineNanos;
+  private long maxNodes;
+  private long nodes;
+  private boolean aborted;
+  //false until the first iteration completes, since a search must have a move to report
+  private boolean canAbort;
+  //the triangular principal variation table - pvTable[ply] holds the best line found from ply on
+  private final Move[][] pvTable;
+  private final int[] pvLength;
+
+  /**
+   * Constructs a searcher that scores the leaves of its search with the given evaluator, and
+   * remembers results in a transposition table of DEFAULT_TABLE_SIZE_MEGABYTES.
+   *
+   * @throws IllegalArgumentException if the evaluator is null
+   */
+  public AlphaBetaSearcher(Evaluator evaluator) {
+    this(evaluator, new TranspositionTable(DEFAULT_TABLE_SIZE_MEGABYTES));
+  }
+
+  /**
+   * Constructs a searcher that scores the leaves of its search with the given evaluator, and
+   * remembers results in the given transposition table.
+   *
+   * @throws IllegalArgumentException if the evaluator or table is null
+   */
+  public AlphaBetaSearcher(Evaluator evaluator, TranspositionTable table) {
+    if (evaluator == null || table == null) {
+      throw new IllegalArgumentException("Unable to create searcher with null evaluator or null table");
+    }
+    this.evaluator = evaluator;
+    this.table = table;
+    this.orderer = new MoveOrderer(MAX_PLY);
+    this.pvTable = new Move[MAX_PLY][MAX_PLY];
+    this.pvLength = new int[MAX_PLY];
+  }
+
+  /**
+   * Searches the position of the given model within the given limits.
+   *
+   * @param model  the model whose position to search, which must have a game in progress
+   * @param limits the depth, time and node limits of the search
+   * @return the result of the deepest completed iteration, or a result without a best move if the
+   * side to move has no legal moves
+   * @throws IllegalArgumentException if the model or limits are null
+   * @throws IllegalStateException    if the model's game has not started
+   */
+  public SearchResult search(MutableChessModel model, SearchLimits limits) {
+    if (model == null || limits == null) {
+      throw new IllegalArgumentException("Unable to search with null model or null limits");
+    }
+    this.stopRequested = false;
+    table.newSearch();
+    return search(model.getStrictDeepCopy(), limits, 1);
+  }
+
+  /**
+   * Searches the position of the given model within the given limits, starting with an iteration
+   * of the given depth, and without starting a new search in the transposition table. Used by
+   * LazySmpSearcher to run helper searches as part of a single parallel search.
+   * The first iteration is always completed, so that there is a move to report, and the given
+   * model is searched directly rather than copied, so it belongs to this searcher until the
+   * search returns. A stop requested before this search starts is not forgotten, so a searcher
+   * used this way should only be used for one search.
+   */
+  SearchResult search(MutableChessModel model, SearchLimits limits, int firstDepth) {
+    long startNanos = System.nanoTime();
+    this.position = model;
+    this.deadlineNanos = limits.hasTimeLimit()
+            ? startNanos + limits.getTimeLimitMillis() * 1_000_000 : Long.MAX_VALUE;
+    this.maxNodes = limits.getMaxNodes();
+    this.nodes = 0;
+    this.aborted = false;
+    this.canAbort = false;
+    orderer.newSearch();
+    if (getLegalMoves().isEmpty()) { //checkmate or stalemate, so there is nothing to search
+      return new SearchResult(Optional.empty(), scoreTerminalPosition(0), 0, List.of(), 0,
+              elapsedMillis(startNanos));
+    }
+    SearchResult result = null;
+    for (int depth = Math.min(firstDepth, limits.getMaxDepth()); depth <= limits.getMaxDepth(); depth++) {
+      int score = searchRoot(depth);
+      //a partial iteration is only usable if at least the first root move was searched in full
+      if (aborted && pvLength[0] == 0) {
+        break;
+      }
+      List<Move> principalVariation = new ArrayList<>();
+      for (int i = 0; i < pvLength[0]; i++) {
+        principalVariation.add(pvTable[0][i]);
+      }
+      extendPrincipalVariation(principalVariation, depth);
+      result = new SearchResult(Optional.of(principalVariation.get(0)), score, aborted ? depth - 1 : depth,
+              principalVariation, nodes, elapsedMillis(startNanos));
+      if (aborted || Score.isMate(score)) { //deeper searches cannot improve on a forced mate
+        break;
+      }
+      canAbort = true;
+    }
+    return result;
+  }
+
+  /**
+   * Prepares this searcher to search single root moves with searchRootMove(), as part of an
+   * analysis that started at the given time and runs within the given limits. The node limit
+   * applies to every move this searcher searches until the next call. Like the search used by
+   * LazySmpSearcher, a stop requested before the analysis starts is not forgotten.
+   */
+  void startAnalysis(SearchLimits limits, long startNanos) {
+    this.deadlineNanos = limits.hasTimeLimit()
+            ? startNanos + limits.getTimeLimitMillis() * 1_000_000 : Long.MAX_VALUE;
+    this.maxNodes = limits.getMaxNodes();
+    this.nodes = 0;
+    orderer.newSearch();
+  }
+
+  /**
+   * Searches one legal move of the given model's position to the given depth, for MultiPvAnalyzer.
+   * Only scores above the given lower bound are searched exactly, since a move that cannot beat
+   * the bound is not worth reporting, and proving how much worse it is would only cost time.
+   *
+   * @param model      the model whose position to search from, which belongs to this searcher
+   *                   until the search returns
+   * @param move       the legal move to search
+   * @param depth      the depth to search the move to, counting the move itself
+   * @param lowerBound the score the move must beat to be searched exactly
+   * @param canAbort   false if the search must finish whatever the limits, so that the analysis
+   *                   has at least one depth to report
+   * @return the move's score and the line that follows it, where a score at or below the lower
+   * bound only means that the move is no better than the bound, or null if the search was stopped
+   * before it finished
+   */
+  SearchResult searchRootMove(MutableChessModel model, Move move, int depth, int lowerBound, boolean canAbort) {
+    long startNanos = System.nanoTime();
+    this.position = model;
+    this.aborted = false;
+    this.canAbort = canAbort;
+    UndoInfo undo = position.makeMove(move);
+    int score = -negamax(depth - 1, 1, -Score.INFINITY, -lowerBound);
+    position.unmakeMove(undo);
+    if (aborted) {
+      return null;
+    }
+    List<Move> principalVariation = new ArrayList<>();
+    principalVariation.add(move);
+    for (int i = 1; i < pvLength[1]; i++) {
+      principalVariation.add(pvTable[1][i]);
+    }
+    extendPrincipalVariation(principalVariation, depth);
+    return new SearchResult(Optional.of(move), score, depth, principalVariation, nodes, elapsedMillis(startNanos));
+  }
+
+  /**
+   * Returns the number of positions visited since the search or analysis in progress started.
+   */
+  long getNodes() {
+    return this.nodes;
+  }
+
+  /**
+   * Asks the search in progress, if any, to stop as soon as possible. The search then returns the
+   * result of its last completed iteration. Safe to call from any thread.
+   */
+  public void stop() {
+    this.stopRequested = true;
+  }
+
+  /**
+   * Searches every root move to the given depth. Unlike interior nodes, the root keeps the best
+   * move found so far even if the iteration is aborted, since the moves searched before the abort
+   * were searched in full.
+   */
+  private int searchRoot(int depth) {
+    pvLength[0] = 0;
+    long key = position.getZobristKey();
+    int alpha = -Score.INFINITY;
+    Move bestMove = null;
+    MovePicker picker = orderer.newPicker(position, getLegalMoves(), hashMove(table.probe(key)), 0);
+    while (picker.hasNext()) {
+      Move move = picker.next();
+      UndoInfo undo = position.makeMove(move);
+      int score = -negamax(depth - 1, 1, -Score.INFINITY, -alpha);
+      position.unmakeMove(undo);
+      if (aborted) {
+        break;
+      }
+      if (score > alpha) {
+        alpha = score;
+        bestMove = move;
+        updatePrincipalVariation(0, move);
+      }
+    }
+    if (!aborted) {
+      table.store(key, PackedMove.fromMove(bestMove), Score.toTableScore(alpha, 0), depth,
+              TranspositionTable.Bound.EXACT);
+    }
+    return alpha;
+  }
+
+  private int negamax(int depth, int ply, int alpha, int beta) {
+    pvLength[ply] = ply;
+    if (++nodes % NODES_BETWEEN_LIMIT_CHECKS == 0 || nodes >= maxNodes) {
+      checkLimits();
+    }
+    if (aborted) {
+      return 0;
+    }
+    //a position repeated within the search or the game is scored as a draw at once, since the side
+    //that repeated it can keep repeating it, and so is a position drawn by the fifty-move rule or
+    //by insufficient material
+    if (position.getRepetitionCount() > 1
+            || position.getHalfMoveClock() >= StrictChessModel.FIFTY_MOVE_RULE_HALF_MOVES
+            || position.hasInsufficientMaterial()) {
+      return Math.max(alpha, Math.min(Score.DRAW, beta));
+    }
+    long key = position.getZobristKey();
+    long entry = table.probe(key);
+    if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+      int score = Score.fromTableScore(TranspositionTable.getScore(entry), ply);
+      //a bound is only usable if it alone decides how this position compares to the window
+      boolean isUsable = switch (TranspositionTable.getBound(entry)) {
+        case EXACT -> true;
+        case LOWER -> score >= beta;
+        case UPPER -> score <= alpha;
+      };
+      if (isUsable) {
+        return Math.max(alpha, Math.min(score, beta));
+      }
+    }
+    if (depth == 0 || ply == MAX_PLY - 1) {
+      //this node has been counted already, so quiescence search must not count it again
+      return quiesceCountedNode(ply, alpha, beta);
+    }
+    Set<Move> moves = getLegalMoves();
+    if (moves.isEmpty()) {
+      return scoreTerminalPosition(ply);
+    }
+    Move bestMove = null;
+    MovePicker picker = orderer.newPicker(position, moves, hashMove(entry), ply);
+    while (picker.hasNext()) {
+      Move move = picker.next();
+      UndoInfo undo = position.makeMove(move);
+      int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+      position.unmakeMove(undo);
+      if (aborted) {
+        return 0;
+      }
+      if (score > alpha) {
+        alpha = score;
+        bestMove = move;
+        updatePrincipalVariation(ply, move);
+        if (alpha >= beta) { //the opponent will never allow this position, so stop searching it
+          orderer.recordCutoff(position, move, ply, depth);
+          table.store(key, PackedMove.fromMove(move), Score.toTableScore(beta, ply), depth,
+                  TranspositionTable.Bound.LOWER);
+          return beta;
+        }
+      }
+    }
+    //if no move raised alpha, the true score is at most alpha, and no move is known to be best
+    if (bestMove == null) {
+      table.store(key, PackedMove.NULL_MOVE, Score.toTableScore(alpha, ply), depth,
+              TranspositionTable.Bound.UPPER);
+    } else {
+      table.store(key, PackedMove.fromMove(bestMove), Score.toTableScore(alpha, ply), depth,
+              TranspositionTable.Bound.EXACT);
+    }
+    return alpha;
+  }
+
+  /**
+   * Searches only captures and promotions until the position is quiet, so that the static
+   * evaluation is never taken in the middle of an exchange - otherwise a search that ends just
+   * after a queen takes a defended pawn would count the pawn but not the lost queen (the horizon
+   * effect). The side to move may also "stand pat" on the static evaluation instead of capturing,
+   * since no side is forced to capture. Captures that static exchange evaluation expects to lose
+   * material are skipped, which keeps quiescence searches small. A side in check cannot stand pat,
+   * since it may be mated, so every evasion is searched instead, and a side with none is mated.
+   */
+  private int quiesce(int ply, int alpha, int beta) {
+    pvLength[ply] = ply;
+    if (++nodes % NODES_BETWEEN_LIMIT_CHECKS == 0 || nodes >= maxNodes) {
+      checkLimits();
+    }
+    if (aborted) {
+      return 0;
+    }
+    return quiesceCountedNode(ply, alpha, beta);
+  }
+
+  /**
+   * Searches a node of quiescence search that has already been counted and checked for an aborted
+   * search, either by quiesce() or by negamax() when it hands a node over at depth 0.
+   */
+  private int quiesceCountedNode(int ply, int alpha, int beta) {
+    PlayerColor turn = position.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    boolean isInCheck = position.isSquareAttacked(position.getKingSquare(turn), turn.getOpposite());
+    MovePicker picker;
+    if (isInCheck) {
+      Set<Move> evasions = getLegalMoves();
+      if (evasions.isEmpty()) {
+        return Math.max(alpha, Math.min(Score.matedIn(ply), beta));
+      }
+      if (ply == MAX_PLY - 1) {
+        return Math.min(evaluator.evaluate(position), beta);
+      }
+      picker = orderer.newPicker(position, evasions, null, ply);
+    } else {
+      int standPat = evaluator.evaluate(position);
+      if (standPat >= beta || ply == MAX_PLY - 1) {
+        return Math.min(standPat, beta);
+      }
+      alpha = Math.max(alpha, standPat);
+      picker = orderer.newCapturePicker(position, position.getLegalCaptures(turn));
+    }
+    while (picker.hasNext()) {
+      Move move = picker.next();
+      //an evasion that loses material may still be the only way out of a mate
+      if (!isInCheck && StaticExchangeEvaluator.evaluate(position, move) < 0) {
+        continue;
+      }
+      UndoInfo undo = position.makeMove(move);
+      int score = -quiesce(ply + 1, -beta, -alpha);
+      position.unmakeMove(undo);
+      if (aborted) {
+        return 0;
+      }
+      if (score >= beta) {
+        return beta;
+      }
+      alpha = Math.max(alpha, score);
+    }
+    return alpha;
+  }
+
+  /**
+   * Returns the score of a position where the side to move has no legal moves - checkmate if it is
+   * in check, otherwise stalemate.
+   */
+  private int scoreTerminalPosition(int ply) {
+    PlayerColor turn = position.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    return position.isSquareAttacked(position.getKingSquare(turn), turn.getOpposite()) ? Score.matedIn(ply) : Score.DRAW;
+  }
+
+  private Set<Move> getLegalMoves() {
+    return position.getLegalMoves(position.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK);
+  }
+
+  /**
+   * Returns the best move stored in the given transposition table entry, or null if there is no
+   * entry or it has no move. The move may not be legal, since a different position with the same
+   * table slot and key could have stored it, so MovePicker only uses it if it is a legal move.
+   */
+  private static Move hashMove(long entry) {
+    if (entry == TranspositionTable.NO_ENTRY || TranspositionTable.getMove(entry) == PackedMove.NULL_MOVE) {
+      return null;
+    }
+    return PackedMove.toMove(TranspositionTable.getMove(entry));
+  }
+
+  /**
+   * Extends the given principal variation with the best moves stored in the transposition table,
+   * up to the given length. The variation can come up short when the search took a score from
+   * the table instead of searching a position, which cuts the line short at that position.
+   */
+  private void extendPrincipalVariation(List<Move> principalVariation, int length) {
+    Deque<UndoInfo> undos = new ArrayDeque<>();
+    for (Move move : principalVariation) {
+      undos.push(position.makeMove(move));
+    }
+    while (principalVariation.size() < length) {
+      long entry = table.probe(position.getZobristKey());
+      if (entry == TranspositionTable.NO_ENTRY || TranspositionTable.getMove(entry) == PackedMove.NULL_MOVE) {
+        break;
+      }
+      Move move = PackedMove.toMove(TranspositionTable.getMove(entry));
+      if (!getLegalMoves().contains(move)) {
+        break;
+      }
+      principalVariation.add(move);
+      undos.push(position.makeMove(move));
+    }
+    while (!undos.isEmpty()) {
+      position.unmakeMove(undos.pop());
+    }
+  }
+
+  //the best line from this ply is the given move followed by the best line from the next ply
+  private void updatePrincipalVariation(int ply, Move move) {
+    pvTable[ply][ply] = move;
+    int childLength = pvLength[ply + 1];
+    System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, childLength - (ply + 1));
+    pvLength[ply] = Math.max(childLength, ply + 1);
+  }
+
+  private void checkLimits() {
+    if (canAbort && (stopRequested || nodes >= maxNodes || System.nanoTime() > deadlineNanos)) {
+      aborted = true;
+    }
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+}
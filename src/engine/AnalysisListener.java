@@ -0,0 +1,18 @@
+package engine;
+
+import java.util.List;
+
+/**
+ * Represents a listener for a MultiPvAnalyzer's analysis, which is told about the best lines of
+ * each depth as soon as the depth completes, so that results can be shown while the analysis runs.
+ */
+public interface AnalysisListener {
+  /**
+   * Notifies this listener that the analysis has completed another depth. Called on the thread
+   * running the analysis, which waits for the listener to return before starting the next depth.
+   *
+   * @param depth the depth that was completed, in plies
+   * @param lines the best lines found at that depth, best first, as an unmodifiable list
+   */
+  void notifyAfterDepth(int depth, List<SearchResult> lines);
+}
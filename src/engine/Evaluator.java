@@ -0,0 +1,17 @@
+package engine;
+
+import model.ReadOnlyChessModel;
+
+/**
+ * Represents a static evaluation function - an estimate of how good a position is without
+ * searching any moves. Searchers call the evaluator at the leaves of the search tree.
+ */
+public interface Evaluator {
+  /**
+   * Evaluates the position of the given model.
+   *
+   * @param model the model whose position to evaluate
+   * @return the score of the position in centipawns, from the point of view of the side to move
+   */
+  int evaluate(ReadOnlyChessModel model);
+}
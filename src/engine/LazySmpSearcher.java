@@ -0,0 +1,133 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.MutableChessModel;
+
+/**
+ * Searches for the best move of a position on several threads at once with "Lazy SMP": every
+ * thread runs its own iterative deepening alpha-beta search on its own copy of the model, and the
+ * threads only cooperate through a shared transposition table. Results one thread stores cut off
+ * or reorder the searches of the others, so extra threads turn into a deeper search in the same
+ * time rather than into a faster search of the same tree. Half of the helper threads start one
+ * iteration deeper than the main thread, so that the threads spread out over different depths
+ * instead of searching the same positions in lockstep.
+ * The result reported is that of the main thread, which stops the helpers when it finishes.
+ */
+public final class LazySmpSearcher {
+  private final Evaluator evaluator;
+  private final TranspositionTable table;
+  private final int numThreads;
+  //the searchers of the search in progress, main thread first, so that stop() can reach them
+  private volatile List<AlphaBetaSearcher> searchers;
+
+  /**
+   * Constructs a searcher that searches on the given number of threads, remembering results in a
+   * transposition table of AlphaBetaSearcher.DEFAULT_TABLE_SIZE_MEGABYTES.
+   *
+   * @throws IllegalArgumentException if the evaluator is null or the thread count is less than 1
+   */
+  public LazySmpSearcher(Evaluator evaluator, int numThreads) {
+    this(evaluator, new TranspositionTable(AlphaBetaSearcher.DEFAULT_TABLE_SIZE_MEGABYTES), numThreads);
+  }
+
+  /**
+   * Constructs a searcher that searches on the given number of threads, which all share the given
+   * transposition table.
+   *
+   * @throws IllegalArgumentException if the evaluator or table is null or the thread count is less
+   *                                  than 1
+   */
+  public LazySmpSearcher(Evaluator evaluator, TranspositionTable table, int numThreads) {
+    if (evaluator == null || table == null || numThreads < 1) {
+      throw new IllegalArgumentException("Unable to create searcher with null evaluator, null table or "
+              + "thread count less than 1");
+    }
+    this.evaluator = evaluator;
+    this.table = table;
+    this.numThreads = numThreads;
+    this.searchers = List.of();
+  }
+
+  /**
+   * Searches the position of the given model within the given limits, on this searcher's number of
+   * threads. The calling thread acts as the main thread.
+   *
+   * @param model  the model whose position to search, which must have a game in progress
+   * @param limits the depth, time and node limits of the search
+   * @return the main thread's result, with the node counts of every thread
+   * @throws IllegalArgumentException if the model or limits are null
+   * @throws IllegalStateException    if the model's game has not started
+   */
+  public SearchResult search(MutableChessModel model, SearchLimits limits) {
+    if (model == null || limits == null) {
+      throw new IllegalArgumentException("Unable to search with null model or null limits");
+    }
+    table.newSearch();
+    List<AlphaBetaSearcher> currentSearchers = new ArrayList<>();
+    //models are not safe to read from several threads at once, so every copy is made here
+    List<MutableChessModel> positions = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      currentSearchers.add(new AlphaBetaSearcher(evaluator, table));
+      positions.add(model.getStrictDeepCopy());
+    }
+    this.searchers = currentSearchers;
+    SearchResult[] results = new SearchResult[numThreads];
+    List<Thread> helpers = new ArrayList<>();
+    for (int i = 1; i < numThreads; i++) {
+      int helperIndex = i;
+      Thread helper = new Thread(() -> results[helperIndex] = currentSearchers.get(helperIndex)
+              .search(positions.get(helperIndex), limits, 1 + helperIndex % 2), "lazy-smp-helper-" + i);
+      helper.setDaemon(true);
+      helper.start();
+      helpers.add(helper);
+    }
+    try {
+      results[0] = currentSearchers.get(0).search(positions.get(0), limits, 1);
+    } finally {
+      for (AlphaBetaSearcher searcher : currentSearchers) {
+        searcher.stop();
+      }
+      joinAll(helpers);
+    }
+    List<Long> nodesPerThread = new ArrayList<>();
+    for (SearchResult result : results) {
+      nodesPerThread.add(result == null ? 0 : result.getNodes());
+    }
+    SearchResult main = results[0];
+    return new SearchResult(main.getBestMove(), main.getScore(), main.getDepth(), main.getPrincipalVariation(),
+            main.getElapsedMillis(), nodesPerThread);
+  }
+
+  /**
+   * Asks the search in progress, if any, to stop as soon as possible on every thread. Safe to call
+   * from any thread.
+   */
+  public void stop() {
+    for (AlphaBetaSearcher searcher : searchers) {
+      searcher.stop();
+    }
+  }
+
+  public int getNumThreads() {
+    return this.numThreads;
+  }
+
+  private static void joinAll(List<Thread> threads) {
+    boolean isInterrupted = false;
+    for (Thread thread : threads) {
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          //the helpers have been told to stop, so keep waiting and restore the interrupt afterwards
+          isInterrupted = true;
+        }
+      }
+    }
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
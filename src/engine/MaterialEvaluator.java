@@ -0,0 +1,39 @@
+package engine;
+
+import model.PackedMove;
+import model.Piece;
+import model.PieceType;
+import model.PlayerColor;
+import model.ReadOnlyChessModel;
+
+/**
+ * Evaluates positions by material alone - the sum of the values of each side's pieces. Only the
+ * occupied squares are visited, by walking each color's occupancy bitboard.
+ */
+public final class MaterialEvaluator implements Evaluator {
+  //piece values in centipawns, indexed by PieceType ordinal. The king is never captured, so it is
+  //worth nothing
+  private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+  @Override
+  public int evaluate(ReadOnlyChessModel model) {
+    int whiteScore = getMaterial(model, PlayerColor.WHITE) - getMaterial(model, PlayerColor.BLACK);
+    return model.getWhiteToMove() ? whiteScore : -whiteScore;
+  }
+
+  /**
+   * Returns the value of the given piece type in centipawns.
+   */
+  static int getPieceValue(PieceType type) {
+    return PIECE_VALUES[type.ordinal()];
+  }
+
+  private static int getMaterial(ReadOnlyChessModel model, PlayerColor c) {
+    int material = 0;
+    for (long pieces = model.getOccupancy(c); pieces != 0; pieces &= pieces - 1) {
+      Piece piece = model.getPieceAt(PackedMove.toRowColPair(Long.numberOfTrailingZeros(pieces))).orElseThrow();
+      material += PIECE_VALUES[piece.getType().ordinal()];
+    }
+    return material;
+  }
+}
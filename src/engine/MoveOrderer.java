@@ -0,0 +1,137 @@
+package engine;
+
+import java.util.Set;
+
+import model.Move;
+import model.PackedMove;
+import model.PieceType;
+import model.ReadOnlyChessModel;
+
+/**
+ * Remembers which quiet moves caused beta cutoffs during a search, and hands out MovePickers that
+ * search the most promising moves first. Alpha-beta search prunes the most when the best move is
+ * searched first, so the order is, from first to last:
+ * <ol>
+ *   <li>the hash move - the best move stored in the transposition table for the position</li>
+ *   <li>captures and promotions, most valuable victim first and then least valuable attacker
+ *   first (MVV-LVA), so that pawn takes queen comes before queen takes pawn</li>
+ *   <li>killer moves - quiet moves that caused a cutoff at the same ply in a sibling position,
+ *   which often refute the opponent's previous move there too</li>
+ *   <li>every other quiet move, by its history score - how often and how deep a move between the
+ *   same two squares has caused cutoffs anywhere in the search</li>
+ * </ol>
+ * Each searcher owns one orderer, since the killers and history describe its own search.
+ */
+final class MoveOrderer {
+  private static final int NUM_KILLERS = 2;
+  private static final int NUM_SQUARES = 64;
+  //history scores are halved once they reach this, so they keep fitting in an int and recent
+  //cutoffs keep outweighing old ones
+  private static final int MAX_HISTORY = 1 << 20;
+
+  private final Move[][] killers;
+  //history[from][to] grows with every cutoff a quiet move from one square to the other causes
+  private final int[][] history;
+
+  /**
+   * Constructs an orderer for searches that reach at most the given ply.
+   */
+  MoveOrderer(int maxPly) {
+    this.killers = new Move[maxPly][NUM_KILLERS];
+    this.history = new int[NUM_SQUARES][NUM_SQUARES];
+  }
+
+  /**
+   * Prepares for a new search: killers only make sense within one search tree, so they are
+   * forgotten, while history scores are halved, since the positions of the new search are
+   * close to those of the previous one.
+   */
+  void newSearch() {
+    for (Move[] killersAtPly : killers) {
+      killersAtPly[0] = null;
+      killersAtPly[1] = null;
+    }
+    ageHistory();
+  }
+
+  /**
+   * Returns a picker that hands out the given legal moves of the given model's position in order.
+   *
+   * @param model    the model whose position the moves are for
+   * @param moves    the legal moves to order
+   * @param hashMove the transposition table's best move for the position, or null if there is none
+   * @param ply      the distance of the position from the root, used to look up killer moves
+   */
+  MovePicker newPicker(ReadOnlyChessModel model, Set<Move> moves, Move hashMove, int ply) {
+    return new MovePicker(this, model, moves, hashMove, killers[ply]);
+  }
+
+  /**
+   * Returns a picker that hands out the given captures in MVV-LVA order, for quiescence search.
+   */
+  MovePicker newCapturePicker(ReadOnlyChessModel model, Set<Move> captures) {
+    return new MovePicker(this, model, captures, null, null);
+  }
+
+  /**
+   * Records that the given move caused a beta cutoff at the given ply and remaining depth. Only
+   * quiet moves are recorded, since captures are already ordered by what they capture.
+   */
+  void recordCutoff(ReadOnlyChessModel model, Move move, int ply, int depth) {
+    if (isCaptureOrPromotion(model, move)) {
+      return;
+    }
+    Move[] killersAtPly = killers[ply];
+    if (!move.equals(killersAtPly[0])) {
+      killersAtPly[1] = killersAtPly[0];
+      killersAtPly[0] = move;
+    }
+    int from = PackedMove.toSquare(move.getSourcePosition());
+    int to = PackedMove.toSquare(move.getDestinationPosition());
+    //deep cutoffs save more work than shallow ones, so they count for more
+    history[from][to] += depth * depth;
+    if (history[from][to] >= MAX_HISTORY) {
+      ageHistory();
+    }
+  }
+
+  /**
+   * Returns the MVV-LVA score of the given capture or promotion - the value of the captured piece
+   * (and of the promoted piece, if any) times a factor large enough that it always decides the
+   * order, minus the value of the capturing piece to break ties.
+   */
+  static int captureScore(ReadOnlyChessModel model, Move move) {
+    int victimValue = move.getFlag() == Move.MoveFlag.EN_PASSANT ? MaterialEvaluator.getPieceValue(PieceType.PAWN)
+            : model.getPieceTypeAt(move.getDestinationPosition()).map(MaterialEvaluator::getPieceValue).orElse(0);
+    victimValue += switch (move.getFlag()) {
+      case PAWN_PROMOTION_TO_QUEEN -> MaterialEvaluator.getPieceValue(PieceType.QUEEN);
+      case PAWN_PROMOTION_TO_ROOK -> MaterialEvaluator.getPieceValue(PieceType.ROOK);
+      case PAWN_PROMOTION_TO_BISHOP -> MaterialEvaluator.getPieceValue(PieceType.BISHOP);
+      case PAWN_PROMOTION_TO_KNIGHT -> MaterialEvaluator.getPieceValue(PieceType.KNIGHT);
+      default -> 0;
+    };
+    int attackerValue = MaterialEvaluator.getPieceValue(model.getPieceTypeAt(move.getSourcePosition()).orElseThrow());
+    return victimValue * 16 - attackerValue;
+  }
+
+  static boolean isCaptureOrPromotion(ReadOnlyChessModel model, Move move) {
+    return model.getPieceAt(move.getDestinationPosition()).isPresent()
+            || switch (move.getFlag()) {
+              case EN_PASSANT, PAWN_PROMOTION_TO_QUEEN, PAWN_PROMOTION_TO_ROOK, PAWN_PROMOTION_TO_BISHOP,
+                      PAWN_PROMOTION_TO_KNIGHT -> true;
+              default -> false;
+            };
+  }
+
+  int getHistoryScore(Move move) {
+    return history[PackedMove.toSquare(move.getSourcePosition())][PackedMove.toSquare(move.getDestinationPosition())];
+  }
+
+  private void ageHistory() {
+    for (int[] historyFrom : history) {
+      for (int to = 0; to < NUM_SQUARES; to++) {
+        historyFrom[to] /= 2;
+      }
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import model.Move;
+import model.ReadOnlyChessModel;
+
+/**
+ * Hands out the legal moves of a position in the order described in MoveOrderer, one stage at a
+ * time. Moves are only scored when their stage is reached, and each call to next() picks the best
+ * remaining move of the stage with one pass over it instead of sorting the stage up front. Most
+ * nodes of an alpha-beta search end with a cutoff after the first move or two, and then the moves
+ * that were never picked are never scored or sorted.
+ */
+final class MovePicker implements Iterator<Move> {
+  private enum Stage {
+    HASH_MOVE, SCORE_CAPTURES, CAPTURES, KILLERS, QUIETS, DONE
+  }
+
+  private final MoveOrderer orderer;
+  private final ReadOnlyChessModel model;
+  private final Move hashMove;
+  //the killer moves for this ply, or null if killers are not used
+  private final Move[] killers;
+  private final List<Move> captures;
+  private final List<Move> quiets;
+  //the scores of the moves of the current stage, parallel to its list, filled when the stage starts
+  private int[] scores;
+  private int killerIndex;
+  private Stage stage;
+  private Move nextMove;
+
+  MovePicker(MoveOrderer orderer, ReadOnlyChessModel model, Set<Move> moves, Move hashMove, Move[] killers) {
+    this.orderer = orderer;
+    this.model = model;
+    this.hashMove = hashMove != null && moves.contains(hashMove) ? hashMove : null;
+    this.killers = killers;
+    this.captures = new ArrayList<>();
+    this.quiets = new ArrayList<>();
+    //splitting the moves only needs a look at each destination square, not a score
+    for (Move move : moves) {
+      if (move.equals(this.hashMove)) {
+        continue;
+      }
+      (MoveOrderer.isCaptureOrPromotion(model, move) ? captures : quiets).add(move);
+    }
+    this.stage = Stage.HASH_MOVE;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextMove == null) {
+      nextMove = pickNextMove();
+    }
+    return nextMove != null;
+  }
+
+  @Override
+  public Move next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No moves left to pick");
+    }
+    Move move = nextMove;
+    nextMove = null;
+    return move;
+  }
+
+  private Move pickNextMove() {
+    while (true) {
+      switch (stage) {
+        case HASH_MOVE -> {
+          stage = Stage.SCORE_CAPTURES;
+          if (hashMove != null) {
+            return hashMove;
+          }
+        }
+        case SCORE_CAPTURES -> {
+          //only reached if the hash move did not cause a cutoff, so a cutoff by it scores no captures
+          stage = Stage.CAPTURES;
+          scores = scoreCaptures();
+        }
+        case CAPTURES -> {
+          if (!captures.isEmpty()) {
+            return removeBest(captures);
+          }
+          stage = Stage.KILLERS;
+        }
+        case KILLERS -> {
+          //a killer is only played here if it is a quiet move of this position
+          while (killers != null && killerIndex < killers.length) {
+            Move killer = killers[killerIndex++];
+            if (killer != null && quiets.remove(killer)) {
+              return killer;
+            }
+          }
+          stage = Stage.QUIETS;
+          scores = scoreQuiets();
+        }
+        case QUIETS -> {
+          if (!quiets.isEmpty()) {
+            return removeBest(quiets);
+          }
+          stage = Stage.DONE;
+        }
+        case DONE -> {
+          return null;
+        }
+      }
+    }
+  }
+
+  private int[] scoreCaptures() {
+    int[] captureScores = new int[captures.size()];
+    for (int i = 0; i < captures.size(); i++) {
+      captureScores[i] = MoveOrderer.captureScore(model, captures.get(i));
+    }
+    return captureScores;
+  }
+
+  private int[] scoreQuiets() {
+    int[] quietScores = new int[quiets.size()];
+    for (int i = 0; i < quiets.size(); i++) {
+      quietScores[i] = orderer.getHistoryScore(quiets.get(i));
+    }
+    return quietScores;
+  }
+
+  /**
+   * Removes and returns the highest scoring move of the given stage list, keeping the scores
+   * parallel to the list by moving the last move and score into the removed move's place.
+   */
+  private Move removeBest(List<Move> moves) {
+    int best = 0;
+    for (int i = 1; i < moves.size(); i++) {
+      if (scores[i] > scores[best]) {
+        best = i;
+      }
+    }
+    Move bestMove = moves.get(best);
+    int last = moves.size() - 1;
+    moves.set(best, moves.get(last));
+    scores[best] = scores[last];
+    moves.remove(last);
+    return bestMove;
+  }
+}
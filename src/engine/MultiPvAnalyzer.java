@@ -0,0 +1,272 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Move;
+import model.MutableChessModel;
+import model.PlayerColor;
+
+/**
+ * Analyzes a position by finding its best few lines of play rather than only its best move
+ * ("Multi-PV"), for showing a position's alternatives to a player. Iterative deepening runs over
+ * the root moves themselves: at each depth every legal move of the position is searched on its
+ * own, with the root moves split across a pool of worker threads that take the next unsearched
+ * move whenever they finish one, so a few slow moves do not hold up the others. Moves are
+ * searched in the order of the previous depth's scores, and once enough lines are known, a move
+ * only has to be proven no better than the worst of them instead of being scored exactly, which
+ * is much cheaper for the many moves that are far from the best.
+ * The lines of each completed depth are handed to an AnalysisListener as soon as the depth
+ * completes. Each worker has its own AlphaBetaSearcher and its own copy of the model, and the
+ * workers share the analyzer's transposition table.
+ */
+public final class MultiPvAnalyzer {
+  private final Evaluator evaluator;
+  private final TranspositionTable table;
+  private final int numThreads;
+  //the searchers of the analysis in progress, so that stop() can reach them
+  private volatile List<AlphaBetaSearcher> searchers;
+
+  /**
+   * Constructs an analyzer that searches on the given number of threads, remembering results in a
+   * transposition table of AlphaBetaSearcher.DEFAULT_TABLE_SIZE_MEGABYTES.
+   *
+   * @throws IllegalArgumentException if the evaluator is null or the thread count is less than 1
+   */
+  public MultiPvAnalyzer(Evaluator evaluator, int numThreads) {
+    this(evaluator, new TranspositionTable(AlphaBetaSearcher.DEFAULT_TABLE_SIZE_MEGABYTES), numThreads);
+  }
+
+  /**
+   * Constructs an analyzer that searches on the given number of threads, which all share the given
+   * transposition table.
+   *
+   * @throws IllegalArgumentException if the evaluator or table is null or the thread count is less
+   *                                  than 1
+   */
+  public MultiPvAnalyzer(Evaluator evaluator, TranspositionTable table, int numThreads) {
+    if (evaluator == null || table == null || numThreads < 1) {
+      throw new IllegalArgumentException("Unable to create analyzer with null evaluator, null table or "
+              + "thread count less than 1");
+    }
+    this.evaluator = evaluator;
+    this.table = table;
+    this.numThreads = numThreads;
+    this.searchers = List.of();
+  }
+
+  /**
+   * Finds the best lines of the position of the given model within the given limits. The first
+   * depth is always completed, and the analysis ends early once every line it reports is a forced
+   * mate, since deeper searches cannot change a forced mate.
+   *
+   * @param model    the model whose position to analyze, which must have a game in progress
+   * @param limits   the depth, time and node limits of the analysis, where the node limit applies
+   *                 to each thread's own count
+   * @param numLines how many lines to find, which may be more than the position has legal moves
+   * @param listener the listener to tell about the lines of each depth as it completes
+   * @return the lines of the deepest completed depth, best first, as an unmodifiable list, with
+   * one line per legal move up to the number of lines asked for; empty if there are no legal moves
+   * @throws IllegalArgumentException if the model, limits or listener is null, or the number of
+   *                                  lines is less than 1
+   * @throws IllegalStateException    if the model's game has not started
+   */
+  public List<SearchResult> analyze(MutableChessModel model, SearchLimits limits, int numLines,
+                                    AnalysisListener listener) {
+    if (model == null || limits == null || listener == null || numLines < 1) {
+      throw new IllegalArgumentException("Unable to analyze with null model, null limits, null listener or "
+              + "line count less than 1");
+    }
+    long startNanos = System.nanoTime();
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    List<Move> rootMoves = new ArrayList<>(model.getLegalMoves(turn));
+    if (rootMoves.isEmpty()) {
+      return List.of();
+    }
+    table.newSearch();
+    List<AlphaBetaSearcher> currentSearchers = new ArrayList<>();
+    //models are not safe to read from several threads at once, so every copy is made here
+    List<MutableChessModel> positions = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      AlphaBetaSearcher searcher = new AlphaBetaSearcher(evaluator, table);
+      searcher.startAnalysis(limits, startNanos);
+      currentSearchers.add(searcher);
+      positions.add(model.getStrictDeepCopy());
+    }
+    this.searchers = currentSearchers;
+    AtomicInteger workerCount = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(numThreads, r -> {
+      Thread thread = new Thread(r, "multi-pv-worker-" + workerCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<SearchResult> lines = List.of();
+    try {
+      for (int depth = 1; depth <= limits.getMaxDepth(); depth++) {
+        RootIteration iteration = new RootIteration(rootMoves, numLines, depth);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+          AlphaBetaSearcher searcher = currentSearchers.get(i);
+          MutableChessModel position = positions.get(i);
+          tasks.add(() -> {
+            iteration.searchMoves(searcher, position);
+            return null;
+          });
+        }
+        if (!runAll(workers, tasks) || iteration.isAborted()) {
+          break;
+        }
+        List<Long> nodesPerThread = new ArrayList<>();
+        for (AlphaBetaSearcher searcher : currentSearchers) {
+          nodesPerThread.add(searcher.getNodes());
+        }
+        lines = iteration.getLines((System.nanoTime() - startNanos) / 1_000_000, nodesPerThread);
+        rootMoves = iteration.getMovesInOrder();
+        listener.notifyAfterDepth(depth, lines);
+        if (lines.stream().allMatch(line -> Score.isMate(line.getScore()))) {
+          break;
+        }
+      }
+    } finally {
+      for (AlphaBetaSearcher searcher : currentSearchers) {
+        searcher.stop();
+      }
+      workers.shutdownNow();
+    }
+    return lines;
+  }
+
+  /**
+   * Asks the analysis in progress, if any, to stop as soon as possible on every thread. The
+   * analysis then returns the lines of its last completed depth. Safe to call from any thread.
+   */
+  public void stop() {
+    for (AlphaBetaSearcher searcher : searchers) {
+      searcher.stop();
+    }
+  }
+
+  public int getNumThreads() {
+    return this.numThreads;
+  }
+
+  /**
+   * Runs the given tasks on the given workers and waits for all of them to finish.
+   *
+   * @return true if every task finished, false if the calling thread was interrupted while waiting
+   */
+  private static boolean runAll(ExecutorService workers, List<Callable<Void>> tasks) {
+    try {
+      for (Future<Void> future : workers.invokeAll(tasks)) {
+        future.get();
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Analysis worker failed", e.getCause());
+    }
+  }
+
+  /**
+   * Represents one depth of an analysis, whose root moves are handed out to the workers one at a
+   * time. The results are guarded by this.
+   */
+  private static final class RootIteration {
+    private final List<Move> moves;
+    private final int numLines;
+    private final int depth;
+    private final AtomicInteger nextMove;
+    private volatile boolean isAborted;
+    //the moves scored exactly so far, best first, with ties in the order their searches finished
+    private final List<SearchResult> exactResults;
+
+    RootIteration(List<Move> moves, int numLines, int depth) {
+      this.moves = moves;
+      this.numLines = numLines;
+      this.depth = depth;
+      this.nextMove = new AtomicInteger();
+      this.exactResults = new ArrayList<>();
+    }
+
+    /**
+     * Searches root moves with the given searcher until every move has been taken or the search is
+     * stopped. Only the first depth must finish, so that the analysis has lines to report.
+     */
+    void searchMoves(AlphaBetaSearcher searcher, MutableChessModel position) {
+      for (int i = nextMove.getAndIncrement(); i < moves.size() && !isAborted; i = nextMove.getAndIncrement()) {
+        int lowerBound = getLowerBound();
+        SearchResult result = searcher.searchRootMove(position, moves.get(i), depth, lowerBound, depth > 1);
+        if (result == null) {
+          isAborted = true;
+        } else if (result.getScore() > lowerBound) {
+          addExactResult(result);
+        }
+      }
+    }
+
+    boolean isAborted() {
+      return this.isAborted;
+    }
+
+    /**
+     * Returns the score a move must beat to be among the best lines found so far, which is the
+     * lowest possible score until there are enough lines.
+     */
+    private synchronized int getLowerBound() {
+      return exactResults.size() < numLines ? -Score.INFINITY : exactResults.get(numLines - 1).getScore();
+    }
+
+    private synchronized void addExactResult(SearchResult result) {
+      int index = 0;
+      while (index < exactResults.size() && exactResults.get(index).getScore() >= result.getScore()) {
+        index++;
+      }
+      exactResults.add(index, result);
+    }
+
+    /**
+     * Returns the best lines of this depth, with the node counts and time of the whole analysis.
+     */
+    synchronized List<SearchResult> getLines(long elapsedMillis, List<Long> nodesPerThread) {
+      List<SearchResult> lines = new ArrayList<>();
+      for (SearchResult result : exactResults.subList(0, Math.min(numLines, exactResults.size()))) {
+        lines.add(new SearchResult(result.getBestMove(), result.getScore(), depth, result.getPrincipalVariation(),
+                elapsedMillis, nodesPerThread));
+      }
+      return List.copyOf(lines);
+    }
+
+    /**
+     * Returns the root moves in the order the next depth should search them - the moves scored
+     * exactly by their score, followed by the others in the order they were searched in.
+     */
+    synchronized List<Move> getMovesInOrder() {
+      List<Move> order = new ArrayList<>();
+      Set<Move> scoredMoves = new HashSet<>();
+      for (SearchResult result : exactResults) {
+        Move move = result.getBestMove().orElseThrow();
+        order.add(move);
+        scoredMoves.add(move);
+      }
+      for (Move move : moves) {
+        if (!scoredMoves.contains(move)) {
+          order.add(move);
+        }
+      }
+      return order;
+    }
+  }
+}
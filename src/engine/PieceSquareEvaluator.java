@@ -0,0 +1,19 @@
+package engine;
+
+import model.PieceSquareTables;
+import model.ReadOnlyChessModel;
+
+/**
+ * Evaluates positions by material and piece placement, blending the middlegame and endgame
+ * piece-square scores by the game phase (see PieceSquareTables). The models keep these scores up
+ * to date as moves are made and unmade, so an evaluation takes constant time, however many pieces
+ * are on the board.
+ */
+public final class PieceSquareEvaluator implements Evaluator {
+  @Override
+  public int evaluate(ReadOnlyChessModel model) {
+    int whiteScore = PieceSquareTables.taper(model.getMiddlegameScore(), model.getEndgameScore(),
+            model.getGamePhase());
+    return model.getWhiteToMove() ? whiteScore : -whiteScore;
+  }
+}
@@ -0,0 +1,73 @@
+package engine;
+
+/**
+ * Holds the constants and helpers for search scores. Scores are in centipawns from the point of
+ * view of the side to move, so a positive score is good for the side to move. Checkmates are
+ * scored as MATE minus the number of plies until mate, so that a faster mate scores higher, and
+ * every mate score is far outside the range of any material evaluation.
+ */
+public final class Score {
+  //the score for the side that delivers checkmate on the current ply
+  public static final int MATE = 100_000;
+  //a bound that no real score reaches, used as the initial alpha-beta window
+  public static final int INFINITY = MATE + 1;
+  public static final int DRAW = 0;
+  //scores beyond this magnitude are mate scores
+  private static final int MATE_THRESHOLD = MATE - 1_000;
+
+  private Score() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns the score for the side to move being checkmated the given number of plies from the
+   * root of the search.
+   */
+  public static int matedIn(int ply) {
+    return -MATE + ply;
+  }
+
+  /**
+   * Returns true if the given score means that one of the sides can force checkmate.
+   */
+  public static boolean isMate(int score) {
+    return Math.abs(score) > MATE_THRESHOLD;
+  }
+
+  /**
+   * Converts a score found the given number of plies from the root into the score to store in a
+   * transposition table. Mate scores count plies from the root, but a stored position may be
+   * reached again at a different ply, so they are stored as plies from the position itself.
+   */
+  public static int toTableScore(int score, int ply) {
+    if (score > MATE_THRESHOLD) {
+      return score + ply;
+    }
+    return score < -MATE_THRESHOLD ? score - ply : score;
+  }
+
+  /**
+   * Converts a score stored in a transposition table into a score for the position reached the
+   * given number of plies from the root - the inverse of toTableScore().
+   */
+  public static int fromTableScore(int score, int ply) {
+    if (score > MATE_THRESHOLD) {
+      return score - ply;
+    }
+    return score < -MATE_THRESHOLD ? score + ply : score;
+  }
+
+  /**
+   * Returns the number of full moves until mate for the given mate score, positive if the side to
+   * move delivers mate and negative if it is mated, as reported by engines such as "mate 3".
+   *
+   * @throws IllegalArgumentException if the score is not a mate score
+   */
+  public static int movesToMate(int score) {
+    if (!isMate(score)) {
+      throw new IllegalArgumentException(String.format("%d is not a mate score", score));
+    }
+    int plies = MATE - Math.abs(score);
+    return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+  }
+}
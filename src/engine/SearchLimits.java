@@ -0,0 +1,96 @@
+package engine;
+
+/**
+ * Represents the limits of a search - how deep it may go, how long it may take and how many
+ * positions it may visit. A search stops at whichever limit it reaches first, and always completes
+ * at least a depth one search so that it has a move to report. Immutable, create through the
+ * builder.
+ */
+public final class SearchLimits {
+  //the deepest iteration a search may start, in plies
+  public static final int MAX_DEPTH = 64;
+  //the time limit of a search that is only limited by depth
+  public static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+  //the node limit of a search that is not limited by nodes
+  public static final long NO_NODE_LIMIT = Long.MAX_VALUE;
+
+  //INVARIANT: 1 <= maxDepth <= MAX_DEPTH, timeLimitMillis > 0 and maxNodes > 0
+  private final int maxDepth;
+  private final long timeLimitMillis;
+  private final long maxNodes;
+
+  //Private constructor to force client instantiation through the builder
+  private SearchLimits(Builder builder) {
+    this.maxDepth = builder.maxDepth;
+    this.timeLimitMillis = builder.timeLimitMillis;
+    this.maxNodes = builder.maxNodes;
+  }
+
+  public static class Builder {
+    //Optional parameters - initialized to default values
+    private int maxDepth = MAX_DEPTH;
+    private long timeLimitMillis = NO_TIME_LIMIT;
+    private long maxNodes = NO_NODE_LIMIT;
+
+    /**
+     * Sets the deepest iteration the search may start, in plies.
+     *
+     * @throws IllegalArgumentException if the depth is not between 1 and MAX_DEPTH
+     */
+    public Builder maxDepth(int maxDepth) {
+      if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+        throw new IllegalArgumentException(String.format("Max depth must be between 1 and %d, got %d",
+                MAX_DEPTH, maxDepth));
+      }
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    /**
+     * Sets the wall-clock time the search may take, in milliseconds.
+     *
+     * @throws IllegalArgumentException if the time limit is not positive
+     */
+    public Builder timeLimitMillis(long timeLimitMillis) {
+      if (timeLimitMillis <= 0) {
+        throw new IllegalArgumentException("Time limit must be positive");
+      }
+      this.timeLimitMillis = timeLimitMillis;
+      return this;
+    }
+
+    /**
+     * Sets the number of positions the search may visit. In a parallel search, the limit applies
+     * to each thread's own count.
+     *
+     * @throws IllegalArgumentException if the node limit is not positive
+     */
+    public Builder maxNodes(long maxNodes) {
+      if (maxNodes <= 0) {
+        throw new IllegalArgumentException("Node limit must be positive");
+      }
+      this.maxNodes = maxNodes;
+      return this;
+    }
+
+    public SearchLimits build() {
+      return new SearchLimits(this);
+    }
+  }
+
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  public long getTimeLimitMillis() {
+    return this.timeLimitMillis;
+  }
+
+  public long getMaxNodes() {
+    return this.maxNodes;
+  }
+
+  public boolean hasTimeLimit() {
+    return this.timeLimitMillis != NO_TIME_LIMIT;
+  }
+}
@@ -0,0 +1,112 @@
+package engine;
+
+import java.util.List;
+import java.util.Optional;
+
+import model.Move;
+
+/**
+ * Represents the result of a search - the best move found, its score and the principal variation,
+ * the line of play the search expects from both sides, which starts with the best move.
+ * Immutable.
+ */
+public final class SearchResult {
+  private final Optional<Move> bestMove;
+  private final int score;
+  private final int depth;
+  private final List<Move> principalVariation;
+  private final long nodes;
+  private final long elapsedMillis;
+  private final List<Long> nodesPerThread;
+
+  /**
+   * Constructs a search result.
+   * INVARIANT: none of the fields are null, and the principal variation starts with the best move
+   *
+   * @param bestMove           the best move found, or the empty optional if there are no legal moves
+   * @param score              the score of the best move, see Score
+   * @param depth              the depth of the deepest completed iteration, in plies
+   * @param principalVariation the expected line of play
+   * @param nodes              the number of positions visited
+   * @param elapsedMillis      the wall-clock time the search took
+   */
+  SearchResult(Optional<Move> bestMove, int score, int depth, List<Move> principalVariation, long nodes,
+               long elapsedMillis) {
+    this(bestMove, score, depth, principalVariation, elapsedMillis, List.of(nodes));
+  }
+
+  /**
+   * Constructs the result of a search run on several threads, whose node count is the sum of the
+   * node counts of its threads.
+   *
+   * @param nodesPerThread the number of positions visited by each thread, main thread first
+   */
+  SearchResult(Optional<Move> bestMove, int score, int depth, List<Move> principalVariation, long elapsedMillis,
+               List<Long> nodesPerThread) {
+    this.bestMove = bestMove;
+    this.score = score;
+    this.depth = depth;
+    this.principalVariation = List.copyOf(principalVariation);
+    this.nodes = nodesPerThread.stream().mapToLong(Long::longValue).sum();
+    this.elapsedMillis = elapsedMillis;
+    this.nodesPerThread = List.copyOf(nodesPerThread);
+  }
+
+  public Optional<Move> getBestMove() {
+    return this.bestMove;
+  }
+
+  /**
+   * Returns the score of the best move in centipawns, from the point of view of the side to move.
+   */
+  public int getScore() {
+    return this.score;
+  }
+
+  public int getDepth() {
+    return this.depth;
+  }
+
+  /**
+   * Returns the principal variation as an unmodifiable list, starting with the best move.
+   */
+  public List<Move> getPrincipalVariation() {
+    return this.principalVariation;
+  }
+
+  public long getNodes() {
+    return this.nodes;
+  }
+
+  public long getElapsedMillis() {
+    return this.elapsedMillis;
+  }
+
+  /**
+   * Returns the number of positions visited per second of search, across all threads.
+   */
+  public long getNodesPerSecond() {
+    return this.nodes * 1000 / Math.max(this.elapsedMillis, 1);
+  }
+
+  /**
+   * Returns the number of threads the search ran on.
+   */
+  public int getNumThreads() {
+    return this.nodesPerThread.size();
+  }
+
+  /**
+   * Returns the number of positions each thread visited per second of search, main thread first.
+   */
+  public List<Long> getNodesPerSecondPerThread() {
+    return this.nodesPerThread.stream().map(threadNodes -> threadNodes * 1000 / Math.max(this.elapsedMillis, 1))
+            .toList();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Best move %s with score %d at depth %d (%d nodes in %d ms)",
+            bestMove.map(Move::toString).orElse("none"), score, depth, nodes, elapsedMillis);
+  }
+}
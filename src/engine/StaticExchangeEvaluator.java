@@ -0,0 +1,124 @@
+package engine;
+
+import model.AttackTables;
+import model.MagicBitboards;
+import model.Move;
+import model.PackedMove;
+import model.Piece;
+import model.PieceType;
+import model.PlayerColor;
+import model.ReadOnlyChessModel;
+import model.StrictChessModel;
+
+/**
+ * Estimates the material outcome of a capture without searching it ("static exchange evaluation"):
+ * both sides take turns recapturing on the square with their least valuable attacker, and either
+ * side may stop recapturing when continuing would lose material. Attackers hidden behind another
+ * slider on the same line (x-rays) join in once the piece in front of them has captured. Pins and
+ * checks are ignored, so the result is an estimate, but a cheap one - only the pieces attacking
+ * the square are looked at.
+ * Quiescence search uses the estimate to skip captures that lose material, such as a queen taking
+ * a defended pawn, which are almost never the best move.
+ */
+public final class StaticExchangeEvaluator {
+  //high enough that capturing the king always ends the exchange in the capturer's favor, so a king
+  //only recaptures on squares the opponent no longer attacks
+  private static final int KING_VALUE = 20_000;
+  //an exchange can involve at most every piece on the board
+  private static final int MAX_EXCHANGE_LENGTH = 32;
+
+  private StaticExchangeEvaluator() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns the material the side to move expects to win with the given capture, in centipawns,
+   * once every profitable recapture on the destination square has been made. Negative if the
+   * capture loses material. A move that does not capture anything is treated as a capture of
+   * nothing, so it scores 0 unless the moved piece can be taken for free.
+   *
+   * @param model   the model whose position the capture is made in
+   * @param capture the capture to evaluate, which must be a legal move in the model's position
+   * @return the expected material balance of the exchange for the side making the capture
+   */
+  public static int evaluate(ReadOnlyChessModel model, Move capture) {
+    int from = PackedMove.toSquare(capture.getSourcePosition());
+    int to = PackedMove.toSquare(capture.getDestinationPosition());
+    boolean isWhite = model.getWhiteToMove();
+    long whitePieces = model.getOccupancy(PlayerColor.WHITE);
+    long blackPieces = model.getOccupancy(PlayerColor.BLACK);
+    long occupancy = whitePieces | blackPieces;
+    int[] gain = new int[MAX_EXCHANGE_LENGTH];
+    if (capture.getFlag() == Move.MoveFlag.EN_PASSANT) {
+      //the captured pawn is beside the destination square, on the capturing pawn's row
+      int capturedSquare = capture.getSourcePosition().getRow() * StrictChessModel.NUM_FILES
+              + capture.getDestinationPosition().getCol();
+      gain[0] = value(PieceType.PAWN);
+      occupancy &= ~(1L << capturedSquare);
+    } else {
+      gain[0] = model.getPieceAt(capture.getDestinationPosition()).map(p -> value(p.getType())).orElse(0);
+    }
+    int attackerValue = value(model.getPieceAt(capture.getSourcePosition()).orElseThrow().getType());
+    long attacker = 1L << from;
+    int depth = 0;
+    do {
+      depth++;
+      //the score for the side capturing at this depth if the piece now on the square is captured
+      gain[depth] = attackerValue - gain[depth - 1];
+      occupancy &= ~attacker;
+      //even depths are the capturing side's turn, odd depths the opponent's
+      boolean isSideWhite = isWhite == (depth % 2 == 0);
+      long sidePieces = (isSideWhite ? whitePieces : blackPieces) & occupancy;
+      attacker = leastValuableAttacker(model, to, isSideWhite, sidePieces, occupancy);
+      if (attacker != 0) {
+        attackerValue = value(pieceAt(model, attacker).getType());
+      }
+    } while (attacker != 0 && depth < MAX_EXCHANGE_LENGTH - 1);
+    //each side chooses between recapturing and standing pat, from the last capture backwards
+    while (--depth > 0) {
+      gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+    }
+    return gain[0];
+  }
+
+  /**
+   * Returns the bit of the least valuable piece among the given side's pieces that attacks the
+   * given square, given the occupancy of the board, or 0 if none of them attack it. The occupancy
+   * decides which sliders can see the square, which is how x-ray attackers are revealed.
+   */
+  private static long leastValuableAttacker(ReadOnlyChessModel model, int square, boolean isWhite, long sidePieces,
+                                            long occupancy) {
+    long diagonal = MagicBitboards.bishopAttacks(square, occupancy);
+    long straight = MagicBitboards.rookAttacks(square, occupancy);
+    //a pawn attacks the square if it stands where a pawn of the other color on the square would attack
+    long candidates = sidePieces & (AttackTables.pawnAttacks(!isWhite, square) | AttackTables.knightAttacks(square)
+            | diagonal | straight | AttackTables.kingAttacks(square));
+    long best = 0;
+    int bestValue = Integer.MAX_VALUE;
+    for (; candidates != 0; candidates &= candidates - 1) {
+      long bit = Long.lowestOneBit(candidates);
+      PieceType type = pieceAt(model, bit).getType();
+      boolean attacks = switch (type) {
+        case PAWN -> (AttackTables.pawnAttacks(!isWhite, square) & bit) != 0;
+        case KNIGHT -> (AttackTables.knightAttacks(square) & bit) != 0;
+        case BISHOP -> (diagonal & bit) != 0;
+        case ROOK -> (straight & bit) != 0;
+        case QUEEN -> ((diagonal | straight) & bit) != 0;
+        case KING -> (AttackTables.kingAttacks(square) & bit) != 0;
+      };
+      if (attacks && value(type) < bestValue) {
+        best = bit;
+        bestValue = value(type);
+      }
+    }
+    return best;
+  }
+
+  private static Piece pieceAt(ReadOnlyChessModel model, long bit) {
+    return model.getPieceAt(PackedMove.toRowColPair(Long.numberOfTrailingZeros(bit))).orElseThrow();
+  }
+
+  private static int value(PieceType type) {
+    return type == PieceType.KING ? KING_VALUE : MaterialEvaluator.getPieceValue(type);
+  }
+}
@@ -0,0 +1,167 @@
+package engine;
+
+import java.util.Arrays;
+
+import model.PackedMove;
+
+/**
+ * Remembers the results of searched positions, keyed by their Zobrist keys, so that a position
+ * reached again - by a transposition of moves, by a deeper iteration, or by a later search in the
+ * same game - does not have to be searched again from scratch. The table is never cleared between
+ * searches, so a search after the opponent replies starts with the results of the previous one.
+ * The table has a fixed, power of two number of entries held in a single long array, two longs
+ * per entry: the entry's data packed into one long (see below), and the position's key XORed with
+ * the data. Many search threads may read and write the table at once without locking. A torn or
+ * interleaved write leaves an entry whose key and data no longer match, so probe() treats it as a
+ * miss instead of returning another position's data - the "lockless XOR" scheme.
+ * Packed data layout, from the least significant bit:
+ * bits 0-15 the best move (see PackedMove), bits 16-47 the score, bits 48-55 the depth, bits 56-57
+ * the bound and bits 58-63 the generation of the search that stored the entry.
+ */
+public final class TranspositionTable {
+  //the data of an empty slot, which no stored entry can have since every entry has a bound
+  public static final long NO_ENTRY = 0;
+  public static final int MAX_SIZE_MEGABYTES = 4096;
+  private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+  private static final int SCORE_SHIFT = 16;
+  private static final int DEPTH_SHIFT = 48;
+  private static final int BOUND_SHIFT = 56;
+  private static final int GENERATION_SHIFT = 58;
+  private static final int MOVE_MASK = 0xFFFF;
+  private static final int DEPTH_MASK = 0xFF;
+  private static final int BOUND_MASK = 0x3;
+  private static final int GENERATION_MASK = 0x3F;
+  private static final Bound[] BOUNDS = Bound.values();
+
+  /**
+   * Represents how a stored score relates to the true score of its position. An alpha-beta search
+   * only learns the exact score of a position if the score falls inside its window - otherwise it
+   * only learns that the true score is at least (a fail high) or at most (a fail low) the stored
+   * score.
+   */
+  public enum Bound {
+    //stored as the ordinal plus one, so that no stored entry is NO_ENTRY
+    EXACT, LOWER, UPPER
+  }
+
+  //INVARIANT: table.length is a power of two, at least 2, and indexMask is the number of entries - 1
+  private final long[] table;
+  private final long indexMask;
+  private int generation;
+
+  /**
+   * Constructs an empty table that uses at most the given number of megabytes. The number of
+   * entries is the largest power of two that fits.
+   *
+   * @param sizeMegabytes the size of the table in megabytes
+   * @throws IllegalArgumentException if the size is not between 1 and MAX_SIZE_MEGABYTES
+   */
+  public TranspositionTable(int sizeMegabytes) {
+    if (sizeMegabytes < 1 || sizeMegabytes > MAX_SIZE_MEGABYTES) {
+      throw new IllegalArgumentException(String.format("Table size must be between 1 and %d megabytes, got %d",
+              MAX_SIZE_MEGABYTES, sizeMegabytes));
+    }
+    long numEntries = Long.highestOneBit((long) sizeMegabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+    this.table = new long[(int) (2 * numEntries)];
+    this.indexMask = numEntries - 1;
+  }
+
+  /**
+   * Looks up the entry for the position with the given key.
+   *
+   * @return the packed data of the entry, to be read with the static getters of this class, or
+   * NO_ENTRY if the table has no entry for the position
+   */
+  public long probe(long key) {
+    int index = indexOf(key);
+    long data = table[index + 1];
+    long check = table[index];
+    return data != NO_ENTRY && (check ^ data) == key ? data : NO_ENTRY;
+  }
+
+  /**
+   * Stores the result of searching the position with the given key, in the slot the key maps to.
+   * The slot's current entry is only replaced if it is for the same position, was stored by an
+   * earlier search, or was searched no deeper than this result - so a deep result is not pushed
+   * out by the many shallow ones near the leaves of the current search. When a fail low result
+   * with no best move replaces an entry for the same position, the entry's best move is kept.
+   *
+   * @param key   the Zobrist key of the position
+   * @param move  the packed best move, or PackedMove.NULL_MOVE if there is none
+   * @param score the score, already adjusted with Score.toTableScore()
+   * @param depth the depth the position was searched to, between 0 and 255
+   * @param bound how the score relates to the true score of the position
+   */
+  public void store(long key, int move, int score, int depth, Bound bound) {
+    int index = indexOf(key);
+    long oldData = table[index + 1];
+    boolean isSamePosition = oldData != NO_ENTRY && (table[index] ^ oldData) == key;
+    if (!isSamePosition && oldData != NO_ENTRY && getGeneration(oldData) == generation
+            && getDepth(oldData) > depth) {
+      return;
+    }
+    if (move == PackedMove.NULL_MOVE && isSamePosition) {
+      move = getMove(oldData);
+    }
+    long data = (move & MOVE_MASK)
+            | ((score & 0xFFFFFFFFL) << SCORE_SHIFT)
+            | ((long) (depth & DEPTH_MASK) << DEPTH_SHIFT)
+            | ((long) (bound.ordinal() + 1) << BOUND_SHIFT)
+            | ((long) generation << GENERATION_SHIFT);
+    table[index] = key ^ data;
+    table[index + 1] = data;
+  }
+
+  /**
+   * Marks the start of a new search, so that the entries of earlier searches are replaced first.
+   * Entries are not cleared - positions that come up again keep their results.
+   */
+  public void newSearch() {
+    generation = (generation + 1) & GENERATION_MASK;
+  }
+
+  /**
+   * Removes every entry from the table, e.g. before a new game.
+   */
+  public void clear() {
+    Arrays.fill(table, 0);
+    generation = 0;
+  }
+
+  /**
+   * Returns the number of entries the table can hold.
+   */
+  public int getCapacity() {
+    return table.length / 2;
+  }
+
+  /**
+   * Returns the packed best move of the given entry, or PackedMove.NULL_MOVE if it has none.
+   */
+  public static int getMove(long data) {
+    return (int) (data & MOVE_MASK);
+  }
+
+  /**
+   * Returns the stored score of the given entry, to be adjusted with Score.fromTableScore().
+   */
+  public static int getScore(long data) {
+    return (int) (data >>> SCORE_SHIFT);
+  }
+
+  public static int getDepth(long data) {
+    return (int) ((data >>> DEPTH_SHIFT) & DEPTH_MASK);
+  }
+
+  public static Bound getBound(long data) {
+    return BOUNDS[(int) ((data >>> BOUND_SHIFT) & BOUND_MASK) - 1];
+  }
+
+  private static int getGeneration(long data) {
+    return (int) (data >>> GENERATION_SHIFT);
+  }
+
+  private int indexOf(long key) {
+    return (int) (key & indexMask) * 2;
+  }
+}
@@ -0,0 +1,147 @@
+package model;
+
+/**
+ * Holds the squares attacked by knights, kings and pawns from every square of the board, computed
+ * once when the class is loaded. Attacks are returned as bitboards, where bit n is set if and only
+ * if square n is attacked. Squares are numbered row by row from a8 = 0 to h1 = 63, so square n
+ * corresponds to the RowColPair (n / 8, n % 8), which PackedMove.toRowColPair() returns without
+ * allocating. It also holds the squares between any two squares that share a line, which is
+ * what check and pin detection is built from.
+ * Move generators look up these tables instead of applying offsets to a position and bounds
+ * checking each candidate square on every call.
+ */
+public final class AttackTables {
+  private static final int NUM_SQUARES = StrictChessModel.NUM_RANKS * StrictChessModel.NUM_FILES;
+  private static final int[][] KNIGHT_OFFSETS = {
+          {-2, -1}, {-1, -2}, {1, -2}, {2, -1}, {2, 1}, {1, 2}, {-1, 2}, {-2, 1}
+  };
+
+  //immutable lookup tables, initialized in static block
+  private static final long[] KNIGHT_ATTACKS = new long[NUM_SQUARES];
+  private static final long[] KING_ATTACKS = new long[NUM_SQUARES];
+  private static final long[] WHITE_PAWN_ATTACKS = new long[NUM_SQUARES];
+  private static final long[] BLACK_PAWN_ATTACKS = new long[NUM_SQUARES];
+  //the squares strictly between two squares, and the whole line through them, indexed by both
+  //squares. Both are empty for squares that do not share a row, column or diagonal
+  private static final long[][] BETWEEN = new long[NUM_SQUARES][NUM_SQUARES];
+  private static final long[][] LINES = new long[NUM_SQUARES][NUM_SQUARES];
+
+  static {
+    for (int square = 0; square < NUM_SQUARES; square++) {
+      int row = square / StrictChessModel.NUM_FILES;
+      int col = square % StrictChessModel.NUM_FILES;
+      for (int[] offset : KNIGHT_OFFSETS) {
+        KNIGHT_ATTACKS[square] |= bitAt(row + offset[0], col + offset[1]);
+      }
+      for (Direction direction : Direction.values()) {
+        KING_ATTACKS[square] |= bitAt(row + direction.getRankOffset(), col + direction.getFileOffset());
+      }
+      //white pawns move towards row 0, black pawns move towards row 7
+      WHITE_PAWN_ATTACKS[square] = bitAt(row - 1, col - 1) | bitAt(row - 1, col + 1);
+      BLACK_PAWN_ATTACKS[square] = bitAt(row + 1, col - 1) | bitAt(row + 1, col + 1);
+      for (Direction direction : Direction.values()) {
+        fillLines(square, direction);
+      }
+    }
+  }
+
+  /**
+   * Walks from the given square in the given direction, recording the squares between the start
+   * and each square it reaches, and the full line through both squares.
+   */
+  private static void fillLines(int square, Direction direction) {
+    int row = square / StrictChessModel.NUM_FILES;
+    int col = square % StrictChessModel.NUM_FILES;
+    long ray = rayFrom(row, col, direction.getRankOffset(), direction.getFileOffset());
+    long oppositeRay = rayFrom(row, col, -direction.getRankOffset(), -direction.getFileOffset());
+    long line = ray | oppositeRay | (1L << square);
+    long between = 0;
+    for (long remaining = ray; remaining != 0; ) {
+      //walk outward from the square, nearest square first
+      long next = nearest(square, remaining);
+      int target = Long.numberOfTrailingZeros(next);
+      BETWEEN[square][target] = between;
+      LINES[square][target] = line;
+      between |= next;
+      remaining &= ~next;
+    }
+  }
+
+  private static long rayFrom(int row, int col, int rankOffset, int fileOffset) {
+    long ray = 0;
+    for (int r = row + rankOffset, c = col + fileOffset; bitAt(r, c) != 0; r += rankOffset, c += fileOffset) {
+      ray |= bitAt(r, c);
+    }
+    return ray;
+  }
+
+  //the bit of the given ray that is nearest to the given square - rays run along one direction,
+  //so it is the lowest bit if the ray runs towards higher squares and the highest bit otherwise
+  private static long nearest(int square, long ray) {
+    return Long.numberOfTrailingZeros(ray) > square ? Long.lowestOneBit(ray) : Long.highestOneBit(ray);
+  }
+
+  private AttackTables() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns the bitboard of squares a knight on the given square attacks.
+   *
+   * @param square the square of the knight, between 0 and 63
+   */
+  public static long knightAttacks(int square) {
+    return KNIGHT_ATTACKS[square];
+  }
+
+  /**
+   * Returns the bitboard of squares a king on the given square attacks, not counting castling.
+   *
+   * @param square the square of the king, between 0 and 63
+   */
+  public static long kingAttacks(int square) {
+    return KING_ATTACKS[square];
+  }
+
+  /**
+   * Returns the bitboard of squares a pawn of the given color on the given square attacks - the two
+   * squares diagonally in front of it, or one if the pawn is on the edge of the board.
+   *
+   * @param isWhite true for a white pawn, false for a black pawn
+   * @param square  the square of the pawn, between 0 and 63
+   */
+  public static long pawnAttacks(boolean isWhite, int square) {
+    return isWhite ? WHITE_PAWN_ATTACKS[square] : BLACK_PAWN_ATTACKS[square];
+  }
+
+  /**
+   * Returns the bitboard of squares strictly between the two given squares if they share a row,
+   * column or diagonal, or 0 if they do not. A slider on one square attacks the other if and only
+   * if every square between them is empty.
+   *
+   * @param from one of the squares, between 0 and 63
+   * @param to   the other square, between 0 and 63
+   */
+  public static long between(int from, int to) {
+    return BETWEEN[from][to];
+  }
+
+  /**
+   * Returns the bitboard of the whole row, column or diagonal through the two given squares, from
+   * one edge of the board to the other, or 0 if they do not share one. A piece pinned to its king
+   * can only move along the line through itself and the king.
+   *
+   * @param from one of the squares, between 0 and 63
+   * @param to   the other square, between 0 and 63
+   */
+  public static long line(int from, int to) {
+    return LINES[from][to];
+  }
+
+  private static long bitAt(int row, int col) {
+    if (row < 0 || row >= StrictChessModel.NUM_RANKS || col < 0 || col >= StrictChessModel.NUM_FILES) {
+      return 0;
+    }
+    return 1L << (row * StrictChessModel.NUM_FILES + col);
+  }
+}
@@ -0,0 +1,1281 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import model.Pieces.Bishop;
+import model.Pieces.King;
+import model.Pieces.Knight;
+import model.Pieces.Pawn;
+import model.Pieces.Queen;
+import model.Pieces.Rook;
+
+/**
+ * Represents a chess model whose position is stored as bitboards - one 64-bit long for each of the
+ * twelve piece type / color combinations, where bit n is set if and only if that piece occupies
+ * square n. Squares are numbered row by row starting from the top left of the board, so square n
+ * corresponds to the RowColPair (n / 8, n % 8), a8 is square 0 and h1 is square 63.
+ * Move generation, attack detection and king lookup are done with bit operations on these boards
+ * instead of scans over a 2D array of pieces, which makes this model a drop-in replacement for
+ * StrictChessModel wherever move generation speed matters.
+ */
+public final class BitboardChessModel implements MutableChessModel {
+  //Constants
+  private static final int NUM_SQUARES = StrictChessModel.NUM_RANKS * StrictChessModel.NUM_FILES;
+  //the number of sections of information in a fen string
+  private static final int NUM_FEN_PARTS = 6;
+  //piece indices - white pieces are at their PieceType ordinal, black pieces are offset by 6
+  private static final int NUM_PIECE_TYPES = 6;
+  private static final int NO_PIECE = -1;
+  private static final int NO_SQUARE = -1;
+  //the rows of en passant target squares, on the sixth rank when white is to move and the third
+  //rank when black is to move
+  private static final int EN_PASSANT_ROW_WHITE_TO_MOVE = 2;
+  private static final int EN_PASSANT_ROW_BLACK_TO_MOVE = 5;
+  //the light squares, a8 first - a square is light when its row and column add up to an even number
+  private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+  private static final int WHITE = 0;
+  private static final int BLACK = 1;
+  //castling right bits, in the same order as the FEN castling characters "KQkq"
+  private static final int WHITE_KINGSIDE = 1;
+  private static final int WHITE_QUEENSIDE = 2;
+  private static final int BLACK_KINGSIDE = 4;
+  private static final int BLACK_QUEENSIDE = 8;
+  private static final String CASTLING_CHARS = "KQkq";
+  //rights that survive a move touching each square - moving to or from a king or rook home square
+  //removes the castling rights that depend on that square
+  private static final int[] CASTLING_MASKS = new int[NUM_SQUARES];
+  //home squares used for castling
+  private static final int WHITE_KING_HOME = 60;
+  private static final int BLACK_KING_HOME = 4;
+  //the undo stacks for packed moves start deep enough for any search, and grow for longer games
+  private static final int INITIAL_UNDO_STACK_SIZE = 128;
+  //bit layout of a packed undo entry - the captured piece and en passant square are stored plus one
+  //so that NO_PIECE and NO_SQUARE are stored as 0
+  private static final int UNDO_CASTLING_SHIFT = 4;
+  private static final int UNDO_EN_PASSANT_SHIFT = 8;
+  private static final int UNDO_HALF_MOVE_SHIFT = 16;
+
+  //immutable lookup tables, initialized in static block
+  private static final RowColPair[] SQUARES = new RowColPair[NUM_SQUARES];
+  //one shared, immutable Optional per piece index, used when handing out board copies
+  private static final List<Optional<Piece>> PIECES;
+  //shared, immutable values for the board rights handed out to clients and stored in undo records
+  private static final String[] CASTLING_STRINGS = new String[16];
+  private static final List<Optional<RowColPair>> EN_PASSANT_TARGETS;
+  //the PieceSquareTables values and phase weight of each piece index on each square, so that
+  //putting and removing pieces needs no PieceType lookups
+  private static final int[][] MIDDLEGAME_VALUES = new int[2 * NUM_PIECE_TYPES][NUM_SQUARES];
+  private static final int[][] ENDGAME_VALUES = new int[2 * NUM_PIECE_TYPES][NUM_SQUARES];
+  private static final int[] PHASE_WEIGHTS = new int[2 * NUM_PIECE_TYPES];
+  private static final Move.MoveFlag[] PROMOTION_FLAGS = {
+          Move.MoveFlag.PAWN_PROMOTION_TO_QUEEN, Move.MoveFlag.PAWN_PROMOTION_TO_ROOK,
+          Move.MoveFlag.PAWN_PROMOTION_TO_BISHOP, Move.MoveFlag.PAWN_PROMOTION_TO_KNIGHT
+  };
+
+  //fields for a unique chess model instance
+  //INVARIANT: pieceBitboards, colorOccupancy, occupancy and mailbox always describe the same board
+  private final long[] pieceBitboards;
+  private final long[] colorOccupancy; //indexed by WHITE / BLACK
+  private long occupancy;
+  private final int[] mailbox; //the piece index at each square, or NO_PIECE
+  private final List<ModelListener> listeners;
+  private boolean hasGameStarted;
+  //board rights: represents the rights for each color in a given board
+  private boolean whiteToMove;
+  private int castlingRights; //bit set of WHITE_KINGSIDE, WHITE_QUEENSIDE, etc.
+  private int enPassantSquare; //the square passed over by a double pawn push, or NO_SQUARE
+  //INVARIANT: halfMoveClock >= 0 and fullMoveClock >= 0
+  private int halfMoveClock;
+  private int fullMoveClock;
+  //INVARIANT: zobristKey is always the Zobrist key of the current position, see getZobristKey()
+  private long zobristKey;
+  //material and piece-square scores and game phase, see PieceSquareTables
+  //INVARIANT: these always describe the pieces on the board
+  private int middlegameScore;
+  private int endgameScore;
+  private int gamePhase;
+  //the FEN string for the current position, generated on demand by toString() and cached until the
+  //position changes. INVARIANT: fenString is either null or valid and up to date
+  private String fenString;
+  //undo stack for moves made with makePackedMove(), indexed by ply. Each undo entry packs the
+  //captured piece, castling rights, en passant square and half move clock from before the move.
+  //INVARIANT: 0 <= ply <= the length of each stack
+  private int[] packedMoveStack;
+  private long[] packedUndoStack;
+  private int ply;
+  //the keys of the positions before each move made, through either API, see getRepetitionCount().
+  //Packed moves take their previous key back from here when they are unmade.
+  private final PositionHistory positionHistory;
+  //the legal moves and game result of the current position, once worked out, see PositionCache
+  private final PositionCache positionCache;
+
+  static {
+    for (int square = 0; square < NUM_SQUARES; square++) {
+      SQUARES[square] = PackedMove.toRowColPair(square);
+      CASTLING_MASKS[square] = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+    }
+    CASTLING_MASKS[WHITE_KING_HOME] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+    CASTLING_MASKS[63] &= ~WHITE_KINGSIDE; //h1
+    CASTLING_MASKS[56] &= ~WHITE_QUEENSIDE; //a1
+    CASTLING_MASKS[BLACK_KING_HOME] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    CASTLING_MASKS[7] &= ~BLACK_KINGSIDE; //h8
+    CASTLING_MASKS[0] &= ~BLACK_QUEENSIDE; //a8
+
+    for (int rights = 0; rights < CASTLING_STRINGS.length; rights++) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < CASTLING_CHARS.length(); i++) {
+        if ((rights & (1 << i)) != 0) {
+          sb.append(CASTLING_CHARS.charAt(i));
+        }
+      }
+      CASTLING_STRINGS[rights] = rights == 0 ? "-" : sb.toString();
+    }
+    List<Optional<RowColPair>> enPassantTargets = new ArrayList<>();
+    for (RowColPair square : SQUARES) {
+      enPassantTargets.add(Optional.of(square));
+    }
+    EN_PASSANT_TARGETS = List.copyOf(enPassantTargets);
+
+    List<Optional<Piece>> pieces = new ArrayList<>();
+    for (boolean isWhite : new boolean[]{true, false}) {
+      pieces.add(Optional.of(new Pawn(isWhite)));
+      pieces.add(Optional.of(new Knight(isWhite)));
+      pieces.add(Optional.of(new Bishop(isWhite)));
+      pieces.add(Optional.of(new Rook(isWhite)));
+      pieces.add(Optional.of(new Queen(isWhite)));
+      pieces.add(Optional.of(new King(isWhite)));
+    }
+    PIECES = List.copyOf(pieces);
+
+    for (int piece = 0; piece < 2 * NUM_PIECE_TYPES; piece++) {
+      PieceType type = PieceType.values()[piece % NUM_PIECE_TYPES];
+      boolean isWhite = piece / NUM_PIECE_TYPES == WHITE;
+      for (int square = 0; square < NUM_SQUARES; square++) {
+        MIDDLEGAME_VALUES[piece][square] = PieceSquareTables.middlegameValue(type, isWhite, square);
+        ENDGAME_VALUES[piece][square] = PieceSquareTables.endgameValue(type, isWhite, square);
+      }
+      PHASE_WEIGHTS[piece] = PieceSquareTables.phaseWeight(type);
+    }
+  }
+
+  //Private constructor to force client instantiation through the builder
+  private BitboardChessModel(Builder builder) {
+    this.pieceBitboards = new long[2 * NUM_PIECE_TYPES];
+    this.colorOccupancy = new long[2];
+    this.mailbox = new int[NUM_SQUARES];
+    Arrays.fill(this.mailbox, NO_PIECE);
+    //try to initialize the board from the fen string, throw an IAE if invalid
+    tryInitializingBoardFromFen(builder.fen);
+    this.listeners = new ArrayList<>();
+    this.hasGameStarted = false;
+    this.positionHistory = new PositionHistory();
+    this.positionCache = new PositionCache();
+    initializeUndoStacks();
+  }
+
+  //Copy constructor used for deep copies, so that copies never need to re-parse a FEN string
+  private BitboardChessModel(BitboardChessModel other) {
+    this.pieceBitboards = other.pieceBitboards.clone();
+    this.colorOccupancy = other.colorOccupancy.clone();
+    this.occupancy = other.occupancy;
+    this.mailbox = other.mailbox.clone();
+    this.whiteToMove = other.whiteToMove;
+    this.castlingRights = other.castlingRights;
+    this.enPassantSquare = other.enPassantSquare;
+    this.halfMoveClock = other.halfMoveClock;
+    this.fullMoveClock = other.fullMoveClock;
+    this.zobristKey = other.zobristKey;
+    this.middlegameScore = other.middlegameScore;
+    this.endgameScore = other.endgameScore;
+    this.gamePhase = other.gamePhase;
+    this.fenString = other.fenString; //strings are immutable, so the cache can be shared
+    //no need to copy over the listeners, since they are only concerned with the other model
+    this.listeners = new ArrayList<>();
+    this.hasGameStarted = other.hasGameStarted;
+    this.positionHistory = new PositionHistory(other.positionHistory);
+    this.positionCache = new PositionCache(other.positionCache);
+    //packed moves made on the other model can only be unmade on the other model
+    initializeUndoStacks();
+  }
+
+  private void initializeUndoStacks() {
+    this.packedMoveStack = new int[INITIAL_UNDO_STACK_SIZE];
+    this.packedUndoStack = new long[INITIAL_UNDO_STACK_SIZE];
+    this.ply = 0;
+  }
+
+  public static class Builder {
+    //Required parameters - initialized in public constructor
+    private final String fen;
+
+    public Builder(String fen) {
+      if (fen == null) {
+        throw new IllegalArgumentException("Unable to create model builder with null fenString");
+      }
+      this.fen = fen;
+    }
+
+    public BitboardChessModel build() {
+      return new BitboardChessModel(this);
+    }
+  }
+
+  private void tryInitializingBoardFromFen(String fen) {
+    try {
+      //FEN Strings contain 6 pieces of information, each separated by spaces:
+      String[] parts = fen.split(" ");
+      if (parts.length != NUM_FEN_PARTS) {
+        throw new IllegalArgumentException(String.format("Invalid part length: expected %d piece of " +
+                "information, got %d parts", NUM_FEN_PARTS, parts.length));
+      }
+      tryToParsePiecePlacement(parts[0]);
+      tryToParseSideToMove(parts[1]);
+      this.castlingRights = parseCastlingRights(parts[2]) & castlingRightsWithKingAndRookAtHome();
+      tryToParseEnPassantTargetSquare(parts[3]);
+      this.halfMoveClock = tryToParseClock(parts[4], "half move counter");
+      this.fullMoveClock = tryToParseClock(parts[5], "full Move Clock");
+      //the piece keys were added as the pieces were placed, so only the board rights are missing
+      this.zobristKey ^= boardRightsKey();
+    } catch (Exception e) {
+      throw new IllegalArgumentException(String.format("Unable to parse FEN String due to error %s",
+              e.getMessage() == null ? "" : e.getMessage()));
+    }
+  }
+
+  /**
+   * Initializes the bitboards and mailbox for the piece placement section of the given fen string.
+   * The piece placement must describe all 64 squares, and contain exactly one king of each color.
+   *
+   * @param piecePlacement the piece placement section of the fen string
+   * @throws IllegalArgumentException if the piece placement is illegal
+   */
+  private void tryToParsePiecePlacement(String piecePlacement) {
+    String[] ranks = piecePlacement.split("/");
+    if (ranks.length != StrictChessModel.NUM_RANKS) {
+      throw new IllegalArgumentException(String.format("Invalid piece placement: expected info " +
+              "for %d ranks, got info for %d ranks", StrictChessModel.NUM_RANKS, ranks.length));
+    }
+    for (int row = 0; row < StrictChessModel.NUM_RANKS; row++) {
+      int col = 0;
+      for (char c : ranks[row].toCharArray()) {
+        if (Character.isDigit(c)) {
+          col += Character.getNumericValue(c); //skip over the empty squares
+        } else {
+          int piece = fenCharToPieceIndex(c);
+          if (piece == NO_PIECE || col >= StrictChessModel.NUM_FILES) {
+            throw new IllegalArgumentException(String.format(
+                    "%c is an unknown or misplaced fen character to create a piece", c));
+          }
+          putPiece(piece, row * StrictChessModel.NUM_FILES + col);
+          col++;
+        }
+      }
+      if (col != StrictChessModel.NUM_FILES) { //Ensure each rank has info for exactly 8 files
+        throw new IllegalArgumentException(String.format("Invalid piece placement: expected " +
+                        "%d files of information for rank %d, got %d files of information",
+                StrictChessModel.NUM_FILES, row, col));
+      }
+    }
+    if (Long.bitCount(pieceBitboards[PieceType.KING.ordinal()]) != 1
+            || Long.bitCount(pieceBitboards[NUM_PIECE_TYPES + PieceType.KING.ordinal()]) != 1) {
+      throw new IllegalArgumentException("Invalid piece placement: does not contain" +
+              "exactly one white one black king");
+    }
+  }
+
+  private void tryToParseSideToMove(String sideToMove) {
+    if (!(sideToMove.equals("w") || sideToMove.equals("b"))) {
+      throw new IllegalArgumentException(String.format("Invalid side top move character - expected" +
+              "w or b but got %s", sideToMove));
+    }
+    this.whiteToMove = sideToMove.equals("w");
+  }
+
+  /**
+   * Converts castling privileges in FEN notation, such as "KQk" or "-", to castling right bits.
+   *
+   * @throws IllegalArgumentException if the castling privileges contain an unknown character
+   */
+  private static int parseCastlingRights(String castlingPrivs) {
+    int rights = 0;
+    if (castlingPrivs.equals("-")) {
+      return rights;
+    }
+    for (char c : castlingPrivs.toCharArray()) {
+      int index = CASTLING_CHARS.indexOf(c);
+      if (index == -1) {
+        throw new IllegalArgumentException(String.format(
+                "%s is not a recognized caslting privilege configuration", castlingPrivs));
+      }
+      rights |= 1 << index;
+    }
+    return rights;
+  }
+
+  /**
+   * Returns the castling right bits whose king and rook are both on their home squares. A right the
+   * board contradicts cannot have survived the moves to this position, so it is ignored, as
+   * StrictChessModel does.
+   */
+  private int castlingRightsWithKingAndRookAtHome() {
+    int rights = 0;
+    for (boolean isWhite : new boolean[]{true, false}) {
+      int home = isWhite ? WHITE_KING_HOME : BLACK_KING_HOME;
+      if (mailbox[home] != pieceIndex(isWhite, PieceType.KING)) {
+        continue;
+      }
+      int rook = pieceIndex(isWhite, PieceType.ROOK);
+      if (mailbox[home + 3] == rook) {
+        rights |= isWhite ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+      }
+      if (mailbox[home - 4] == rook) {
+        rights |= isWhite ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+      }
+    }
+    return rights;
+  }
+
+  private void tryToParseEnPassantTargetSquare(String enPassantTarget) {
+    if (enPassantTarget.equals("-")) {
+      this.enPassantSquare = NO_SQUARE;
+    } else if (enPassantTarget.length() == 2 &&
+            enPassantTarget.charAt(0) >= 'a' && enPassantTarget.charAt(0) <= 'h' &&
+            enPassantTarget.charAt(1) >= '1' && enPassantTarget.charAt(1) <= '8') {
+      int col = enPassantTarget.charAt(0) - 'a';
+      int row = StrictChessModel.NUM_RANKS - Character.getNumericValue(enPassantTarget.charAt(1));
+      int square = row * StrictChessModel.NUM_FILES + col;
+      //the square must have just been passed over by a double push of an enemy pawn, which now stands
+      //behind it. A square that cannot have been is ignored, as StrictChessModel does.
+      int pawnSquare = whiteToMove ? square + StrictChessModel.NUM_FILES : square - StrictChessModel.NUM_FILES;
+      boolean isPassedSquare = row == (whiteToMove ? EN_PASSANT_ROW_WHITE_TO_MOVE : EN_PASSANT_ROW_BLACK_TO_MOVE)
+              && mailbox[square] == NO_PIECE
+              && mailbox[pawnSquare] == pieceIndex(!whiteToMove, PieceType.PAWN);
+      this.enPassantSquare = isPassedSquare ? square : NO_SQUARE;
+    } else {
+      throw new IllegalArgumentException(String.format(
+              "%s is an invalid en passant target square", enPassantTarget));
+    }
+  }
+
+  private static int tryToParseClock(String clock, String clockName) {
+    try {
+      int value = Integer.parseInt(clock);
+      if (value < 0) {
+        throw new IllegalArgumentException(String.format("%s is an invalid %s", clock, clockName));
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("%s is an invalid %s", clock, clockName));
+    }
+  }
+
+  /**
+   * Returns the FEN string for the current position. The FEN string is only generated when it is
+   * requested, and is then cached until the position changes.
+   *
+   * @return the FEN string for the current position
+   */
+  @Override
+  public String toString() {
+    if (this.fenString == null) {
+      this.fenString = generateFenString();
+    }
+    return this.fenString;
+  }
+
+  private String generateFenString() {
+    StringBuilder fenBuilder = new StringBuilder();
+    for (int row = 0; row < StrictChessModel.NUM_RANKS; row++) {
+      int emptyTileCount = 0;
+      for (int col = 0; col < StrictChessModel.NUM_FILES; col++) {
+        int piece = mailbox[row * StrictChessModel.NUM_FILES + col];
+        if (piece == NO_PIECE) {
+          emptyTileCount++;
+          continue;
+        }
+        if (emptyTileCount > 0) {
+          fenBuilder.append(emptyTileCount);
+          emptyTileCount = 0;
+        }
+        fenBuilder.append(pieceIndexToFenChar(piece));
+      }
+      if (emptyTileCount > 0) {
+        fenBuilder.append(emptyTileCount);
+      }
+      if (row < StrictChessModel.NUM_RANKS - 1) {
+        fenBuilder.append('/');
+      }
+    }
+    fenBuilder.append(' ').append(whiteToMove ? 'w' : 'b');
+    fenBuilder.append(' ').append(getCastlingPrivileges());
+    fenBuilder.append(' ').append(enPassantSquare == NO_SQUARE ? "-"
+            : getLetterSquareCombination(SQUARES[enPassantSquare]));
+    fenBuilder.append(' ').append(halfMoveClock);
+    fenBuilder.append(' ').append(fullMoveClock);
+    return fenBuilder.toString();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other instanceof BitboardChessModel otherModel) {
+      //comparing the Zobrist keys first rules out almost all unequal positions cheaply
+      return this.zobristKey == otherModel.zobristKey
+              && Arrays.equals(this.pieceBitboards, otherModel.pieceBitboards)
+              && this.whiteToMove == otherModel.whiteToMove
+              && this.castlingRights == otherModel.castlingRights
+              && this.enPassantSquare == otherModel.enPassantSquare
+              && this.halfMoveClock == otherModel.halfMoveClock
+              && this.fullMoveClock == otherModel.fullMoveClock;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(zobristKey);
+  }
+
+  @Override
+  public UndoInfo makeMove(Move m) {
+    if (!canMakeMove(m)) {
+      throw new IllegalArgumentException("Unable to make move due to null or illegal move");
+    }
+    int from = toSquare(m.getSourcePosition());
+    int to = toSquare(m.getDestinationPosition());
+    int captured = mailbox[capturedSquare(from, to, m.getFlag())];
+    UndoInfo undo = new UndoInfo(m, captured == NO_PIECE ? Optional.empty() : PIECES.get(captured),
+            getCastlingPrivileges(), getEnPassantTarget(), halfMoveClock, zobristKey);
+    applyMove(from, to, m.getFlag());
+    notifyAllListeners(ModelEvent.MOVE_MADE);
+    return undo;
+  }
+
+  @Override
+  public void unmakeMove(UndoInfo undo) {
+    ensureGameInProgress();
+    if (undo == null) {
+      throw new IllegalArgumentException("Unable to unmake move with null undo information");
+    }
+    Move m = undo.getMove();
+    int from = toSquare(m.getSourcePosition());
+    int to = toSquare(m.getDestinationPosition());
+    //the side that made the most recent move is the side that is not to move
+    if (mailbox[to] == NO_PIECE || (mailbox[to] / NUM_PIECE_TYPES == WHITE) == whiteToMove) {
+      throw new IllegalArgumentException("Unable to unmake move that was not the most recent move");
+    }
+    int captured = undo.getCapturedPiece()
+            .map(piece -> pieceIndex(piece.getIsWhite(), piece.getType())).orElse(NO_PIECE);
+    int previousEnPassantSquare = undo.getEnPassantTarget().map(BitboardChessModel::toSquare).orElse(NO_SQUARE);
+    undoMove(from, to, m.getFlag(), captured, parseCastlingRights(undo.getCastlingPrivileges()),
+            previousEnPassantSquare, undo.getHalfMoveClock(), undo.getZobristKey());
+    notifyAllListeners(ModelEvent.MOVE_UNDONE);
+  }
+
+  /**
+   * Fills the given list with the packed legal moves (see PackedMove) for the side to move,
+   * clearing the list first. Unlike getLegalMoves(), this does not create any objects, so it is
+   * meant for hot paths such as perft and search, which can reuse one list per depth.
+   *
+   * @param moves the list to fill with legal moves
+   * @throws IllegalArgumentException if the list is null
+   */
+  public void generateLegalMoves(IntMoveList moves) {
+    if (moves == null) {
+      throw new IllegalArgumentException("Unable to generate moves into null move list");
+    }
+    generateLegalMoves(whiteToMove, moves);
+  }
+
+  /**
+   * Fills the given list with the packed legal captures and promotions for the side to move,
+   * clearing the list first. Quiet moves are never generated, which makes this much cheaper than
+   * generating every legal move and filtering, so it is meant for quiescence search.
+   *
+   * @param moves the list to fill with legal captures and promotions
+   * @throws IllegalArgumentException if the list is null
+   */
+  public void generateLegalCaptures(IntMoveList moves) {
+    if (moves == null) {
+      throw new IllegalArgumentException("Unable to generate captures into null move list");
+    }
+    generateLegalMoves(whiteToMove, true, moves);
+  }
+
+  /**
+   * Makes the given packed move for the side to move, and records what is needed to take it back
+   * on this model's undo stack, so that no undo object is created. Intended for hot paths, so the
+   * move is not validated and listeners are not notified - the move must be one of the moves
+   * produced by generateLegalMoves(IntMoveList) for the current position.
+   *
+   * @param move the packed legal move to make
+   */
+  public void makePackedMove(int move) {
+    int from = PackedMove.getFrom(move);
+    int to = PackedMove.getTo(move);
+    Move.MoveFlag flag = PackedMove.getFlag(move);
+    if (ply == packedMoveStack.length) {
+      packedMoveStack = Arrays.copyOf(packedMoveStack, 2 * ply);
+      packedUndoStack = Arrays.copyOf(packedUndoStack, 2 * ply);
+    }
+    packedMoveStack[ply] = move;
+    packedUndoStack[ply] = (mailbox[capturedSquare(from, to, flag)] + 1)
+            | ((long) castlingRights << UNDO_CASTLING_SHIFT)
+            | ((long) (enPassantSquare + 1) << UNDO_EN_PASSANT_SHIFT)
+            | ((long) halfMoveClock << UNDO_HALF_MOVE_SHIFT);
+    ply++;
+    applyMove(from, to, flag);
+  }
+
+  /**
+   * Takes back the most recent move made with makePackedMove() that has not yet been taken back.
+   * Like makePackedMove(), listeners are not notified.
+   *
+   * @throws IllegalStateException if there is no packed move to take back
+   */
+  public void unmakePackedMove() {
+    if (ply == 0) {
+      throw new IllegalStateException("Unable to unmake packed move when no packed move has been made");
+    }
+    ply--;
+    int move = packedMoveStack[ply];
+    long undo = packedUndoStack[ply];
+    undoMove(PackedMove.getFrom(move), PackedMove.getTo(move), PackedMove.getFlag(move),
+            (int) (undo & 0xF) - 1, (int) ((undo >>> UNDO_CASTLING_SHIFT) & 0xF),
+            (int) ((undo >>> UNDO_EN_PASSANT_SHIFT) & 0xFF) - 1, (int) (undo >>> UNDO_HALF_MOVE_SHIFT),
+            positionHistory.peek());
+  }
+
+  /**
+   * Applies the move from the source square to the destination square without checking that it is
+   * legal, updating the bitboards, the side to move, castling rights, the en passant square and
+   * both move clocks.
+   *
+   * @param from the source square of the move, which must be occupied
+   * @param to   the destination square of the move
+   * @param flag the flag of the move
+   */
+  private void applyMove(int from, int to, Move.MoveFlag flag) {
+    positionHistory.push(zobristKey);
+    positionCache.moveMade();
+    //whether the en passant square is hashed depends on the pawns, so the key for the old board
+    //rights is worked out before any piece moves
+    long previousBoardRightsKey = boardRightsKey();
+    int piece = mailbox[from];
+    int captured = mailbox[to];
+    boolean isPawnMove = piece % NUM_PIECE_TYPES == PieceType.PAWN.ordinal();
+    if (captured != NO_PIECE) {
+      removePiece(captured, to);
+    }
+    removePiece(piece, from);
+    putPiece(promotedPieceIndex(piece, flag), to);
+    switch (flag) {
+      case EN_PASSANT -> {
+        int capturedSquare = capturedSquare(from, to, flag);
+        removePiece(mailbox[capturedSquare], capturedSquare);
+      }
+      case CASTLE_KINGSIDE -> movePiece(to + 1, to - 1); //the rook jumps from the h-file to the f-file
+      case CASTLE_QUEENSIDE -> movePiece(to - 2, to + 1); //the rook jumps from the a-file to the d-file
+      default -> {
+        //no other pieces move
+      }
+    }
+    castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+    enPassantSquare = flag == Move.MoveFlag.DOUBLE_PAWN_PUSH ? (from + to) / 2 : NO_SQUARE;
+    //if a pawn was moved or a piece was captured, reset the half move clock
+    //en passant moves are pawn moves, so they reset the clock even though their destination is empty
+    halfMoveClock = isPawnMove || captured != NO_PIECE ? 0 : halfMoveClock + 1;
+    if (!whiteToMove) {
+      fullMoveClock++;
+    }
+    whiteToMove = !whiteToMove;
+    //XOR out the keys for the old board rights and XOR in the keys for the new ones
+    zobristKey ^= previousBoardRightsKey ^ boardRightsKey();
+    fenString = null; //the cached FEN string no longer describes the position
+  }
+
+  /**
+   * Returns the XOR of the Zobrist keys for the current side to move, castling rights and en
+   * passant square. The en passant square is only hashed if a pawn of the side to move attacks it,
+   * so that a double push no pawn can capture leaves the same key as any other way of reaching the
+   * position, as repetition detection requires.
+   */
+  private long boardRightsKey() {
+    long key = Zobrist.castlingKey(castlingRights);
+    if (!whiteToMove) {
+      key ^= Zobrist.blackToMoveKey();
+    }
+    if (enPassantSquare != NO_SQUARE && (AttackTables.pawnAttacks(!whiteToMove, enPassantSquare)
+            & pieceBitboards[pieceIndex(whiteToMove, PieceType.PAWN)]) != 0) {
+      key ^= Zobrist.enPassantKey(enPassantSquare % StrictChessModel.NUM_FILES);
+    }
+    return key;
+  }
+
+  @Override
+  public long getZobristKey() {
+    return this.zobristKey;
+  }
+
+  @Override
+  public int getRepetitionCount() {
+    return positionHistory.countRepetitions(zobristKey, halfMoveClock);
+  }
+
+  @Override
+  public int getHalfMoveClock() {
+    return this.halfMoveClock;
+  }
+
+  /**
+   * Returns how many pieces of the given color and type are on the board. The piece bitboards are
+   * already kept up to date as moves are made, so the count is a single population count.
+   */
+  @Override
+  public int getPieceCount(PlayerColor c, PieceType type) {
+    ensureColorValidity(c);
+    if (type == null) {
+      throw new IllegalArgumentException("Unable to count pieces of null type");
+    }
+    return Long.bitCount(pieceBitboards[pieceIndex(c == PlayerColor.WHITE, type)]);
+  }
+
+  @Override
+  public boolean hasInsufficientMaterial() {
+    long pawnsRooksAndQueens = pieces(PieceType.PAWN) | pieces(PieceType.ROOK) | pieces(PieceType.QUEEN);
+    long bishops = pieces(PieceType.BISHOP);
+    return StrictChessModel.isInsufficientMaterial(Long.bitCount(pawnsRooksAndQueens),
+            Long.bitCount(pieces(PieceType.KNIGHT)), Long.bitCount(bishops & LIGHT_SQUARES),
+            Long.bitCount(bishops & ~LIGHT_SQUARES));
+  }
+
+  //the pieces of the given type of both colors
+  private long pieces(PieceType type) {
+    return pieceBitboards[pieceIndex(true, type)] | pieceBitboards[pieceIndex(false, type)];
+  }
+
+  @Override
+  public int getMiddlegameScore() {
+    return this.middlegameScore;
+  }
+
+  @Override
+  public int getEndgameScore() {
+    return this.endgameScore;
+  }
+
+  @Override
+  public int getGamePhase() {
+    return this.gamePhase;
+  }
+
+  @Override
+  public long getOccupancy(PlayerColor c) {
+    ensureColorValidity(c);
+    return colorOccupancy[c == PlayerColor.WHITE ? WHITE : BLACK];
+  }
+
+  /**
+   * Takes back the move from the source square to the destination square, restoring the captured
+   * piece and the given board rights from before the move was made.
+   *
+   * @param captured the index of the piece captured by the move, or NO_PIECE
+   */
+  private void undoMove(int from, int to, Move.MoveFlag flag, int captured, int previousCastlingRights,
+                        int previousEnPassantSquare, int previousHalfMoveClock,
+                        long previousZobristKey) {
+    whiteToMove = !whiteToMove;
+    int piece = mailbox[to];
+    removePiece(piece, to);
+    //promoted pieces turn back into the pawn that was promoted
+    putPiece(isPromotion(flag) ? pieceIndex(whiteToMove, PieceType.PAWN) : piece, from);
+    switch (flag) {
+      case CASTLE_KINGSIDE -> movePiece(to - 1, to + 1);
+      case CASTLE_QUEENSIDE -> movePiece(to + 1, to - 2);
+      default -> {
+        if (captured != NO_PIECE) {
+          putPiece(captured, capturedSquare(from, to, flag));
+        }
+      }
+    }
+    castlingRights = previousCastlingRights;
+    enPassantSquare = previousEnPassantSquare;
+    halfMoveClock = previousHalfMoveClock;
+    if (!whiteToMove) { //the full move clock was incremented after black's move
+      fullMoveClock--;
+    }
+    zobristKey = previousZobristKey;
+    positionHistory.pop();
+    positionCache.moveUnmade();
+    fenString = null; //the cached FEN string no longer describes the position
+  }
+
+  /**
+   * Returns the square of the piece captured by the given move, if it captures anything. This is the
+   * destination square, except for en passant, where the captured pawn is beside the source square.
+   */
+  private static int capturedSquare(int from, int to, Move.MoveFlag flag) {
+    if (flag == Move.MoveFlag.EN_PASSANT) {
+      return from - from % StrictChessModel.NUM_FILES + to % StrictChessModel.NUM_FILES;
+    }
+    return to;
+  }
+
+  private static boolean isPromotion(Move.MoveFlag flag) {
+    return switch (flag) {
+      case PAWN_PROMOTION_TO_QUEEN, PAWN_PROMOTION_TO_ROOK, PAWN_PROMOTION_TO_BISHOP,
+              PAWN_PROMOTION_TO_KNIGHT -> true;
+      default -> false;
+    };
+  }
+
+  private static int promotedPieceIndex(int pawn, Move.MoveFlag flag) {
+    int colorOffset = pawn - pawn % NUM_PIECE_TYPES;
+    return switch (flag) {
+      case PAWN_PROMOTION_TO_QUEEN -> colorOffset + PieceType.QUEEN.ordinal();
+      case PAWN_PROMOTION_TO_ROOK -> colorOffset + PieceType.ROOK.ordinal();
+      case PAWN_PROMOTION_TO_BISHOP -> colorOffset + PieceType.BISHOP.ordinal();
+      case PAWN_PROMOTION_TO_KNIGHT -> colorOffset + PieceType.KNIGHT.ordinal();
+      default -> pawn;
+    };
+  }
+
+  private void putPiece(int piece, int square) {
+    long bit = 1L << square;
+    pieceBitboards[piece] |= bit;
+    colorOccupancy[piece / NUM_PIECE_TYPES] |= bit;
+    occupancy |= bit;
+    mailbox[square] = piece;
+    zobristKey ^= Zobrist.pieceKey(piece, square);
+    middlegameScore += MIDDLEGAME_VALUES[piece][square];
+    endgameScore += ENDGAME_VALUES[piece][square];
+    gamePhase += PHASE_WEIGHTS[piece];
+  }
+
+  private void removePiece(int piece, int square) {
+    long bit = 1L << square;
+    pieceBitboards[piece] &= ~bit;
+    colorOccupancy[piece / NUM_PIECE_TYPES] &= ~bit;
+    occupancy &= ~bit;
+    mailbox[square] = NO_PIECE;
+    zobristKey ^= Zobrist.pieceKey(piece, square);
+    middlegameScore -= MIDDLEGAME_VALUES[piece][square];
+    endgameScore -= ENDGAME_VALUES[piece][square];
+    gamePhase -= PHASE_WEIGHTS[piece];
+  }
+
+  private void movePiece(int from, int to) {
+    int piece = mailbox[from];
+    removePiece(piece, from);
+    putPiece(piece, to);
+  }
+
+  @Override
+  public void startGame() {
+    if (hasGameStarted) {
+      throw new IllegalStateException("Unable to start game that is already in progress or over");
+    }
+    this.hasGameStarted = true;
+    notifyAllListeners(ModelEvent.GAME_STARTED);
+  }
+
+  @Override
+  public boolean canMakeMove(Move m) {
+    ensureGameInProgress();
+    if (m == null) {
+      throw new IllegalArgumentException("Cannot check move for null move");
+    }
+    checkIfPositionIsValid(m.getSourcePosition());
+    checkIfPositionIsValid(m.getDestinationPosition());
+    int from = toSquare(m.getSourcePosition());
+    if (mailbox[from] == NO_PIECE) {
+      throw new IllegalArgumentException("Cannot check move for empty source square");
+    }
+    //only the side to move can make a move
+    if ((mailbox[from] / NUM_PIECE_TYPES == WHITE) != whiteToMove) {
+      return false;
+    }
+    return getLegalMoves(whiteToMove ? PlayerColor.WHITE : PlayerColor.BLACK).contains(m);
+  }
+
+  @Override
+  public boolean isGameOver() {
+    if (!hasGameStarted) {
+      throw new IllegalStateException("Unable to get game over for game not yet in progress");
+    }
+    return getGameResult().isPresent();
+  }
+
+  @Override
+  public GameResultStatus getFinalGameStatus() {
+    ensureGameInProgress();
+    return getGameResult().orElseThrow(() -> new IllegalStateException(
+            "Unable to retrieve final game status for game that is not yet over"));
+  }
+
+  /**
+   * Returns the final status of the game if it is over, or the empty optional if it is still in
+   * progress. The result is worked out once per position and then cached.
+   */
+  private Optional<GameResultStatus> getGameResult() {
+    Optional<GameResultStatus> result = positionCache.getGameResult();
+    if (result == null) {
+      result = computeGameResult();
+      positionCache.setGameResult(result);
+    }
+    return result;
+  }
+
+  private Optional<GameResultStatus> computeGameResult() {
+    if (getLegalMoves(whiteToMove ? PlayerColor.WHITE : PlayerColor.BLACK).isEmpty()) {
+      //the side to move has no legal moves - if they are in check, it is checkmate, otherwise a draw
+      if (!isSquareAttacked(kingSquare(whiteToMove), !whiteToMove)) {
+        return Optional.of(GameResultStatus.STALEMATE);
+      }
+      return Optional.of(whiteToMove ? GameResultStatus.CHECKMATE_BY_BLACK : GameResultStatus.CHECKMATE_BY_WHITE);
+    }
+    if (halfMoveClock >= StrictChessModel.FIFTY_MOVE_RULE_HALF_MOVES) {
+      return Optional.of(GameResultStatus.DRAW_BY_FIFTY_MOVE_RULE);
+    }
+    if (getRepetitionCount() >= StrictChessModel.REPETITIONS_FOR_DRAW) {
+      return Optional.of(GameResultStatus.DRAW_BY_REPETITION);
+    }
+    if (hasInsufficientMaterial()) {
+      return Optional.of(GameResultStatus.DRAW_BY_INSUFFICIENT_MATERIAL);
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public RowColPair getKingSquare(PlayerColor c) {
+    ensureColorValidity(c);
+    return SQUARES[kingSquare(c == PlayerColor.WHITE)];
+  }
+
+  private int kingSquare(boolean isWhite) {
+    //INVARIANT: there is always exactly one king of each color
+    return Long.numberOfTrailingZeros(pieceBitboards[pieceIndex(isWhite, PieceType.KING)]);
+  }
+
+  @Override
+  public boolean getWhiteToMove() {
+    return this.whiteToMove;
+  }
+
+  @Override
+  public BitboardChessModel getStrictDeepCopy() {
+    return new BitboardChessModel(this);
+  }
+
+  /**
+   * Returns a permissive deep copy of this model. Pseudo-legal moves are only supported by
+   * PermissibleChessModelImpl, so the copy is backed by a StrictChessModel built from this
+   * model's FEN string.
+   *
+   * @return a permissive deep copy of this model
+   */
+  @Override
+  public PermissiveChessModel getPermissibleDeepCopy() {
+    StrictChessModel copy = new StrictChessModel.Builder(this.toString()).build();
+    if (hasGameStarted) {
+      copy.startGame();
+    }
+    return new PermissibleChessModelImpl(copy);
+  }
+
+  @Override
+  public void addListener(ModelListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Unable to add null listener");
+    }
+    this.listeners.add(listener);
+  }
+
+  private void notifyAllListeners(ModelEvent event) {
+    for (ModelListener m : this.listeners) {
+      m.notifyAfterModelUpdate(event);
+    }
+  }
+
+  /**
+   * Returns the legal moves of the given color as an unmodifiable set, which is generated once per
+   * position and then cached until a move is made. Packed moves are not cached, since
+   * generateLegalMoves(IntMoveList) fills a list the caller owns.
+   */
+  @Override
+  public Set<Move> getLegalMoves(PlayerColor c) {
+    ensureColorValidity(c);
+    boolean isWhite = c == PlayerColor.WHITE;
+    Set<Move> cachedMoves = positionCache.getLegalMoves(isWhite);
+    if (cachedMoves != null) {
+      return cachedMoves;
+    }
+    IntMoveList legalMoves = new IntMoveList();
+    generateLegalMoves(isWhite, legalMoves);
+    Set<Move> moves = new HashSet<>();
+    for (int i = 0; i < legalMoves.size(); i++) {
+      moves.add(PackedMove.toMove(legalMoves.get(i)));
+    }
+    Set<Move> unmodifiableMoves = Collections.unmodifiableSet(moves);
+    positionCache.setLegalMoves(isWhite, unmodifiableMoves);
+    return unmodifiableMoves;
+  }
+
+  @Override
+  public Set<Move> getLegalCaptures(PlayerColor c) {
+    ensureColorValidity(c);
+    IntMoveList legalCaptures = new IntMoveList();
+    generateLegalMoves(c == PlayerColor.WHITE, true, legalCaptures);
+    Set<Move> captures = new HashSet<>();
+    for (int i = 0; i < legalCaptures.size(); i++) {
+      captures.add(PackedMove.toMove(legalCaptures.get(i)));
+    }
+    return captures;
+  }
+
+  /**
+   * Returns the set of squares the pieces of the given color can legally move to, as
+   * StrictChessModel does. Squares the color attacks but cannot move to, such as squares of its
+   * own pieces or captures that would leave its king in check, are left out - see
+   * isSquareAttacked() for those. The squares are collected from the cached legal moves.
+   *
+   * @param c the player color for which to get the target squares for
+   * @return the collection of the destinations of all legal moves, expressed as RowColPair's
+   */
+  @Override
+  public Set<RowColPair> getColorTargetSquares(PlayerColor c) {
+    long targets = 0;
+    for (Move m : getLegalMoves(c)) {
+      targets |= 1L << toSquare(m.getDestinationPosition());
+    }
+    return toRowColPairs(targets);
+  }
+
+  @Override
+  public boolean isSquareAttacked(RowColPair square, PlayerColor byColor) {
+    checkIfPositionIsValid(square);
+    ensureColorValidity(byColor);
+    return isSquareAttacked(toSquare(square), byColor == PlayerColor.WHITE);
+  }
+
+  @Override
+  public Optional<Set<RowColPair>> getTargetSquares(RowColPair position) {
+    checkIfPositionIsValid(position);
+    int piece = mailbox[toSquare(position)];
+    if (piece == NO_PIECE) {
+      return Optional.empty();
+    }
+    //the piece's target squares are the destinations of its color's cached legal moves from its square
+    Set<RowColPair> targetSquares = new HashSet<>();
+    for (Move m : getLegalMoves(piece / NUM_PIECE_TYPES == WHITE ? PlayerColor.WHITE : PlayerColor.BLACK)) {
+      if (m.getSourcePosition().equals(position)) {
+        targetSquares.add(m.getDestinationPosition());
+      }
+    }
+    return Optional.of(targetSquares);
+  }
+
+  @Override
+  public Optional<PieceType> getPieceTypeAt(RowColPair pair) {
+    checkIfPositionIsValid(pair);
+    int piece = mailbox[toSquare(pair)];
+    return piece == NO_PIECE ? Optional.empty()
+            : Optional.of(PieceType.values()[piece % NUM_PIECE_TYPES]);
+  }
+
+  @Override
+  public Optional<Piece> getPieceAt(RowColPair pair) {
+    checkIfPositionIsValid(pair);
+    int piece = mailbox[toSquare(pair)];
+    return piece == NO_PIECE ? Optional.empty() : PIECES.get(piece);
+  }
+
+  @Override
+  public String getLetterSquareCombination(RowColPair pair) {
+    checkIfPositionIsValid(pair);
+    return "abcdefgh".charAt(pair.getCol()) + String.valueOf(StrictChessModel.NUM_RANKS - pair.getRow());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Optional<Piece>[][] getBoardCopy() {
+    //We are sure that this is a type-safe cast, so we can suppress the warning
+    Optional<Piece>[][] copy = (Optional<Piece>[][])
+            new Optional<?>[StrictChessModel.NUM_RANKS][StrictChessModel.NUM_FILES];
+    for (int square = 0; square < NUM_SQUARES; square++) {
+      int piece = mailbox[square];
+      //Optional & pieces are immutable, so it safe to share the same instances between boards
+      copy[square / StrictChessModel.NUM_FILES][square % StrictChessModel.NUM_FILES] =
+              piece == NO_PIECE ? Optional.empty() : PIECES.get(piece);
+    }
+    return copy;
+  }
+
+  @Override
+  public boolean isInBounds(RowColPair pair) {
+    return pair != null && pair.getRow() >= 0 && pair.getRow() < StrictChessModel.NUM_RANKS
+            && pair.getCol() >= 0 && pair.getCol() < StrictChessModel.NUM_FILES;
+  }
+
+  @Override
+  public String getCastlingPrivileges() {
+    return CASTLING_STRINGS[castlingRights];
+  }
+
+  @Override
+  public Optional<RowColPair> getEnPassantTarget() {
+    return enPassantSquare == NO_SQUARE ? Optional.empty() : EN_PASSANT_TARGETS.get(enPassantSquare);
+  }
+
+  /**
+   * Fills the given list with the legal moves for the given color. Rather than making each
+   * pseudo-legal move and checking whether it leaves the king attacked, the pieces giving check and
+   * the pieces pinned to the king are found once, and each piece only generates moves that are
+   * already legal:
+   * <ul>
+   *   <li>the king only moves to squares the enemy does not attack</li>
+   *   <li>in double check, only the king can move</li>
+   *   <li>in single check, every other piece must capture the checker or block its line</li>
+   *   <li>a pinned piece can only move along the line through itself and its king</li>
+   * </ul>
+   * En passant is the only move checked by looking at the board after it, since it takes two
+   * pieces off the same row at once and can expose the king along that row.
+   *
+   * @param isWhite true to generate moves for white, false to generate moves for black
+   * @param moves   the list to fill with packed legal moves, which is cleared first
+   */
+  private void generateLegalMoves(boolean isWhite, IntMoveList moves) {
+    generateLegalMoves(isWhite, false, moves);
+  }
+
+  /**
+   * Fills the given list with the legal moves for the given color, or only the legal captures and
+   * promotions if capturesOnly is true, as in generateLegalMoves(boolean, IntMoveList).
+   * If capturesOnly is true, pieces only target enemy squares, pawns only push when they promote,
+   * and castling is skipped, so quiet moves are never generated rather than generated and
+   * filtered out.
+   */
+  private void generateLegalMoves(boolean isWhite, boolean capturesOnly, IntMoveList moves) {
+    moves.clear();
+    int color = isWhite ? WHITE : BLACK;
+    int kingSquare = kingSquare(isWhite);
+    long enemy = colorOccupancy[1 - color];
+    //the squares pieces may move to - any square without a friendly piece, or only enemy squares
+    long targets = capturesOnly ? enemy : ~colorOccupancy[color];
+    //the king is taken off the board when looking for the squares it cannot move to, otherwise it
+    //would seem safe to step away from a slider along the slider's own line
+    long kingDanger = KingSafety.attackedSquares(pieceBitboards, !isWhite, occupancy & ~(1L << kingSquare));
+    addMoves(kingSquare, AttackTables.kingAttacks(kingSquare) & targets & ~kingDanger, Move.MoveFlag.KING_MOVE,
+            moves);
+    long checkers = KingSafety.attackersOf(pieceBitboards, kingSquare, !isWhite, occupancy);
+    if (Long.bitCount(checkers) > 1) {
+      return; //no single move can capture or block two checkers, so only the king can move
+    }
+    //the squares other pieces must move to - a check must be answered by capturing the checker or
+    //by stepping between it and the king
+    long evasions = checkers == 0 ? ~0L
+            : checkers | AttackTables.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+    long pinned = KingSafety.pinnedPieces(pieceBitboards, isWhite, kingSquare, occupancy, colorOccupancy[color]);
+    generatePawnMoves(isWhite, enemy, evasions, pinned, capturesOnly, moves);
+    for (long knights = pieceBitboards[pieceIndex(isWhite, PieceType.KNIGHT)] & ~pinned; knights != 0;
+         knights &= knights - 1) {
+      //a pinned knight can never stay on its pin line, so pinned knights are skipped altogether
+      int from = Long.numberOfTrailingZeros(knights);
+      addMoves(from, AttackTables.knightAttacks(from) & targets & evasions, Move.MoveFlag.NONE, moves);
+    }
+    for (long bishops = pieceBitboards[pieceIndex(isWhite, PieceType.BISHOP)]; bishops != 0;
+         bishops &= bishops - 1) {
+      int from = Long.numberOfTrailingZeros(bishops);
+      addMoves(from, bishopAttacks(from, occupancy) & targets & evasions & pinRay(from, kingSquare, pinned),
+              Move.MoveFlag.NONE, moves);
+    }
+    for (long rooks = pieceBitboards[pieceIndex(isWhite, PieceType.ROOK)]; rooks != 0;
+         rooks &= rooks - 1) {
+      int from = Long.numberOfTrailingZeros(rooks);
+      addMoves(from, rookAttacks(from, occupancy) & targets & evasions & pinRay(from, kingSquare, pinned),
+              Move.MoveFlag.ROOK_MOVE, moves);
+    }
+    for (long queens = pieceBitboards[pieceIndex(isWhite, PieceType.QUEEN)]; queens != 0;
+         queens &= queens - 1) {
+      int from = Long.numberOfTrailingZeros(queens);
+      addMoves(from, MagicBitboards.queenAttacks(from, occupancy) & targets & evasions
+              & pinRay(from, kingSquare, pinned), Move.MoveFlag.NONE, moves);
+    }
+    if (!capturesOnly && checkers == 0) {
+      generateCastlingMoves(isWhite, kingSquare, kingDanger, moves);
+    }
+  }
+
+  /**
+   * Returns the squares the piece on the given square may move to as far as pins are concerned -
+   * the line through it and its king if it is pinned, or every square if it is not.
+   */
+  private static long pinRay(int from, int kingSquare, long pinned) {
+    return (pinned & (1L << from)) == 0 ? ~0L : AttackTables.line(kingSquare, from);
+  }
+
+  /**
+   * Adds the legal pawn moves for the given color. Pushes and captures must land on one of the
+   * given evasion squares and stay on the pawn's pin line, if it is pinned. If capturesOnly is
+   * true, pawns only push when they promote.
+   */
+  private void generatePawnMoves(boolean isWhite, long enemy, long evasions, long pinned, boolean capturesOnly,
+                                 IntMoveList moves) {
+    int forward = isWhite ? -StrictChessModel.NUM_FILES : StrictChessModel.NUM_FILES;
+    int startingRow = isWhite ? 6 : 1;
+    int promotionRow = isWhite ? 0 : 7;
+    int kingSquare = kingSquare(isWhite);
+    //en passant captures are only available to the side to move
+    long enPassantBit = enPassantSquare != NO_SQUARE && isWhite == whiteToMove ? 1L << enPassantSquare : 0;
+    for (long pawns = pieceBitboards[pieceIndex(isWhite, PieceType.PAWN)]; pawns != 0;
+         pawns &= pawns - 1) {
+      int from = Long.numberOfTrailingZeros(pawns);
+      long allowed = evasions & pinRay(from, kingSquare, pinned);
+      int push = from + forward;
+      boolean promotes = push / StrictChessModel.NUM_FILES == promotionRow;
+      //Pawns can only move to empty squares directly in front of them
+      if ((occupancy & (1L << push)) == 0) {
+        if ((promotes || !capturesOnly) && (allowed & (1L << push)) != 0) {
+          addPawnMove(from, push, promotes, moves);
+        }
+        int doublePush = push + forward;
+        //a double push can block a check even when the single push cannot
+        if (!capturesOnly && from / StrictChessModel.NUM_FILES == startingRow
+                && (occupancy & (1L << doublePush)) == 0 && (allowed & (1L << doublePush)) != 0) {
+          moves.add(PackedMove.encode(from, doublePush, Move.MoveFlag.DOUBLE_PAWN_PUSH));
+        }
+      }
+      //pawns can only move diagonally if they are capturing an enemy piece
+      for (long captures = AttackTables.pawnAttacks(isWhite, from) & enemy & allowed; captures != 0;
+           captures &= captures - 1) {
+        addPawnMove(from, Long.numberOfTrailingZeros(captures), promotes, moves);
+      }
+      if ((AttackTables.pawnAttacks(isWhite, from) & enPassantBit) != 0
+              && KingSafety.isEnPassantLegal(pieceBitboards, isWhite, kingSquare, from, enPassantSquare,
+              capturedSquare(from, enPassantSquare, Move.MoveFlag.EN_PASSANT), occupancy)) {
+        moves.add(PackedMove.encode(from, enPassantSquare, Move.MoveFlag.EN_PASSANT));
+      }
+    }
+  }
+
+  private static void addPawnMove(int from, int to, boolean promotes, IntMoveList moves) {
+    if (!promotes) {
+      moves.add(PackedMove.encode(from, to, Move.MoveFlag.NONE));
+      return;
+    }
+    for (Move.MoveFlag flag : PROMOTION_FLAGS) { //Add one move for each promotion type
+      moves.add(PackedMove.encode(from, to, flag));
+    }
+  }
+
+  /**
+   * Adds the castling moves for the given color, whose king must not be in check. A king can
+   * castle if it still has the castling privilege, the rook is on its home square, every square
+   * between them is empty, and neither the square the king crosses nor its destination is one of
+   * the given squares the enemy attacks.
+   */
+  private void generateCastlingMoves(boolean isWhite, int kingSquare, long kingDanger, IntMoveList moves) {
+    int home = isWhite ? WHITE_KING_HOME : BLACK_KING_HOME;
+    int kingside = isWhite ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    int queenside = isWhite ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    if (kingSquare != home || (castlingRights & (kingside | queenside)) == 0) {
+      return;
+    }
+    long rooks = pieceBitboards[pieceIndex(isWhite, PieceType.ROOK)];
+    if ((castlingRights & kingside) != 0 && (rooks & (1L << (home + 3))) != 0
+            && (occupancy & ((1L << (home + 1)) | (1L << (home + 2)))) == 0
+            && (kingDanger & ((1L << (home + 1)) | (1L << (home + 2)))) == 0) {
+      moves.add(PackedMove.encode(home, home + 2, Move.MoveFlag.CASTLE_KINGSIDE));
+    }
+    if ((castlingRights & queenside) != 0 && (rooks & (1L << (home - 4))) != 0
+            && (occupancy & ((1L << (home - 1)) | (1L << (home - 2)) | (1L << (home - 3)))) == 0
+            && (kingDanger & ((1L << (home - 1)) | (1L << (home - 2)))) == 0) {
+      moves.add(PackedMove.encode(home, home - 2, Move.MoveFlag.CASTLE_QUEENSIDE));
+    }
+  }
+
+  private static void addMoves(int from, long targets, Move.MoveFlag flag, IntMoveList moves) {
+    for (; targets != 0; targets &= targets - 1) {
+      moves.add(PackedMove.encode(from, Long.numberOfTrailingZeros(targets), flag));
+    }
+  }
+
+  /**
+   * Returns true if the given square is attacked by any piece of the given color.
+   */
+  private boolean isSquareAttacked(int square, boolean byWhite) {
+    return KingSafety.attackersOf(pieceBitboards, square, byWhite, occupancy) != 0;
+  }
+
+  private static long bishopAttacks(int square, long occupied) {
+    return MagicBitboards.bishopAttacks(square, occupied);
+  }
+
+  private static long rookAttacks(int square, long occupied) {
+    return MagicBitboards.rookAttacks(square, occupied);
+  }
+
+  private static Set<RowColPair> toRowColPairs(long bitboard) {
+    Set<RowColPair> squares = new HashSet<>();
+    for (; bitboard != 0; bitboard &= bitboard - 1) {
+      squares.add(SQUARES[Long.numberOfTrailingZeros(bitboard)]);
+    }
+    return squares;
+  }
+
+  private static int toSquare(RowColPair pair) {
+    return pair.getRow() * StrictChessModel.NUM_FILES + pair.getCol();
+  }
+
+  /**
+   * Returns the index of the bitboard of the pieces of the given color and type, which KingSafety
+   * shares for its own piece bitboards.
+   */
+  static int pieceIndex(boolean isWhite, PieceType type) {
+    return (isWhite ? 0 : NUM_PIECE_TYPES) + type.ordinal();
+  }
+
+  private static int fenCharToPieceIndex(char fenChar) {
+    for (PieceType type : PieceType.values()) {
+      if (type.getLowercasedPieceID() == fenChar) {
+        return pieceIndex(false, type);
+      }
+      if (Character.toUpperCase(type.getLowercasedPieceID()) == fenChar) {
+        return pieceIndex(true, type);
+      }
+    }
+    return NO_PIECE;
+  }
+
+  private static char pieceIndexToFenChar(int piece) {
+    char pieceID = PieceType.values()[piece % NUM_PIECE_TYPES].getLowercasedPieceID();
+    return piece / NUM_PIECE_TYPES == WHITE ? Character.toUpperCase(pieceID) : pieceID;
+  }
+
+  private void checkIfPositionIsValid(RowColPair pair) {
+    if (!isInBounds(pair)) {
+      throw new IllegalArgumentException("Invalid rank or file - rank or file was not in " +
+              "between 0 and 7 or row col pair was null");
+    }
+  }
+
+  private void ensureGameInProgress() {
+    if (!hasGameStarted) {
+      throw new IllegalStateException("Game is over or not in progress yet!");
+    }
+  }
+
+  private static void ensureColorValidity(PlayerColor c) {
+    if (c != PlayerColor.WHITE && c != PlayerColor.BLACK) {
+      throw new IllegalArgumentException("Invalid color passed, must be either black or white");
+    }
+  }
+}
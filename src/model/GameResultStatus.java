@@ -8,9 +8,8 @@ public enum GameResultStatus {
   CHECKMATE_BY_WHITE,
   STALEMATE,
   DRAW_BY_INSUFFICIENT_MATERIAL,
-  DRAW_BY_REPETITION;
-  //TODO: Implement model logic for counting repetition, probably use a stack/ hashset of
-  // encountered positions
+  DRAW_BY_REPETITION,
+  DRAW_BY_FIFTY_MOVE_RULE;
 //  WIN_BY_RESIGNATION,
 //  DRAW_BY_AGREEMENT
 }
@@ -0,0 +1,141 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Represents a reusable buffer of packed moves (see PackedMove). Move generators fill the buffer in
+ * place instead of returning a new collection, so a caller that keeps one list per search depth can
+ * generate moves without allocating anything. The buffer starts large enough for any legal chess
+ * position and grows if it ever needs to hold more.
+ * Not thread safe - each thread should use its own lists.
+ */
+public final class IntMoveList {
+  //no legal chess position has more than 218 moves
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private int[] moves;
+  //INVARIANT: 0 <= size <= moves.length
+  private int size;
+
+  public IntMoveList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty list with room for the given number of moves before it needs to grow.
+   *
+   * @param capacity the initial capacity of the list
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public IntMoveList(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Unable to create move list with non-positive capacity");
+    }
+    this.moves = new int[capacity];
+    this.size = 0;
+  }
+
+  public void add(int move) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, 2 * moves.length);
+    }
+    moves[size++] = move;
+  }
+
+  /**
+   * Returns the packed move at the given index.
+   *
+   * @throws IndexOutOfBoundsException if the index is not between 0 and size() - 1
+   */
+  public int get(int index) {
+    checkIndex(index);
+    return moves[index];
+  }
+
+  /**
+   * Replaces the packed move at the given index.
+   *
+   * @throws IndexOutOfBoundsException if the index is not between 0 and size() - 1
+   */
+  public void set(int index, int move) {
+    checkIndex(index);
+    moves[index] = move;
+  }
+
+  /**
+   * Swaps the packed moves at the given indices, which is how move ordering picks the next move to
+   * search without sorting the whole list.
+   *
+   * @throws IndexOutOfBoundsException if either index is not between 0 and size() - 1
+   */
+  public void swap(int first, int second) {
+    checkIndex(first);
+    checkIndex(second);
+    int temp = moves[first];
+    moves[first] = moves[second];
+    moves[second] = temp;
+  }
+
+  /**
+   * Discards every move at or after the given index, keeping the first newSize moves.
+   *
+   * @throws IllegalArgumentException if newSize is not between 0 and size()
+   */
+  public void truncate(int newSize) {
+    if (newSize < 0 || newSize > size) {
+      throw new IllegalArgumentException(String.format("Unable to truncate list of size %d to size %d",
+              size, newSize));
+    }
+    size = newSize;
+  }
+
+  public boolean contains(int move) {
+    for (int i = 0; i < size; i++) {
+      if (moves[i] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Empties the list without releasing its buffer, so that it can be refilled without allocating.
+   */
+  public void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * Returns the moves in the list as an array of exactly size() packed moves.
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(moves, size);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(PackedMove.toString(moves[i]));
+    }
+    return sb.append(']').toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(String.format("Index %d is out of bounds for list of size %d",
+              index, size));
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package model;
+
+import model.Pieces.King;
+
+/**
+ * Describes how safe one color's king is in one position: the enemy pieces giving check, the
+ * friendly pieces pinned to the king, and the squares the enemy attacks. These are found once per
+ * position from the model's occupancy, after which each pseudo-legal move can be checked for
+ * legality with a few bit operations, instead of making the move and looking for an attack on the
+ * king afterwards:
+ * <ul>
+ *   <li>the king can only move to squares the enemy does not attack</li>
+ *   <li>in double check, only the king can move</li>
+ *   <li>in single check, every other piece must capture the checker or block its line</li>
+ *   <li>a pinned piece can only move along the line through itself and its king</li>
+ * </ul>
+ * En passant is the exception, since it takes two pawns off the same row at once and can expose
+ * the king along that row, so its legality is decided by looking up the king's attackers on the
+ * board as it would be after the capture. Squares are numbered as in AttackTables.
+ * The lookups themselves are static and work on piece bitboards laid out as in
+ * BitboardChessModel, which keeps such bitboards itself and uses them directly.
+ */
+final class KingSafety {
+  private static final int NUM_PIECE_TYPES = PieceType.values().length;
+
+  private final int kingSquare;
+  private final long occupancy;
+  //the bitboard of each piece of each color, indexed by BitboardChessModel.pieceIndex()
+  private final long[] pieceBitboards;
+  private final boolean isWhite;
+  private final long checkers;
+  private final long pinned;
+  //the squares the enemy attacks, with the king taken off the board, so that the king does not
+  //seem safe stepping away from a slider along the slider's own line
+  private final long kingDanger;
+
+  /**
+   * Finds the checkers, pins and enemy attacks for the king of the given color in the given
+   * model's position.
+   *
+   * @param model   the model whose position to look at
+   * @param isWhite true to look at the white king, false to look at the black king
+   */
+  KingSafety(ReadOnlyChessModel model, boolean isWhite) {
+    this.isWhite = isWhite;
+    this.occupancy = model.getOccupancy(PlayerColor.WHITE) | model.getOccupancy(PlayerColor.BLACK);
+    this.pieceBitboards = new long[2 * NUM_PIECE_TYPES];
+    //only the squares that hold a piece are visited
+    for (long pieces = occupancy; pieces != 0; pieces &= pieces - 1) {
+      Piece piece = model.getPieceAt(PackedMove.toRowColPair(Long.numberOfTrailingZeros(pieces))).orElseThrow();
+      pieceBitboards[BitboardChessModel.pieceIndex(piece.getIsWhite(), piece.getType())] |= Long.lowestOneBit(pieces);
+    }
+    long kings = pieceBitboards[BitboardChessModel.pieceIndex(isWhite, PieceType.KING)];
+    if (kings == 0) {
+      throw new IllegalStateException("Unable to find king for a color with no king on the board");
+    }
+    this.kingSquare = Long.numberOfTrailingZeros(kings);
+    this.checkers = attackersOf(pieceBitboards, kingSquare, !isWhite, occupancy);
+    this.pinned = pinnedPieces(pieceBitboards, isWhite, kingSquare, occupancy,
+            model.getOccupancy(isWhite ? PlayerColor.WHITE : PlayerColor.BLACK));
+    this.kingDanger = attackedSquares(pieceBitboards, !isWhite, occupancy & ~(1L << kingSquare));
+  }
+
+  /**
+   * Returns true if the given pseudo-legal move of a piece of this king's color does not leave
+   * the king in check. Castling moves must also not start in check or cross an attacked square.
+   *
+   * @param m the pseudo-legal move to check, which must follow the movement rules of its piece
+   */
+  boolean isLegal(Move m) {
+    int from = PackedMove.toSquare(m.getSourcePosition());
+    int to = PackedMove.toSquare(m.getDestinationPosition());
+    if (from == kingSquare) {
+      if (King.castlingFlags.contains(m.getFlag())) {
+        //the king cannot castle out of check, through check or into check
+        int crossedSquare = (from + to) / 2;
+        return checkers == 0 && (kingDanger & ((1L << crossedSquare) | (1L << to))) == 0;
+      }
+      return (kingDanger & (1L << to)) == 0;
+    }
+    if (Long.bitCount(checkers) > 1) {
+      return false; //no single move can capture or block two checkers, so only the king can move
+    }
+    if (m.getFlag() == Move.MoveFlag.EN_PASSANT) {
+      //the captured pawn is beside the destination square, on the capturing pawn's row
+      int capturedSquare = m.getSourcePosition().getRow() * StrictChessModel.NUM_FILES + to % StrictChessModel.NUM_FILES;
+      return isEnPassantLegal(pieceBitboards, isWhite, kingSquare, from, to, capturedSquare, occupancy);
+    }
+    //a check must be answered by capturing the checker or by stepping between it and the king
+    if (checkers != 0
+            && ((checkers | AttackTables.between(kingSquare, Long.numberOfTrailingZeros(checkers))) & (1L << to)) == 0) {
+      return false;
+    }
+    return (pinned & (1L << from)) == 0 || (AttackTables.line(kingSquare, from) & (1L << to)) != 0;
+  }
+
+  /**
+   * Returns the bitboard of the pieces of the given color that attack the given square, given the
+   * occupancy of the board. Rather than generating every move for the attacking color, this looks
+   * outward from the square: a square is attacked by a knight if a knight stands a knight's move
+   * away from it, and so on for each piece.
+   *
+   * @param pieceBitboards the bitboard of each piece, indexed by BitboardChessModel.pieceIndex()
+   */
+  static long attackersOf(long[] pieceBitboards, int square, boolean byWhite, long occupied) {
+    long queens = pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.QUEEN)];
+    //a pawn of the attacking color attacks this square if it stands where a defending pawn would attack
+    return (AttackTables.pawnAttacks(!byWhite, square)
+            & pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.PAWN)])
+            | (AttackTables.knightAttacks(square) & pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.KNIGHT)])
+            | (AttackTables.kingAttacks(square) & pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.KING)])
+            | (MagicBitboards.bishopAttacks(square, occupied)
+            & (pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.BISHOP)] | queens))
+            | (MagicBitboards.rookAttacks(square, occupied)
+            & (pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.ROOK)] | queens));
+  }
+
+  /**
+   * Returns the bitboard of squares attacked by the pieces of the given color, given the occupancy
+   * of the board.
+   *
+   * @param pieceBitboards the bitboard of each piece, indexed by BitboardChessModel.pieceIndex()
+   */
+  static long attackedSquares(long[] pieceBitboards, boolean byWhite, long occupied) {
+    long attacks = AttackTables.kingAttacks(
+            Long.numberOfTrailingZeros(pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.KING)]));
+    for (long pawns = pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.PAWN)]; pawns != 0;
+         pawns &= pawns - 1) {
+      attacks |= AttackTables.pawnAttacks(byWhite, Long.numberOfTrailingZeros(pawns));
+    }
+    for (long knights = pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.KNIGHT)]; knights != 0;
+         knights &= knights - 1) {
+      attacks |= AttackTables.knightAttacks(Long.numberOfTrailingZeros(knights));
+    }
+    long queens = pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.QUEEN)];
+    for (long diagonals = pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.BISHOP)] | queens;
+         diagonals != 0; diagonals &= diagonals - 1) {
+      attacks |= MagicBitboards.bishopAttacks(Long.numberOfTrailingZeros(diagonals), occupied);
+    }
+    for (long straights = pieceBitboards[BitboardChessModel.pieceIndex(byWhite, PieceType.ROOK)] | queens;
+         straights != 0; straights &= straights - 1) {
+      attacks |= MagicBitboards.rookAttacks(Long.numberOfTrailingZeros(straights), occupied);
+    }
+    return attacks;
+  }
+
+  /**
+   * Returns the bitboard of the given color's pieces that are pinned to its king on the given
+   * square - pieces that stand alone between the king and an enemy slider that would otherwise
+   * attack the king.
+   *
+   * @param pieceBitboards the bitboard of each piece, indexed by BitboardChessModel.pieceIndex()
+   * @param friendlyPieces the bitboard of the pieces of the given color
+   */
+  static long pinnedPieces(long[] pieceBitboards, boolean isWhite, int kingSquare, long occupied,
+                           long friendlyPieces) {
+    long queens = pieceBitboards[BitboardChessModel.pieceIndex(!isWhite, PieceType.QUEEN)];
+    //the enemy sliders that would attack the king on an empty board
+    long snipers = (MagicBitboards.bishopAttacks(kingSquare, 0)
+            & (pieceBitboards[BitboardChessModel.pieceIndex(!isWhite, PieceType.BISHOP)] | queens))
+            | (MagicBitboards.rookAttacks(kingSquare, 0)
+            & (pieceBitboards[BitboardChessModel.pieceIndex(!isWhite, PieceType.ROOK)] | queens));
+    long pinned = 0;
+    for (; snipers != 0; snipers &= snipers - 1) {
+      long blockers = AttackTables.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+      if (Long.bitCount(blockers) == 1) {
+        pinned |= blockers & friendlyPieces;
+      }
+    }
+    return pinned;
+  }
+
+  /**
+   * Returns true if the en passant capture from the given square to the given square leaves the
+   * king of the given color safe. Both pawns leave the capturing pawn's row at once, which can
+   * expose the king to a rook or queen on that row even though neither pawn is pinned on its own,
+   * so the king's attackers are looked up on the board as it would be after the capture.
+   *
+   * @param pieceBitboards the bitboard of each piece, indexed by BitboardChessModel.pieceIndex()
+   * @param capturedSquare the square of the pawn the capture takes
+   */
+  static boolean isEnPassantLegal(long[] pieceBitboards, boolean isWhite, int kingSquare, int from, int to,
+                                  int capturedSquare, long occupied) {
+    long capturedPawn = 1L << capturedSquare;
+    long occupiedAfter = (occupied & ~(1L << from) & ~capturedPawn) | (1L << to);
+    return (attackersOf(pieceBitboards, kingSquare, !isWhite, occupiedAfter) & ~capturedPawn) == 0;
+  }
+}
@@ -0,0 +1,192 @@
+package model;
+
+/**
+ * Looks up the squares attacked by rooks and bishops (and therefore queens) with "magic"
+ * bitboards. For each square, only the occupancy of the squares a slider's rays cross matters -
+ * the relevant mask. Multiplying the masked occupancy by a per-square magic number and shifting
+ * the product maps every possible masked occupancy to a distinct index into that square's attack
+ * table, so an attack lookup costs one AND, one multiply, one shift and one array read instead of
+ * a walk along each ray. Squares are numbered row by row from a8 = 0 to h1 = 63, as in
+ * AttackTables.
+ * The magic numbers below were found offline by trial of sparse random numbers. Searching for them
+ * when the class is loaded takes seconds, while filling the tables from known magic numbers takes
+ * milliseconds, and each magic number is still checked for collisions as its table is filled.
+ */
+public final class MagicBitboards {
+  private static final int NUM_SQUARES = StrictChessModel.NUM_RANKS * StrictChessModel.NUM_FILES;
+  private static final Direction[] ROOK_DIRECTIONS = {
+          Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT
+  };
+  private static final Direction[] BISHOP_DIRECTIONS = {
+          Direction.UP_LEFT, Direction.UP_RIGHT, Direction.LEFT_DOWN, Direction.RIGHT_DOWN
+  };
+
+  //immutable lookup tables, initialized in static block
+  private static final long[] ROOK_MASKS = new long[NUM_SQUARES];
+  private static final long[] ROOK_MAGICS = {
+          0x0180042412400080L, 0x1480200140028110L, 0x0C80081002200082L, 0x4080080080100004L,
+          0x2080030800800400L, 0x0100040002010008L, 0xA5000100120000C4L, 0x0200008020420104L,
+          0xC200800080204004L, 0x0000802000400084L, 0x1080808010002000L, 0x0001000821001001L,
+          0x0002000810220004L, 0x0000808002000400L, 0x9602000401080200L, 0x0001000061000082L,
+          0x0400208010400082L, 0x8210004000200040L, 0x0000410015002000L, 0x0101010010002008L,
+          0x1440808004000800L, 0x0001010004000802L, 0x0000040088210250L, 0x2908020014108041L,
+          0x0120400080008020L, 0x3120008280400120L, 0x0108408200201200L, 0x020021010010000AL,
+          0x0080080080800400L, 0x0000040801201040L, 0x0301000100040200L, 0x2040044A00140081L,
+          0x000080C001800027L, 0x1040201000C00048L, 0x0800801000802000L, 0x0004120022004008L,
+          0x0880040080800800L, 0x0046001002000904L, 0x0C00B20104000810L, 0x402004450A000084L,
+          0x00024002800A8022L, 0x001000412004C000L, 0xA0D5200100110040L, 0x8098002010010100L,
+          0x0848010009110004L, 0x5008040002008080L, 0x0F05000200010004L, 0x0100008041220004L,
+          0xA114800821004100L, 0x4640088040200880L, 0x0010100088200080L, 0x5000082100100100L,
+          0x8000080100100500L, 0x2000020080040080L, 0x9005500281084400L, 0x002D014D04288200L,
+          0x4000402010800101L, 0x0042150084420222L, 0x0001001020000841L, 0x148C050008201001L,
+          0x043B001008000423L, 0x0209008814000231L, 0x0000010082100804L, 0x4A00040021108042L
+  };
+  private static final int[] ROOK_SHIFTS = new int[NUM_SQUARES];
+  private static final long[][] ROOK_ATTACKS = new long[NUM_SQUARES][];
+  private static final long[] BISHOP_MASKS = new long[NUM_SQUARES];
+  private static final long[] BISHOP_MAGICS = {
+          0x1020828208030250L, 0xB020A10400808000L, 0x00108C0088210000L, 0x21220A020000600CL,
+          0x1004050409020200L, 0x281209100A010012L, 0x801402020220180CL, 0x0101002804020801L,
+          0x0000846002022600L, 0x0008500401041020L, 0x0000A20084048020L, 0x0000082040500000L,
+          0x0058020210400504L, 0x4001010403400090L, 0x0081010098144004L, 0x006008240208B400L,
+          0x40A0324002220A40L, 0x1690208822408C08L, 0x8030041808805230L, 0x2000880802044008L,
+          0x080C020600A22200L, 0x1820405E02422040L, 0x0482005041442000L, 0x5005000824020200L,
+          0x00041004041010A0L, 0x8241044008F00403L, 0x0000405004010A00L, 0x0820202008008020L,
+          0x9051001001004000L, 0x0002002004100800L, 0x0024008800421000L, 0x020109020204410CL,
+          0x0048424210C80804L, 0x70190402101010A2L, 0x9004241004210102L, 0x0000020080080080L,
+          0x0180408020120200L, 0x1141610700420040L, 0x0010012209071098L, 0x041809091019C142L,
+          0xC002611008004000L, 0x0000941042080810L, 0x0000414050002040L, 0x0002001144020800L,
+          0x0000040408200400L, 0x8001010931000600L, 0x001004010070C400L, 0x440202020204002CL,
+          0x1062010420050040L, 0x0004420804020040L, 0x044418A605100400L, 0x20440063A1880100L,
+          0x0000F04110410001L, 0x0046840408820000L, 0x4020841010810004L, 0x0810524821002002L,
+          0x8092820490140260L, 0x8644402101101008L, 0x0006020042080490L, 0x0001010040208800L,
+          0x40100002A120410EL, 0x0014802021024085L, 0x2210040910240080L, 0x0340010404004840L
+  };
+  private static final int[] BISHOP_SHIFTS = new int[NUM_SQUARES];
+  private static final long[][] BISHOP_ATTACKS = new long[NUM_SQUARES][];
+
+  static {
+    for (int square = 0; square < NUM_SQUARES; square++) {
+      initializeSquare(square, ROOK_DIRECTIONS, ROOK_MAGICS[square], ROOK_MASKS, ROOK_SHIFTS, ROOK_ATTACKS);
+      initializeSquare(square, BISHOP_DIRECTIONS, BISHOP_MAGICS[square], BISHOP_MASKS, BISHOP_SHIFTS,
+              BISHOP_ATTACKS);
+    }
+  }
+
+  private MagicBitboards() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns the bitboard of squares a rook on the given square attacks, given the occupancy of the
+   * board. Each ray stops at, and includes, the first occupied square, whatever its color.
+   *
+   * @param square    the square of the rook, between 0 and 63
+   * @param occupancy the bitboard of all occupied squares
+   */
+  public static long rookAttacks(int square, long occupancy) {
+    int index = (int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+    return ROOK_ATTACKS[square][index];
+  }
+
+  /**
+   * Returns the bitboard of squares a bishop on the given square attacks, given the occupancy of
+   * the board. Each ray stops at, and includes, the first occupied square, whatever its color.
+   *
+   * @param square    the square of the bishop, between 0 and 63
+   * @param occupancy the bitboard of all occupied squares
+   */
+  public static long bishopAttacks(int square, long occupancy) {
+    int index = (int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+    return BISHOP_ATTACKS[square][index];
+  }
+
+  /**
+   * Returns the bitboard of squares a queen on the given square attacks, given the occupancy of the
+   * board - the union of the rook and bishop attacks from that square.
+   *
+   * @param square    the square of the queen, between 0 and 63
+   * @param occupancy the bitboard of all occupied squares
+   */
+  public static long queenAttacks(int square, long occupancy) {
+    return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+  }
+
+  /**
+   * Computes the relevant mask for the given square and slider directions, then fills the square's
+   * attack table using the given magic number, which maps every subset of the mask to an index
+   * holding the attacks for that subset.
+   *
+   * @throws IllegalStateException if the magic number maps two subsets with different attacks to
+   *                               the same index
+   */
+  private static void initializeSquare(int square, Direction[] directions, long magic, long[] masks,
+                                       int[] shifts, long[][] attackTables) {
+    long mask = relevantMask(square, directions);
+    int numBits = Long.bitCount(mask);
+    int shift = Long.SIZE - numBits;
+    long[] table = new long[1 << numBits];
+    boolean[] used = new boolean[table.length];
+    //enumerate every subset of the mask with the carry-rippler trick
+    long subset = 0;
+    do {
+      long attacks = slidingAttacks(square, subset, directions);
+      int index = (int) ((subset * magic) >>> shift);
+      //collisions between subsets with the same attacks are harmless
+      if (used[index] && table[index] != attacks) {
+        throw new IllegalStateException(String.format("Invalid magic number for square %d", square));
+      }
+      used[index] = true;
+      table[index] = attacks;
+      subset = (subset - mask) & mask;
+    } while (subset != 0);
+    masks[square] = mask;
+    shifts[square] = shift;
+    attackTables[square] = table;
+  }
+
+  /**
+   * Returns the squares whose occupancy can change a slider's attacks from the given square - every
+   * square along each ray except the last one, since the edge of the board blocks the ray anyway.
+   */
+  private static long relevantMask(int square, Direction[] directions) {
+    long mask = 0;
+    for (Direction direction : directions) {
+      int row = square / StrictChessModel.NUM_FILES + direction.getRankOffset();
+      int col = square % StrictChessModel.NUM_FILES + direction.getFileOffset();
+      while (isInBounds(row + direction.getRankOffset(), col + direction.getFileOffset())) {
+        mask |= 1L << (row * StrictChessModel.NUM_FILES + col);
+        row += direction.getRankOffset();
+        col += direction.getFileOffset();
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Returns the squares reachable from the given square by sliding in each of the given directions,
+   * stopping at (and including) the first occupied square in each direction. Only used to build
+   * the lookup tables.
+   */
+  private static long slidingAttacks(int square, long occupied, Direction[] directions) {
+    long attacks = 0;
+    for (Direction direction : directions) {
+      int row = square / StrictChessModel.NUM_FILES + direction.getRankOffset();
+      int col = square % StrictChessModel.NUM_FILES + direction.getFileOffset();
+      while (isInBounds(row, col)) {
+        long bit = 1L << (row * StrictChessModel.NUM_FILES + col);
+        attacks |= bit;
+        if ((occupied & bit) != 0) { //we are blocked by the piece on this square
+          break;
+        }
+        row += direction.getRankOffset();
+        col += direction.getFileOffset();
+      }
+    }
+    return attacks;
+  }
+
+  private static boolean isInBounds(int row, int col) {
+    return row >= 0 && row < StrictChessModel.NUM_RANKS && col >= 0 && col < StrictChessModel.NUM_FILES;
+  }
+}
@@ -3,4 +3,5 @@ package model;
 public enum ModelEvent {
   GAME_STARTED,
   MOVE_MADE,
+  MOVE_UNDONE,
 }
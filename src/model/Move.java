@@ -42,12 +42,13 @@ public final class Move {
     this.dest = dest;
     this.flag = flag;
   }
+  //RowColPair is immutable, so the positions can be handed out without being copied
   public RowColPair getSourcePosition() {
-    return new RowColPair(src.getRow(), src.getCol());
+    return this.src;
   }
 
   public RowColPair getDestinationPosition() {
-    return new RowColPair(dest.getRow(), dest.getCol());
+    return this.dest;
   }
 
   public MoveFlag getFlag() {
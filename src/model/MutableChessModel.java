@@ -11,11 +11,23 @@ public interface MutableChessModel extends ReadOnlyChessModel {
    * Applies the given move to the given model
    *
    * @param m the move to be applied
+   * @return the information needed to take the move back with unmakeMove()
    * @throws IllegalArgumentException    if the move is not a legal move for the current game state.
    * @throws IllegalStateException if the game is over or has not yet started
    * @throws IllegalArgumentException if the source position or destination position are null or not in bounds
    */
-  void makeMove(Move m) throws IllegalStateException;
+  UndoInfo makeMove(Move m) throws IllegalStateException;
+
+  /**
+   * Takes back the most recently made move, restoring the model to the exact position it was in
+   * before that move was made. Moves must be taken back in the reverse order they were made.
+   *
+   * @param undo the undo information returned by makeMove() for the most recently made move
+   * @throws IllegalArgumentException if the undo information is null or does not belong to the
+   *                                  most recently made move
+   * @throws IllegalStateException    if the game has not yet started
+   */
+  void unmakeMove(UndoInfo undo);
 
   /**
    * Sets the game to the initial position and allow for moves to be
@@ -0,0 +1,156 @@
+package model;
+
+/**
+ * Encodes moves as primitive ints, so that move generation, perft and search can run without
+ * creating a Move object for every move. A packed move holds the source square in bits 0-5, the
+ * destination square in bits 6-11 and the ordinal of its MoveFlag in bits 12-15, and therefore also
+ * fits in a short. Squares are numbered row by row from a8 = 0 to h1 = 63, so square n corresponds
+ * to the RowColPair (n / 8, n % 8).
+ * Move remains the boxed form of a move at the API edge - toMove() and fromMove() convert between
+ * the two encodings.
+ */
+public final class PackedMove {
+  /**
+   * A value that is never a valid packed move (its source and destination squares are the same),
+   * used to mean "no move", for example when a transposition table has no best move to report.
+   */
+  public static final int NULL_MOVE = 0;
+
+  private static final int SQUARE_BITS = 6;
+  private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+  private static final int DESTINATION_SHIFT = SQUARE_BITS;
+  private static final int FLAG_SHIFT = 2 * SQUARE_BITS;
+  private static final int FLAG_MASK = 0xF;
+  private static final int NUM_SQUARES = StrictChessModel.NUM_RANKS * StrictChessModel.NUM_FILES;
+
+  //immutable lookup tables, so that decoding a packed move never allocates
+  private static final Move.MoveFlag[] FLAGS = Move.MoveFlag.values();
+  private static final RowColPair[] SQUARES = new RowColPair[NUM_SQUARES];
+
+  static {
+    for (int square = 0; square < NUM_SQUARES; square++) {
+      SQUARES[square] = new RowColPair(square / StrictChessModel.NUM_FILES,
+              square % StrictChessModel.NUM_FILES);
+    }
+  }
+
+  private PackedMove() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Packs the given move into an int. The squares are not validated, since this is called on hot
+   * paths by move generators that only ever produce squares between 0 and 63.
+   *
+   * @param from the source square of the move, between 0 and 63
+   * @param to   the destination square of the move, between 0 and 63
+   * @param flag the flag of the move
+   * @return the packed move
+   */
+  public static int encode(int from, int to, Move.MoveFlag flag) {
+    return from | (to << DESTINATION_SHIFT) | (flag.ordinal() << FLAG_SHIFT);
+  }
+
+  /**
+   * Returns the source square of the given packed move.
+   */
+  public static int getFrom(int move) {
+    return move & SQUARE_MASK;
+  }
+
+  /**
+   * Returns the destination square of the given packed move. For castling moves, this is the
+   * square where the king ends up.
+   */
+  public static int getTo(int move) {
+    return (move >>> DESTINATION_SHIFT) & SQUARE_MASK;
+  }
+
+  /**
+   * Returns the flag of the given packed move.
+   */
+  public static Move.MoveFlag getFlag(int move) {
+    return FLAGS[(move >>> FLAG_SHIFT) & FLAG_MASK];
+  }
+
+  /**
+   * Returns the shared, immutable RowColPair for the given square.
+   *
+   * @param square the square, between 0 and 63
+   * @return the RowColPair for the square
+   * @throws IllegalArgumentException if the square is not between 0 and 63
+   */
+  public static RowColPair toRowColPair(int square) {
+    if (square < 0 || square >= NUM_SQUARES) {
+      throw new IllegalArgumentException(String.format("%d is not a square between 0 and %d",
+              square, NUM_SQUARES - 1));
+    }
+    return SQUARES[square];
+  }
+
+  /**
+   * Returns the square number for the given in bounds RowColPair.
+   */
+  public static int toSquare(RowColPair pair) {
+    return pair.getRow() * StrictChessModel.NUM_FILES + pair.getCol();
+  }
+
+  /**
+   * Converts the given packed move to its boxed form.
+   *
+   * @param move the packed move
+   * @return the equivalent Move
+   */
+  public static Move toMove(int move) {
+    return new Move(SQUARES[getFrom(move)], SQUARES[getTo(move)], getFlag(move));
+  }
+
+  /**
+   * Packs the given move into an int.
+   *
+   * @param m the move to pack
+   * @return the packed move
+   * @throws IllegalArgumentException if the move is null or either of its squares is out of bounds
+   */
+  public static int fromMove(Move m) {
+    if (m == null) {
+      throw new IllegalArgumentException("Unable to pack null move");
+    }
+    RowColPair src = m.getSourcePosition();
+    RowColPair dest = m.getDestinationPosition();
+    if (!isInBounds(src) || !isInBounds(dest)) {
+      throw new IllegalArgumentException("Unable to pack move with out of bounds source or destination");
+    }
+    return encode(toSquare(src), toSquare(dest), m.getFlag());
+  }
+
+  /**
+   * Returns a readable description of the given packed move in coordinate notation, such as "e2e4"
+   * or "e7e8q" for a promotion.
+   */
+  public static String toString(int move) {
+    StringBuilder sb = new StringBuilder();
+    appendSquare(sb, getFrom(move));
+    appendSquare(sb, getTo(move));
+    switch (getFlag(move)) {
+      case PAWN_PROMOTION_TO_QUEEN -> sb.append('q');
+      case PAWN_PROMOTION_TO_ROOK -> sb.append('r');
+      case PAWN_PROMOTION_TO_BISHOP -> sb.append('b');
+      case PAWN_PROMOTION_TO_KNIGHT -> sb.append('n');
+      default -> {
+        //no other flags change the notation of a move
+      }
+    }
+    return sb.toString();
+  }
+
+  private static void appendSquare(StringBuilder sb, int square) {
+    sb.append((char) ('a' + square % StrictChessModel.NUM_FILES));
+    sb.append(StrictChessModel.NUM_RANKS - square / StrictChessModel.NUM_FILES);
+  }
+
+  private static boolean isInBounds(RowColPair pair) {
+    return pair.getRow() >= 0 && pair.getRow() < StrictChessModel.NUM_RANKS
+            && pair.getCol() >= 0 && pair.getCol() < StrictChessModel.NUM_FILES;
+  }
+}
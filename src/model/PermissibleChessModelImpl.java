@@ -4,6 +4,13 @@ import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
+import model.Pieces.King;
+
+/**
+ * Represents a permissive chess model that delegates to a StrictChessModel. Pseudo legal moves are
+ * made directly on the delegate, so a permissive model built around a strict model acts as a view
+ * that can make and unmake moves on it in place.
+ */
 public class PermissibleChessModelImpl implements PermissiveChessModel {
   private final StrictChessModel delegate;
   private final Set<ModelListener> listeners;
@@ -15,12 +22,38 @@ public class PermissibleChessModelImpl implements PermissiveChessModel {
 
   @Override
   public boolean canMakeMove(Move m) {
+    if (m == null || !isInBounds(m.getSourcePosition()) || !isInBounds(m.getDestinationPosition())) {
+      throw new IllegalArgumentException("Cannot check move for null or out of bounds move");
+    }
+    RowColPair sourcePos = m.getSourcePosition();
+    Optional<Piece> piece = delegate.getPieceAt(sourcePos);
+    if (piece.isEmpty()) {
+      throw new IllegalArgumentException("Cannot check move for empty source square");
+    }
+    //a permissive model allows any pseudo legal move, even ones that leave the mover in check
+    return piece.get().getPseudoLegalMoves(sourcePos, this).contains(m);
+  }
 
+  @Override
+  public UndoInfo makePseudoLegalMove(Move m) {
+    UndoInfo undo = delegate.makePseudoLegalMove(m);
+    notifyAllListeners(ModelEvent.MOVE_MADE);
+    return undo;
   }
 
   @Override
-  public void makePseudoLegalMove(Move m) {
+  public void unmakePseudoLegalMove(UndoInfo undo) {
+    if (undo == null) {
+      throw new IllegalArgumentException("Unable to unmake move with null undo information");
+    }
+    delegate.unmakePseudoLegalMove(undo);
+    notifyAllListeners(ModelEvent.MOVE_UNDONE);
+  }
 
+  private void notifyAllListeners(ModelEvent event) {
+    for (ModelListener listener : this.listeners) {
+      listener.notifyAfterModelUpdate(event);
+    }
   }
 
   @Override
@@ -28,6 +61,11 @@ public class PermissibleChessModelImpl implements PermissiveChessModel {
     return delegate.getPieceTypeAt(pair);
   }
 
+  @Override
+  public Optional<Piece> getPieceAt(RowColPair pair) {
+    return delegate.getPieceAt(pair);
+  }
+
 
 
   @Override
@@ -60,19 +98,74 @@ public class PermissibleChessModelImpl implements PermissiveChessModel {
     this.listeners.add(listener);
   }
 
+  /**
+   * Returns the set of all pseudo legal moves for the given color, since a permissive model
+   * treats every pseudo legal move as legal.
+   */
   @Override
   public Set<Move> getLegalMoves(PlayerColor c) {
-    return delegate.getLegalMoves(c);
+    Set<Move> pseudoLegalMoves = new HashSet<>();
+    //only visit the squares that hold a piece of the given color
+    for (long pieces = delegate.getOccupancy(c); pieces != 0; pieces &= pieces - 1) {
+      RowColPair position = PackedMove.toRowColPair(Long.numberOfTrailingZeros(pieces));
+      Piece piece = delegate.getPieceAt(position).orElseThrow();
+      pseudoLegalMoves.addAll(piece.getPseudoLegalMoves(position, this));
+    }
+    return pseudoLegalMoves;
+  }
+
+  /**
+   * Returns the set of pseudo legal captures and promotions for the given color.
+   */
+  @Override
+  public Set<Move> getLegalCaptures(PlayerColor c) {
+    Set<Move> captures = new HashSet<>();
+    for (Move m : getLegalMoves(c)) {
+      if (StrictChessModel.isCaptureOrPromotion(m, this)) {
+        captures.add(m);
+      }
+    }
+    return captures;
+  }
+
+  /**
+   * Returns the set of squares on which the given color could capture an enemy piece with a pseudo
+   * legal move. Castling moves and pawn pushes never capture, so their destinations are excluded.
+   */
+  @Override
+  public Set<RowColPair> getColorTargetSquares(PlayerColor c) {
+    Set<RowColPair> targetSquares = new HashSet<>();
+    for (Move m : getLegalMoves(c)) {
+      if (!King.castlingFlags.contains(m.getFlag()) && !isPawnPush(m)) {
+        targetSquares.add(m.getDestinationPosition());
+      }
+    }
+    return targetSquares;
+  }
+
+  private boolean isPawnPush(Move m) {
+    return m.getSourcePosition().getCol() == m.getDestinationPosition().getCol()
+            && delegate.getPieceTypeAt(m.getSourcePosition()).orElse(null) == PieceType.PAWN;
   }
 
   @Override
-  public Set<RowColPair> getColorTargetSquares(PlayerColor c) {
-    return delegate.getColorTargetSquares(c);
+  public boolean isSquareAttacked(RowColPair square, PlayerColor byColor) {
+    return delegate.isSquareAttacked(square, byColor);
   }
 
   @Override
   public Optional<Set<RowColPair>> getTargetSquares(RowColPair position) {
-    return delegate.getTargetSquares(position);
+    if (!isInBounds(position)) {
+      throw new IllegalArgumentException("Unable to get target squares for out of bounds position");
+    }
+    Optional<Piece> piece = delegate.getPieceAt(position);
+    return piece.map(p -> {
+      Set<RowColPair> targetSquares = new HashSet<>();
+      for (Move m : p.getPseudoLegalMoves(position, this)) {
+        targetSquares.add(m.getDestinationPosition());
+      }
+      return targetSquares;
+    });
   }
 
   @Override
@@ -104,4 +197,49 @@ public class PermissibleChessModelImpl implements PermissiveChessModel {
   public Optional<RowColPair> getEnPassantTarget() {
     return delegate.getEnPassantTarget();
   }
+
+  @Override
+  public long getZobristKey() {
+    return delegate.getZobristKey();
+  }
+
+  @Override
+  public int getRepetitionCount() {
+    return delegate.getRepetitionCount();
+  }
+
+  @Override
+  public int getHalfMoveClock() {
+    return delegate.getHalfMoveClock();
+  }
+
+  @Override
+  public int getPieceCount(PlayerColor c, PieceType type) {
+    return delegate.getPieceCount(c, type);
+  }
+
+  @Override
+  public boolean hasInsufficientMaterial() {
+    return delegate.hasInsufficientMaterial();
+  }
+
+  @Override
+  public long getOccupancy(PlayerColor c) {
+    return delegate.getOccupancy(c);
+  }
+
+  @Override
+  public int getMiddlegameScore() {
+    return delegate.getMiddlegameScore();
+  }
+
+  @Override
+  public int getEndgameScore() {
+    return delegate.getEndgameScore();
+  }
+
+  @Override
+  public int getGamePhase() {
+    return delegate.getGamePhase();
+  }
 }
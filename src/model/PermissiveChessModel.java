@@ -9,7 +9,16 @@ public interface PermissiveChessModel extends ReadOnlyChessModel {
    * Makes a pseudo legal move on the given model. Pseudo legal moves are a superset of legal moves
    *
    * @param m the move to be made
+   * @return the information needed to take the move back with unmakePseudoLegalMove()
    */
-  void makePseudoLegalMove(Move m);
+  UndoInfo makePseudoLegalMove(Move m);
+
+  /**
+   * Takes back the most recently made pseudo legal move, restoring the previous position in place.
+   *
+   * @param undo the undo information returned by makePseudoLegalMove() for the most recent move
+   * @throws IllegalArgumentException if the undo information is null
+   */
+  void unmakePseudoLegalMove(UndoInfo undo);
 
 }
@@ -1,6 +1,5 @@
 package model;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Optional;
@@ -34,40 +33,45 @@ public abstract class Piece {
   public abstract Set<Move> getPseudoLegalMoves(RowColPair position, ReadOnlyChessModel model);
 
 
-//  /**
-//   * Gets the legal moves - all the moves consisting with given source position and destination
-//   * position consisting of a destination positions that this piece can move to for the given model.
-//   * All of these moves are legal - they can be made and will not put the player executing the move
-//   * in check.
-//   *
-//   * @param position the position in the board that a piece of this type and color is located at
-//   * @param model    the chess model to query to calculate moves
-//   * @return the Set of legal moves, with move consisting of a source and desintaiton position
-//   * @throws IllegalArgumentException if the model or position is invalid
-//   */
-//  protected final Set<Move> getLegalMoves(RowColPair position, ReadOnlyChessModel model) {
-//    checkModelAndPositionValidity(position, model);
-//    Set<Move> moves = getPseudoLegalMoves(position, model);
-//    PlayerColor friendlyColor = this.isWhite ? PlayerColor.WHITE : PlayerColor.BLACK;
-//    moves.removeIf(m -> {
-//      PermissiveChessModel copy = model.getPermissibleDeepCopy();
-//      copy.makePseudoLegalMove(m);
-//      Set<RowColPair> enemyTargetSquares = copy.getColorTargetSquares(friendlyColor.getOpposite());
-//      return enemyTargetSquares.contains(model.getKingSquare(friendlyColor));
-//    });
-//    return moves;
-//  }
+  /**
+   * Gets the legal moves - all the moves consisting with given source position and destination
+   * position consisting of a destination positions that this piece can move to for the given model.
+   * All of these moves are legal - they can be made and will not put the player executing the move
+   * in check. Checks and pins are looked up once (see KingSafety) and each pseudo legal move is
+   * checked against them, so no move is made on the model.
+   *
+   * @param position the position in the board that a piece of this type and color is located at
+   * @param model    the permissive chess model to get moves from
+   * @return the Set of legal moves, with move consisting of a source and desintaiton position
+   * @throws IllegalArgumentException if the model or position is invalid
+   */
+  protected final Set<Move> getLegalMoves(RowColPair position, PermissiveChessModel model) {
+    checkModelAndPositionValidity(position, model);
+    return getLegalMoves(position, model, new KingSafety(model, this.isWhite));
+  }
+
+  /**
+   * Gets the legal moves of this piece as in getLegalMoves(RowColPair, PermissiveChessModel), using
+   * the given checks and pins of this piece's king, so that a model generating the moves of every
+   * piece of a color only has to look them up once.
+   */
+  final Set<Move> getLegalMoves(RowColPair position, ReadOnlyChessModel model, KingSafety kingSafety) {
+    Set<Move> moves = getPseudoLegalMoves(position, model);
+    moves.removeIf(m -> !kingSafety.isLegal(m));
+    return moves;
+  }
 
   /**
    * Gets the target squares - all the possible destination positions that this piece can move
-   * to for the given model.
+   * to for the given model. These are the destinations of the piece's legal moves, found as in
+   * getLegalMoves(RowColPair, PermissiveChessModel), so no move is made on the model.
    *
    * @param position the position in the board that a piece of this type and color is located at
-   * @param model    the chess model to query to calculate moves
+   * @param model    the permissive chess model to get moves from
    * @return the Set of target squares, with each target position expressed as a RowColPair
    * @throws IllegalArgumentException if the model or position is invalid
    */
-  public final Set<RowColPair> getTargetSquares(RowColPair position, ReadOnlyChessModel model){
+  public final Set<RowColPair> getTargetSquares(RowColPair position, PermissiveChessModel model){
     Set<Move> legalMoves = this.getLegalMoves(position, model);
     Set<RowColPair> targetSquares = new HashSet<>();
     for(Move move : legalMoves){
@@ -76,6 +80,26 @@ public abstract class Piece {
     return targetSquares;
   }
 
+  /**
+   * Adds a move from the given position to each square of the given target bitboard (see
+   * AttackTables) that is not occupied by a friendly piece - each target is either empty or
+   * occupied by an enemy piece that can be captured.
+   *
+   * @param position the position of this piece
+   * @param targets  the bitboard of squares this piece could move to on an empty board
+   * @param flag     the flag to give each move
+   * @param model    the model this piece is on
+   * @param moves    the set to add the moves to
+   */
+  protected final void addMovesToTargets(RowColPair position, long targets, Move.MoveFlag flag,
+                                         ReadOnlyChessModel model, Set<Move> moves) {
+    //we cannot capture our own pieces
+    targets &= ~model.getOccupancy(this.isWhite ? PlayerColor.WHITE : PlayerColor.BLACK);
+    for (; targets != 0; targets &= targets - 1) {
+      moves.add(new Move(position, PackedMove.toRowColPair(Long.numberOfTrailingZeros(targets)), flag));
+    }
+  }
+
   /**
    * Factory method to return the piece type of the given piece implementation
    *
@@ -107,8 +131,7 @@ public abstract class Piece {
       throw new IllegalArgumentException("Unable to get target squares for null model or null" +
               "or out of bounds position.");
     }
-    Optional<Piece>[][] board = model.getBoardCopy();
-    Optional<Piece> piece = board[position.getRow()][position.getCol()];
+    Optional<Piece> piece = model.getPieceAt(position);
     if (piece.isEmpty()) {
       throw new IllegalArgumentException("Unable to get target squares for unoccupied position");
     }
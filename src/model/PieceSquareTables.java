@@ -0,0 +1,182 @@
+package model;
+
+/**
+ * Holds the value of every piece on every square, for the middlegame and for the endgame - the
+ * piece's material value plus a bonus or penalty for the square it stands on, such as a bonus for
+ * a knight in the center or a penalty for a king that leaves its castled position before the
+ * endgame. Models keep the sum of these values for the whole board up to date as pieces are put
+ * on and taken off squares, so that an evaluator can read it instead of scanning the board.
+ * The game phase measures how much material is left, from MAX_GAME_PHASE with every minor and
+ * major piece on the board down to 0 with only kings and pawns. Evaluators blend the middlegame and
+ * endgame scores by the phase (a "tapered" evaluation), so the evaluation shifts smoothly towards
+ * the endgame tables as pieces are traded, instead of jumping at some arbitrary cutoff.
+ * Tables are laid out from white's point of view, row by row from a8 = 0 to h1 = 63, as in
+ * AttackTables. A black piece uses the square mirrored across the middle of the board.
+ */
+public final class PieceSquareTables {
+  //the phase of a position where no minor or major piece has been traded
+  public static final int MAX_GAME_PHASE = 24;
+  private static final int NUM_SQUARES = StrictChessModel.NUM_RANKS * StrictChessModel.NUM_FILES;
+  //flips the row of a square, mirroring a8 to a1 and so on
+  private static final int MIRROR_ROWS = 56;
+
+  //material values in centipawns, indexed by PieceType ordinal. The king is never captured, so it
+  //is worth nothing. Pawns gain value in the endgame as they become promotion threats, and rooks
+  //gain value as the board opens up
+  private static final int[] MIDDLEGAME_PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+  private static final int[] ENDGAME_PIECE_VALUES = {120, 300, 330, 520, 920, 0};
+  //how much each piece type counts towards the game phase, indexed by PieceType ordinal
+  private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+
+  private static final int[] PAWN_MIDDLEGAME = {
+           0,   0,   0,   0,   0,   0,   0,   0,
+          50,  50,  50,  50,  50,  50,  50,  50,
+          10,  10,  20,  30,  30,  20,  10,  10,
+           5,   5,  10,  25,  25,  10,   5,   5,
+           0,   0,   0,  20,  20,   0,   0,   0,
+           5,  -5, -10,   0,   0, -10,  -5,   5,
+           5,  10,  10, -20, -20,  10,  10,   5,
+           0,   0,   0,   0,   0,   0,   0,   0
+  };
+  //in the endgame, a pawn is worth more the closer it is to promoting, wherever it is
+  private static final int[] PAWN_ENDGAME = {
+           0,   0,   0,   0,   0,   0,   0,   0,
+          80,  80,  80,  80,  80,  80,  80,  80,
+          50,  50,  50,  50,  50,  50,  50,  50,
+          30,  30,  30,  30,  30,  30,  30,  30,
+          15,  15,  15,  15,  15,  15,  15,  15,
+           5,   5,   5,   5,   5,   5,   5,   5,
+           0,   0,   0,   0,   0,   0,   0,   0,
+           0,   0,   0,   0,   0,   0,   0,   0
+  };
+  private static final int[] KNIGHT = {
+         -50, -40, -30, -30, -30, -30, -40, -50,
+         -40, -20,   0,   0,   0,   0, -20, -40,
+         -30,   0,  10,  15,  15,  10,   0, -30,
+         -30,   5,  15,  20,  20,  15,   5, -30,
+         -30,   0,  15,  20,  20,  15,   0, -30,
+         -30,   5,  10,  15,  15,  10,   5, -30,
+         -40, -20,   0,   5,   5,   0, -20, -40,
+         -50, -40, -30, -30, -30, -30, -40, -50
+  };
+  private static final int[] BISHOP = {
+         -20, -10, -10, -10, -10, -10, -10, -20,
+         -10,   0,   0,   0,   0,   0,   0, -10,
+         -10,   0,   5,  10,  10,   5,   0, -10,
+         -10,   5,   5,  10,  10,   5,   5, -10,
+         -10,   0,  10,  10,  10,  10,   0, -10,
+         -10,  10,  10,  10,  10,  10,  10, -10,
+         -10,   5,   0,   0,   0,   0,   5, -10,
+         -20, -10, -10, -10, -10, -10, -10, -20
+  };
+  private static final int[] ROOK = {
+           0,   0,   0,   0,   0,   0,   0,   0,
+           5,  10,  10,  10,  10,  10,  10,   5,
+          -5,   0,   0,   0,   0,   0,   0,  -5,
+          -5,   0,   0,   0,   0,   0,   0,  -5,
+          -5,   0,   0,   0,   0,   0,   0,  -5,
+          -5,   0,   0,   0,   0,   0,   0,  -5,
+          -5,   0,   0,   0,   0,   0,   0,  -5,
+           0,   0,   0,   5,   5,   0,   0,   0
+  };
+  private static final int[] QUEEN = {
+         -20, -10, -10,  -5,  -5, -10, -10, -20,
+         -10,   0,   0,   0,   0,   0,   0, -10,
+         -10,   0,   5,   5,   5,   5,   0, -10,
+          -5,   0,   5,   5,   5,   5,   0,  -5,
+           0,   0,   5,   5,   5,   5,   0,  -5,
+         -10,   5,   5,   5,   5,   5,   0, -10,
+         -10,   0,   5,   0,   0,   0,   0, -10,
+         -20, -10, -10,  -5,  -5, -10, -10, -20
+  };
+  //in the middlegame, the king should stay castled behind its pawns
+  private static final int[] KING_MIDDLEGAME = {
+         -30, -40, -40, -50, -50, -40, -40, -30,
+         -30, -40, -40, -50, -50, -40, -40, -30,
+         -30, -40, -40, -50, -50, -40, -40, -30,
+         -30, -40, -40, -50, -50, -40, -40, -30,
+         -20, -30, -30, -40, -40, -30, -30, -20,
+         -10, -20, -20, -20, -20, -20, -20, -10,
+          20,  20,   0,   0,   0,   0,  20,  20,
+          20,  30,  10,   0,   0,  10,  30,  20
+  };
+  //in the endgame, the king is a fighting piece and belongs in the center
+  private static final int[] KING_ENDGAME = {
+         -50, -40, -30, -20, -20, -30, -40, -50,
+         -30, -20, -10,   0,   0, -10, -20, -30,
+         -30, -10,  20,  30,  30,  20, -10, -30,
+         -30, -10,  30,  40,  40,  30, -10, -30,
+         -30, -10,  30,  40,  40,  30, -10, -30,
+         -30, -10,  20,  30,  30,  20, -10, -30,
+         -30, -30,   0,   0,   0,   0, -30, -30,
+         -50, -30, -30, -30, -30, -30, -30, -50
+  };
+
+  //immutable lookup tables combining material and square values, indexed by PieceType ordinal and
+  //square from white's point of view, initialized in static block
+  private static final int[][] MIDDLEGAME_TABLES = {
+          PAWN_MIDDLEGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_MIDDLEGAME
+  };
+  private static final int[][] ENDGAME_TABLES = {
+          PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME
+  };
+  private static final int[][] MIDDLEGAME_VALUES = new int[PieceType.values().length][NUM_SQUARES];
+  private static final int[][] ENDGAME_VALUES = new int[PieceType.values().length][NUM_SQUARES];
+
+  static {
+    for (PieceType type : PieceType.values()) {
+      int t = type.ordinal();
+      for (int square = 0; square < NUM_SQUARES; square++) {
+        MIDDLEGAME_VALUES[t][square] = MIDDLEGAME_PIECE_VALUES[t] + MIDDLEGAME_TABLES[t][square];
+        ENDGAME_VALUES[t][square] = ENDGAME_PIECE_VALUES[t] + ENDGAME_TABLES[t][square];
+      }
+    }
+  }
+
+  private PieceSquareTables() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns the middlegame value of the given piece on the given square, from white's point of
+   * view - positive for white pieces and negative for black pieces.
+   *
+   * @param type    the type of the piece
+   * @param isWhite true for a white piece, false for a black piece
+   * @param square  the square of the piece, between 0 and 63
+   */
+  public static int middlegameValue(PieceType type, boolean isWhite, int square) {
+    return isWhite ? MIDDLEGAME_VALUES[type.ordinal()][square]
+            : -MIDDLEGAME_VALUES[type.ordinal()][square ^ MIRROR_ROWS];
+  }
+
+  /**
+   * Returns the endgame value of the given piece on the given square, from white's point of view -
+   * positive for white pieces and negative for black pieces.
+   *
+   * @param type    the type of the piece
+   * @param isWhite true for a white piece, false for a black piece
+   * @param square  the square of the piece, between 0 and 63
+   */
+  public static int endgameValue(PieceType type, boolean isWhite, int square) {
+    return isWhite ? ENDGAME_VALUES[type.ordinal()][square]
+            : -ENDGAME_VALUES[type.ordinal()][square ^ MIRROR_ROWS];
+  }
+
+  /**
+   * Returns how much a piece of the given type counts towards the game phase.
+   */
+  public static int phaseWeight(PieceType type) {
+    return PHASE_WEIGHTS[type.ordinal()];
+  }
+
+  /**
+   * Blends the given middlegame and endgame scores by the given game phase - all middlegame at
+   * MAX_GAME_PHASE, all endgame at 0. Phases above MAX_GAME_PHASE, which promotions can reach, are
+   * treated as MAX_GAME_PHASE.
+   */
+  public static int taper(int middlegameScore, int endgameScore, int gamePhase) {
+    int phase = Math.min(gamePhase, MAX_GAME_PHASE);
+    return (middlegameScore * phase + endgameScore * (MAX_GAME_PHASE - phase)) / MAX_GAME_PHASE;
+  }
+}
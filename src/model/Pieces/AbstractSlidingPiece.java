@@ -1,21 +1,22 @@
 package model.Pieces;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 
-import model.StrictChessModel;
-import model.Direction;
+import model.MagicBitboards;
 import model.Move;
+import model.PackedMove;
 import model.Piece;
+import model.PlayerColor;
 import model.ReadOnlyChessModel;
 import model.RowColPair;
+import model.StrictChessModel;
 
 /**
  * Represents a piece that can only move in a straight lines in any direction, and cannot make
  * any special moves, such as castling or en passant.
+ * Attacks are looked up from the occupancy of the board with magic bitboards (see MagicBitboards),
+ * rather than by walking each ray square by square.
  */
 abstract class AbstractSlidingPiece extends Piece {
 
@@ -25,19 +26,9 @@ abstract class AbstractSlidingPiece extends Piece {
     VERTICAL;
   }
 
-  protected static final Set<Direction> diagonalDirections = Set.of(Direction.UP_LEFT, Direction.UP_RIGHT,
-          Direction.LEFT_DOWN, Direction.RIGHT_DOWN);
-  protected static final Set<Direction> horizontalDirections = Set.of(Direction.RIGHT, Direction.LEFT);
-  protected static final Set<Direction> verticalDirections = Set.of(Direction.UP, Direction.DOWN);
-  private static final Map<DirectionType, Set<Direction>> validDirectionMap;
-
-  static {
-    validDirectionMap = new HashMap<>();
-    validDirectionMap.put(DirectionType.HORIZONTAL, horizontalDirections);
-    validDirectionMap.put(DirectionType.VERTICAL, verticalDirections);
-    validDirectionMap.put(DirectionType.DIAGONAL, diagonalDirections);
-
-  }
+  //bitboards of the first row and first column, shifted to select the row or column of a square
+  private static final long FIRST_ROW = 0xFFL;
+  private static final long FIRST_COLUMN = 0x0101010101010101L;
 
   protected AbstractSlidingPiece(boolean isWhite) {
     super(isWhite);
@@ -46,49 +37,34 @@ abstract class AbstractSlidingPiece extends Piece {
   protected final Set<Move> getSlidingPseudoLegalMoves(
           RowColPair position, ReadOnlyChessModel model, DirectionType... directionTypes
   ) {
-    Set<Move> pseudoLegalMoves = new HashSet<>();
+    checkModelAndPositionValidity(position, model);
+    PlayerColor friendlyColor = this.isWhite ? PlayerColor.WHITE : PlayerColor.BLACK;
+    long friendlyOccupancy = model.getOccupancy(friendlyColor);
+    long occupancy = friendlyOccupancy | model.getOccupancy(friendlyColor.getOpposite());
+    int square = PackedMove.toSquare(position);
+    long targets = 0;
     for (DirectionType directionType : directionTypes) {
-      Set<RowColPair> directionalPseudoLegalTargetSquares =
-              getDirectionalPseudoLegalTargetSquares(position, model, directionType);
-      for (RowColPair target : directionalPseudoLegalTargetSquares) {
-        Move.MoveFlag flag = getMoveFlag(position, target, model);
-        Move move = new Move(position, target, flag);
-        pseudoLegalMoves.add(move);
-      }
+      targets |= getDirectionalAttacks(square, occupancy, directionType);
+    }
+    //each ray ends at the first piece it hits, which can be captured unless it is our own
+    targets &= ~friendlyOccupancy;
+    Set<Move> pseudoLegalMoves = new HashSet<>();
+    for (; targets != 0; targets &= targets - 1) {
+      RowColPair target = PackedMove.toRowColPair(Long.numberOfTrailingZeros(targets));
+      pseudoLegalMoves.add(new Move(position, target, getMoveFlag(position, target, model)));
     }
     return pseudoLegalMoves;
   }
 
   protected abstract Move.MoveFlag getMoveFlag(RowColPair position, RowColPair destination, ReadOnlyChessModel model);
 
-  private Set<RowColPair> getDirectionalPseudoLegalTargetSquares(
-          RowColPair position, ReadOnlyChessModel model, DirectionType directionType) {
-    checkModelAndPositionValidity(position, model);
-    Set<RowColPair> targetSquares = new HashSet<>();
-    Set<Direction> validDirections = validDirectionMap.get(directionType);
-    Optional<Piece>[][] board = model.getBoardCopy();
-    for (Direction direction : validDirections) {
-      //n is the target square number in a given direction. The target square can be up to
-      //NUM_ranks -1 = 7 squares away from the source square in a given direction
-      for (int n = 0; n < StrictChessModel.NUM_RANKS - 1; n++) {
-        RowColPair candidate = new RowColPair(position.getRow() + direction.getRankOffset() * (n + 1),
-                position.getCol() + direction.getFileOffset() * (n + 1));
-        if (!model.isInBounds(candidate)) { //if we go over the edge of the board, look in a new direction
-          break;
-        }
-        //Get the current piece at the target square
-        Optional<Piece> piece = board[candidate.getRow()][candidate.getCol()];
-        //If we are blocked by a friendly piece, there are no possible moves in current direction
-        if (piece.isPresent() && piece.get().getIsWhite() == this.isWhite) {
-          break;
-        } //if we are here, the target square is either empty or occupied by an enemy
-        targetSquares.add(candidate); //the move either be a capture or a move to an empty tile
-        if (piece.isPresent()) { //if we are here, the present piece does not match our color
-          //This means we just captured an enemy piece
-          break; //After capturing an enemy piece, there are no more possible moves in a direction
-        }
-      }
-    }
-    return targetSquares;
+  private static long getDirectionalAttacks(int square, long occupancy, DirectionType directionType) {
+    int row = square / StrictChessModel.NUM_FILES;
+    int col = square % StrictChessModel.NUM_FILES;
+    return switch (directionType) {
+      case DIAGONAL -> MagicBitboards.bishopAttacks(square, occupancy);
+      case HORIZONTAL -> MagicBitboards.rookAttacks(square, occupancy) & (FIRST_ROW << (row * StrictChessModel.NUM_FILES));
+      case VERTICAL -> MagicBitboards.rookAttacks(square, occupancy) & (FIRST_COLUMN << col);
+    };
   }
 }
@@ -1,18 +1,18 @@
 package model.Pieces;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
-import model.Direction;
+import model.AttackTables;
 import model.Move;
+import model.PackedMove;
 import model.Piece;
 import model.PieceType;
-import model.PlayerColor;
 import model.ReadOnlyChessModel;
 import model.RowColPair;
+import model.StrictChessModel;
 
 public final class King extends Piece {
   public King(boolean isWhite) {
@@ -49,51 +49,34 @@ public final class King extends Piece {
   }
 
   private Set<Move> getDirectionalPseudoLegalMoves(RowColPair position, ReadOnlyChessModel model) {
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
     Set<Move> pseudoLegalMoves = new HashSet<>();
-    for (Direction direction : Direction.values()) {
-      RowColPair candidatePosition = new RowColPair(position.getRow() + direction.getRankOffset()
-              , position.getCol() + direction.getFileOffset());
-      if (!model.isInBounds(candidatePosition)) {
-        continue;
-      }
-      Optional<Piece> destinationPiece = board[candidatePosition.getRow()][candidatePosition.getCol()];
-      if (destinationPiece.isPresent()) { //if we are here, the destination tile is occupied
-        if (destinationPiece.get().getIsWhite() == isWhite) {  //if it a friendly piece, we cannot capture it.
-          continue;
-        }
-        //if we are here, the destination tile contains an enemy piece that we can capture, or
-        //the destination tile is unoccupied. In any case, we can move here.
-        //Denote this move with a king move flag so that the model can know to disallow castling after
-        //the king has moved
-        pseudoLegalMoves.add(new Move(position, candidatePosition, Move.MoveFlag.KING_MOVE));
-      }
-    }
+    //Denote these moves with a king move flag so that the model can know to disallow castling after
+    //the king has moved
+    addMovesToTargets(position, AttackTables.kingAttacks(PackedMove.toSquare(position)),
+            Move.MoveFlag.KING_MOVE, model, pseudoLegalMoves);
     return pseudoLegalMoves;
   }
 
+  /**
+   * Gets the castling moves for which this king still has castling privileges and a clear path to
+   * its rook. Whether the king is in check or passes through an attacked square is a question of
+   * legality, so it is checked when pseudo legal moves are filtered into legal moves.
+   */
   private Set<Move> getCastlingPseudoLegalMoves(RowColPair position, ReadOnlyChessModel model) {
-    Optional<Piece>[][] board = model.getBoardCopy();
-
-    //if the king is in check, we cannot castle
-    PlayerColor oppositeColor = this.isWhite ? PlayerColor.BLACK : PlayerColor.WHITE;
-    if (model.getColorTargetSquares(oppositeColor).contains(position)) {
-      return Collections.emptySet();
-    }
     Set<Move> pseudoLegalMoves = new HashSet<>();
     char[] castlingPrivileges = model.getCastlingPrivileges().toCharArray();
     for (char castlingPrivilege : castlingPrivileges) {
+      //castling privileges for the other color are not ours to use
+      if (Character.isUpperCase(castlingPrivilege) != isWhite) {
+        continue;
+      }
       //if we still have castling privileges for the given privilege...
       if (fenCharToCandidateCastlingSquare.containsKey(castlingPrivilege)) {
         RowColPair candidate = fenCharToCandidateCastlingSquare.get(castlingPrivilege);
         //if we have castling privileges and a clear path to castle, we can castle
         if (hasClearPathToCastle(position, candidate, model)) {
-          //if we are white, kingside castling is indicated by moving to a higher file
+          //kingside castling is indicated by moving to a higher file, for both colors
           boolean isKingSideCastle = candidate.getCol() > position.getCol();
-          if (!isWhite) { //if we are black, kingside castling is indicated by moving to a lower file
-            isKingSideCastle = !isKingSideCastle;
-          }
           Move.MoveFlag flag = isKingSideCastle ? Move.MoveFlag.CASTLE_KINGSIDE : Move.MoveFlag.CASTLE_QUEENSIDE;
           pseudoLegalMoves.add(new Move(position, candidate, flag));
         }
@@ -103,15 +86,22 @@ public final class King extends Piece {
   }
 
   private boolean hasClearPathToCastle(RowColPair kingPosition, RowColPair candidate, ReadOnlyChessModel model) {
-    Optional<Piece>[][] board = model.getBoardCopy();
-    //for castling, the rows should be the same and the files should be different
+    //the king and the rook must still be on their home squares, which the castling privilege alone
+    //does not guarantee for a position set up from a FEN string
     int difference = kingPosition.getCol() - candidate.getCol();
+    int rookFile = difference > 0 ? 0 : StrictChessModel.NUM_FILES - 1;
+    Optional<Piece> rook = model.getPieceAt(new RowColPair(candidate.getRow(), rookFile));
+    if (kingPosition.getRow() != candidate.getRow() || kingPosition.getCol() != StrictChessModel.KING_HOME_FILE
+            || rook.isEmpty() || rook.get().getIsWhite() != isWhite || rook.get().getType() != PieceType.ROOK) {
+      return false;
+    }
+    //for castling, the rows should be the same and the files should be different
     if (difference > 0) {//if we are here, we the king file is > the candidate file
       //we are doing a queenside castle
-      //check all the position in between the king and candidate, if they are all empty,
+      //check all the position in between the king and the rook on the a-file, if they are all empty,
       //we have a clear path. Otherwise, we do not have a clear path
-      for (int file = kingPosition.getCol() - 1; file >= candidate.getCol(); file--) {
-        if (board[candidate.getRow()][file].isPresent()) {
+      for (int file = kingPosition.getCol() - 1; file > 0; file--) {
+        if (model.getPieceAt(PackedMove.toRowColPair(candidate.getRow() * StrictChessModel.NUM_FILES + file)).isPresent()) {
           return false; //if we are here, something is in our way
         }
       }
@@ -120,14 +110,9 @@ public final class King extends Piece {
       //check all the position in between the king and candidate, if they are all empty,
       //we have a clear path. Otherwise, we do not have a clear path
       for (int file = kingPosition.getCol() + 1; file <= candidate.getCol(); file++) {
-        if (board[candidate.getRow()][file].isPresent()) {
+        if (model.getPieceAt(PackedMove.toRowColPair(candidate.getRow() * StrictChessModel.NUM_FILES + file)).isPresent()) {
           return false; //if we are here, something is in our way
         }
-        //We cannot castle through check, so ensure that the path is not targeted by enemy
-        PlayerColor oppositeColor = this.isWhite ? PlayerColor.BLACK : PlayerColor.WHITE;
-        if (model.getColorTargetSquares(oppositeColor).contains(candidate)) {
-          return false;
-        }
       }
     }
     return true;
@@ -1,10 +1,11 @@
 package model.Pieces;
 
 import java.util.HashSet;
-import java.util.Optional;
 import java.util.Set;
 
+import model.AttackTables;
 import model.Move;
+import model.PackedMove;
 import model.Piece;
 import model.PieceType;
 import model.ReadOnlyChessModel;
@@ -15,33 +16,14 @@ public final class Knight extends Piece {
     super(isWhite);
   }
 
-  private static final int[][] offsets = {
-          {-2, -1}, {-1, -2}, {1, -2}, {2, -1}, {2, 1}, {1, 2}, {-1, 2}, {-2, 1}
-  };
-
   @Override
   public Set<Move> getPseudoLegalMoves(RowColPair position, ReadOnlyChessModel model) {
     checkModelAndPositionValidity(position, model);
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
     Set<Move> pseudoLegalMoves = new HashSet<>();
-    for (int[] offset : offsets) {
-      RowColPair candidatePosition = new RowColPair(
-              position.getRow() + offset[0], position.getCol() + offset[1]);
-      if (!model.isInBounds(candidatePosition)) {
-        continue;
-      }
-      Optional<Piece> destinationPiece = board[candidatePosition.getRow()][candidatePosition.getCol()];
-      if (destinationPiece.isPresent()) { //if we are here, the destination tile is occupied
-        if (destinationPiece.get().getIsWhite() == isWhite) {  //if it a friendly piece, we cannot capture it.
-          continue;
-        }
-        //if we are here, the destination tile contains an enemy piece that we can capture, or
-        //the destination tile is unoccupied. In any case, we can move here.
-        //knight moves have no special move flags
-        pseudoLegalMoves.add(new Move(position, candidatePosition, Move.MoveFlag.NONE));
-      }
-    }
+    //the knight can move to each square it attacks that is empty or holds an enemy piece
+    //knight moves have no special move flags
+    addMovesToTargets(position, AttackTables.knightAttacks(PackedMove.toSquare(position)),
+            Move.MoveFlag.NONE, model, pseudoLegalMoves);
     return pseudoLegalMoves;
   }
 
@@ -4,7 +4,9 @@ import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
+import model.AttackTables;
 import model.Move;
+import model.PackedMove;
 import model.Piece;
 import model.PieceType;
 import model.ReadOnlyChessModel;
@@ -41,13 +43,11 @@ public final class Pawn extends Piece {
     if (isRankBeforePromotion(position)) {
       return pseudoLegalMoves;
     }
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
     //Add all the non-promotion single forward moves
     //Pawns can only move to empty squares directly in front of them
     int rankOffset = this.isWhite ? -1 : 1;
     RowColPair candidatePosition = new RowColPair(position.getRow() + rankOffset, position.getCol());
-    if (model.isInBounds(candidatePosition) && board[candidatePosition.getRow()][candidatePosition.getCol()].isEmpty()) {
+    if (model.isInBounds(candidatePosition) && model.getPieceAt(candidatePosition).isEmpty()) {
       pseudoLegalMoves.add(new Move(position, candidatePosition, Move.MoveFlag.NONE));
     }
     return pseudoLegalMoves;
@@ -59,12 +59,12 @@ public final class Pawn extends Piece {
     if (position.getRow() != startingRank) { //pawns can only double move from their starting rank
       return pseudoLegalMoves;
     }
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
-    //Add all the double forward moves, pawns can only move to empty squares directly in front of them
-    int rankOffset = this.isWhite ? -2 : 2;
-    RowColPair candidatePosition = new RowColPair(position.getRow() + rankOffset, position.getCol());
-    if (model.isInBounds(candidatePosition) && board[candidatePosition.getRow()][candidatePosition.getCol()].isEmpty()) {
+    //Add all the double forward moves, pawns can only move to empty squares directly in front of them,
+    //and cannot jump over a piece on the square they pass over
+    int rankOffset = this.isWhite ? -1 : 1;
+    RowColPair candidatePosition = new RowColPair(position.getRow() + 2 * rankOffset, position.getCol());
+    if (model.getPieceAt(new RowColPair(position.getRow() + rankOffset, position.getCol())).isEmpty()
+            && model.getPieceAt(candidatePosition).isEmpty()) {
       pseudoLegalMoves.add(new Move(position, candidatePosition, Move.MoveFlag.DOUBLE_PAWN_PUSH));
     }
     return pseudoLegalMoves;
@@ -75,30 +75,19 @@ public final class Pawn extends Piece {
     if (isRankBeforePromotion(position)) {
       return pseudoLegalMoves;
     }
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
-    Piece piece = board[position.getRow()][position.getCol()].get();
     //pawns can only move diagonally if they are capturing an enemy piece
-    //get the right diagonal and left diagonal, and check if they are occupied by an enemy piece
-    int rightFileOffset = this.isWhite ? 1 : -1;
-    int leftFileOffset = this.isWhite ? -1 : 1;
-    int rankOffset = this.isWhite ? -1 : 1;
-    RowColPair rightDiagonal = new RowColPair(position.getRow() + rankOffset, position.getCol() + rightFileOffset);
-    if (isOccupiedByEnemyPiece(model, rightDiagonal)) {
-      pseudoLegalMoves.add(new Move(position, rightDiagonal, Move.MoveFlag.NONE));
-    }
-    RowColPair leftDiagonal = new RowColPair(position.getRow() + rankOffset, position.getCol() + leftFileOffset);
-    if (isOccupiedByEnemyPiece(model, leftDiagonal)) {
-      pseudoLegalMoves.add(new Move(position, leftDiagonal, Move.MoveFlag.NONE));
+    //check each diagonal square the pawn attacks for an enemy piece
+    for (long captures = getAttacks(position); captures != 0; captures &= captures - 1) {
+      RowColPair diagonal = PackedMove.toRowColPair(Long.numberOfTrailingZeros(captures));
+      if (isOccupiedByEnemyPiece(model, diagonal)) {
+        pseudoLegalMoves.add(new Move(position, diagonal, Move.MoveFlag.NONE));
+      }
     }
     return pseudoLegalMoves;
   }
 
   private Set<Move> getEnPassantMoves(RowColPair position, ReadOnlyChessModel model) {
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
     Set<Move> pseudoLegalMoves = new HashSet<>();
-    Piece piece = board[position.getRow()][position.getCol()].get();
     //only white pawns on rank 3 and black pawns on rank 4 can en passant
     int enPassantRank = this.isWhite ? 3 : 4;
     if (position.getRow() != enPassantRank) { //ensure we are on the correct en passant rank
@@ -108,11 +97,11 @@ public final class Pawn extends Piece {
     //check if the model en passant target square is present
     if (model.getEnPassantTarget().isPresent()) {
       RowColPair enPassantTarget = model.getEnPassantTarget().get();
-      //check if the en passant target square is diagonally adjacent to the pawn;
-      //if the column (file) distance is one, and we are on the proper en-passant rank, we can en passant
-      if (Math.abs(enPassantTarget.getCol() - position.getCol()) == 1) {
+      //check if the en passant target square is one of the squares this pawn attacks;
+      //if it is, and we are on the proper en-passant rank, we can en passant
+      if ((getAttacks(position) & (1L << PackedMove.toSquare(enPassantTarget))) != 0) {
         //check if the en passant target square is empty
-        if (board[enPassantTarget.getRow()][enPassantTarget.getCol()].isEmpty()) {
+        if (model.getPieceAt(enPassantTarget).isEmpty()) {
           //if we are here, we have a valid en passant move
           pseudoLegalMoves.add(new Move(position, enPassantTarget, Move.MoveFlag.EN_PASSANT));
         }
@@ -126,29 +115,20 @@ public final class Pawn extends Piece {
     if (!isRankBeforePromotion(position)) {
       return pseudoLegalMoves;
     }
-    //if we are here, we are safe to retrieve the piece and board
-    Optional<Piece>[][] board = model.getBoardCopy();
-    Piece piece = board[position.getRow()][position.getCol()].get();
     //Add all the diagonal capture promotions to the set of pseudo-legal moves
-    //get the right diagonal and left diagonal, and check if they are occupied by an enemy piece
-    int rightFileOffset = this.isWhite ? 1 : -1;
-    int leftFileOffset = this.isWhite ? -1 : 1;
-    int rankOffset = this.isWhite ? -1 : 1;
-    RowColPair rightDiagonal = new RowColPair(position.getRow() + rankOffset, position.getCol() + rightFileOffset);
-    if (isOccupiedByEnemyPiece(model, rightDiagonal)) {
-      for (Move.MoveFlag flag : promotionFlags) { //Add one move for each promotion type
-        pseudoLegalMoves.add(new Move(position, rightDiagonal, flag));
-      }
-    }
-    RowColPair leftDiagonal = new RowColPair(position.getRow() + rankOffset, position.getCol() + leftFileOffset);
-    if (isOccupiedByEnemyPiece(model, leftDiagonal)) {
-      for (Move.MoveFlag flag : promotionFlags) { //Add one move for each promotion type
-        pseudoLegalMoves.add(new Move(position, leftDiagonal, flag));
+    //check each diagonal square the pawn attacks for an enemy piece
+    for (long captures = getAttacks(position); captures != 0; captures &= captures - 1) {
+      RowColPair diagonal = PackedMove.toRowColPair(Long.numberOfTrailingZeros(captures));
+      if (isOccupiedByEnemyPiece(model, diagonal)) {
+        for (Move.MoveFlag flag : promotionFlags) { //Add one move for each promotion type
+          pseudoLegalMoves.add(new Move(position, diagonal, flag));
+        }
       }
     }
     //Add all the single forward non-capture promotions to the set of pseudo-legal moves
+    int rankOffset = this.isWhite ? -1 : 1;
     RowColPair candidatePosition = new RowColPair(position.getRow() + rankOffset, position.getCol());
-    if (model.isInBounds(candidatePosition) && board[candidatePosition.getRow()][candidatePosition.getCol()].isEmpty()) {
+    if (model.isInBounds(candidatePosition) && model.getPieceAt(candidatePosition).isEmpty()) {
       for (Move.MoveFlag flag : promotionFlags) { //Add one move for each promotion type
         pseudoLegalMoves.add(new Move(position, candidatePosition, flag));
       }
@@ -161,13 +141,14 @@ public final class Pawn extends Piece {
     return PieceType.PAWN;
   }
 
+  //the diagonal squares this pawn attacks, as a bitboard - see AttackTables
+  private long getAttacks(RowColPair position) {
+    return AttackTables.pawnAttacks(this.isWhite, PackedMove.toSquare(position));
+  }
+
   private boolean isOccupiedByEnemyPiece(ReadOnlyChessModel model, RowColPair target) {
-    Optional<Piece>[][] board = model.getBoardCopy();
-    if (model.isInBounds(target) && board[target.getRow()][target.getCol()].isPresent()) {
-      Piece leftDiagonalPiece = board[target.getRow()][target.getCol()].get();
-      return leftDiagonalPiece.getIsWhite() != this.isWhite;
-    }
-    return false;
+    Optional<Piece> targetPiece = model.getPieceAt(target);
+    return targetPiece.isPresent() && targetPiece.get().getIsWhite() != this.isWhite;
   }
 
   private boolean isRankBeforePromotion(RowColPair position) {
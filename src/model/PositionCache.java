@@ -0,0 +1,117 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Remembers what a model has worked out about its current position - the legal moves of each
+ * color and the game result - so that asking again is free. A typical turn in a UI asks whether
+ * the game is over, for the final status, for the legal moves and whether a move can be made, which
+ * would otherwise generate the same legal moves several times.
+ * Everything is forgotten when a move is made. When the move is taken back, what was known about
+ * the position before it is restored, so a search that makes and unmakes moves only generates the
+ * legal moves of each position once, however many of its moves are tried. Cached move sets are
+ * unmodifiable, so they can be handed out to callers as they are.
+ */
+final class PositionCache {
+  //what is known about the current position, or null if nothing is known yet
+  private Entry current;
+  //what was known about each earlier position, from the first move made on the model to the most
+  //recent, with null for positions nothing was known about
+  private final List<Entry> saved;
+
+  /**
+   * Constructs a cache that knows nothing, for a model that has not made any moves yet.
+   */
+  PositionCache() {
+    this.current = null;
+    this.saved = new ArrayList<>();
+  }
+
+  //Copy constructor used for deep copies of models. The copy starts out knowing what this cache
+  //knows about the current position, but cannot restore anything for moves made before the copy.
+  PositionCache(PositionCache other) {
+    this.current = other.current == null ? null : new Entry(other.current);
+    this.saved = new ArrayList<>();
+  }
+
+  /**
+   * Returns the cached legal moves of the given color, or null if they are not known.
+   */
+  Set<Move> getLegalMoves(boolean isWhite) {
+    if (current == null) {
+      return null;
+    }
+    return isWhite ? current.whiteLegalMoves : current.blackLegalMoves;
+  }
+
+  /**
+   * Caches the legal moves of the given color in the current position.
+   *
+   * @param legalMoves the legal moves, which must be an unmodifiable set
+   */
+  void setLegalMoves(boolean isWhite, Set<Move> legalMoves) {
+    Entry entry = currentEntry();
+    if (isWhite) {
+      entry.whiteLegalMoves = legalMoves;
+    } else {
+      entry.blackLegalMoves = legalMoves;
+    }
+  }
+
+  /**
+   * Returns the cached game result of the current position - the final status if the game is
+   * over, or the empty optional if it is still in progress - or null if the result is not known.
+   */
+  Optional<GameResultStatus> getGameResult() {
+    return current == null ? null : current.gameResult;
+  }
+
+  void setGameResult(Optional<GameResultStatus> gameResult) {
+    currentEntry().gameResult = gameResult;
+  }
+
+  /**
+   * Forgets everything about the current position, since a move has just been made, keeping it to
+   * be restored when the move is taken back.
+   */
+  void moveMade() {
+    saved.add(current);
+    current = null;
+  }
+
+  /**
+   * Restores what was known about the position before the most recently made move, since the move
+   * has just been taken back. Nothing is known if the move was made before this cache was copied.
+   */
+  void moveUnmade() {
+    current = saved.isEmpty() ? null : saved.remove(saved.size() - 1);
+  }
+
+  private Entry currentEntry() {
+    if (current == null) {
+      current = new Entry();
+    }
+    return current;
+  }
+
+  /**
+   * What is known about one position. Fields are null until they are known.
+   */
+  private static final class Entry {
+    private Set<Move> whiteLegalMoves;
+    private Set<Move> blackLegalMoves;
+    private Optional<GameResultStatus> gameResult;
+
+    Entry() {
+    }
+
+    Entry(Entry other) {
+      this.whiteLegalMoves = other.whiteLegalMoves;
+      this.blackLegalMoves = other.blackLegalMoves;
+      this.gameResult = other.gameResult;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the Zobrist keys of the positions a model has passed through, so that repeated
+ * positions can be found without comparing boards or FEN strings. Keys are pushed as moves are
+ * made and popped as they are taken back. A capture or pawn move can never be undone on the
+ * board, so no position before it can come up again, which means a repetition check only has to
+ * look back as far as the half move clock, and only at every other key, since the side to move
+ * must match. Keys are kept in a growable array of longs, so that pushing and popping never create
+ * objects.
+ */
+final class PositionHistory {
+  private static final int INITIAL_CAPACITY = 128;
+
+  //keys[i] is the Zobrist key of the position before the (i + 1)th move made on the model
+  //INVARIANT: 0 <= size <= keys.length
+  private long[] keys;
+  private int size;
+
+  /**
+   * Constructs an empty history, for a model that has not made any moves yet.
+   */
+  PositionHistory() {
+    this.keys = new long[INITIAL_CAPACITY];
+    this.size = 0;
+  }
+
+  //Copy constructor used for deep copies of models, so that copies still see earlier repetitions
+  PositionHistory(PositionHistory other) {
+    this.keys = other.keys.clone();
+    this.size = other.size;
+  }
+
+  /**
+   * Records the key of the position a move is about to be made from.
+   */
+  void push(long key) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, 2 * size);
+    }
+    keys[size++] = key;
+  }
+
+  /**
+   * Forgets the key of the position the most recently made move was made from, since the move is
+   * being taken back, and returns it.
+   *
+   * @throws IllegalStateException if the history is empty
+   */
+  long pop() {
+    if (size == 0) {
+      throw new IllegalStateException("Unable to pop key from empty position history");
+    }
+    return keys[--size];
+  }
+
+  /**
+   * Returns the key of the position the most recently made move was made from.
+   *
+   * @throws IllegalStateException if the history is empty
+   */
+  long peek() {
+    if (size == 0) {
+      throw new IllegalStateException("Unable to peek at key of empty position history");
+    }
+    return keys[size - 1];
+  }
+
+  /**
+   * Returns how many times the position with the given key has occurred, counting the current
+   * occurrence, among the positions since the last capture or pawn move.
+   *
+   * @param currentKey    the Zobrist key of the current position
+   * @param halfMoveClock the number of moves made since the last capture or pawn move, which may
+   *                      reach back further than this history does for a model set up from a FEN
+   */
+  int countRepetitions(long currentKey, int halfMoveClock) {
+    int count = 1;
+    int oldest = Math.max(0, size - halfMoveClock);
+    for (int i = size - 2; i >= oldest; i -= 2) {
+      if (keys[i] == currentKey) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -18,6 +18,18 @@ public interface ReadOnlyChessModel {
    */
   Optional<PieceType> getPieceTypeAt(RowColPair pair);
 
+  /**
+   * Gets the piece at the given position in the board, or returns the empty optional if the
+   * position is unoccupied. Unlike getBoardCopy(), nothing is copied - pieces and optionals are
+   * immutable, so the model can hand out the same instances it stores. Move generators should use
+   * this to read individual squares.
+   *
+   * @param pair the 0-indexed row and column in the board position
+   * @return an Optional containing either the piece at the position or nothing.
+   * @throws IllegalArgumentException if the position is null or out of bounds
+   */
+  Optional<Piece> getPieceAt(RowColPair pair);
+
   /**
    * Returns true if the given move can legally be made on the given board, false otherwise
    *
@@ -30,9 +42,13 @@ public interface ReadOnlyChessModel {
   boolean canMakeMove(Move m);
 
   /**
-   * Returns true if the game is in progress, or false if the game is over
+   * Returns true if the game is over, or false if the game is in progress. The game is over when
+   * the side to move has no legal moves, when the same position has occurred
+   * StrictChessModel.REPETITIONS_FOR_DRAW times, when StrictChessModel.FIFTY_MOVE_RULE_HALF_MOVES
+   * moves have been made without a capture or pawn move, or when neither side has enough material
+   * left to checkmate.
    *
-   * @return true if the current turn has at least one legal move, false otherwise.
+   * @return true if the game is over, false otherwise.
    * @throws IllegalStateException if the game has not started yet
    */
   boolean isGameOver();
@@ -58,7 +74,18 @@ public interface ReadOnlyChessModel {
    *   <li>
    *     stalemate
    *   </li>
+   *   <li>
+   *     threefold repetition
+   *   </li>
+   *   <li>
+   *     the fifty-move rule
+   *   </li>
+   *   <li>
+   *     insufficient material
+   *   </li>
    * </ol>,
+   * Checkmate and stalemate take precedence over the draws by repetition and the fifty-move rule,
+   * since a move that mates ends the game at once.
    *
    * @return the resulting game status, expressed as a type ofGameResultStatus
    * @throws IllegalStateException if the game is still in progress, or has not yet started.
@@ -115,7 +142,20 @@ public interface ReadOnlyChessModel {
   Set<Move> getLegalMoves(PlayerColor c);
 
   /**
-   * Gets a set of all the target squares for the given player color
+   * Returns a Set of the legal moves for the given player color that capture a piece or promote a
+   * pawn - the subset of getLegalMoves() that a quiescence search looks at. Implementations may
+   * generate these moves directly instead of generating every legal move and filtering.
+   *
+   * @param c the player color for which to get the captures and promotions
+   * @return the collection of legal captures and promotions, as a set.
+   * @throws IllegalStateException    if the game is over or has not yet started
+   * @throws IllegalArgumentException if the color is not either black or white.
+   */
+  Set<Move> getLegalCaptures(PlayerColor c);
+
+  /**
+   * Gets a set of all the target squares for the given player color - the destinations of its legal
+   * moves, which leave out squares it attacks but cannot move to, such as squares of its own pieces
    *
    * @param c the player color for which to get the target squares for
    * @return the collection of all target squares, expressed as RowColPair's
@@ -124,6 +164,21 @@ public interface ReadOnlyChessModel {
    */
   Set<RowColPair> getColorTargetSquares(PlayerColor c);
 
+  /**
+   * Returns true if any piece of the given color attacks the given square - if it could capture an
+   * enemy piece standing there, whether or not the capture would leave its own king in check.
+   * Unlike looking the square up in getColorTargetSquares(), this only looks outward from the
+   * square for attackers and stops at the first one, so it is the cheap way to ask whether a king
+   * is in check.
+   *
+   * @param square  the square to check
+   * @param byColor the color of the attacking pieces
+   * @return true if the square is attacked by the given color, false otherwise
+   * @throws IllegalArgumentException if the square is null or out of bounds, or the color is not
+   *                                  either black or white
+   */
+  boolean isSquareAttacked(RowColPair square, PlayerColor byColor);
+
   /**
    * If the position is occupied, gets the set of all the target squares for the piece at the given
    * position. Otherwise, returns the empty optional
@@ -184,6 +239,97 @@ public interface ReadOnlyChessModel {
    */
   String getCastlingPrivileges();
 
+  /**
+   * Returns the 64-bit Zobrist key of the current position. The key is derived from the piece
+   * placement, the side to move, the castling privileges and the file of the en passant target
+   * square, but not from the move clocks, so positions that are the same for the purposes of
+   * repetition have the same key. The en passant file only counts if a pawn of the side to move
+   * stands ready to capture onto the target square, since otherwise it changes nothing. Different positions have different keys with very high
+   * probability, which makes the key suitable for repetition detection and transposition tables.
+   *
+   * @return the Zobrist key of the current position
+   */
+  long getZobristKey();
+
+  /**
+   * Returns how many times the current position has occurred in the game, counting the current
+   * occurrence. Positions are compared by Zobrist key, and only the positions since the last
+   * capture or pawn move are looked at, since no earlier position can come up again, so this takes
+   * time proportional to the half move clock at most. Only moves made on this model, or on the
+   * model it was deep copied from, are remembered - not the moves that led to a FEN string.
+   *
+   * @return the number of times the current position has occurred, which is at least 1
+   */
+  int getRepetitionCount();
+
+  /**
+   * Returns how many pieces of the given color and type are on the board. Counts are kept up to
+   * date as moves are made and unmade, so reading one takes constant time.
+   *
+   * @param c    the color of the pieces to count
+   * @param type the type of the pieces to count
+   * @return the number of pieces of the given color and type
+   * @throws IllegalArgumentException if the color or type is null or invalid
+   */
+  int getPieceCount(PlayerColor c, PieceType type);
+
+  /**
+   * Returns true if neither side has enough material left to checkmate, in which case the game is
+   * drawn. That is the case with king against king, king and bishop against king, king and knight
+   * against king, and when the only pieces besides the kings are bishops that all stand on squares
+   * of the same color. The check only reads piece counts, so it takes constant time.
+   *
+   * @return true if neither side can checkmate, false otherwise
+   */
+  boolean hasInsufficientMaterial();
+
+  /**
+   * Returns the half move clock - the number of moves made since the last capture or pawn move,
+   * which decides the fifty-move rule.
+   *
+   * @return the half move clock
+   */
+  int getHalfMoveClock();
+
+  /**
+   * Returns the squares occupied by pieces of the given color as a bitboard - bit n is set if and
+   * only if square n holds a piece of that color, where squares are numbered row by row from
+   * a8 = 0 to h1 = 63. Bitboards let move generators look up sliding piece attacks from the
+   * occupancy of the board in one step, instead of walking each ray square by square.
+   *
+   * @param c the color whose occupied squares to get
+   * @return the bitboard of squares occupied by the given color
+   * @throws IllegalArgumentException if the color is null or invalid
+   */
+  long getOccupancy(PlayerColor c);
+
+  /**
+   * Returns the middlegame score of the current position - the sum of the middlegame values of
+   * every piece on its square (see PieceSquareTables), from white's point of view. The score is
+   * kept up to date as moves are made and unmade, so reading it takes constant time.
+   *
+   * @return the middlegame material and piece-square score, positive if white is ahead
+   */
+  int getMiddlegameScore();
+
+  /**
+   * Returns the endgame score of the current position - the sum of the endgame values of every
+   * piece on its square (see PieceSquareTables), from white's point of view. The score is kept up
+   * to date as moves are made and unmade, so reading it takes constant time.
+   *
+   * @return the endgame material and piece-square score, positive if white is ahead
+   */
+  int getEndgameScore();
+
+  /**
+   * Returns the game phase of the current position - the sum of the phase weights of every piece
+   * on the board (see PieceSquareTables), which is PieceSquareTables.MAX_GAME_PHASE in the starting
+   * position and 0 when only kings and pawns are left.
+   *
+   * @return the game phase of the current position
+   */
+  int getGamePhase();
+
   /**
    * Returns the en passant target square, if it exists. Otherwise, returns the empty optional
    *
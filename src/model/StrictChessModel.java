@@ -1,9 +1,11 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -25,12 +27,27 @@ public final class StrictChessModel implements MutableChessModel {
   public static final String STARTING_POSITION =
           "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
   private static final int HASHING_PRIME_NUMBER = 31; //used for hashCode()
+  //the rows of en passant target squares, on the sixth rank when white is to move and the third
+  //rank when black is to move
+  private static final int EN_PASSANT_ROW_WHITE_TO_MOVE = 2;
+  private static final int EN_PASSANT_ROW_BLACK_TO_MOVE = 5;
+  private static final int NUM_PIECE_TYPES = PieceType.values().length;
+  //the game is drawn once this many half moves pass without a capture or pawn move
+  public static final int FIFTY_MOVE_RULE_HALF_MOVES = 100;
+  //the game is drawn once the same position occurs this many times
+  public static final int REPETITIONS_FOR_DRAW = 3;
   //the set of all legal promotion pieces, initialized in static block
   //Since this is an unmodifiable set and each type is immutable, this is safe to be public
   public static final Set<PieceType> pawnPromotionPieceTypes;
+  //the file both kings start on, which a king must still be on to castle
+  public static final int KING_HOME_FILE = 4;
+  //the home square of the rook used by each castling privilege, initialized in static block
+  private static final Map<Character, RowColPair> rookHomeSquares;
 
   //fields for a unique chess model instance
-  private String fenString; //INVARIANT: fenString is always valid and up to date
+  //the FEN string for the current position, generated on demand by toString() and cached until the
+  //next move is made or taken back. INVARIANT: fenString is either null or valid and up to date
+  private String fenString;
   private final Optional<Piece>[][] gameBoard;
   private final List<ModelListener> listeners;
   private boolean hasGameStarted;
@@ -42,13 +59,39 @@ public final class StrictChessModel implements MutableChessModel {
   //INVARIANT: halfMoveClock > 0 and fullMoveClock > 0
   private int halfMoveClock;
   private int fullMoveClock;
-
+  //INVARIANT: zobristKey is always the Zobrist key of the current position, see getZobristKey()
+  private long zobristKey;
+  //the keys of the positions before each move made, see getRepetitionCount()
+  //not final, since deep copies take over a copy of the original model's history
+  private PositionHistory positionHistory;
+  //the legal moves and game result of the current position, once worked out, see PositionCache
+  //not final, for the same reason as positionHistory
+  private PositionCache positionCache;
+  //bitboards of the squares occupied by each color, see getOccupancy()
+  //INVARIANT: the occupancy bitboards always describe the same pieces as gameBoard
+  private long whiteOccupancy;
+  private long blackOccupancy;
+  //material and piece-square scores and game phase, see PieceSquareTables
+  //INVARIANT: these always describe the same pieces as gameBoard
+  private int middlegameScore;
+  private int endgameScore;
+  private int gamePhase;
+  //the number of pieces of each color and type, indexed by pieceCountIndex(), and the number of
+  //bishops of each color (white first) on light squares, see hasInsufficientMaterial()
+  //INVARIANT: these always describe the same pieces as gameBoard
+  private final int[] pieceCounts;
+  private final int[] lightSquareBishopCounts;
 
   static {
     //create an unmodifiable set containing the 4 legal promotion pieces
     pawnPromotionPieceTypes = Set.of(
             PieceType.KNIGHT, PieceType.ROOK, PieceType.BISHOP, PieceType.QUEEN
     );
+    rookHomeSquares = Map.of('K', new RowColPair(7, 7),
+            'Q', new RowColPair(7, 0),
+            'k', new RowColPair(0, 7),
+            'q', new RowColPair(0, 0)
+    );
   }
 
   //Private constructor to force client instantiation through the builder
@@ -57,8 +100,13 @@ public final class StrictChessModel implements MutableChessModel {
     //Set the game board to an empty 8 x 8 array
     //We are sure that this is a type-safe cast, so we can suppress the warning
     this.gameBoard = (Optional<Piece>[][]) new Optional<?>[NUM_RANKS][NUM_FILES];
+    this.pieceCounts = new int[2 * NUM_PIECE_TYPES];
+    this.lightSquareBishopCounts = new int[2];
     //try to initialize the board from the fen string, throw an IAE if invalid
     this.fenString = tryInitializingBoardFromFen(builder.fen);
+    this.zobristKey = computeZobristKey();
+    this.positionHistory = new PositionHistory();
+    this.positionCache = new PositionCache();
     this.listeners = new ArrayList<>();
     this.hasGameStarted = false;
   }
@@ -97,7 +145,10 @@ public final class StrictChessModel implements MutableChessModel {
       throw new IllegalArgumentException(String.format("Unable to parse FEN String due to error %s",
               e.getMessage() == null ? "" : e.getMessage()));
     }
-    return fen;
+    //ignored castling privileges or en passant target square mean the FEN string no longer describes
+    //the position
+    String[] parts = fen.split(" ");
+    return parts[2].equals(castlingRights) && parts[3].equals(enPassantTargetSquare) ? fen : null;
   }
 
   /**
@@ -127,15 +178,19 @@ public final class StrictChessModel implements MutableChessModel {
     for (int rank = 0; rank < NUM_RANKS; rank++) {
       String rankChars = ranks[rank];
       int filesWritten = 0; //keep track of the files we write to - ensure this is 8
-      for (int file = 0; file < NUM_FILES && file < rankChars.length(); file++) {
-        char currPos = rankChars.charAt(file);
+      for (int i = 0; i < rankChars.length(); i++) {
+        char currPos = rankChars.charAt(i);
+        if (filesWritten >= NUM_FILES) { //Ensure no rank has info for more than 8 files
+          throw new IllegalArgumentException(String.format("Invalid piece placement: too many " +
+                  "files of information for rank %d", rank));
+        }
         //if the current position is a digit, we want to add that number of empty spaces
         if (Character.isDigit(currPos)) {
           int numEmptySpaces = Character.getNumericValue(currPos);
           int emptySpacesAdded = 0;
-          while (emptySpacesAdded < numEmptySpaces) {
+          while (emptySpacesAdded < numEmptySpaces && filesWritten < NUM_FILES) {
             //add the empty optional in our game-board to denote an empty space
-            gameBoard[rank][file++] = Optional.empty();
+            setSquare(rank, filesWritten, Optional.empty());
             filesWritten++;
             emptySpacesAdded++;
           }
@@ -143,7 +198,7 @@ public final class StrictChessModel implements MutableChessModel {
         else {
           Optional<Piece> piece = fenCharToPieceFactory(currPos);
           if (piece.isPresent()) {
-            gameBoard[rank][file] = piece;
+            setSquare(rank, filesWritten, piece);
             filesWritten++;
           } else {
             throw new IllegalArgumentException(String.format(
@@ -182,21 +237,43 @@ public final class StrictChessModel implements MutableChessModel {
         int index = "KQkq".indexOf(c);
         if (index == -1) {
           throw new IllegalArgumentException(String.format("%s is not a recognized caslting privilege configuration", castlingPrivs));
-        } else {
+        } else if (hasKingAndRookAtHome(c)) {
           sb.append("KQkq".charAt(index));
         }
       }
-      this.castlingRights = sb.toString();
+      this.castlingRights = sb.isEmpty() ? "-" : sb.toString();
     }
   }
 
+  /**
+   * Returns true if the king and rook used by the given castling privilege are both on their home
+   * squares. A privilege the board contradicts cannot have survived the moves to this position, so
+   * it is ignored, and no castling move is generated for it.
+   */
+  private boolean hasKingAndRookAtHome(char castlingPrivilege) {
+    boolean isWhite = Character.isUpperCase(castlingPrivilege);
+    RowColPair rookHome = rookHomeSquares.get(castlingPrivilege);
+    Optional<Piece> king = gameBoard[rookHome.getRow()][KING_HOME_FILE];
+    Optional<Piece> rook = gameBoard[rookHome.getRow()][rookHome.getCol()];
+    return king.isPresent() && king.get().getIsWhite() == isWhite && king.get().getType() == PieceType.KING
+            && rook.isPresent() && rook.get().getIsWhite() == isWhite && rook.get().getType() == PieceType.ROOK;
+  }
+
   private void tryToParseEnPassantTargetSquare(String enPassantTarget) {
     if (enPassantTarget.equals("-")) {
       this.enPassantTargetSquare = enPassantTarget;
     } else if (enPassantTarget.length() == 2 &&
             enPassantTarget.charAt(0) >= 'a' && enPassantTarget.charAt(0) <= 'h' &&
             enPassantTarget.charAt(1) >= '1' && enPassantTarget.charAt(1) <= '8') {
-      this.enPassantTargetSquare = enPassantTarget;
+      //the square must have just been passed over by a double push of an enemy pawn, which now stands
+      //behind it. A square that cannot have been is ignored, so no capture onto it is generated.
+      RowColPair square = getRowColPairFromLetterCombination(enPassantTarget);
+      int passedRow = whiteToMove ? EN_PASSANT_ROW_WHITE_TO_MOVE : EN_PASSANT_ROW_BLACK_TO_MOVE;
+      Optional<Piece> pawn = square.getRow() == passedRow
+              ? gameBoard[square.getRow() + (whiteToMove ? 1 : -1)][square.getCol()] : Optional.empty();
+      boolean isPassedSquare = gameBoard[square.getRow()][square.getCol()].isEmpty() && pawn.isPresent()
+              && pawn.get().getIsWhite() != whiteToMove && pawn.get().getType() == PieceType.PAWN;
+      this.enPassantTargetSquare = isPassedSquare ? enPassantTarget : "-";
     } else {
       throw new IllegalArgumentException(String.format(
               "%s is an invalid en passant target square", enPassantTarget));
@@ -232,8 +309,17 @@ public final class StrictChessModel implements MutableChessModel {
   }
 
 
+  /**
+   * Returns the FEN string for the current position. The FEN string is only generated when it is
+   * requested, and is then cached until the position changes.
+   *
+   * @return the FEN string for the current position
+   */
   @Override
   public String toString() {
+    if (this.fenString == null) {
+      this.fenString = generateFenString();
+    }
     return this.fenString;
   }
 
@@ -243,26 +329,56 @@ public final class StrictChessModel implements MutableChessModel {
       return true;
     }
     if (other instanceof StrictChessModel otherModel) {
-      return this.fenString.equals(other.toString());
+      //comparing the Zobrist keys first rules out almost all unequal positions cheaply
+      return this.zobristKey == otherModel.zobristKey
+              && this.whiteToMove == otherModel.whiteToMove
+              && this.castlingRights.equals(otherModel.castlingRights)
+              && this.enPassantTargetSquare.equals(otherModel.enPassantTargetSquare)
+              && this.halfMoveClock == otherModel.halfMoveClock
+              && this.fullMoveClock == otherModel.fullMoveClock
+              && Arrays.deepEquals(this.gameBoard, otherModel.gameBoard);
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(fenString);
+    return Long.hashCode(zobristKey);
   }
 
   @Override
-  public void makeMove(Move m) {
+  public UndoInfo makeMove(Move m) {
     if (!canMakeMove(m)) {
       throw new IllegalArgumentException("Unable to make move due to null or illegal move");
     }
     //If we are here, the move is legal. We are safe to retrieve the src, dest, and the piece
     //This means that the source contains a piece, and the destination tile is an either unoccupied
     //or contains an enemy piece that legally can be captured.
-    RowColPair sourcePos = m.getSourcePosition();
+    UndoInfo undo = makePseudoLegalMove(m);
+    notifyAllListeners(ModelEvent.MOVE_MADE);
+    return undo;
+  }
+
+  /**
+   * Makes the given move without checking that it is legal. Used by permissive models, which allow
+   * pseudo legal moves such as moves that leave the mover's king in check.
+   *
+   * @param m the pseudo legal move to be made
+   * @return the information needed to take the move back
+   */
+  UndoInfo makePseudoLegalMove(Move m) {
     Move.MoveFlag flag = m.getFlag();
+    RowColPair sourcePos = m.getSourcePosition();
+    RowColPair capturedPos = getCapturedPosition(m);
+    Piece movedPiece = gameBoard[sourcePos.getRow()][sourcePos.getCol()].get();
+    Optional<Piece> capturedPiece = gameBoard[capturedPos.getRow()][capturedPos.getCol()];
+    UndoInfo undo = new UndoInfo(m, capturedPiece, castlingRights, getEnPassantTarget(), halfMoveClock,
+            zobristKey);
+    //whether the en passant square is hashed depends on the pawns, so the key for the old board
+    //rights is worked out before any piece moves
+    long previousBoardRightsKey = getBoardRightsKey();
+    //the board is changed first, and each of these only throws before it changes the board, so a
+    //move that cannot be made leaves the model as it was
     switch (flag) {
       case PAWN_PROMOTION_TO_ROOK -> makePawnPromotionMove(m, PieceType.ROOK);
       case PAWN_PROMOTION_TO_BISHOP -> makePawnPromotionMove(m, PieceType.BISHOP);
@@ -273,8 +389,330 @@ public final class StrictChessModel implements MutableChessModel {
       case NONE, DOUBLE_PAWN_PUSH, KING_MOVE, ROOK_MOVE -> makeSimpleMove(m);
       default -> throw new IllegalStateException("Unable to make : " + flag);
     }
-    updateFenString(m);
-    notifyAllListeners(ModelEvent.MOVE_MADE);
+    positionHistory.push(zobristKey);
+    positionCache.moveMade();
+    updateZobristKeyForPieces(m, movedPiece, capturedPiece, capturedPos);
+    updateBoardRights(m, movedPiece, capturedPiece.isPresent());
+    //XOR out the keys for the old board rights and XOR in the keys for the new ones
+    zobristKey ^= previousBoardRightsKey ^ getBoardRightsKey();
+    this.fenString = null; //the cached FEN string no longer describes the position
+    return undo;
+  }
+
+  @Override
+  public void unmakeMove(UndoInfo undo) {
+    ensureGameInProgress();
+    if (undo == null) {
+      throw new IllegalArgumentException("Unable to unmake move with null undo information");
+    }
+    unmakePseudoLegalMove(undo);
+    notifyAllListeners(ModelEvent.MOVE_UNDONE);
+  }
+
+  /**
+   * Takes back the most recently made move, whether it was legal or only pseudo legal, and restores
+   * the board rights saved in the given undo information.
+   *
+   * @param undo the undo information returned when the most recent move was made
+   * @throws IllegalArgumentException if the destination of the undone move is empty
+   */
+  void unmakePseudoLegalMove(UndoInfo undo) {
+    Move m = undo.getMove();
+    RowColPair sourcePos = m.getSourcePosition();
+    RowColPair destPos = m.getDestinationPosition();
+    Optional<Piece> movedPiece = gameBoard[destPos.getRow()][destPos.getCol()];
+    if (movedPiece.isEmpty()) {
+      throw new IllegalArgumentException("Unable to unmake move that was not the most recent move");
+    }
+    Move.MoveFlag flag = m.getFlag();
+    //promoted pieces turn back into the pawn that was promoted
+    setSquare(sourcePos.getRow(), sourcePos.getCol(), Pawn.promotionFlags.contains(flag)
+            ? Optional.of(new Pawn(movedPiece.get().getIsWhite())) : movedPiece);
+    setSquare(destPos.getRow(), destPos.getCol(), Optional.empty());
+    //put the captured piece (or nothing) back where it was captured
+    RowColPair capturedPos = getCapturedPosition(m);
+    setSquare(capturedPos.getRow(), capturedPos.getCol(), undo.getCapturedPiece());
+    if (King.castlingFlags.contains(flag)) { //move the castled rook back to its home square
+      RowColPair[] rookSquares = getCastlingRookSquares(flag, movedPiece.get().getIsWhite());
+      setSquare(rookSquares[0].getRow(), rookSquares[0].getCol(),
+              gameBoard[rookSquares[1].getRow()][rookSquares[1].getCol()]);
+      setSquare(rookSquares[1].getRow(), rookSquares[1].getCol(), Optional.empty());
+    }
+    //restore the board rights from before the move
+    this.whiteToMove = movedPiece.get().getIsWhite();
+    this.castlingRights = undo.getCastlingPrivileges();
+    this.enPassantTargetSquare = undo.getEnPassantTarget().map(this::getLetterSquareCombination).orElse("-");
+    this.halfMoveClock = undo.getHalfMoveClock();
+    if (!this.whiteToMove) { //the full move clock was incremented after black's move
+      this.fullMoveClock--;
+    }
+    this.zobristKey = undo.getZobristKey();
+    positionHistory.pop();
+    positionCache.moveUnmade();
+    this.fenString = null; //the cached FEN string no longer describes the position
+  }
+
+  /**
+   * Updates the Zobrist key for the pieces moved by the given move, which has just been made: the
+   * moved piece leaves its source, the captured piece (if any) leaves the board, the moved or
+   * promoted piece arrives at the destination and, when castling, the rook changes squares.
+   */
+  private void updateZobristKeyForPieces(Move m, Piece movedPiece, Optional<Piece> capturedPiece,
+                                         RowColPair capturedPos) {
+    RowColPair destPos = m.getDestinationPosition();
+    zobristKey ^= Zobrist.pieceKey(movedPiece, m.getSourcePosition());
+    if (capturedPiece.isPresent()) {
+      zobristKey ^= Zobrist.pieceKey(capturedPiece.get(), capturedPos);
+    }
+    zobristKey ^= Zobrist.pieceKey(gameBoard[destPos.getRow()][destPos.getCol()].get(), destPos);
+    if (King.castlingFlags.contains(m.getFlag())) {
+      RowColPair[] rookSquares = getCastlingRookSquares(m.getFlag(), movedPiece.getIsWhite());
+      Piece rook = gameBoard[rookSquares[1].getRow()][rookSquares[1].getCol()].get();
+      zobristKey ^= Zobrist.pieceKey(rook, rookSquares[0]) ^ Zobrist.pieceKey(rook, rookSquares[1]);
+    }
+  }
+
+  /**
+   * Returns the XOR of the Zobrist keys for the current side to move, castling privileges and en
+   * passant target square. The en passant target square is only hashed if a pawn of the side to
+   * move can capture onto it, as BitboardChessModel does.
+   */
+  private long getBoardRightsKey() {
+    long key = Zobrist.castlingKey(castlingRights);
+    if (!whiteToMove) {
+      key ^= Zobrist.blackToMoveKey();
+    }
+    if (!enPassantTargetSquare.equals("-") && hasEnPassantCapturer()) {
+      key ^= Zobrist.enPassantKey(enPassantTargetSquare.charAt(0) - 'a');
+    }
+    return key;
+  }
+
+  /**
+   * Returns true if a pawn of the side to move stands next to the pawn that passed over the en
+   * passant target square, so that it could capture it. Whether the capture would leave the
+   * capturing side's king in check does not matter, only whether the square makes a difference.
+   */
+  private boolean hasEnPassantCapturer() {
+    RowColPair target = getRowColPairFromLetterCombination(enPassantTargetSquare);
+    //the capturing pawns stand on the row of the pawn that passed over the target square
+    int row = target.getRow() + (whiteToMove ? 1 : -1);
+    for (int col = target.getCol() - 1; col <= target.getCol() + 1; col += 2) {
+      if (col >= 0 && col < NUM_FILES) {
+        Optional<Piece> piece = gameBoard[row][col];
+        if (piece.isPresent() && piece.get().getIsWhite() == whiteToMove && piece.get().getType() == PieceType.PAWN) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Computes the Zobrist key of the current position from scratch. Only used when a model is
+   * created, since makeMove() keeps the key up to date afterwards.
+   */
+  private long computeZobristKey() {
+    long key = getBoardRightsKey();
+    for (int rank = 0; rank < NUM_RANKS; rank++) {
+      for (int file = 0; file < NUM_FILES; file++) {
+        Optional<Piece> piece = gameBoard[rank][file];
+        if (piece.isPresent()) {
+          key ^= Zobrist.pieceKey(piece.get(), new RowColPair(rank, file));
+        }
+      }
+    }
+    return key;
+  }
+
+  @Override
+  public long getZobristKey() {
+    return this.zobristKey;
+  }
+
+  @Override
+  public int getRepetitionCount() {
+    return positionHistory.countRepetitions(zobristKey, halfMoveClock);
+  }
+
+  @Override
+  public int getHalfMoveClock() {
+    return this.halfMoveClock;
+  }
+
+  /**
+   * Returns the position of the piece that the given move captures, if it captures anything. This
+   * is the move's destination, except for en passant, where the captured pawn is beside the source.
+   */
+  private static RowColPair getCapturedPosition(Move m) {
+    if (m.getFlag() == Move.MoveFlag.EN_PASSANT) {
+      return new RowColPair(m.getSourcePosition().getRow(), m.getDestinationPosition().getCol());
+    }
+    return m.getDestinationPosition();
+  }
+
+  /**
+   * Updates the board rights after a move is made by...
+   * <ol>
+   *   <li>
+   *     Toggling the side to move
+   *   </li>
+   *   <li>
+   *     Removing castling privileges if a king or rook moves, or if a rook is captured.
+   *   </li>
+   *   <li>
+   *     Setting the en-passant target square after a double pawn push, and clearing it otherwise
+   *   </li>
+   *   <li>
+   *     Updating the half move clock and the full move clock
+   *   </li>
+   * </ol>
+   *
+   * @param m           the move that was just made
+   * @param movedPiece  the piece that made the move
+   * @param wasCapture  true if the move captured a piece
+   */
+  private void updateBoardRights(Move m, Piece movedPiece, boolean wasCapture) {
+    //if a pawn was moved, or a piece was captured, reset the half move clock
+    //otherwise, increment the half move clock
+    if (movedPiece.getType() == PieceType.PAWN || wasCapture) {
+      this.halfMoveClock = 0;
+    } else {
+      this.halfMoveClock++;
+    }
+    //if a king is moved, remove all castling privileges for that king
+    //if a rook is moved or captured, remove castling privileges for that rook's color on that side
+    String rights = this.castlingRights;
+    if (movedPiece.getType() == PieceType.KING) {
+      rights = movedPiece.getIsWhite() ? rights.replace("K", "").replace("Q", "")
+              : rights.replace("k", "").replace("q", "");
+    }
+    for (RowColPair touched : new RowColPair[]{m.getSourcePosition(), m.getDestinationPosition()}) {
+      for (Map.Entry<Character, RowColPair> entry : rookHomeSquares.entrySet()) {
+        if (entry.getValue().equals(touched)) {
+          rights = rights.replace(entry.getKey().toString(), "");
+        }
+      }
+    }
+    this.castlingRights = rights.isEmpty() ? "-" : rights;
+    //if a double pawn push is made, set the en-passant target square to the square behind the pawn
+    //otherwise, clear the en-passant target square
+    if (m.getFlag() == Move.MoveFlag.DOUBLE_PAWN_PUSH) {
+      RowColPair source = m.getSourcePosition();
+      int passedRank = (source.getRow() + m.getDestinationPosition().getRow()) / 2;
+      this.enPassantTargetSquare = getLetterSquareCombination(new RowColPair(passedRank, source.getCol()));
+    } else {
+      this.enPassantTargetSquare = "-";
+    }
+    if (!movedPiece.getIsWhite()) { //the full move clock is incremented after black's move
+      this.fullMoveClock++;
+    }
+    //toggle the side to move - pseudo legal moves may be made for either color, so the side to
+    //move is always the color that did not just move
+    this.whiteToMove = !movedPiece.getIsWhite();
+  }
+
+  /**
+   * Places the given piece, or nothing, at the given row and column of the game board, keeping the
+   * occupancy bitboards in sync with the board. All writes to the game board go through here.
+   */
+  private void setSquare(int row, int col, Optional<Piece> piece) {
+    int square = row * NUM_FILES + col;
+    long bit = 1L << square;
+    whiteOccupancy &= ~bit;
+    blackOccupancy &= ~bit;
+    //the board is filled with nulls until the FEN string is parsed
+    Optional<Piece> previousPiece = gameBoard[row][col];
+    if (previousPiece != null && previousPiece.isPresent()) {
+      updateScores(previousPiece.get(), square, -1);
+    }
+    if (piece.isPresent()) {
+      if (piece.get().getIsWhite()) {
+        whiteOccupancy |= bit;
+      } else {
+        blackOccupancy |= bit;
+      }
+      updateScores(piece.get(), square, 1);
+    }
+    gameBoard[row][col] = piece;
+  }
+
+  //adds (sign = 1) or removes (sign = -1) the given piece's contribution to the incremental scores
+  //and piece counts
+  private void updateScores(Piece piece, int square, int sign) {
+    PieceType type = piece.getType();
+    middlegameScore += sign * PieceSquareTables.middlegameValue(type, piece.getIsWhite(), square);
+    endgameScore += sign * PieceSquareTables.endgameValue(type, piece.getIsWhite(), square);
+    gamePhase += sign * PieceSquareTables.phaseWeight(type);
+    pieceCounts[pieceCountIndex(piece.getIsWhite(), type)] += sign;
+    //a8 is a light square, so light squares are those whose row and column add up to an even number
+    if (type == PieceType.BISHOP && (square / NUM_FILES + square % NUM_FILES) % 2 == 0) {
+      lightSquareBishopCounts[piece.getIsWhite() ? 0 : 1] += sign;
+    }
+  }
+
+  private static int pieceCountIndex(boolean isWhite, PieceType type) {
+    return (isWhite ? 0 : NUM_PIECE_TYPES) + type.ordinal();
+  }
+
+  @Override
+  public int getPieceCount(PlayerColor c, PieceType type) {
+    ensureColorValidity(c);
+    if (type == null) {
+      throw new IllegalArgumentException("Unable to count pieces of null type");
+    }
+    return pieceCounts[pieceCountIndex(c == PlayerColor.WHITE, type)];
+  }
+
+  @Override
+  public boolean hasInsufficientMaterial() {
+    int pawnsRooksAndQueens = countBothColors(PieceType.PAWN) + countBothColors(PieceType.ROOK)
+            + countBothColors(PieceType.QUEEN);
+    int lightSquareBishops = lightSquareBishopCounts[0] + lightSquareBishopCounts[1];
+    return isInsufficientMaterial(pawnsRooksAndQueens, countBothColors(PieceType.KNIGHT), lightSquareBishops,
+            countBothColors(PieceType.BISHOP) - lightSquareBishops);
+  }
+
+  private int countBothColors(PieceType type) {
+    return pieceCounts[pieceCountIndex(true, type)] + pieceCounts[pieceCountIndex(false, type)];
+  }
+
+  /**
+   * Returns true if a position whose pieces besides the kings are counted by the given numbers can
+   * never be checkmated: a lone minor piece cannot mate, and neither can any number of bishops
+   * that all move on squares of the same color, since they can never cover the squares of the
+   * other color next to a king. Shared by the models, which count their pieces differently.
+   */
+  static boolean isInsufficientMaterial(int pawnsRooksAndQueens, int knights, int lightSquareBishops,
+                                        int darkSquareBishops) {
+    if (pawnsRooksAndQueens > 0) {
+      return false;
+    }
+    if (knights > 0) {
+      return knights == 1 && lightSquareBishops == 0 && darkSquareBishops == 0;
+    }
+    return lightSquareBishops == 0 || darkSquareBishops == 0;
+  }
+
+  @Override
+  public int getMiddlegameScore() {
+    return this.middlegameScore;
+  }
+
+  @Override
+  public int getEndgameScore() {
+    return this.endgameScore;
+  }
+
+  @Override
+  public int getGamePhase() {
+    return this.gamePhase;
+  }
+
+  @Override
+  public long getOccupancy(PlayerColor c) {
+    ensureColorValidity(c);
+    return c == PlayerColor.WHITE ? whiteOccupancy : blackOccupancy;
   }
 
   private void makeSimpleMove(Move m) {
@@ -282,10 +720,10 @@ public final class StrictChessModel implements MutableChessModel {
     RowColPair destPos = m.getDestinationPosition();
     Optional<Piece> piece = gameBoard[sourcePos.getRow()][sourcePos.getCol()];
     //put the source piece at the destination slot
-    gameBoard[destPos.getRow()][destPos.getCol()] = piece;
+    setSquare(destPos.getRow(), destPos.getCol(), piece);
 
     //clear the source piece from its source slot
-    gameBoard[sourcePos.getRow()][sourcePos.getCol()] = Optional.empty();
+    setSquare(sourcePos.getRow(), sourcePos.getCol(), Optional.empty());
   }
 
   /**
@@ -296,12 +734,8 @@ public final class StrictChessModel implements MutableChessModel {
    * @param type the type of piece to promote to
    * @throws IllegalArgumentException if the move is a move to a promotion square but there is
    *                                  an error in creating the newly promoted piece
-   * @throws IllegalArgumentException if the move is not legal
    */
   private void makePawnPromotionMove(Move m, PieceType type) {
-    if (!canMakeMove(m)) {
-      throw new IllegalArgumentException("Unable to try pawn promotino move with illegal move");
-    }
     Move.MoveFlag flag = m.getFlag();
     //If we are here, we have a legal pawn promotion move
     RowColPair sourcePos = m.getSourcePosition();
@@ -317,21 +751,17 @@ public final class StrictChessModel implements MutableChessModel {
       throw new IllegalStateException("Cannot make pawn promotion move due to invalid or " +
               "unspecified promotion piece type");
     }
-    gameBoard[destPos.getRow()][destPos.getCol()] = newPiece;
+    setSquare(destPos.getRow(), destPos.getCol(), newPiece);
     //clear the source piece
-    gameBoard[sourcePos.getRow()][sourcePos.getCol()] = Optional.empty();
+    setSquare(sourcePos.getRow(), sourcePos.getCol(), Optional.empty());
   }
 
   /**
    * If m is an en-passsant move, makes the en-passant move.
    *
    * @param m the move to be made, must be a legal move
-   * @throws IllegalArgumentException if the move is not legal
    */
   private void makeEnPassantMove(Move m) {
-    if (!canMakeMove(m)) {
-      throw new IllegalArgumentException("Unable to try en passant move with illegal move");
-    }
     if (m.getFlag() != Move.MoveFlag.EN_PASSANT) {
       throw new IllegalArgumentException();
     }
@@ -340,51 +770,56 @@ public final class StrictChessModel implements MutableChessModel {
     RowColPair destPos = m.getDestinationPosition();
     Optional<Piece> piece = gameBoard[sourcePos.getRow()][sourcePos.getCol()];
     //put the source piece at the destination slot
-    gameBoard[destPos.getRow()][destPos.getCol()] = piece;
+    setSquare(destPos.getRow(), destPos.getCol(), piece);
 
     //clear the source piece from its source slot
-    gameBoard[sourcePos.getRow()][sourcePos.getCol()] = Optional.empty();
+    setSquare(sourcePos.getRow(), sourcePos.getCol(), Optional.empty());
 
     //remove the en-passant piece that was captured
-    //we know the captured piece must be the piece at the en passant target square
-    //we know this is safe to retreive, since the move is legal
-    RowColPair enPassantTarget = getEnPassantTarget().get();
-    gameBoard[enPassantTarget.getRow()][enPassantTarget.getCol()] = Optional.empty();
+    //the en passant target square is the square the captured pawn passed over, so the captured
+    //pawn sits beside our source square, on the file of the en passant target square
+    RowColPair capturedPos = getCapturedPosition(m);
+    setSquare(capturedPos.getRow(), capturedPos.getCol(), Optional.empty());
   }
 
   private void makeCastlingMove(Move m) {
-    if (!canMakeMove(m)) {
-      throw new IllegalArgumentException("Unable to try en passant move with illegal move");
-    }
     Move.MoveFlag flag = m.getFlag();
     if (!King.castlingFlags.contains(flag)) {
       throw new IllegalArgumentException("Unable to make castling move with non castling flag");
     }
-    //If we are here, we have a legal castling move
     RowColPair sourcePos = m.getSourcePosition();
     RowColPair destPos = m.getDestinationPosition();
     Piece king = gameBoard[sourcePos.getRow()][sourcePos.getCol()].get();
-    //put the king at the destination slot
-    gameBoard[destPos.getRow()][destPos.getCol()] = Optional.of(king);
-    //set the old king slot to empty
-    gameBoard[sourcePos.getRow()][sourcePos.getCol()] = Optional.empty();
     //find the source and destintaion position for the rook
-    RowColPair rookHomeSquare, rookDestination;
-    if (flag == Move.MoveFlag.CASTLE_KINGSIDE) {
-      rookHomeSquare = king.isWhite ? new RowColPair(7, 7) : new RowColPair(0, 7);
-      rookDestination = king.isWhite ? new RowColPair(7, 5) : new RowColPair(0, 5);
-    } else { //if we are here, we are castling queenside
-      rookHomeSquare = king.isWhite ? new RowColPair(7, 0) : new RowColPair(0, 0);
-      rookDestination = king.isWhite ? new RowColPair(7, 3) : new RowColPair(0, 3);
-    }
-    //place the rook at the destination square
+    RowColPair[] rookSquares = getCastlingRookSquares(flag, king.isWhite);
+    RowColPair rookHomeSquare = rookSquares[0];
+    RowColPair rookDestination = rookSquares[1];
+    //check for the rook before anything is moved, so that the board is unchanged if there is none
     Optional<Piece> rook = gameBoard[rookHomeSquare.getRow()][rookHomeSquare.getCol()];
-    if (rook.isEmpty()) {
-      throw new IllegalArgumentException("Unable ot make castling move without rook at home square");
+    if (rook.isEmpty() || rook.get().getType() != PieceType.ROOK || rook.get().getIsWhite() != king.isWhite) {
+      throw new IllegalArgumentException("Unable to make castling move without rook at home square");
     }
-    gameBoard[rookDestination.getRow()][rookDestination.getCol()] = rook;
+    //put the king at the destination slot
+    setSquare(destPos.getRow(), destPos.getCol(), Optional.of(king));
+    //set the old king slot to empty
+    setSquare(sourcePos.getRow(), sourcePos.getCol(), Optional.empty());
+    //place the rook at the destination square
+    setSquare(rookDestination.getRow(), rookDestination.getCol(), rook);
     //clear the rook source square
-    gameBoard[rookHomeSquare.getRow()][rookHomeSquare.getCol()] = Optional.empty();
+    setSquare(rookHomeSquare.getRow(), rookHomeSquare.getCol(), Optional.empty());
+  }
+
+  /**
+   * Returns the home square and the destination square of the rook that moves during the castling
+   * move with the given flag and color, in that order.
+   */
+  private static RowColPair[] getCastlingRookSquares(Move.MoveFlag flag, boolean isWhite) {
+    if (flag == Move.MoveFlag.CASTLE_KINGSIDE) {
+      return isWhite ? new RowColPair[]{rookHomeSquares.get('K'), new RowColPair(7, 5)}
+              : new RowColPair[]{rookHomeSquares.get('k'), new RowColPair(0, 5)};
+    } //if we are here, we are castling queenside
+    return isWhite ? new RowColPair[]{rookHomeSquares.get('Q'), new RowColPair(7, 3)}
+            : new RowColPair[]{rookHomeSquares.get('q'), new RowColPair(0, 3)};
   }
 
   @Override
@@ -405,13 +840,16 @@ public final class StrictChessModel implements MutableChessModel {
     checkIfPositionIsValid(m.getSourcePosition());
     checkIfPositionIsValid(m.getDestinationPosition());
     RowColPair sourcePos = m.getSourcePosition();
-    RowColPair destPos = m.getDestinationPosition();
     Optional<Piece> piece = gameBoard[sourcePos.getRow()][sourcePos.getCol()];
     if (piece.isEmpty()) {
       throw new IllegalArgumentException("Cannot check move for empty source square");
     }
-    Set<RowColPair> targetPositions = piece.get().getTargetSquares(sourcePos, getPermissibleDeepCopy());
-    return targetPositions.contains(destPos);
+    //only the side to move can make a move
+    if (piece.get().getIsWhite() != whiteToMove) {
+      return false;
+    }
+    //the flag must match too, since makeMove() acts on the flag of the move it is given
+    return getLegalMoves(whiteToMove ? PlayerColor.WHITE : PlayerColor.BLACK).contains(m);
   }
 
   @Override
@@ -419,32 +857,48 @@ public final class StrictChessModel implements MutableChessModel {
     if (!hasGameStarted) {
       throw new IllegalStateException("Unable to get game over for game not yet in progress");
     }
-    PlayerColor turn = whiteToMove ? PlayerColor.WHITE : PlayerColor.BLACK;
-    return getLegalMoves(turn).isEmpty(); //INVARIANT: getLegalMoves never returns null
+    return getGameResult().isPresent();
   }
 
   @Override
   public GameResultStatus getFinalGameStatus() {
-    if (!isGameOver()) {
-      throw new IllegalStateException("Unable to retrieve final game status for game that is not yet over");
-    }
-    if (this.whiteToMove) {
-      //if it is white's turn, the game is over iff they have no legal moves
-      //if they are in check, it is a checkmate for black, otherwise it is some form of draw
-      if (getColorTargetSquares(PlayerColor.BLACK).contains(getKingSquare(PlayerColor.WHITE))) {
-        return GameResultStatus.CHECKMATE_BY_BLACK;
-      } else {
-        return GameResultStatus.STALEMATE;
-      }
-    } else {
-      //if it is black's turn, the game is over iff they have no legal moves
-      //if they are in check, it is a checkmate for white, otherwise it is some form of draw
-      if (getColorTargetSquares(PlayerColor.WHITE).contains(getKingSquare(PlayerColor.BLACK))) {
-        return GameResultStatus.CHECKMATE_BY_WHITE;
-      } else {
-        return GameResultStatus.STALEMATE;
+    ensureGameInProgress();
+    return getGameResult().orElseThrow(() -> new IllegalStateException(
+            "Unable to retrieve final game status for game that is not yet over"));
+  }
+
+  /**
+   * Returns the final status of the game if it is over, or the empty optional if it is still in
+   * progress. The result is worked out once per position and then cached.
+   */
+  private Optional<GameResultStatus> getGameResult() {
+    Optional<GameResultStatus> result = positionCache.getGameResult();
+    if (result == null) {
+      result = computeGameResult();
+      positionCache.setGameResult(result);
+    }
+    return result;
+  }
+
+  private Optional<GameResultStatus> computeGameResult() {
+    PlayerColor turn = whiteToMove ? PlayerColor.WHITE : PlayerColor.BLACK;
+    if (getLegalMoves(turn).isEmpty()) {
+      //the side to move has no legal moves - if they are in check, it is checkmate, otherwise a draw
+      if (!isSquareAttacked(getKingSquare(turn), turn.getOpposite())) {
+        return Optional.of(GameResultStatus.STALEMATE);
       }
+      return Optional.of(whiteToMove ? GameResultStatus.CHECKMATE_BY_BLACK : GameResultStatus.CHECKMATE_BY_WHITE);
     }
+    if (halfMoveClock >= FIFTY_MOVE_RULE_HALF_MOVES) {
+      return Optional.of(GameResultStatus.DRAW_BY_FIFTY_MOVE_RULE);
+    }
+    if (getRepetitionCount() >= REPETITIONS_FOR_DRAW) {
+      return Optional.of(GameResultStatus.DRAW_BY_REPETITION);
+    }
+    if (hasInsufficientMaterial()) {
+      return Optional.of(GameResultStatus.DRAW_BY_INSUFFICIENT_MATERIAL);
+    }
+    return Optional.empty();
   }
 
   @Override
@@ -475,10 +929,13 @@ public final class StrictChessModel implements MutableChessModel {
 
   @Override
   public StrictChessModel getStrictDeepCopy() {
-    StrictChessModel copy = new Builder(this.fenString).build();
+    StrictChessModel copy = new Builder(this.toString()).build();
     if(hasGameStarted){
       copy.startGame();
     }
+    //the FEN string does not describe the earlier positions, so the history is copied separately
+    copy.positionHistory = new PositionHistory(this.positionHistory);
+    copy.positionCache = new PositionCache(this.positionCache);
     //no need to copy over the listeners, since they are only concerned with this model
     return copy;
   }
@@ -499,46 +956,122 @@ public final class StrictChessModel implements MutableChessModel {
     }
   }
 
+  /**
+   * Returns the legal moves of the given color as an unmodifiable set, which is generated once per
+   * position and then cached until a move is made.
+   */
   @Override
   public Set<Move> getLegalMoves(PlayerColor c) {
     ensureColorValidity(c);
     boolean isWhite = c == PlayerColor.WHITE;
+    Set<Move> cachedMoves = positionCache.getLegalMoves(isWhite);
+    if (cachedMoves != null) {
+      return cachedMoves;
+    }
+    //checks and pins are the same for every piece of the color, so they are only looked up once
+    KingSafety kingSafety = new KingSafety(this, isWhite);
     Set<Move> legalMoves = new HashSet<>();
     for (int rank = 0; rank < NUM_RANKS; rank++) {
       for (int file = 0; file < NUM_FILES; file++) {
         Optional<Piece> piece = gameBoard[rank][file];
         if (piece.isPresent() && (piece.get().getIsWhite() == isWhite)) {
           RowColPair position = new RowColPair(rank, file);
-          legalMoves.addAll(piece.get().getLegalMoves(position, this));
+          legalMoves.addAll(piece.get().getLegalMoves(position, this, kingSafety));
         }
       }
     }
-    return legalMoves;
+    Set<Move> unmodifiableMoves = Collections.unmodifiableSet(legalMoves);
+    positionCache.setLegalMoves(isWhite, unmodifiableMoves);
+    return unmodifiableMoves;
+  }
+
+  /**
+   * Returns the legal captures and promotions for the given color. Moves are still generated piece
+   * by piece and then filtered, since this model generates each piece's moves as a whole.
+   */
+  @Override
+  public Set<Move> getLegalCaptures(PlayerColor c) {
+    Set<Move> captures = new HashSet<>();
+    for (Move m : getLegalMoves(c)) {
+      if (isCaptureOrPromotion(m, this)) {
+        captures.add(m);
+      }
+    }
+    return captures;
+  }
+
+  /**
+   * Returns true if the given move captures a piece or promotes a pawn in the given model's
+   * position. Castling moves always land on empty squares, so they are never captures.
+   */
+  static boolean isCaptureOrPromotion(Move m, ReadOnlyChessModel model) {
+    return model.getPieceAt(m.getDestinationPosition()).isPresent()
+            || m.getFlag() == Move.MoveFlag.EN_PASSANT
+            || Pawn.promotionFlags.contains(m.getFlag());
   }
 
   @Override
   public Set<RowColPair> getColorTargetSquares(PlayerColor c) {
-    ensureColorValidity(c);
-    boolean isWhite = c == PlayerColor.WHITE;
+    //the target squares of a color are the destinations of its legal moves, which are generated
+    //together so that checks and pins are only looked up once
     Set<RowColPair> colorTargetSquares = new HashSet<>();
-    for (int rank = 0; rank < NUM_RANKS; rank++) {
-      for (int file = 0; file < NUM_FILES; file++) {
-        Optional<Piece> piece = gameBoard[rank][file];
-        if (piece.isPresent() && (piece.get().getIsWhite() == isWhite)) {
-          RowColPair position = new RowColPair(rank, file);
-          colorTargetSquares.addAll(piece.get().getTargetSquares(position, this));
-        }
-      }
+    for (Move m : getLegalMoves(c)) {
+      colorTargetSquares.add(m.getDestinationPosition());
     }
     return colorTargetSquares;
   }
 
+  /**
+   * Returns true if any piece of the given color attacks the given square. Only the pieces of the
+   * given color standing where an attacker of some type could be are looked at - a knight's move
+   * away, along an open line, and so on - and the search stops at the first real attacker.
+   */
+  @Override
+  public boolean isSquareAttacked(RowColPair square, PlayerColor byColor) {
+    checkIfPositionIsValid(square);
+    ensureColorValidity(byColor);
+    boolean byWhite = byColor == PlayerColor.WHITE;
+    int target = PackedMove.toSquare(square);
+    long occupancy = whiteOccupancy | blackOccupancy;
+    long diagonal = MagicBitboards.bishopAttacks(target, occupancy);
+    long straight = MagicBitboards.rookAttacks(target, occupancy);
+    //a pawn attacks the square if it stands where a pawn of the other color on the square would attack
+    long pawnSquares = AttackTables.pawnAttacks(!byWhite, target);
+    long candidates = (byWhite ? whiteOccupancy : blackOccupancy) & (pawnSquares
+            | AttackTables.knightAttacks(target) | AttackTables.kingAttacks(target) | diagonal | straight);
+    for (; candidates != 0; candidates &= candidates - 1) {
+      int from = Long.numberOfTrailingZeros(candidates);
+      long bit = 1L << from;
+      boolean attacks = switch (gameBoard[from / NUM_FILES][from % NUM_FILES].orElseThrow().getType()) {
+        case PAWN -> (pawnSquares & bit) != 0;
+        case KNIGHT -> (AttackTables.knightAttacks(target) & bit) != 0;
+        case BISHOP -> (diagonal & bit) != 0;
+        case ROOK -> (straight & bit) != 0;
+        case QUEEN -> ((diagonal | straight) & bit) != 0;
+        case KING -> (AttackTables.kingAttacks(target) & bit) != 0;
+      };
+      if (attacks) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public Optional<Set<RowColPair>> getTargetSquares(RowColPair position) {
     checkIfPositionIsValid(position);
     Optional<Piece> piece = gameBoard[position.getRow()][position.getCol()];
-    //if the piece is present, returns the piece's target squares. Otherwise, returns the empty optional
-    return piece.map(p -> p.getTargetSquares(position, this));
+    if (piece.isEmpty()) {
+      return Optional.empty();
+    }
+    //the piece's target squares are the destinations of its color's cached legal moves from its square
+    Set<RowColPair> targetSquares = new HashSet<>();
+    for (Move m : getLegalMoves(piece.get().getIsWhite() ? PlayerColor.WHITE : PlayerColor.BLACK)) {
+      if (m.getSourcePosition().equals(position)) {
+        targetSquares.add(m.getDestinationPosition());
+      }
+    }
+    return Optional.of(targetSquares);
   }
 
   @Override
@@ -549,11 +1082,18 @@ public final class StrictChessModel implements MutableChessModel {
     return piece.map(Piece::getType);
   }
 
+  @Override
+  public Optional<Piece> getPieceAt(RowColPair pair) {
+    checkIfPositionIsValid(pair);
+    //Optional & pieces are immutable, so it safe to pass a reference to the stored instance
+    return gameBoard[pair.getRow()][pair.getCol()];
+  }
+
   @Override
   public String getLetterSquareCombination(RowColPair pair) {
     checkIfPositionIsValid(pair);
     String letters = "abcdefgh";
-    return letters.substring(pair.getCol(), pair.getCol() + 1) + (8 - pair.getCol());
+    return letters.substring(pair.getCol(), pair.getCol() + 1) + (NUM_RANKS - pair.getRow());
   }
 
   @Override
@@ -616,43 +1156,13 @@ public final class StrictChessModel implements MutableChessModel {
   }
 
   /**
-   * Updates the fen string after a move is made by...
-   * <ol>
-   *   <li>
-   *     Updates piece positioning
-   *   </li>
-   *   <li>
-   *     Toggles the side to move
-   *   </li>
-   *   <li>
-   *     Updates castling privileges if a king or rook move is made, or if a rook is captured.
-   *   </li>
-   *   <li>
-   *     Sets/clears the en-passant target square based on if the moves was a
-   *     double-tile pawn push
-   *   </li>
-   *   <li>
-   *     Increments half move counter / full move clock
-   *   </li>
-   *   <li>
-   *     Updates the map of position -> count to ensure that we are checking for threefold repetition
-   *   </li>
-   * </ol>
+   * Generates the fen string for the current position, from the current piece positioning and the
+   * board rights - the side to move, castling privileges, en-passant target square and the move
+   * clocks - which are kept up to date by updateBoardRights().
    *
-   * @param m the move that was just made
+   * @return the fen string for the current position
    */
-  private void updateFenString(Move m) {
-//    updateEnPassantTargetSquare(m);
-//    updateCastlingPrvileges(m);
-    //if a pawn was moved, or a piece was captured, reset the half move clock
-    //otherwise, increment the half move clock
-    //if a rook is moved or catured, remove castling privileges for that rook's color on that side
-    //if a king is moved, remove all castling privliegs for that king
-    //if a double pawn push is made, set the en-passant target square to the square behind the pawn
-    //otherwise, clear the en-passant target square
-    //update the map of position -> count to ensure that we are checking for threefold repetition
-    //toggle the side to move
-
+  private String generateFenString() {
     StringBuilder fenBuilder = new StringBuilder();
     for (int rank = 0; rank < NUM_RANKS; rank++) {
       int emptyTileCount = 0;
@@ -673,7 +1183,9 @@ public final class StrictChessModel implements MutableChessModel {
       if (emptyTileCount > 0) {
         fenBuilder.append(emptyTileCount);
       }
-      fenBuilder.append('/');
+      if (rank < NUM_RANKS - 1) {
+        fenBuilder.append('/');
+      }
     }
     //Add the baord rights for our board w/ each separated by a space
     fenBuilder.append(' ');
@@ -681,12 +1193,12 @@ public final class StrictChessModel implements MutableChessModel {
     fenBuilder.append(' ');
     fenBuilder.append(castlingRights);
     fenBuilder.append(' ');
-    fenBuilder.append(enPassantTargetSquare.equals("") ? '-' : enPassantTargetSquare);
+    fenBuilder.append(enPassantTargetSquare);
     fenBuilder.append(' ');
     fenBuilder.append(halfMoveClock);
     fenBuilder.append(' ');
     fenBuilder.append(fullMoveClock);
-    this.fenString = fenBuilder.toString();
+    return fenBuilder.toString();
   }
 
   private void ensureGameInProgress() {
@@ -0,0 +1,64 @@
+package model;
+
+import java.util.Optional;
+
+/**
+ * Represents the information needed to take back a move, returned by a model when a move is made.
+ * Holds the board rights that a move may destroy - the captured piece, the castling privileges,
+ * the en passant target square, the half move clock and the position's Zobrist key - so that a
+ * model can restore the previous position in place rather than being copied before every move.
+ * Immutable.
+ */
+public final class UndoInfo {
+  private final Move move;
+  private final Optional<Piece> capturedPiece;
+  private final String castlingPrivileges;
+  private final Optional<RowColPair> enPassantTarget;
+  private final int halfMoveClock;
+  private final long zobristKey;
+
+  /**
+   * Constructs the undo information for a move, using the board rights from before the move.
+   * INVARIANT: none of the fields are null
+   *
+   * @param move               the move that was made
+   * @param capturedPiece      the piece captured by the move, or the empty optional
+   * @param castlingPrivileges the castling privileges before the move was made
+   * @param enPassantTarget    the en passant target square before the move was made
+   * @param halfMoveClock      the half move clock before the move was made
+   * @param zobristKey         the Zobrist key of the position before the move was made
+   */
+  UndoInfo(Move move, Optional<Piece> capturedPiece, String castlingPrivileges,
+           Optional<RowColPair> enPassantTarget, int halfMoveClock, long zobristKey) {
+    this.move = move;
+    this.capturedPiece = capturedPiece;
+    this.castlingPrivileges = castlingPrivileges;
+    this.enPassantTarget = enPassantTarget;
+    this.halfMoveClock = halfMoveClock;
+    this.zobristKey = zobristKey;
+  }
+
+  public Move getMove() {
+    return this.move;
+  }
+
+  public Optional<Piece> getCapturedPiece() {
+    return this.capturedPiece;
+  }
+
+  public String getCastlingPrivileges() {
+    return this.castlingPrivileges;
+  }
+
+  public Optional<RowColPair> getEnPassantTarget() {
+    return this.enPassantTarget;
+  }
+
+  public int getHalfMoveClock() {
+    return this.halfMoveClock;
+  }
+
+  public long getZobristKey() {
+    return this.zobristKey;
+  }
+}
@@ -0,0 +1,104 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Holds the random keys used to compute Zobrist hashes of chess positions. A position's key is the
+ * XOR of one key per (piece, square) pair on the board, plus keys for the side to move, the
+ * castling privileges and the file of the en passant target square, if a pawn can capture onto
+ * it. Since XOR is its own inverse,
+ * models can keep a position's key up to date as moves are made by XOR-ing in and out only the keys
+ * that a move changes.
+ */
+final class Zobrist {
+  //fixed seed so that keys, and therefore hashes, are the same on every run
+  private static final long SEED = 0x4B6E6967687446L;
+  //piece keys are indexed by [piece index][square], where the piece index of a white piece is its
+  //PieceType ordinal and the piece index of a black piece is its PieceType ordinal plus 6
+  private static final long[][] PIECE_SQUARE_KEYS = new long[12][64];
+  //castling keys are indexed by castling right bits, in the same order as the FEN characters "KQkq"
+  private static final long[] CASTLING_KEYS = new long[16];
+  private static final long[] EN_PASSANT_FILE_KEYS = new long[StrictChessModel.NUM_FILES];
+  private static final long BLACK_TO_MOVE_KEY;
+
+  static {
+    Random random = new Random(SEED);
+    for (long[] squareKeys : PIECE_SQUARE_KEYS) {
+      for (int square = 0; square < squareKeys.length; square++) {
+        squareKeys[square] = random.nextLong();
+      }
+    }
+    //each castling right gets its own key, and a combination of rights is the XOR of its rights' keys
+    long[] singleRightKeys = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+    for (int rights = 0; rights < CASTLING_KEYS.length; rights++) {
+      for (int i = 0; i < singleRightKeys.length; i++) {
+        if ((rights & (1 << i)) != 0) {
+          CASTLING_KEYS[rights] ^= singleRightKeys[i];
+        }
+      }
+    }
+    for (int file = 0; file < EN_PASSANT_FILE_KEYS.length; file++) {
+      EN_PASSANT_FILE_KEYS[file] = random.nextLong();
+    }
+    BLACK_TO_MOVE_KEY = random.nextLong();
+  }
+
+  private Zobrist() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns the key for the given piece standing on the given square.
+   *
+   * @param pieceIndex the piece index - the PieceType ordinal, plus 6 for black pieces
+   * @param square     the square, numbered row by row from a8 = 0 to h1 = 63
+   * @return the key for the piece on the square
+   */
+  static long pieceKey(int pieceIndex, int square) {
+    return PIECE_SQUARE_KEYS[pieceIndex][square];
+  }
+
+  /**
+   * Returns the key for the given piece standing on the given position.
+   */
+  static long pieceKey(Piece piece, RowColPair position) {
+    int pieceIndex = piece.getType().ordinal() + (piece.getIsWhite() ? 0 : 6);
+    return pieceKey(pieceIndex, position.getRow() * StrictChessModel.NUM_FILES + position.getCol());
+  }
+
+  /**
+   * Returns the key for the given castling right bits, where bit 0 is white kingside, bit 1 is white
+   * queenside, bit 2 is black kingside and bit 3 is black queenside.
+   */
+  static long castlingKey(int castlingRights) {
+    return CASTLING_KEYS[castlingRights];
+  }
+
+  /**
+   * Returns the key for the given castling privileges in FEN notation, such as "KQk" or "-".
+   */
+  static long castlingKey(String castlingPrivileges) {
+    int rights = 0;
+    for (char c : castlingPrivileges.toCharArray()) {
+      int index = "KQkq".indexOf(c);
+      if (index != -1) {
+        rights |= 1 << index;
+      }
+    }
+    return castlingKey(rights);
+  }
+
+  /**
+   * Returns the key for an en passant target square on the given 0-indexed file.
+   */
+  static long enPassantKey(int file) {
+    return EN_PASSANT_FILE_KEYS[file];
+  }
+
+  /**
+   * Returns the key that is XOR-ed into the hash of every position where black is to move.
+   */
+  static long blackToMoveKey() {
+    return BLACK_TO_MOVE_KEY;
+  }
+}
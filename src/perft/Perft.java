@@ -0,0 +1,170 @@
+package perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.BitboardChessModel;
+import model.IntMoveList;
+import model.Move;
+import model.MutableChessModel;
+import model.PlayerColor;
+import model.UndoInfo;
+
+/**
+ * Counts the leaf nodes of the move tree of a position to a fixed depth ("perft"), which is the
+ * standard way to validate and benchmark move generation - the counts for well known positions are
+ * published, and any difference points to a move generation bug.
+ * Counting is done with make / unmake on a single model per thread rather than by copying the model
+ * at every node. For BitboardChessModel, the packed move API is used, so no objects are created per
+ * node. Parallel counts split the root moves across a ForkJoinPool, giving each root move its own
+ * deep copy of the model.
+ */
+public final class Perft {
+  private Perft() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Counts the leaf nodes of the move tree of the given model's position to the given depth, on
+   * the calling thread. The model is left in the position it started in.
+   *
+   * @param model the model whose position to count, which must have a game in progress
+   * @param depth the depth to count to, where depth 0 counts only the position itself
+   * @return the number of leaf nodes at the given depth
+   * @throws IllegalArgumentException if the model is null or the depth is negative
+   */
+  public static long count(MutableChessModel model, int depth) {
+    checkArguments(model, depth);
+    if (model instanceof BitboardChessModel bitboardModel) {
+      return countPacked(bitboardModel, depth, newMoveLists(depth));
+    }
+    return countMoves(model, depth);
+  }
+
+  /**
+   * Counts the leaf nodes below each legal root move of the given model's position, splitting the
+   * root moves across the given pool. The model itself is not modified - each root move is counted
+   * on its own deep copy.
+   *
+   * @param model the model whose position to count, which must have a game in progress
+   * @param depth the depth to count to, which must be at least 1
+   * @param pool  the pool to run the counts on
+   * @return the leaf node count below each root move, in the order the root moves were generated
+   * @throws IllegalArgumentException if the model or pool is null or the depth is less than 1
+   */
+  public static Map<Move, Long> divide(MutableChessModel model, int depth, ForkJoinPool pool) {
+    checkArguments(model, depth);
+    if (depth < 1 || pool == null) {
+      throw new IllegalArgumentException("Unable to divide with depth less than 1 or null pool");
+    }
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    List<RootMoveTask> tasks = new ArrayList<>();
+    for (Move move : model.getLegalMoves(turn)) {
+      tasks.add(new RootMoveTask(model.getStrictDeepCopy(), move, depth - 1));
+    }
+    return pool.invoke(new RecursiveTask<>() {
+      @Override
+      protected Map<Move, Long> compute() {
+        invokeAll(tasks);
+        Map<Move, Long> counts = new LinkedHashMap<>();
+        for (RootMoveTask task : tasks) {
+          counts.put(task.move, task.join());
+        }
+        return counts;
+      }
+    });
+  }
+
+  /**
+   * Counts the leaf nodes of the move tree of the given model's position to the given depth,
+   * splitting the root moves across the given pool. The model itself is not modified.
+   *
+   * @return the number of leaf nodes at the given depth
+   * @throws IllegalArgumentException if the model or pool is null or the depth is negative
+   */
+  public static long countParallel(MutableChessModel model, int depth, ForkJoinPool pool) {
+    if (depth == 0) {
+      return count(model, depth);
+    }
+    long numPositions = 0;
+    for (long count : divide(model, depth, pool).values()) {
+      numPositions += count;
+    }
+    return numPositions;
+  }
+
+  /**
+   * Counts the leaf nodes below a single root move, on a model that belongs to this task alone.
+   */
+  private static final class RootMoveTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+    private final MutableChessModel model;
+    private final Move move;
+    private final int depth;
+
+    private RootMoveTask(MutableChessModel model, Move move, int depth) {
+      this.model = model;
+      this.move = move;
+      this.depth = depth;
+    }
+
+    @Override
+    protected Long compute() {
+      UndoInfo undo = model.makeMove(move);
+      long numPositions = count(model, depth);
+      model.unmakeMove(undo);
+      return numPositions;
+    }
+  }
+
+  private static long countPacked(BitboardChessModel model, int depth, IntMoveList[] movesAtDepth) {
+    if (depth == 0) {
+      return 1;
+    }
+    IntMoveList moves = movesAtDepth[depth];
+    model.generateLegalMoves(moves);
+    if (depth == 1) { //bulk counting - the leaves do not need to be made
+      return moves.size();
+    }
+    long numPositions = 0;
+    for (int i = 0; i < moves.size(); i++) {
+      model.makePackedMove(moves.get(i));
+      numPositions += countPacked(model, depth - 1, movesAtDepth);
+      model.unmakePackedMove();
+    }
+    return numPositions;
+  }
+
+  private static long countMoves(MutableChessModel model, int depth) {
+    if (depth == 0) {
+      return 1;
+    }
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    long numPositions = 0;
+    for (Move move : model.getLegalMoves(turn)) {
+      UndoInfo undo = model.makeMove(move);
+      numPositions += countMoves(model, depth - 1);
+      model.unmakeMove(undo);
+    }
+    return numPositions;
+  }
+
+  //one reusable move list per depth, so that no lists are created while counting
+  private static IntMoveList[] newMoveLists(int depth) {
+    IntMoveList[] movesAtDepth = new IntMoveList[depth + 1];
+    for (int i = 0; i < movesAtDepth.length; i++) {
+      movesAtDepth[i] = new IntMoveList();
+    }
+    return movesAtDepth;
+  }
+
+  private static void checkArguments(MutableChessModel model, int depth) {
+    if (model == null || depth < 0) {
+      throw new IllegalArgumentException("Unable to count positions for null model or negative depth");
+    }
+  }
+}
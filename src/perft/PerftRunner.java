@@ -0,0 +1,98 @@
+package perft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+import model.StrictChessModel;
+
+/**
+ * Command line entry point for running perft on a position, using every core by default.
+ * Usage: PerftRunner [--divide] [--threads n] [--model bitboard|strict] depth [fen]
+ * The FEN may be given as several arguments, since FEN strings contain spaces, and defaults to the
+ * starting position. In divide mode, the leaf node count below each root move is printed as well
+ * as the total, which narrows a wrong total down to the root move responsible for it. The elapsed
+ * time and nodes per second are always reported, so the runner doubles as a benchmark.
+ */
+public final class PerftRunner {
+  private static final String USAGE =
+          "Usage: PerftRunner [--divide] [--threads n] [--model bitboard|strict] depth [fen]";
+
+  private PerftRunner() {
+    //entry point only, should not be instantiated
+  }
+
+  public static void main(String[] args) {
+    boolean divide = false;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String modelName = "bitboard";
+    List<String> positional = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--divide" -> divide = true;
+          case "--threads" -> threads = Integer.parseInt(args[++i]);
+          case "--model" -> modelName = args[++i];
+          default -> positional.add(args[i]);
+        }
+      }
+      if (positional.isEmpty() || threads < 1) {
+        throw new IllegalArgumentException("missing depth or invalid thread count");
+      }
+      int depth = Integer.parseInt(positional.get(0));
+      String fen = positional.size() == 1 ? StrictChessModel.STARTING_POSITION
+              : String.join(" ", positional.subList(1, positional.size()));
+      run(createModel(modelName, fen), depth, divide, threads);
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      System.err.println(e.getMessage() == null ? USAGE : e.getMessage() + "\n" + USAGE);
+      System.exit(1);
+    }
+  }
+
+  private static MutableChessModel createModel(String modelName, String fen) {
+    MutableChessModel model = switch (modelName) {
+      case "bitboard" -> new BitboardChessModel.Builder(fen).build();
+      case "strict" -> new StrictChessModel.Builder(fen).build();
+      default -> throw new IllegalArgumentException(String.format("%s is not a known model", modelName));
+    };
+    model.startGame();
+    return model;
+  }
+
+  private static void run(MutableChessModel model, int depth, boolean divide, int threads) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("Depth must be at least 1");
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      long start = System.nanoTime();
+      Map<Move, Long> counts = Perft.divide(model, depth, pool);
+      long elapsedNanos = System.nanoTime() - start;
+      long total = 0;
+      //sort the root moves by their coordinate notation so that runs can be diffed
+      Map<String, Long> sortedCounts = new TreeMap<>();
+      for (Map.Entry<Move, Long> entry : counts.entrySet()) {
+        sortedCounts.put(PackedMove.toString(PackedMove.fromMove(entry.getKey())), entry.getValue());
+        total += entry.getValue();
+      }
+      if (divide) {
+        for (Map.Entry<String, Long> entry : sortedCounts.entrySet()) {
+          System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+        }
+        System.out.println();
+      }
+      double seconds = elapsedNanos / 1e9;
+      System.out.printf("Nodes searched: %d%n", total);
+      System.out.printf("Time: %.3f s on %d threads%n", seconds, threads);
+      System.out.printf("Nodes per second: %.0f%n", total / Math.max(seconds, 1e-9));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
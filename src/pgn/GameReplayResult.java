@@ -0,0 +1,98 @@
+package pgn;
+
+import java.util.Optional;
+
+import model.GameResultStatus;
+
+/**
+ * Represents the outcome of replaying one game of a corpus, see ReplayPipeline: where the game
+ * ended up, how it ended, and, for a game that could not be replayed, what went wrong and where.
+ * The position a game ended up in is the position its error happened in, so an invalid game can be
+ * looked at from exactly the move that could not be played.
+ * Immutable.
+ */
+public final class GameReplayResult {
+  private final long gameNumber;
+  private final PgnGame game;
+  private final int pliesPlayed;
+  private final String finalFen;
+  private final Optional<GameResultStatus> status;
+  private final Optional<String> error;
+
+  /**
+   * Constructs the result of replaying a game.
+   * INVARIANT: none of the fields are null
+   *
+   * @param gameNumber  the number of the game in its corpus, counting from 1
+   * @param game        the game that was replayed
+   * @param pliesPlayed the number of moves of the game that were played
+   * @param finalFen    the FEN string of the position after the moves that were played
+   * @param status      the final status of the game, if it was over after the moves that were played
+   * @param error       why the rest of the game could not be played, if it could not
+   * @throws IllegalArgumentException if any argument is null, or the game number or number of plies
+   *                                  played is out of range
+   */
+  public GameReplayResult(long gameNumber, PgnGame game, int pliesPlayed, String finalFen,
+                          Optional<GameResultStatus> status, Optional<String> error) {
+    if (game == null || finalFen == null || status == null || error == null || gameNumber < 1
+            || pliesPlayed < 0 || pliesPlayed > game.getSanMoves().size()) {
+      throw new IllegalArgumentException("Unable to create replay result with null arguments, game number "
+              + "less than 1 or number of plies played out of range");
+    }
+    this.gameNumber = gameNumber;
+    this.game = game;
+    this.pliesPlayed = pliesPlayed;
+    this.finalFen = finalFen;
+    this.status = status;
+    this.error = error;
+  }
+
+  /**
+   * Returns true if every move of the game was played.
+   */
+  public boolean isValid() {
+    return error.isEmpty();
+  }
+
+  /**
+   * Returns the SAN move the replay stopped at, or the empty optional if the game is valid or its
+   * error came after its last move. A game whose starting position is invalid stops at its first
+   * move, if it has one.
+   */
+  public Optional<String> getInvalidMove() {
+    if (isValid() || pliesPlayed == game.getSanMoves().size()) {
+      return Optional.empty();
+    }
+    return Optional.of(game.getSanMoves().get(pliesPlayed));
+  }
+
+  public long getGameNumber() {
+    return this.gameNumber;
+  }
+
+  public PgnGame getGame() {
+    return this.game;
+  }
+
+  public int getPliesPlayed() {
+    return this.pliesPlayed;
+  }
+
+  public String getFinalFen() {
+    return this.finalFen;
+  }
+
+  public Optional<GameResultStatus> getStatus() {
+    return this.status;
+  }
+
+  public Optional<String> getError() {
+    return this.error;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Game %d: %s after %d plies in %s%s", gameNumber,
+            isValid() ? "valid" : "invalid", pliesPlayed, finalFen, error.map(e -> " (" + e + ")").orElse(""));
+  }
+}
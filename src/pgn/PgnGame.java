@@ -0,0 +1,173 @@
+package pgn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import model.BitboardChessModel;
+import model.GameResultStatus;
+import model.Move;
+import model.MutableChessModel;
+import model.StrictChessModel;
+
+/**
+ * Represents one game of a PGN file: its tag pairs, its moves in SAN, and its result. A game
+ * keeps its moves as written rather than as Move objects, since SAN can only be resolved by
+ * playing the game from its start, which replay() does on a model of the caller's choosing.
+ * Immutable.
+ */
+public final class PgnGame {
+  public static final String WHITE_WINS = "1-0";
+  public static final String BLACK_WINS = "0-1";
+  public static final String DRAW = "1/2-1/2";
+  //the result of a game that is still in progress, or whose result is unknown
+  public static final String UNKNOWN_RESULT = "*";
+  //the results that may end the movetext of a game
+  static final Set<String> RESULTS = Set.of(WHITE_WINS, BLACK_WINS, DRAW, UNKNOWN_RESULT);
+  //the tag holding the FEN string of the starting position of a game that does not start from
+  //the standard starting position
+  public static final String FEN_TAG = "FEN";
+  public static final String RESULT_TAG = "Result";
+
+  //INVARIANT: tags keeps the order the tags were read or given in
+  private final Map<String, String> tags;
+  private final List<String> sanMoves;
+  private final String result;
+
+  /**
+   * Constructs a game with the given tags, moves and result.
+   *
+   * @param tags     the tag pairs of the game, by name, in the order they are to be written
+   * @param sanMoves the moves of the game in SAN, from its starting position
+   * @param result   the result of the game - "1-0", "0-1", "1/2-1/2" or "*"
+   * @throws IllegalArgumentException if any argument is null or contains null, or the result is
+   *                                  not one of the four PGN results
+   */
+  public PgnGame(Map<String, String> tags, List<String> sanMoves, String result) {
+    if (tags == null || sanMoves == null || result == null || !RESULTS.contains(result)) {
+      throw new IllegalArgumentException("Unable to create game with null tags, null moves or invalid result");
+    }
+    //List.copyOf rejects null moves, and tags are checked here, since LinkedHashMap allows nulls
+    for (Map.Entry<String, String> tag : tags.entrySet()) {
+      if (tag.getKey() == null || tag.getValue() == null) {
+        throw new IllegalArgumentException("Unable to create game with null tag name or value");
+      }
+    }
+    try {
+      this.sanMoves = List.copyOf(sanMoves);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Unable to create game with null move", e);
+    }
+    this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+    this.result = result;
+  }
+
+  /**
+   * Constructs the game in which the given moves are played from the starting position given by
+   * the FEN tag, or from the standard starting position without one, writing each move in SAN.
+   * The result is the final status of the game if the moves end it, and otherwise the Result tag,
+   * or "*" without one. The Result tag is set to match.
+   *
+   * @param tags  the tag pairs of the game, by name, in the order they are to be written
+   * @param moves the moves of the game, each of which must be legal when it is played
+   * @return the game
+   * @throws IllegalArgumentException if the tags or moves are null or contain null, the FEN tag is
+   *                                  not a valid FEN string, or a move is not legal
+   */
+  public static PgnGame fromMoves(Map<String, String> tags, List<Move> moves) {
+    if (tags == null || moves == null) {
+      throw new IllegalArgumentException("Unable to create game from null tags or null moves");
+    }
+    //SAN is written on a BitboardChessModel, which plays the same rules as StrictChessModel faster
+    MutableChessModel model = new BitboardChessModel.Builder(tags.getOrDefault(FEN_TAG,
+            StrictChessModel.STARTING_POSITION)).build();
+    model.startGame();
+    List<String> sanMoves = new ArrayList<>();
+    for (Move move : moves) {
+      sanMoves.add(SanNotation.toSan(model, move));
+      model.makeMove(move);
+    }
+    String result = model.isGameOver() ? resultOf(model.getFinalGameStatus())
+            : tags.getOrDefault(RESULT_TAG, UNKNOWN_RESULT);
+    Map<String, String> resultTags = new LinkedHashMap<>(tags);
+    resultTags.put(RESULT_TAG, result);
+    return new PgnGame(resultTags, sanMoves, result);
+  }
+
+  /**
+   * Returns the PGN result of a game that ended with the given status.
+   *
+   * @throws IllegalArgumentException if the status is null
+   */
+  public static String resultOf(GameResultStatus status) {
+    if (status == null) {
+      throw new IllegalArgumentException("Unable to find result of null status");
+    }
+    return switch (status) {
+      case CHECKMATE_BY_WHITE -> WHITE_WINS;
+      case CHECKMATE_BY_BLACK -> BLACK_WINS;
+      default -> DRAW;
+    };
+  }
+
+  /**
+   * Plays the moves of this game on the given model through makeMove(), resolving each SAN move
+   * against the legal moves of the position it is played in.
+   *
+   * @param model the model to play the game on, which must have a game in progress in the starting
+   *              position of this game
+   * @return the moves that were played, as an unmodifiable list
+   * @throws IllegalArgumentException if the model is null, or a move cannot be resolved to a legal
+   *                                  move, in which case the model is left in the position the
+   *                                  move was to be played in
+   */
+  public List<Move> replay(MutableChessModel model) {
+    if (model == null) {
+      throw new IllegalArgumentException("Unable to replay game on null model");
+    }
+    List<Move> moves = new ArrayList<>(sanMoves.size());
+    for (String san : sanMoves) {
+      Move move = SanNotation.fromSan(model, san);
+      model.makeMove(move);
+      moves.add(move);
+    }
+    return Collections.unmodifiableList(moves);
+  }
+
+  /**
+   * Returns the FEN string of the starting position of this game - the FEN tag if it has one, and
+   * the standard starting position otherwise.
+   */
+  public String getStartingFen() {
+    return tags.getOrDefault(FEN_TAG, StrictChessModel.STARTING_POSITION);
+  }
+
+  /**
+   * Returns the value of the tag with the given name, or the empty optional if there is no such tag.
+   */
+  public Optional<String> getTag(String name) {
+    return Optional.ofNullable(tags.get(name));
+  }
+
+  //tags and moves are unmodifiable, so they can be handed out without being copied
+  public Map<String, String> getTags() {
+    return this.tags;
+  }
+
+  public List<String> getSanMoves() {
+    return this.sanMoves;
+  }
+
+  public String getResult() {
+    return this.result;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Game with tags %s, %d moves and result %s", tags, sanMoves.size(), result);
+  }
+}
@@ -0,0 +1,250 @@
+package pgn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Reads the games of a PGN file one at a time, so that files of millions of games can be read
+ * without ever holding more than one game in memory. The input is read a character at a time
+ * through a buffer, and comments, variations and numeric annotation glyphs are skipped as they are
+ * read rather than kept, so memory use only grows with the tags and moves of the game being read.
+ * Games are handed out with their moves in SAN, see PgnGame.replay() to play them on a model.
+ * The reader is lenient about what most PGN writers get wrong: a game without a result ends at the
+ * next tag section or at the end of the input, and move numbers are optional.
+ * Not thread safe - a reader must only be used by one thread at a time.
+ */
+public final class PgnReader {
+  private static final int END_OF_INPUT = -1;
+  //the character that starts an escape line, which is ignored, if it is the first of its line
+  private static final char ESCAPE = '%';
+  private static final int NO_CHARACTER = -2;
+
+  private final BufferedReader input;
+  //a character that was read but not used yet, or NO_CHARACTER
+  private int pushedBack;
+  //the line of the input being read, counting from 1, for error messages
+  private int lineNumber;
+  private boolean isAtLineStart;
+
+  /**
+   * Constructs a reader of the games of the given input. The caller remains responsible for
+   * closing the input.
+   *
+   * @throws IllegalArgumentException if the input is null
+   */
+  public PgnReader(Reader input) {
+    if (input == null) {
+      throw new IllegalArgumentException("Unable to create PGN reader with null input");
+    }
+    this.input = input instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(input);
+    this.pushedBack = NO_CHARACTER;
+    this.lineNumber = 1;
+    this.isAtLineStart = true;
+  }
+
+  /**
+   * Reads the next game of the input.
+   *
+   * @return the next game, or the empty optional if there are no more games
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if a tag pair of the game is malformed, in which case the
+   *                                  rest of the input can still be read
+   */
+  public Optional<PgnGame> readGame() throws IOException {
+    Map<String, String> tags = new LinkedHashMap<>();
+    int c = skipWhitespace();
+    while (c == '[') {
+      readTagPair(tags);
+      c = skipWhitespace();
+    }
+    List<String> sanMoves = new ArrayList<>();
+    while (c != END_OF_INPUT && c != '[') {
+      switch (c) {
+        case '{' -> skipPast('}');
+        case ';' -> skipPast('\n');
+        case '(' -> skipVariation();
+        case '$' -> readSymbol(c); //numeric annotation glyph, such as $1
+        default -> {
+          String token = stripMoveNumber(readSymbol(c));
+          if (PgnGame.RESULTS.contains(token)) {
+            return Optional.of(new PgnGame(tags, sanMoves, token));
+          }
+          if (!token.isEmpty()) {
+            sanMoves.add(token);
+          }
+        }
+      }
+      c = skipWhitespace();
+    }
+    pushBack(c);
+    if (tags.isEmpty() && sanMoves.isEmpty()) {
+      return Optional.empty();
+    }
+    //the game has no result, so it is taken to be unfinished
+    return Optional.of(new PgnGame(tags, sanMoves, PgnGame.UNKNOWN_RESULT));
+  }
+
+  /**
+   * Reads every remaining game of the input, handing each one to the given consumer before the
+   * next one is read.
+   *
+   * @return the number of games read
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the consumer is null, or a tag pair is malformed
+   */
+  public long readGames(Consumer<PgnGame> consumer) throws IOException {
+    if (consumer == null) {
+      throw new IllegalArgumentException("Unable to read games into null consumer");
+    }
+    long numGames = 0;
+    for (Optional<PgnGame> game = readGame(); game.isPresent(); game = readGame()) {
+      consumer.accept(game.get());
+      numGames++;
+    }
+    return numGames;
+  }
+
+  /**
+   * Reads a tag pair, such as [Event "Casual game"], whose opening bracket has just been read.
+   */
+  private void readTagPair(Map<String, String> tags) throws IOException {
+    int c = skipWhitespace();
+    StringBuilder name = new StringBuilder();
+    while (c != END_OF_INPUT && (Character.isLetterOrDigit(c) || c == '_')) {
+      name.append((char) c);
+      c = next();
+    }
+    while (c == ' ' || c == '\t') {
+      c = next();
+    }
+    if (name.isEmpty() || c != '"') {
+      if (c != ']') {
+        skipPast(']');
+      }
+      throw new IllegalArgumentException("Unable to read malformed tag pair on line " + lineNumber);
+    }
+    StringBuilder value = new StringBuilder();
+    for (c = next(); c != '"'; c = next()) {
+      if (c == '\\') { //quotes and backslashes are escaped by a backslash
+        c = next();
+      }
+      if (c == END_OF_INPUT || c == '\n') {
+        throw new IllegalArgumentException("Unable to read unterminated tag value on line " + lineNumber);
+      }
+      value.append((char) c);
+    }
+    if (skipWhitespace() != ']') {
+      skipPast(']');
+      throw new IllegalArgumentException("Unable to read malformed tag pair on line " + lineNumber);
+    }
+    tags.put(name.toString(), value.toString());
+  }
+
+  /**
+   * Skips a recursive annotation variation, whose opening parenthesis has just been read, along
+   * with any variations and comments inside it.
+   */
+  private void skipVariation() throws IOException {
+    int depth = 1;
+    for (int c = next(); c != END_OF_INPUT && depth > 0; c = next()) {
+      switch (c) {
+        case '(' -> depth++;
+        case ')' -> depth--;
+        case '{' -> skipPast('}'); //comments may contain parentheses
+        case ';' -> skipPast('\n');
+        default -> {
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the symbol that starts with the given character, which has just been read, up to the next
+   * whitespace or character that cannot be part of a symbol.
+   */
+  private String readSymbol(int first) throws IOException {
+    StringBuilder symbol = new StringBuilder().append((char) first);
+    int c = next();
+    while (c != END_OF_INPUT && !Character.isWhitespace(c) && "{}()[];$\"".indexOf(c) < 0) {
+      symbol.append((char) c);
+      c = next();
+    }
+    pushBack(c);
+    return symbol.toString();
+  }
+
+  /**
+   * Strips the move number that may be written in front of a move, such as "12." or "12...", along
+   * with any annotation of the move, such as "!?". Returns the empty string for a move number
+   * written on its own.
+   */
+  private static String stripMoveNumber(String token) {
+    int start = 0;
+    while (start < token.length() && Character.isDigit(token.charAt(start))) {
+      start++;
+    }
+    if (start < token.length() && token.charAt(start) == '.') {
+      while (start < token.length() && token.charAt(start) == '.') {
+        start++;
+      }
+    } else {
+      start = 0; //a result such as 1-0 also starts with a digit
+    }
+    int end = token.length();
+    while (end > start && (token.charAt(end - 1) == '!' || token.charAt(end - 1) == '?')) {
+      end--;
+    }
+    return token.substring(start, end);
+  }
+
+  private void skipPast(char terminator) throws IOException {
+    int c = next();
+    while (c != END_OF_INPUT && c != terminator) {
+      c = next();
+    }
+  }
+
+  /**
+   * Returns the next character that is not whitespace and not part of an escape line.
+   */
+  private int skipWhitespace() throws IOException {
+    int c = next();
+    while (c != END_OF_INPUT && Character.isWhitespace(c)) {
+      c = next();
+    }
+    return c;
+  }
+
+  /**
+   * Returns the next character of the input, skipping escape lines, or END_OF_INPUT.
+   */
+  private int next() throws IOException {
+    if (pushedBack != NO_CHARACTER) {
+      int c = pushedBack;
+      pushedBack = NO_CHARACTER;
+      return c;
+    }
+    int c = input.read();
+    while (c == ESCAPE && isAtLineStart) {
+      input.readLine();
+      lineNumber++;
+      c = input.read();
+    }
+    isAtLineStart = c == '\n';
+    if (isAtLineStart) {
+      lineNumber++;
+    }
+    return c;
+  }
+
+  private void pushBack(int c) {
+    pushedBack = c;
+  }
+}
@@ -0,0 +1,97 @@
+package pgn;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in PGN, one at a time, so that any number of games can be written to a file
+ * without holding more than one in memory. Each game is written as its tag pairs, a blank line,
+ * its movetext with move numbers, wrapped to lines of at most 80 characters as the PGN standard
+ * asks, and a blank line, which is the form PgnReader reads.
+ * Not thread safe - a writer must only be used by one thread at a time.
+ */
+public final class PgnWriter {
+  private static final int MAX_LINE_LENGTH = 80;
+  private static final int FEN_SIDE_TO_MOVE_FIELD = 1;
+  private static final int FEN_FULL_MOVE_FIELD = 5;
+
+  private final Writer output;
+
+  /**
+   * Constructs a writer of games to the given output. The caller remains responsible for flushing
+   * and closing the output.
+   *
+   * @throws IllegalArgumentException if the output is null
+   */
+  public PgnWriter(Writer output) {
+    if (output == null) {
+      throw new IllegalArgumentException("Unable to create PGN writer with null output");
+    }
+    this.output = output;
+  }
+
+  /**
+   * Writes the given game. Move numbers start from the full move number of the game's FEN tag, if
+   * it has one, so that a game starting with black to move begins with "1..." or its equivalent.
+   *
+   * @throws IOException              if the output cannot be written to
+   * @throws IllegalArgumentException if the game is null
+   */
+  public void writeGame(PgnGame game) throws IOException {
+    if (game == null) {
+      throw new IllegalArgumentException("Unable to write null game");
+    }
+    for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+      String value = tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"");
+      output.write("[" + tag.getKey() + " \"" + value + "\"]\n");
+    }
+    output.write('\n');
+    String[] fenFields = game.getStartingFen().trim().split("\\s+");
+    boolean whiteToMove = fenFields.length <= FEN_SIDE_TO_MOVE_FIELD || !fenFields[FEN_SIDE_TO_MOVE_FIELD].equals("b");
+    int fullMoveNumber = parseFullMoveNumber(fenFields);
+    StringBuilder line = new StringBuilder();
+    boolean isFirstMove = true;
+    for (String san : game.getSanMoves()) {
+      if (whiteToMove) {
+        appendToken(line, fullMoveNumber + ".");
+      } else if (isFirstMove) {
+        appendToken(line, fullMoveNumber + "...");
+      }
+      appendToken(line, san);
+      if (!whiteToMove) {
+        fullMoveNumber++;
+      }
+      whiteToMove = !whiteToMove;
+      isFirstMove = false;
+    }
+    appendToken(line, game.getResult());
+    output.write(line + "\n\n");
+  }
+
+  /**
+   * Appends the given token to the given line, first writing the line out and starting a new one
+   * if the token would make it too long.
+   */
+  private void appendToken(StringBuilder line, String token) throws IOException {
+    if (!line.isEmpty() && line.length() + 1 + token.length() > MAX_LINE_LENGTH) {
+      output.write(line + "\n");
+      line.setLength(0);
+    }
+    if (!line.isEmpty()) {
+      line.append(' ');
+    }
+    line.append(token);
+  }
+
+  private static int parseFullMoveNumber(String[] fenFields) {
+    if (fenFields.length <= FEN_FULL_MOVE_FIELD) {
+      return 1;
+    }
+    try {
+      return Math.max(1, Integer.parseInt(fenFields[FEN_FULL_MOVE_FIELD]));
+    } catch (NumberFormatException e) {
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package pgn;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import model.GameResultStatus;
+import model.Move;
+import model.MutableChessModel;
+import model.StrictChessModel;
+
+/**
+ * Validates a corpus of games by replaying every one of them, for checking and indexing large PGN
+ * collections. Games are read on the calling thread and split into chunks of a fixed number of
+ * games, and each chunk is replayed on a ForkJoinPool, every game on its own StrictChessModel,
+ * with every move checked by canMakeMove() before it is made. Only a few chunks per thread are in
+ * flight at a time, so reading never runs far ahead of replaying and memory stays bounded however
+ * large the corpus is. Results are handed to the consumer in the order the games were read.
+ */
+public final class ReplayPipeline {
+  //how many chunks may wait for or be replayed per thread of the pool, enough to keep every thread
+  //busy while the calling thread reads the next chunk
+  private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+  private ReplayPipeline() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Replays every remaining game of the given reader on the given pool, handing the result of each
+   * game to the given consumer, on the calling thread, in the order the games were read. Games that
+   * cannot be read are skipped and counted, but still take up a game number, so that the numbers of
+   * the games after them stay as close as possible to their place in the corpus.
+   *
+   * @param reader    the reader of the games to replay
+   * @param pool      the pool to replay the games on
+   * @param chunkSize the number of games each task of the pool replays
+   * @param consumer  the consumer of the result of each game
+   * @return the totals and throughput of the run
+   * @throws IOException              if the reader's input cannot be read
+   * @throws IllegalArgumentException if the reader, pool or consumer is null, or the chunk size is
+   *                                  less than 1
+   */
+  public static ReplayReport run(PgnReader reader, ForkJoinPool pool, int chunkSize,
+                                 Consumer<GameReplayResult> consumer) throws IOException {
+    if (reader == null || pool == null || consumer == null || chunkSize < 1) {
+      throw new IllegalArgumentException("Unable to run pipeline with null reader, null pool, null consumer "
+              + "or chunk size less than 1");
+    }
+    long start = System.nanoTime();
+    int maxChunksInFlight = CHUNKS_IN_FLIGHT_PER_THREAD * pool.getParallelism();
+    Deque<ForkJoinTask<List<GameReplayResult>>> chunksInFlight = new ArrayDeque<>();
+    Totals totals = new Totals();
+    long nextGameNumber = 1;
+    List<PgnGame> chunk = new ArrayList<>(chunkSize);
+    //the numbers of the games of the chunk, which are not consecutive if a game between them is unreadable
+    List<Long> chunkGameNumbers = new ArrayList<>(chunkSize);
+    boolean hasMoreGames = true;
+    try {
+      while (hasMoreGames) {
+        Optional<PgnGame> game;
+        try {
+          game = reader.readGame();
+        } catch (IllegalArgumentException e) {
+          totals.numUnreadableGames++;
+          nextGameNumber++;
+          continue;
+        }
+        hasMoreGames = game.isPresent();
+        if (hasMoreGames) {
+          chunk.add(game.get());
+          chunkGameNumbers.add(nextGameNumber++);
+        }
+        if (chunk.size() == chunkSize || (!hasMoreGames && !chunk.isEmpty())) {
+          if (chunksInFlight.size() == maxChunksInFlight) {
+            totals.add(join(chunksInFlight.removeFirst()), consumer);
+          }
+          List<PgnGame> games = chunk;
+          List<Long> gameNumbers = chunkGameNumbers;
+          chunksInFlight.addLast(pool.submit(() -> replayChunk(games, gameNumbers)));
+          chunk = new ArrayList<>(chunkSize);
+          chunkGameNumbers = new ArrayList<>(chunkSize);
+        }
+      }
+      while (!chunksInFlight.isEmpty()) {
+        totals.add(join(chunksInFlight.removeFirst()), consumer);
+      }
+    } finally {
+      //chunks still in flight, if the reader or consumer failed, are no longer wanted
+      for (ForkJoinTask<List<GameReplayResult>> chunkInFlight : chunksInFlight) {
+        chunkInFlight.cancel(false);
+      }
+    }
+    return new ReplayReport(totals.numGames, totals.numInvalidGames, totals.numUnreadableGames, totals.numMoves,
+            System.nanoTime() - start);
+  }
+
+  /**
+   * Replays the given game on a StrictChessModel of its own, checking every move with canMakeMove()
+   * before it is made, and stopping at the first move that cannot be resolved or made. A move the
+   * model throws an exception on is reported as the game's error, rather than thrown.
+   *
+   * @param gameNumber the number of the game in its corpus, counting from 1
+   * @param game       the game to replay
+   * @return the result of replaying the game
+   * @throws IllegalArgumentException if the game is null or the game number is less than 1
+   */
+  public static GameReplayResult replay(long gameNumber, PgnGame game) {
+    if (game == null) {
+      throw new IllegalArgumentException("Unable to replay null game");
+    }
+    MutableChessModel model;
+    try {
+      model = new StrictChessModel.Builder(game.getStartingFen()).build();
+    } catch (IllegalArgumentException e) {
+      return new GameReplayResult(gameNumber, game, 0, game.getStartingFen(), Optional.empty(),
+              Optional.of("Unable to set up starting position: " + e.getMessage()));
+    }
+    model.startGame();
+    int pliesPlayed = 0;
+    Optional<String> error = Optional.empty();
+    for (String san : game.getSanMoves()) {
+      Move move;
+      try {
+        move = SanNotation.fromSan(model, san);
+      } catch (IllegalArgumentException e) {
+        error = Optional.of(e.getMessage());
+        break;
+      }
+      try {
+        if (!model.canMakeMove(move)) {
+          error = Optional.of("Unable to make move " + san + " in " + model);
+          break;
+        }
+        model.makeMove(move);
+      } catch (RuntimeException e) {
+        //a move the model fails on only invalidates its own game, not the rest of the corpus. The
+        //model is left as it was before the move, so the error is reported in that position.
+        error = Optional.of("Unable to make move " + san + " in " + model + " due to error " + e.getMessage());
+        break;
+      }
+      pliesPlayed++;
+    }
+    Optional<GameResultStatus> status = model.isGameOver() ? Optional.of(model.getFinalGameStatus())
+            : Optional.empty();
+    return new GameReplayResult(gameNumber, game, pliesPlayed, model.toString(), status, error);
+  }
+
+  private static List<GameReplayResult> replayChunk(List<PgnGame> games, List<Long> gameNumbers) {
+    List<GameReplayResult> results = new ArrayList<>(games.size());
+    for (int i = 0; i < games.size(); i++) {
+      results.add(replay(gameNumbers.get(i), games.get(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Waits for the given chunk to be replayed and returns its results.
+   */
+  private static List<GameReplayResult> join(ForkJoinTask<List<GameReplayResult>> chunk) {
+    try {
+      return chunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for games to be replayed", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Replay worker failed", e.getCause());
+    }
+  }
+
+  /**
+   * The running totals of a run, only used by the calling thread.
+   */
+  private static final class Totals {
+    private long numGames;
+    private long numInvalidGames;
+    private long numUnreadableGames;
+    private long numMoves;
+
+    /**
+     * Adds the given results of a chunk to the totals, handing each one to the given consumer.
+     */
+    void add(List<GameReplayResult> results, Consumer<GameReplayResult> consumer) {
+      for (GameReplayResult result : results) {
+        numGames++;
+        numMoves += result.getPliesPlayed();
+        if (!result.isValid()) {
+          numInvalidGames++;
+        }
+        consumer.accept(result);
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package pgn;
+
+/**
+ * Represents the totals of a run of a ReplayPipeline over a corpus of games, with its throughput.
+ * Immutable.
+ */
+public final class ReplayReport {
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final long numGames;
+  private final long numInvalidGames;
+  private final long numUnreadableGames;
+  private final long numMoves;
+  private final long elapsedNanos;
+
+  /**
+   * Constructs the report of a run.
+   *
+   * @param numGames           the number of games replayed, valid or not
+   * @param numInvalidGames    the number of games replayed that could not be played to the end
+   * @param numUnreadableGames the number of games skipped because they could not be read
+   * @param numMoves           the number of moves played over all games
+   * @param elapsedNanos       how long the run took, in nanoseconds
+   * @throws IllegalArgumentException if any count is negative, or there are more invalid games than
+   *                                  games
+   */
+  public ReplayReport(long numGames, long numInvalidGames, long numUnreadableGames, long numMoves,
+                      long elapsedNanos) {
+    if (numGames < 0 || numInvalidGames < 0 || numInvalidGames > numGames || numUnreadableGames < 0
+            || numMoves < 0 || elapsedNanos < 0) {
+      throw new IllegalArgumentException("Unable to create replay report with negative or inconsistent counts");
+    }
+    this.numGames = numGames;
+    this.numInvalidGames = numInvalidGames;
+    this.numUnreadableGames = numUnreadableGames;
+    this.numMoves = numMoves;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public double getGamesPerSecond() {
+    return numGames / Math.max(getElapsedSeconds(), 1e-9);
+  }
+
+  public double getMovesPerSecond() {
+    return numMoves / Math.max(getElapsedSeconds(), 1e-9);
+  }
+
+  public double getElapsedSeconds() {
+    return elapsedNanos / NANOS_PER_SECOND;
+  }
+
+  public long getNumGames() {
+    return this.numGames;
+  }
+
+  public long getNumInvalidGames() {
+    return this.numInvalidGames;
+  }
+
+  public long getNumUnreadableGames() {
+    return this.numUnreadableGames;
+  }
+
+  public long getNumMoves() {
+    return this.numMoves;
+  }
+
+  public long getElapsedNanos() {
+    return this.elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d games (%d invalid, %d unreadable), %d moves in %.3f s: %.0f games/s, %.0f moves/s",
+            numGames, numInvalidGames, numUnreadableGames, numMoves, getElapsedSeconds(), getGamesPerSecond(),
+            getMovesPerSecond());
+  }
+}
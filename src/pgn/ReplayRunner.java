@@ -0,0 +1,69 @@
+package pgn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point for validating a PGN file by replaying every game in it, using every
+ * core by default. Usage: ReplayRunner [--threads n] [--chunk n] file
+ * Every game that cannot be replayed is printed with the position and move it failed at, followed
+ * by the totals and the games and moves replayed per second, so the runner doubles as a benchmark.
+ */
+public final class ReplayRunner {
+  private static final String USAGE = "Usage: ReplayRunner [--threads n] [--chunk n] file";
+  private static final int DEFAULT_CHUNK_SIZE = 64;
+
+  private ReplayRunner() {
+    //entry point only, should not be instantiated
+  }
+
+  public static void main(String[] args) {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+    String file = null;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--threads" -> threads = Integer.parseInt(args[++i]);
+          case "--chunk" -> chunkSize = Integer.parseInt(args[++i]);
+          default -> file = args[i];
+        }
+      }
+      if (file == null || threads < 1 || chunkSize < 1) {
+        throw new IllegalArgumentException("missing file or invalid thread count or chunk size");
+      }
+      run(Path.of(file), threads, chunkSize);
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      System.err.println(e.getMessage() == null ? USAGE : e.getMessage() + "\n" + USAGE);
+      System.exit(1);
+    } catch (IOException e) {
+      System.err.println("Unable to read games: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static void run(Path file, int threads, int chunkSize) throws IOException {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    //PGN files are officially Latin-1, which also reads any other encoding without failing
+    try (BufferedReader input = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+      ReplayReport report = ReplayPipeline.run(new PgnReader(input), pool, chunkSize, result -> {
+        if (!result.isValid()) {
+          System.out.printf("Game %d: %s after %d plies in %s%n", result.getGameNumber(),
+                  result.getInvalidMove().orElse("-"), result.getPliesPlayed(), result.getFinalFen());
+        }
+      });
+      System.out.printf("Games: %d (%d invalid, %d unreadable)%n", report.getNumGames(),
+              report.getNumInvalidGames(), report.getNumUnreadableGames());
+      System.out.printf("Moves: %d%n", report.getNumMoves());
+      System.out.printf("Time: %.3f s on %d threads%n", report.getElapsedSeconds(), threads);
+      System.out.printf("Games per second: %.0f%n", report.getGamesPerSecond());
+      System.out.printf("Moves per second: %.0f%n", report.getMovesPerSecond());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
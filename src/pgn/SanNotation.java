@@ -0,0 +1,271 @@
+package pgn;
+
+import java.util.Optional;
+
+import model.Move;
+import model.MutableChessModel;
+import model.PieceType;
+import model.PlayerColor;
+import model.ReadOnlyChessModel;
+import model.RowColPair;
+import model.UndoInfo;
+
+/**
+ * Converts moves to and from Standard Algebraic Notation (SAN), the notation of PGN movetext, such
+ * as "e4", "Nbd7", "exd6", "O-O" and "e8=Q+". SAN only names the destination square and as much
+ * of the source square as is needed to tell the move apart from the other legal moves of the
+ * same piece type, so a SAN move can only be read against the position it is played in. Moves
+ * are resolved against the model's legal moves, so a resolved move is always legal.
+ */
+public final class SanNotation {
+  private static final String FILES = "abcdefgh";
+  private static final String RANKS = "87654321"; //indexed by row, since row 0 is the eighth rank
+  private static final String KINGSIDE_CASTLE = "O-O";
+  private static final String QUEENSIDE_CASTLE = "O-O-O";
+
+  private SanNotation() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Finds the legal move of the side to move that the given SAN move describes. Check, checkmate
+   * and annotation suffixes (+, #, !, ?) are ignored, castling may also be written with zeros
+   * ("0-0") and the "=" of a promotion may be left out ("e8Q").
+   *
+   * @param model the model whose position the move is played in
+   * @param san   the move in SAN
+   * @return the legal move that the SAN move describes
+   * @throws IllegalArgumentException if the model or move is null, or the move is not valid SAN,
+   *                                  or it describes no legal move or more than one
+   */
+  public static Move fromSan(ReadOnlyChessModel model, String san) {
+    if (model == null || san == null) {
+      throw new IllegalArgumentException("Unable to read SAN move with null model or null move");
+    }
+    String text = stripSuffixes(san).replace('0', 'O');
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    if (text.equals(KINGSIDE_CASTLE) || text.equals(QUEENSIDE_CASTLE)) {
+      Move.MoveFlag flag = text.equals(KINGSIDE_CASTLE) ? Move.MoveFlag.CASTLE_KINGSIDE : Move.MoveFlag.CASTLE_QUEENSIDE;
+      return model.getLegalMoves(turn).stream()
+              .filter(m -> m.getFlag() == flag)
+              .findFirst()
+              .orElseThrow(() -> new IllegalArgumentException("Unable to castle with " + san + " in " + model));
+    }
+    return resolve(model, turn, parse(text, san), san);
+  }
+
+  /**
+   * Writes the given legal move of the side to move in SAN, with a "+" suffix if it gives check
+   * and a "#" suffix if it gives checkmate. The move is made and taken back to find out whether
+   * it gives check, so the model is left in the position it was given in.
+   *
+   * @param model the model whose position the move is played in, which must have a game in progress
+   * @param move  the move to write
+   * @return the move in SAN
+   * @throws IllegalArgumentException if the model or move is null, or the move is not legal
+   */
+  public static String toSan(MutableChessModel model, Move move) {
+    if (model == null || move == null) {
+      throw new IllegalArgumentException("Unable to write SAN move with null model or null move");
+    }
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    if (!model.getLegalMoves(turn).contains(move)) {
+      throw new IllegalArgumentException("Unable to write illegal move " + move + " in " + model);
+    }
+    StringBuilder san = new StringBuilder();
+    RowColPair source = move.getSourcePosition();
+    RowColPair destination = move.getDestinationPosition();
+    switch (move.getFlag()) {
+      case CASTLE_KINGSIDE -> san.append(KINGSIDE_CASTLE);
+      case CASTLE_QUEENSIDE -> san.append(QUEENSIDE_CASTLE);
+      default -> {
+        //INVARIANT: a legal move always starts on a square with a piece of the side to move
+        PieceType type = model.getPieceTypeAt(source).orElseThrow();
+        boolean isCapture = model.getPieceAt(destination).isPresent() || move.getFlag() == Move.MoveFlag.EN_PASSANT;
+        if (type == PieceType.PAWN) {
+          if (isCapture) {
+            san.append(FILES.charAt(source.getCol()));
+          }
+        } else {
+          san.append(Character.toUpperCase(type.getLowercasedPieceID()));
+          san.append(disambiguation(model, turn, move, type));
+        }
+        if (isCapture) {
+          san.append('x');
+        }
+        san.append(squareName(destination));
+        promotionType(move.getFlag()).ifPresent(
+                promotion -> san.append('=').append(Character.toUpperCase(promotion.getLowercasedPieceID())));
+      }
+    }
+    UndoInfo undo = model.makeMove(move);
+    PlayerColor opponent = turn.getOpposite();
+    if (model.isSquareAttacked(model.getKingSquare(opponent), turn)) {
+      san.append(model.getLegalMoves(opponent).isEmpty() ? '#' : '+');
+    }
+    model.unmakeMove(undo);
+    return san.toString();
+  }
+
+  /**
+   * Returns the name of the given square, such as "e4".
+   */
+  static String squareName(RowColPair square) {
+    return FILES.charAt(square.getCol()) + String.valueOf(RANKS.charAt(square.getRow()));
+  }
+
+  /**
+   * Returns as much of the source square of the given move as is needed to tell it apart from the
+   * other legal moves of pieces of the same type to the same square - nothing, the file, the rank,
+   * or the whole square, in that order of preference.
+   */
+  private static String disambiguation(ReadOnlyChessModel model, PlayerColor turn, Move move, PieceType type) {
+    RowColPair source = move.getSourcePosition();
+    boolean isAmbiguous = false;
+    boolean sharesFile = false;
+    boolean sharesRank = false;
+    for (Move other : model.getLegalMoves(turn)) {
+      RowColPair otherSource = other.getSourcePosition();
+      if (otherSource.equals(source) || !other.getDestinationPosition().equals(move.getDestinationPosition())
+              || model.getPieceTypeAt(otherSource).orElseThrow() != type) {
+        continue;
+      }
+      isAmbiguous = true;
+      sharesFile |= otherSource.getCol() == source.getCol();
+      sharesRank |= otherSource.getRow() == source.getRow();
+    }
+    if (!isAmbiguous) {
+      return "";
+    }
+    if (!sharesFile) {
+      return String.valueOf(FILES.charAt(source.getCol()));
+    }
+    if (!sharesRank) {
+      return String.valueOf(RANKS.charAt(source.getRow()));
+    }
+    return squareName(source);
+  }
+
+  private static Move resolve(ReadOnlyChessModel model, PlayerColor turn, ParsedSan parsed, String san) {
+    Move match = null;
+    for (Move move : model.getLegalMoves(turn)) {
+      RowColPair source = move.getSourcePosition();
+      if (!move.getDestinationPosition().equals(parsed.destination)
+              || model.getPieceTypeAt(source).orElseThrow() != parsed.type
+              || (parsed.sourceCol >= 0 && source.getCol() != parsed.sourceCol)
+              || (parsed.sourceRow >= 0 && source.getRow() != parsed.sourceRow)
+              || !promotionType(move.getFlag()).equals(parsed.promotion)) {
+        continue;
+      }
+      if (match != null) {
+        throw new IllegalArgumentException("Unable to resolve ambiguous move " + san + " in " + model);
+      }
+      match = move;
+    }
+    if (match == null) {
+      throw new IllegalArgumentException("Unable to play move " + san + " in " + model);
+    }
+    return match;
+  }
+
+  /**
+   * Splits a SAN move other than castling, without its suffixes, into its parts.
+   */
+  private static ParsedSan parse(String text, String san) {
+    int end = text.length();
+    Optional<PieceType> promotion = Optional.empty();
+    if (end > 0 && pieceTypeOf(text.charAt(end - 1)).isPresent()) {
+      promotion = pieceTypeOf(text.charAt(end - 1));
+      end--;
+      if (end > 0 && text.charAt(end - 1) == '=') {
+        end--;
+      }
+    }
+    if (end < 2) {
+      throw new IllegalArgumentException("Unable to read SAN move " + san);
+    }
+    RowColPair destination = parseSquare(text.charAt(end - 2), text.charAt(end - 1), san);
+    int start = 0;
+    PieceType type = PieceType.PAWN;
+    Optional<PieceType> pieceType = pieceTypeOf(text.charAt(0));
+    if (pieceType.isPresent()) {
+      type = pieceType.get();
+      start++;
+    }
+    //whatever is left between the piece and the destination is the disambiguation and capture mark
+    int sourceCol = -1;
+    int sourceRow = -1;
+    for (int i = start; i < end - 2; i++) {
+      char c = text.charAt(i);
+      if (FILES.indexOf(c) >= 0) {
+        sourceCol = FILES.indexOf(c);
+      } else if (RANKS.indexOf(c) >= 0) {
+        sourceRow = RANKS.indexOf(c);
+      } else if (c != 'x' || i != end - 3) {
+        throw new IllegalArgumentException("Unable to read SAN move " + san);
+      }
+    }
+    return new ParsedSan(type, sourceCol, sourceRow, destination, promotion);
+  }
+
+  private static RowColPair parseSquare(char file, char rank, String san) {
+    int col = FILES.indexOf(file);
+    int row = RANKS.indexOf(rank);
+    if (col < 0 || row < 0) {
+      throw new IllegalArgumentException("Unable to read destination square of SAN move " + san);
+    }
+    return new RowColPair(row, col);
+  }
+
+  /**
+   * Returns the type of piece named by the given upper case letter, as used by SAN.
+   */
+  private static Optional<PieceType> pieceTypeOf(char letter) {
+    if (!Character.isUpperCase(letter)) {
+      return Optional.empty();
+    }
+    for (PieceType type : PieceType.values()) {
+      if (Character.toUpperCase(type.getLowercasedPieceID()) == letter) {
+        return Optional.of(type);
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<PieceType> promotionType(Move.MoveFlag flag) {
+    return switch (flag) {
+      case PAWN_PROMOTION_TO_KNIGHT -> Optional.of(PieceType.KNIGHT);
+      case PAWN_PROMOTION_TO_BISHOP -> Optional.of(PieceType.BISHOP);
+      case PAWN_PROMOTION_TO_ROOK -> Optional.of(PieceType.ROOK);
+      case PAWN_PROMOTION_TO_QUEEN -> Optional.of(PieceType.QUEEN);
+      default -> Optional.empty();
+    };
+  }
+
+  private static String stripSuffixes(String san) {
+    int end = san.length();
+    while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+      end--;
+    }
+    return san.substring(0, end);
+  }
+
+  /**
+   * The parts of a SAN move, where a source row or column of -1 means it was not given.
+   */
+  private static final class ParsedSan {
+    private final PieceType type;
+    private final int sourceCol;
+    private final int sourceRow;
+    private final RowColPair destination;
+    private final Optional<PieceType> promotion;
+
+    ParsedSan(PieceType type, int sourceCol, int sourceRow, RowColPair destination, Optional<PieceType> promotion) {
+      this.type = type;
+      this.sourceCol = sourceCol;
+      this.sourceRow = sourceRow;
+      this.destination = destination;
+      this.promotion = promotion;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package uci;
+
+/**
+ * Decides how long to think about a move from the time left on the clock. The remaining time is
+ * spread evenly over the moves still to be played before the next time control, or over
+ * DEFAULT_MOVES_TO_GO moves in a game without one, and most of the increment is spent on top,
+ * since it is given back after the move. A small overhead is always kept in reserve for the time it
+ * takes the move to reach the GUI, so that the engine does not lose on time while reporting it.
+ */
+final class TimeManager {
+  //how many more moves a game without a time control is assumed to last
+  static final int DEFAULT_MOVES_TO_GO = 30;
+  //the time kept in reserve for communicating with the GUI
+  static final long MOVE_OVERHEAD_MILLIS = 30;
+
+  private TimeManager() {
+    //static utility class, should not be instantiated
+  }
+
+  /**
+   * Returns how long to think about the next move, in milliseconds, which is always at least 1.
+   *
+   * @param remainingMillis the time left on the clock of the side to move
+   * @param incrementMillis the time added to the clock after each move
+   * @param movesToGo       the moves left until the next time control, or 0 if there is none
+   * @throws IllegalArgumentException if the increment or moves to go are negative
+   */
+  static long allocateMillis(long remainingMillis, long incrementMillis, int movesToGo) {
+    if (incrementMillis < 0 || movesToGo < 0) {
+      throw new IllegalArgumentException("Increment and moves to go must not be negative");
+    }
+    long usableMillis = remainingMillis - MOVE_OVERHEAD_MILLIS;
+    int moves = movesToGo == 0 ? DEFAULT_MOVES_TO_GO : movesToGo;
+    long allocation = usableMillis / moves + incrementMillis * 3 / 4;
+    //never plan to use more than is on the clock, however large the increment
+    return Math.max(1, Math.min(allocation, usableMillis));
+  }
+
+  /**
+   * Returns how long to think when told to spend a fixed time on the move, keeping the overhead in
+   * reserve. Always at least 1 millisecond.
+   */
+  static long fixedMillis(long moveTimeMillis) {
+    return Math.max(1, moveTimeMillis - MOVE_OVERHEAD_MILLIS);
+  }
+}
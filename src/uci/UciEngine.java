@@ -0,0 +1,373 @@
+package uci;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import engine.AlphaBetaSearcher;
+import engine.Evaluator;
+import engine.LazySmpSearcher;
+import engine.PieceSquareEvaluator;
+import engine.Score;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+import model.PlayerColor;
+import model.StrictChessModel;
+
+/**
+ * Speaks the Universal Chess Interface (UCI) protocol, so that the engine can be run under chess
+ * GUIs and match runners. Commands are read line by line from the input and answered on the
+ * output. Searches run on a background thread, so that commands are still read while the engine
+ * thinks, and "stop" is answered as soon as the search notices it, within a few milliseconds.
+ * Supported commands are uci, isready, setoption (Hash and Threads), ucinewgame, position, go,
+ * stop, ponderhit and quit. Unknown commands are ignored, as the protocol asks, and invalid
+ * commands are reported with "info string" and otherwise ignored.
+ * Positions are played out on a BitboardChessModel, which has the same builder and makeMove()
+ * as StrictChessModel but generates moves much faster, and every move of a "position" command is
+ * checked against the legal moves of the position it is played in.
+ */
+public final class UciEngine {
+  private static final String ENGINE_NAME = "KnightlyChess";
+  private static final int MAX_THREADS = 256;
+  //how often stop is repeated while waiting for the search thread to finish
+  private static final long STOP_POLL_MILLIS = 5;
+  //the move reported when the side to move has no legal moves
+  private static final String NULL_MOVE = "0000";
+
+  private final BufferedReader input;
+  private final PrintStream output;
+  private final Evaluator evaluator;
+  private final ScheduledExecutorService timer;
+  private TranspositionTable table;
+  private int numThreads;
+  //INVARIANT: position always holds a started game
+  private MutableChessModel position;
+  //the search in progress, only changed by the thread reading commands
+  private Thread searchThread;
+  private LazySmpSearcher searcher;
+  private ScheduledFuture<?> scheduledStop;
+  //true while a ponder or infinite search must not report its best move, guarded by this
+  private boolean mustWaitForStop;
+  //true while pondering, and the time to think once the GUI reports a ponder hit, guarded by this
+  private boolean isPondering;
+  private long ponderHitMillis;
+
+  /**
+   * Constructs an engine that reads commands from the given input and answers on the given output,
+   * starting from the standard starting position with one search thread.
+   *
+   * @throws IllegalArgumentException if the input or output is null
+   */
+  public UciEngine(Reader input, PrintStream output) {
+    if (input == null || output == null) {
+      throw new IllegalArgumentException("Unable to create engine with null input or null output");
+    }
+    this.input = new BufferedReader(input);
+    this.output = output;
+    this.evaluator = new PieceSquareEvaluator();
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "uci-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.table = new TranspositionTable(AlphaBetaSearcher.DEFAULT_TABLE_SIZE_MEGABYTES);
+    this.numThreads = 1;
+    this.position = newGame(StrictChessModel.STARTING_POSITION);
+  }
+
+  /**
+   * Reads and answers commands until "quit" is received or the input ends, then stops the search
+   * in progress, if any, after it has reported its best move.
+   *
+   * @throws IOException if the input cannot be read
+   */
+  public void run() throws IOException {
+    try {
+      String line;
+      while ((line = input.readLine()) != null) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens[0].equals("quit")) {
+          break;
+        }
+        try {
+          handleCommand(tokens);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+          send("info string invalid command: " + line.trim());
+        }
+      }
+    } finally {
+      stopSearch();
+      timer.shutdownNow();
+    }
+  }
+
+  private void handleCommand(String[] tokens) {
+    switch (tokens[0]) {
+      case "uci" -> {
+        send("id name " + ENGINE_NAME);
+        send("id author the " + ENGINE_NAME + " developers");
+        send(String.format("option name Hash type spin default %d min 1 max %d",
+                AlphaBetaSearcher.DEFAULT_TABLE_SIZE_MEGABYTES, TranspositionTable.MAX_SIZE_MEGABYTES));
+        send(String.format("option name Threads type spin default 1 min 1 max %d", MAX_THREADS));
+        send("option name Ponder type check default false");
+        send("uciok");
+      }
+      case "isready" -> send("readyok");
+      case "setoption" -> setOption(tokens);
+      case "ucinewgame" -> {
+        stopSearch();
+        //results from the previous game only describe positions that will not come up again
+        table.clear();
+      }
+      case "position" -> setPosition(tokens);
+      case "go" -> go(tokens);
+      case "stop" -> stopSearch();
+      case "ponderhit" -> ponderHit();
+      default -> {
+        //the protocol asks engines to ignore unknown commands, such as debug and register
+      }
+    }
+  }
+
+  /**
+   * Handles "setoption name [name] value [value]". Option names are not case sensitive.
+   */
+  private void setOption(String[] tokens) {
+    List<String> words = Arrays.asList(tokens);
+    int valueIndex = words.indexOf("value");
+    String name = String.join(" ", words.subList(2, valueIndex < 0 ? words.size() : valueIndex));
+    String value = valueIndex < 0 ? "" : String.join(" ", words.subList(valueIndex + 1, words.size()));
+    stopSearch();
+    switch (name.toLowerCase()) {
+      case "hash" -> table = new TranspositionTable(Integer.parseInt(value));
+      case "threads" -> {
+        int threads = Integer.parseInt(value);
+        if (threads < 1 || threads > MAX_THREADS) {
+          throw new IllegalArgumentException(String.format("Thread count must be between 1 and %d", MAX_THREADS));
+        }
+        numThreads = threads;
+      }
+      case "ponder" -> {
+        //pondering is started and ended by the GUI, so the engine has nothing to change
+      }
+      default -> throw new IllegalArgumentException(String.format("%s is not a known option", name));
+    }
+  }
+
+  /**
+   * Handles "position [startpos | fen [fen]] moves [move]...". The position is only replaced once
+   * every move has been found to be legal.
+   */
+  private void setPosition(String[] tokens) {
+    List<String> words = Arrays.asList(tokens);
+    int movesIndex = words.indexOf("moves");
+    int fenEnd = movesIndex < 0 ? words.size() : movesIndex;
+    String fen = switch (tokens[1]) {
+      case "startpos" -> StrictChessModel.STARTING_POSITION;
+      case "fen" -> String.join(" ", words.subList(2, fenEnd));
+      default -> throw new IllegalArgumentException("Position must be startpos or fen");
+    };
+    MutableChessModel model = newGame(fen);
+    for (int i = fenEnd + 1; i < words.size(); i++) {
+      model.makeMove(findLegalMove(model, words.get(i)));
+    }
+    position = model;
+  }
+
+  /**
+   * Handles "go" with any of wtime, btime, winc, binc, movestogo, movetime, depth, nodes, infinite
+   * and ponder. Other parameters, such as searchmoves and mate, are ignored.
+   */
+  private void go(String[] tokens) {
+    stopSearch();
+    SearchLimits.Builder limits = new SearchLimits.Builder();
+    long whiteMillis = -1;
+    long blackMillis = -1;
+    long whiteIncrementMillis = 0;
+    long blackIncrementMillis = 0;
+    long moveTimeMillis = -1;
+    int movesToGo = 0;
+    boolean isInfinite = false;
+    boolean isPonder = false;
+    for (int i = 1; i < tokens.length; i++) {
+      switch (tokens[i]) {
+        case "wtime" -> whiteMillis = Long.parseLong(tokens[++i]);
+        case "btime" -> blackMillis = Long.parseLong(tokens[++i]);
+        case "winc" -> whiteIncrementMillis = Long.parseLong(tokens[++i]);
+        case "binc" -> blackIncrementMillis = Long.parseLong(tokens[++i]);
+        case "movestogo" -> movesToGo = Integer.parseInt(tokens[++i]);
+        case "movetime" -> moveTimeMillis = Long.parseLong(tokens[++i]);
+        case "depth" -> limits.maxDepth(Math.min(Integer.parseInt(tokens[++i]), SearchLimits.MAX_DEPTH));
+        case "nodes" -> limits.maxNodes(Long.parseLong(tokens[++i]));
+        case "infinite" -> isInfinite = true;
+        case "ponder" -> isPonder = true;
+        default -> {
+          //unsupported parameters and their arguments are skipped
+        }
+      }
+    }
+    boolean isWhite = position.getWhiteToMove();
+    long remainingMillis = isWhite ? whiteMillis : blackMillis;
+    long thinkMillis = SearchLimits.NO_TIME_LIMIT;
+    if (moveTimeMillis >= 0) {
+      thinkMillis = TimeManager.fixedMillis(moveTimeMillis);
+    } else if (remainingMillis >= 0) {
+      thinkMillis = TimeManager.allocateMillis(remainingMillis,
+              isWhite ? whiteIncrementMillis : blackIncrementMillis, movesToGo);
+    }
+    //a ponder search only starts its clock once the GUI reports a ponder hit
+    if (!isInfinite && !isPonder && thinkMillis != SearchLimits.NO_TIME_LIMIT) {
+      limits.timeLimitMillis(thinkMillis);
+    }
+    synchronized (this) {
+      mustWaitForStop = isInfinite || isPonder;
+      isPondering = isPonder;
+      ponderHitMillis = thinkMillis;
+    }
+    //the search gets its own copy, since the position may be replaced while it runs
+    MutableChessModel searchPosition = position.getStrictDeepCopy();
+    SearchLimits searchLimits = limits.build();
+    LazySmpSearcher currentSearcher = new LazySmpSearcher(evaluator, table, numThreads);
+    searcher = currentSearcher;
+    searchThread = new Thread(() -> runSearch(currentSearcher, searchPosition, searchLimits), "uci-search");
+    searchThread.start();
+  }
+
+  /**
+   * Handles "ponderhit": the opponent played the expected move, so the ponder search carries on as
+   * a normal search, with the time it was given by the "go ponder" command.
+   */
+  private void ponderHit() {
+    long thinkMillis;
+    synchronized (this) {
+      if (!isPondering) {
+        return;
+      }
+      isPondering = false;
+      mustWaitForStop = false;
+      thinkMillis = ponderHitMillis;
+      notifyAll();
+    }
+    if (thinkMillis != SearchLimits.NO_TIME_LIMIT) {
+      scheduledStop = timer.schedule(searcher::stop, thinkMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void runSearch(LazySmpSearcher searcher, MutableChessModel model, SearchLimits limits) {
+    SearchResult result = searcher.search(model, limits);
+    awaitPermissionToReport();
+    send(formatInfo(result));
+    String bestMove = result.getBestMove().map(UciEngine::toUci).orElse(NULL_MOVE);
+    List<Move> principalVariation = result.getPrincipalVariation();
+    //the second move of the principal variation is the reply worth pondering on
+    send(principalVariation.size() > 1 ? String.format("bestmove %s ponder %s", bestMove,
+            toUci(principalVariation.get(1))) : "bestmove " + bestMove);
+  }
+
+  /**
+   * Waits until the best move may be reported - a ponder or infinite search may finish on its own,
+   * but must only report once the GUI sends "stop" or "ponderhit".
+   */
+  private synchronized void awaitPermissionToReport() {
+    while (mustWaitForStop) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Stops the search in progress, if any, and waits until it has reported its best move.
+   */
+  private void stopSearch() {
+    Thread thread = searchThread;
+    if (thread == null) {
+      return;
+    }
+    synchronized (this) {
+      mustWaitForStop = false;
+      isPondering = false;
+      notifyAll();
+    }
+    if (scheduledStop != null) {
+      scheduledStop.cancel(false);
+    }
+    //a stop that arrives before the searcher has started its search is forgotten when the search
+    //starts, so it is repeated until the search thread is done
+    boolean isInterrupted = false;
+    while (thread.isAlive()) {
+      searcher.stop();
+      try {
+        thread.join(STOP_POLL_MILLIS);
+      } catch (InterruptedException e) {
+        isInterrupted = true;
+      }
+    }
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+    searchThread = null;
+    searcher = null;
+    scheduledStop = null;
+  }
+
+  private static String formatInfo(SearchResult result) {
+    int score = result.getScore();
+    String scoreText = Score.isMate(score) ? "mate " + Score.movesToMate(score) : "cp " + score;
+    StringBuilder sb = new StringBuilder(String.format("info depth %d score %s nodes %d nps %d time %d",
+            result.getDepth(), scoreText, result.getNodes(), result.getNodesPerSecond(), result.getElapsedMillis()));
+    if (!result.getPrincipalVariation().isEmpty()) {
+      sb.append(" pv");
+      for (Move move : result.getPrincipalVariation()) {
+        sb.append(' ').append(toUci(move));
+      }
+    }
+    return sb.toString();
+  }
+
+  private static MutableChessModel newGame(String fen) {
+    MutableChessModel model = new BitboardChessModel.Builder(fen).build();
+    model.startGame();
+    return model;
+  }
+
+  /**
+   * Returns the legal move of the given model's position written as the given move in coordinate
+   * notation, such as "e2e4" or "e7e8q".
+   *
+   * @throws IllegalArgumentException if no legal move is written that way
+   */
+  private static Move findLegalMove(MutableChessModel model, String uciMove) {
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    for (Move move : model.getLegalMoves(turn)) {
+      if (toUci(move).equals(uciMove)) {
+        return move;
+      }
+    }
+    throw new IllegalArgumentException(String.format("%s is not a legal move in %s", uciMove, model));
+  }
+
+  private static String toUci(Move move) {
+    return PackedMove.toString(PackedMove.fromMove(move));
+  }
+
+  private void send(String line) {
+    output.println(line);
+    output.flush();
+  }
+}
@@ -0,0 +1,23 @@
+package uci;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Command line entry point that runs the engine as a UCI engine on standard input and output, for
+ * chess GUIs and match runners to launch. Usage: UciRunner
+ */
+public final class UciRunner {
+  private UciRunner() {
+    //entry point only, should not be instantiated
+  }
+
+  public static void main(String[] args) {
+    try {
+      new UciEngine(new InputStreamReader(System.in), System.out).run();
+    } catch (IOException e) {
+      System.err.println("Unable to read commands: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
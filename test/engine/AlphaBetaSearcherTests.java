@@ -0,0 +1,120 @@
+package engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+
+public class AlphaBetaSearcherTests {
+  private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+  private static final String KIWIPETE =
+          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+  @Test
+  public void findsMateInOne() {
+    SearchResult result = search(BACK_RANK_MATE, 3);
+    Assert.assertEquals("a1a8", toString(result.getBestMove().orElseThrow()));
+    Assert.assertTrue(Score.isMate(result.getScore()));
+    Assert.assertEquals(1, Score.movesToMate(result.getScore()));
+  }
+
+  @Test
+  public void capturesHangingQueen() {
+    SearchResult result = search("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1", 2);
+    Assert.assertEquals("d2d5", toString(result.getBestMove().orElseThrow()));
+    Assert.assertTrue(result.getScore() > 0);
+  }
+
+  @Test
+  public void quiescenceSearchSeesRecaptureBeyondHorizon() {
+    //at depth 1, only quiescence search sees that exd5 wins the queen back after Qxd5
+    SearchResult result = search("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1", 1);
+    Assert.assertNotEquals("d1d5", toString(result.getBestMove().orElseThrow()));
+    Assert.assertTrue(result.getScore() > 500);
+  }
+
+  @Test
+  public void quiescenceSearchDoesNotStandPatInCheck() {
+    //Qxa7 wins a rook, but only quiescence search sees that Rxb1 is then mate
+    SearchResult result = search("1r4k1/r4ppp/8/8/3Q4/8/5PPP/1N4K1 w - - 0 1", 1);
+    Assert.assertNotEquals("d4a7", toString(result.getBestMove().orElseThrow()));
+    Assert.assertFalse(Score.isMate(result.getScore()));
+  }
+
+  @Test
+  public void quiescenceSearchDoesNotCountLeavesTwice() {
+    //neither side has a capture, so each of white's three king moves leads to a single quiet node
+    SearchResult result = search("7k/8/8/3p4/3P4/8/8/K7 w - - 0 1", 1);
+    Assert.assertEquals(3, result.getNodes());
+  }
+
+  @Test
+  public void principalVariationStartsWithBestMove() {
+    SearchResult result = search("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3", 3);
+    Assert.assertEquals(3, result.getDepth());
+    Assert.assertEquals(3, result.getPrincipalVariation().size());
+    Assert.assertEquals(result.getBestMove().orElseThrow(), result.getPrincipalVariation().get(0));
+  }
+
+  @Test
+  public void searchLeavesModelUnchanged() {
+    MutableChessModel model = new BitboardChessModel.Builder(BACK_RANK_MATE).build();
+    model.startGame();
+    new AlphaBetaSearcher(new MaterialEvaluator()).search(model, new SearchLimits.Builder().maxDepth(3).build());
+    Assert.assertEquals(BACK_RANK_MATE, model.toString());
+  }
+
+  @Test
+  public void stalemateHasNoBestMove() {
+    SearchResult result = search("k7/8/1Q6/8/8/8/8/7K b - - 0 1", 4);
+    Assert.assertTrue(result.getBestMove().isEmpty());
+    Assert.assertEquals(Score.DRAW, result.getScore());
+  }
+
+  @Test
+  public void timeLimitedSearchReportsCompletedIteration() {
+    MutableChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    SearchResult result = new AlphaBetaSearcher(new MaterialEvaluator())
+            .search(model, new SearchLimits.Builder().timeLimitMillis(200).build());
+    Assert.assertTrue(result.getBestMove().isPresent());
+    Assert.assertTrue(result.getDepth() >= 1);
+  }
+
+  @Test
+  public void nodeLimitedSearchStopsAtLimit() {
+    MutableChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    SearchResult result = new AlphaBetaSearcher(new MaterialEvaluator())
+            .search(model, new SearchLimits.Builder().maxNodes(5_000).build());
+    Assert.assertTrue(result.getBestMove().isPresent());
+    Assert.assertTrue(result.getNodes() <= 5_000);
+    Assert.assertTrue(result.getDepth() < SearchLimits.MAX_DEPTH);
+  }
+
+  @Test
+  public void fiftyMoveRuleDrawsWinningPosition() {
+    //every move white has is a quiet piece move, which reaches the hundredth half move
+    Assert.assertTrue(search("7k/8/8/8/8/8/8/KQ6 w - - 50 80", 3).getScore() > 0);
+    Assert.assertEquals(Score.DRAW, search("7k/8/8/8/8/8/8/KQ6 w - - 99 80", 3).getScore());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void limitsRejectDepthBeyondMaximum() {
+    new SearchLimits.Builder().maxDepth(SearchLimits.MAX_DEPTH + 1);
+  }
+
+  private static SearchResult search(String fen, int depth) {
+    MutableChessModel model = new BitboardChessModel.Builder(fen).build();
+    model.startGame();
+    return new AlphaBetaSearcher(new MaterialEvaluator())
+            .search(model, new SearchLimits.Builder().maxDepth(depth).build());
+  }
+
+  private static String toString(Move move) {
+    return PackedMove.toString(PackedMove.fromMove(move));
+  }
+}
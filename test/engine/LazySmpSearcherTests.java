@@ -0,0 +1,55 @@
+package engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.MutableChessModel;
+import model.PackedMove;
+
+public class LazySmpSearcherTests {
+  private static final String KIWIPETE =
+          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+  @Test
+  public void findsMateInOneOnSeveralThreads() {
+    MutableChessModel model = new BitboardChessModel.Builder("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1").build();
+    model.startGame();
+    SearchResult result = new LazySmpSearcher(new MaterialEvaluator(), 4)
+            .search(model, new SearchLimits.Builder().maxDepth(4).build());
+    Assert.assertEquals("a1a8", PackedMove.toString(PackedMove.fromMove(result.getBestMove().orElseThrow())));
+    Assert.assertEquals(1, Score.movesToMate(result.getScore()));
+  }
+
+  @Test
+  public void reportsNodesOfEveryThread() {
+    MutableChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    SearchResult result = new LazySmpSearcher(new MaterialEvaluator(), 3)
+            .search(model, new SearchLimits.Builder().maxDepth(3).build());
+    Assert.assertEquals(3, result.getNumThreads());
+    Assert.assertEquals(3, result.getNodesPerSecondPerThread().size());
+    Assert.assertTrue(result.getNodes() > 0);
+    Assert.assertEquals(3, result.getDepth());
+    //every thread searches its own copy, so the model itself is left untouched
+    Assert.assertEquals(KIWIPETE, model.toString());
+  }
+
+  @Test
+  public void singleThreadMatchesAlphaBetaSearcher() {
+    MutableChessModel parallelModel = new BitboardChessModel.Builder(KIWIPETE).build();
+    MutableChessModel sequentialModel = new BitboardChessModel.Builder(KIWIPETE).build();
+    parallelModel.startGame();
+    sequentialModel.startGame();
+    SearchLimits limits = new SearchLimits.Builder().maxDepth(3).build();
+    SearchResult parallel = new LazySmpSearcher(new MaterialEvaluator(), 1).search(parallelModel, limits);
+    SearchResult sequential = new AlphaBetaSearcher(new MaterialEvaluator()).search(sequentialModel, limits);
+    Assert.assertEquals(sequential.getScore(), parallel.getScore());
+    Assert.assertEquals(sequential.getNodes(), parallel.getNodes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorRejectsZeroThreads() {
+    new LazySmpSearcher(new MaterialEvaluator(), 0);
+  }
+}
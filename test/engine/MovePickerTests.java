@@ -0,0 +1,115 @@
+package engine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+import model.PlayerColor;
+import model.ReadOnlyChessModel;
+
+public class MovePickerTests {
+  //white can take the queen with the e-pawn or the rook
+  private static final String CAPTURES = "4k3/8/2n5/3q4/4P3/8/8/3RK3 w - - 0 1";
+
+  @Test
+  public void picksEveryMoveExactlyOnce() {
+    MutableChessModel model = new BitboardChessModel.Builder(CAPTURES).build();
+    model.startGame();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    List<Move> picked = pickAll(new MoveOrderer(8).newPicker(model, moves, null, 0));
+    Assert.assertEquals(moves.size(), picked.size());
+    Assert.assertEquals(moves, new HashSet<>(picked));
+  }
+
+  @Test
+  public void capturesAreOrderedMostValuableVictimFirst() {
+    MutableChessModel model = new BitboardChessModel.Builder(CAPTURES).build();
+    model.startGame();
+    List<Move> picked = pickAll(new MoveOrderer(8).newPicker(model, model.getLegalMoves(PlayerColor.WHITE), null, 0));
+    //pawn takes queen, then rook takes queen, then the quiet moves
+    Assert.assertEquals("e4d5", toString(picked.get(0)));
+    Assert.assertEquals("d1d5", toString(picked.get(1)));
+  }
+
+  @Test
+  public void hashMoveComesFirstAndKillersPrecedeQuietMoves() {
+    MutableChessModel model = new BitboardChessModel.Builder(CAPTURES).build();
+    model.startGame();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    Move hashMove = findMove(moves, "e1f2");
+    Move killer = findMove(moves, "d1a1");
+    MoveOrderer orderer = new MoveOrderer(8);
+    orderer.recordCutoff(model, killer, 3, 4);
+    List<Move> picked = pickAll(orderer.newPicker(model, moves, hashMove, 3));
+    Assert.assertEquals(hashMove, picked.get(0));
+    Assert.assertEquals("e4d5", toString(picked.get(1)));
+    Assert.assertEquals("d1d5", toString(picked.get(2)));
+    Assert.assertEquals(killer, picked.get(3));
+    //the killer is only a killer at the ply it caused a cutoff at, but its history score still counts
+    Assert.assertEquals(killer, pickAll(orderer.newPicker(model, moves, null, 2)).get(2));
+  }
+
+  @Test
+  public void capturesAreOnlyScoredAfterHashMove() {
+    MutableChessModel model = new BitboardChessModel.Builder(CAPTURES).build();
+    model.startGame();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    //scoring a capture looks up the types of its pieces, which nothing else the picker does needs
+    AtomicInteger pieceTypeLookups = new AtomicInteger();
+    ReadOnlyChessModel countingModel = (ReadOnlyChessModel) Proxy.newProxyInstance(
+            ReadOnlyChessModel.class.getClassLoader(), new Class<?>[]{ReadOnlyChessModel.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("getPieceTypeAt")) {
+                pieceTypeLookups.incrementAndGet();
+              }
+              try {
+                return method.invoke(model, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+    MovePicker picker = new MoveOrderer(8).newPicker(countingModel, moves, findMove(moves, "e1f2"), 0);
+    Assert.assertEquals("e1f2", toString(picker.next()));
+    Assert.assertEquals(0, pieceTypeLookups.get());
+    Assert.assertEquals("e4d5", toString(picker.next()));
+    Assert.assertTrue(pieceTypeLookups.get() > 0);
+  }
+
+  @Test
+  public void illegalHashMoveIsIgnored() {
+    MutableChessModel model = new BitboardChessModel.Builder(CAPTURES).build();
+    model.startGame();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    Move illegal = PackedMove.toMove(PackedMove.encode(0, 1, Move.MoveFlag.NONE));
+    List<Move> picked = pickAll(new MoveOrderer(8).newPicker(model, moves, illegal, 0));
+    Assert.assertFalse(picked.contains(illegal));
+    Assert.assertEquals(moves.size(), picked.size());
+  }
+
+  private static List<Move> pickAll(MovePicker picker) {
+    List<Move> picked = new ArrayList<>();
+    while (picker.hasNext()) {
+      picked.add(picker.next());
+    }
+    return picked;
+  }
+
+  private static Move findMove(Set<Move> moves, String coordinates) {
+    return moves.stream().filter(move -> toString(move).equals(coordinates)).findFirst().orElseThrow();
+  }
+
+  private static String toString(Move move) {
+    return PackedMove.toString(PackedMove.fromMove(move));
+  }
+}
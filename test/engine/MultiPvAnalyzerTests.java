@@ -0,0 +1,112 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.MutableChessModel;
+import model.PackedMove;
+import model.PlayerColor;
+
+public class MultiPvAnalyzerTests {
+  private static final String ITALIAN = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3";
+  private static final AnalysisListener IGNORE = (depth, lines) -> {
+  };
+
+  @Test
+  public void findsMateInOneAsBestOfSeveralLines() {
+    MutableChessModel model = new BitboardChessModel.Builder("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1").build();
+    model.startGame();
+    List<SearchResult> lines = new MultiPvAnalyzer(new MaterialEvaluator(), 2).analyze(model, limits(3), 3, IGNORE);
+    Assert.assertEquals(3, lines.size());
+    Assert.assertEquals("a1a8", PackedMove.toString(PackedMove.fromMove(lines.get(0).getBestMove().orElseThrow())));
+    Assert.assertEquals(1, Score.movesToMate(lines.get(0).getScore()));
+    for (int i = 1; i < lines.size(); i++) {
+      Assert.assertTrue(lines.get(i - 1).getScore() >= lines.get(i).getScore());
+      Assert.assertNotEquals(lines.get(0).getBestMove(), lines.get(i).getBestMove());
+    }
+  }
+
+  @Test
+  public void bestLineMatchesAlphaBetaSearcher() {
+    MutableChessModel model = new BitboardChessModel.Builder(ITALIAN).build();
+    model.startGame();
+    SearchResult sequential = new AlphaBetaSearcher(new MaterialEvaluator()).search(model, limits(3));
+    List<SearchResult> lines = new MultiPvAnalyzer(new MaterialEvaluator(), 1).analyze(model, limits(3), 1, IGNORE);
+    Assert.assertEquals(1, lines.size());
+    Assert.assertEquals(sequential.getScore(), lines.get(0).getScore());
+    Assert.assertEquals(3, lines.get(0).getDepth());
+  }
+
+  @Test
+  public void severalThreadsFindTheSameScoresAsOne() {
+    MutableChessModel model = new BitboardChessModel.Builder(ITALIAN).build();
+    model.startGame();
+    List<SearchResult> oneThread = new MultiPvAnalyzer(new MaterialEvaluator(), 1)
+            .analyze(model, limits(3), 4, IGNORE);
+    List<SearchResult> fourThreads = new MultiPvAnalyzer(new MaterialEvaluator(), 4)
+            .analyze(model, limits(3), 4, IGNORE);
+    Assert.assertEquals(scoresOf(oneThread), scoresOf(fourThreads));
+    Assert.assertEquals(4, fourThreads.get(0).getNumThreads());
+  }
+
+  @Test
+  public void reportsEveryDepthToListener() {
+    MutableChessModel model = new BitboardChessModel.Builder(ITALIAN).build();
+    model.startGame();
+    List<Integer> depths = new ArrayList<>();
+    List<SearchResult> returned = new MultiPvAnalyzer(new MaterialEvaluator(), 2).analyze(model, limits(3), 2,
+            (depth, lines) -> {
+              depths.add(depth);
+              Assert.assertEquals(2, lines.size());
+              Assert.assertEquals(depth, lines.get(0).getDepth());
+              Assert.assertEquals(lines.get(0).getBestMove().orElseThrow(), lines.get(0).getPrincipalVariation().get(0));
+            });
+    Assert.assertEquals(List.of(1, 2, 3), depths);
+    Assert.assertEquals(2, returned.size());
+    //every worker searches its own copy, so the model itself is left untouched
+    Assert.assertEquals(ITALIAN, model.toString());
+  }
+
+  @Test
+  public void reportsEveryMoveWhenAskedForMoreLinesThanMoves() {
+    MutableChessModel model = new BitboardChessModel.Builder("7k/8/8/8/8/8/8/K7 w - - 0 1").build();
+    model.startGame();
+    List<SearchResult> lines = new MultiPvAnalyzer(new MaterialEvaluator(), 2).analyze(model, limits(2), 10, IGNORE);
+    Assert.assertEquals(model.getLegalMoves(PlayerColor.WHITE).size(), lines.size());
+  }
+
+  @Test
+  public void reportsNoLinesWithoutLegalMoves() {
+    MutableChessModel model = new BitboardChessModel.Builder("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").build();
+    model.startGame();
+    List<Integer> depths = new ArrayList<>();
+    List<SearchResult> lines = new MultiPvAnalyzer(new MaterialEvaluator(), 2)
+            .analyze(model, limits(3), 3, (depth, results) -> depths.add(depth));
+    Assert.assertTrue(lines.isEmpty());
+    Assert.assertTrue(depths.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void analyzeRejectsZeroLines() {
+    MutableChessModel model = new BitboardChessModel.Builder(ITALIAN).build();
+    model.startGame();
+    new MultiPvAnalyzer(new MaterialEvaluator(), 1).analyze(model, limits(1), 0, IGNORE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorRejectsZeroThreads() {
+    new MultiPvAnalyzer(new MaterialEvaluator(), 0);
+  }
+
+  private static List<Integer> scoresOf(List<SearchResult> lines) {
+    return lines.stream().map(SearchResult::getScore).toList();
+  }
+
+  private static SearchLimits limits(int depth) {
+    return new SearchLimits.Builder().maxDepth(depth).build();
+  }
+}
@@ -0,0 +1,39 @@
+package engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.StrictChessModel;
+
+public class PieceSquareEvaluatorTests {
+  private final Evaluator evaluator = new PieceSquareEvaluator();
+
+  @Test
+  public void startingPositionIsEven() {
+    Assert.assertEquals(0, evaluator.evaluate(new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build()));
+  }
+
+  @Test
+  public void scoreIsFromSideToMove() {
+    //white is a knight up, so the score is the same size but opposite sign for each side to move
+    int whiteToMove = evaluator.evaluate(new BitboardChessModel.Builder("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1").build());
+    int blackToMove = evaluator.evaluate(new BitboardChessModel.Builder("4k3/8/8/8/3N4/8/8/4K3 b - - 0 1").build());
+    Assert.assertTrue(whiteToMove > 0);
+    Assert.assertEquals(-whiteToMove, blackToMove);
+  }
+
+  @Test
+  public void mirroredPositionsHaveTheSameScore() {
+    int white = evaluator.evaluate(new BitboardChessModel.Builder("4k3/8/8/8/2N5/8/1P6/4K3 w - - 0 1").build());
+    int black = evaluator.evaluate(new BitboardChessModel.Builder("4k3/1p6/8/2n5/8/8/8/4K3 b - - 0 1").build());
+    Assert.assertEquals(white, black);
+  }
+
+  @Test
+  public void kingPrefersCenterInEndgame() {
+    int centralKing = evaluator.evaluate(new BitboardChessModel.Builder("4k3/8/8/8/3K4/8/8/8 w - - 0 1").build());
+    int cornerKing = evaluator.evaluate(new BitboardChessModel.Builder("4k3/8/8/8/8/8/8/K7 w - - 0 1").build());
+    Assert.assertTrue(centralKing > cornerKing);
+  }
+}
@@ -0,0 +1,44 @@
+package engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.RowColPair;
+
+public class StaticExchangeEvaluatorTests {
+  @Test
+  public void pawnTakingDefendedKnightWinsKnightForPawn() {
+    //d4xe5, d6xe5
+    int gain = evaluate("4k3/8/3p4/4n3/3P4/8/8/4K3 w - - 0 1", new RowColPair(4, 3), new RowColPair(3, 4));
+    Assert.assertEquals(320 - 100, gain);
+  }
+
+  @Test
+  public void queenTakingDefendedPawnLosesMaterial() {
+    //Qxd5, exd5
+    int gain = evaluate("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1", new RowColPair(7, 3), new RowColPair(3, 3));
+    Assert.assertEquals(100 - 900, gain);
+  }
+
+  @Test
+  public void undefendedPieceIsWonOutright() {
+    int gain = evaluate("4k3/8/8/3r4/8/8/8/3RK3 w - - 0 1", new RowColPair(7, 3), new RowColPair(3, 3));
+    Assert.assertEquals(500, gain);
+  }
+
+  @Test
+  public void xRayAttackerJoinsExchange() {
+    //Rxd5 Rxd5 Rxd5 - the second white rook only sees d5 once the first has captured
+    int gain = evaluate("3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1", new RowColPair(6, 3), new RowColPair(3, 3));
+    Assert.assertEquals(100, gain);
+  }
+
+  private static int evaluate(String fen, RowColPair from, RowColPair to) {
+    MutableChessModel model = new BitboardChessModel.Builder(fen).build();
+    model.startGame();
+    return StaticExchangeEvaluator.evaluate(model, new Move(from, to, Move.MoveFlag.NONE));
+  }
+}
@@ -0,0 +1,89 @@
+package engine;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+
+public class TranspositionTableTests {
+  private static final int MOVE = PackedMove.encode(52, 36, Move.MoveFlag.DOUBLE_PAWN_PUSH);
+
+  @Test
+  public void probeReturnsStoredEntry() {
+    TranspositionTable table = new TranspositionTable(1);
+    long key = 0x123456789ABCDEFL;
+    table.store(key, MOVE, -250, 7, TranspositionTable.Bound.LOWER);
+    long entry = table.probe(key);
+    Assert.assertEquals(MOVE, TranspositionTable.getMove(entry));
+    Assert.assertEquals(-250, TranspositionTable.getScore(entry));
+    Assert.assertEquals(7, TranspositionTable.getDepth(entry));
+    Assert.assertEquals(TranspositionTable.Bound.LOWER, TranspositionTable.getBound(entry));
+  }
+
+  @Test
+  public void probeMissesOtherPositionInSameSlot() {
+    TranspositionTable table = new TranspositionTable(1);
+    long key = 42;
+    table.store(key, MOVE, 10, 3, TranspositionTable.Bound.EXACT);
+    //keys that differ only above the index bits map to the same slot
+    Assert.assertEquals(TranspositionTable.NO_ENTRY, table.probe(key + ((long) table.getCapacity() << 4)));
+    Assert.assertEquals(TranspositionTable.NO_ENTRY, table.probe(key + 1));
+  }
+
+  @Test
+  public void deeperEntryIsKeptUntilNextSearch() {
+    TranspositionTable table = new TranspositionTable(1);
+    long deepKey = 5;
+    long shallowKey = deepKey + ((long) table.getCapacity() << 4);
+    table.store(deepKey, MOVE, 10, 8, TranspositionTable.Bound.EXACT);
+    table.store(shallowKey, MOVE, 20, 2, TranspositionTable.Bound.EXACT);
+    Assert.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(deepKey));
+    Assert.assertEquals(TranspositionTable.NO_ENTRY, table.probe(shallowKey));
+    table.newSearch();
+    table.store(shallowKey, MOVE, 20, 2, TranspositionTable.Bound.EXACT);
+    Assert.assertEquals(TranspositionTable.NO_ENTRY, table.probe(deepKey));
+    Assert.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(shallowKey));
+  }
+
+  @Test
+  public void failLowKeepsBestMoveOfSamePosition() {
+    TranspositionTable table = new TranspositionTable(1);
+    table.store(9, MOVE, 10, 2, TranspositionTable.Bound.EXACT);
+    table.store(9, PackedMove.NULL_MOVE, -5, 3, TranspositionTable.Bound.UPPER);
+    Assert.assertEquals(MOVE, TranspositionTable.getMove(table.probe(9)));
+    Assert.assertEquals(TranspositionTable.Bound.UPPER, TranspositionTable.getBound(table.probe(9)));
+  }
+
+  @Test
+  public void mateScoresAreStoredRelativeToPosition() {
+    int mateFoundAtPly = Score.MATE - 5;
+    int stored = Score.toTableScore(mateFoundAtPly, 3);
+    //the same position reached two plies later is two plies closer to the root's mate
+    Assert.assertEquals(Score.MATE - 7, Score.fromTableScore(stored, 5));
+    Assert.assertEquals(150, Score.fromTableScore(Score.toTableScore(150, 3), 9));
+  }
+
+  @Test
+  public void tableStaysWarmAcrossSearchesInAGame() {
+    MutableChessModel model = new BitboardChessModel.Builder(
+            "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3").build();
+    model.startGame();
+    SearchLimits limits = new SearchLimits.Builder().maxDepth(4).build();
+    AlphaBetaSearcher searcher = new AlphaBetaSearcher(new MaterialEvaluator());
+    SearchResult first = searcher.search(model, limits);
+    model.makeMove(first.getPrincipalVariation().get(0));
+    model.makeMove(first.getPrincipalVariation().get(1));
+    SearchResult warm = searcher.search(model, new SearchLimits.Builder().maxDepth(2).build());
+    SearchResult cold = new AlphaBetaSearcher(new MaterialEvaluator())
+            .search(model, new SearchLimits.Builder().maxDepth(2).build());
+    Assert.assertTrue(warm.getNodes() < cold.getNodes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorRejectsNonPositiveSize() {
+    new TranspositionTable(0);
+  }
+}
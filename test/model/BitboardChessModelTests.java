@@ -0,0 +1,425 @@
+package model;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitboardChessModelTests {
+  //perft counts from the starting position, the same counts StrictChessModelTests checks
+  private static final long[] numPositionsAtDepth = new long[]{
+          1, 20, 400, 8902, 197281, 4865609
+  };
+  //"Kiwipete" exercises castling, en passant, promotions and pins
+  private static final String KIWIPETE =
+          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+  private static final long[] kiwipetePositionsAtDepth = new long[]{1, 48, 2039, 97862};
+  //an endgame with discovered checks along the rank of an en passant capture
+  private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+  private static final long[] endgamePositionsAtDepth = new long[]{1, 14, 191, 2812, 43238};
+  //promotions with captures and castling rights that are lost by rook captures
+  private static final String PROMOTIONS =
+          "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+  private static final long[] promotionPositionsAtDepth = new long[]{1, 6, 264, 9467};
+
+  @Test
+  public void modelCorrectlyInitializesBoardForStartingPosition() {
+    BitboardChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    Assert.assertEquals(StrictChessModel.STARTING_POSITION, model.toString());
+    Assert.assertEquals(new RowColPair(7, 4), model.getKingSquare(PlayerColor.WHITE));
+    Assert.assertEquals(new RowColPair(0, 4), model.getKingSquare(PlayerColor.BLACK));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void modelRejectsFenWithoutBothKings() {
+    new BitboardChessModel.Builder("rnbq1bnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1").build();
+  }
+
+  @Test
+  public void MoveGenerationTest() {
+    assertPerft(StrictChessModel.STARTING_POSITION, numPositionsAtDepth);
+    assertPerft(KIWIPETE, kiwipetePositionsAtDepth);
+    assertPerft(ENDGAME, endgamePositionsAtDepth);
+    assertPerft(PROMOTIONS, promotionPositionsAtDepth);
+  }
+
+  @Test
+  public void packedMoveGenerationMatchesPerftCounts() {
+    //one level deeper than MoveGenerationTest, since the packed API does not allocate per move
+    assertPackedPerft(KIWIPETE, new long[]{1, 48, 2039, 97862, 4085603});
+    assertPackedPerft(ENDGAME, new long[]{1, 14, 191, 2812, 43238, 674624});
+  }
+
+  @Test
+  public void packedMovesRoundTripThroughMove() {
+    Move move = new Move(new RowColPair(1, 4), new RowColPair(0, 5), Move.MoveFlag.PAWN_PROMOTION_TO_QUEEN);
+    int packed = PackedMove.fromMove(move);
+    Assert.assertEquals(12, PackedMove.getFrom(packed));
+    Assert.assertEquals(5, PackedMove.getTo(packed));
+    Assert.assertEquals(Move.MoveFlag.PAWN_PROMOTION_TO_QUEEN, PackedMove.getFlag(packed));
+    Assert.assertEquals(move, PackedMove.toMove(packed));
+    Assert.assertEquals("e7f8q", PackedMove.toString(packed));
+  }
+
+  @Test
+  public void unmakePackedMoveRestoresPreviousPosition() {
+    BitboardChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    long initialKey = model.getZobristKey();
+    IntMoveList moves = new IntMoveList();
+    model.generateLegalMoves(moves);
+    Assert.assertEquals(model.getLegalMoves(PlayerColor.WHITE).size(), moves.size());
+    for (int i = 0; i < moves.size(); i++) {
+      model.makePackedMove(moves.get(i));
+      model.unmakePackedMove();
+      Assert.assertEquals(KIWIPETE, model.toString());
+      Assert.assertEquals(initialKey, model.getZobristKey());
+    }
+  }
+
+  @Test
+  public void generatedCapturesMatchFilteredLegalMoves() {
+    for (String fen : new String[]{KIWIPETE, ENDGAME, PROMOTIONS}) {
+      BitboardChessModel model = new BitboardChessModel.Builder(fen).build();
+      model.startGame();
+      IntMoveList moves = new IntMoveList();
+      model.generateLegalMoves(moves);
+      //check the captures of every position one move in, which include en passant captures
+      for (int i = 0; i < moves.size(); i++) {
+        model.makePackedMove(moves.get(i));
+        assertCapturesMatchFilteredLegalMoves(model);
+        model.unmakePackedMove();
+      }
+      assertCapturesMatchFilteredLegalMoves(model);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void unmakePackedMoveWithoutMoveThrows() {
+    BitboardChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    model.unmakePackedMove();
+  }
+
+  @Test
+  public void makeMoveUpdatesBoardRights() {
+    MutableChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    model.makeMove(new Move(new RowColPair(6, 4), new RowColPair(4, 4), Move.MoveFlag.DOUBLE_PAWN_PUSH));
+    Assert.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+            model.toString());
+    model.makeMove(new Move(new RowColPair(0, 6), new RowColPair(2, 5), Move.MoveFlag.NONE));
+    Assert.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 1 2",
+            model.toString());
+  }
+
+  @Test
+  public void unmakeMoveRestoresPreviousPosition() {
+    MutableChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    for (Move move : model.getLegalMoves(PlayerColor.WHITE)) {
+      UndoInfo undo = model.makeMove(move);
+      model.unmakeMove(undo);
+      Assert.assertEquals(KIWIPETE, model.toString());
+    }
+  }
+
+  @Test
+  public void zobristKeyIsUpdatedIncrementally() {
+    MutableChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    long initialKey = model.getZobristKey();
+    for (Move move : model.getLegalMoves(PlayerColor.WHITE)) {
+      UndoInfo undo = model.makeMove(move);
+      //the incrementally updated key must match the key of the same position built from scratch
+      Assert.assertEquals(new BitboardChessModel.Builder(model.toString()).build().getZobristKey(),
+              model.getZobristKey());
+      model.unmakeMove(undo);
+      Assert.assertEquals(initialKey, model.getZobristKey());
+    }
+  }
+
+  @Test
+  public void pieceSquareScoresAreUpdatedIncrementally() {
+    MutableChessModel model = new BitboardChessModel.Builder(PROMOTIONS).build();
+    model.startGame();
+    for (Move move : model.getLegalMoves(PlayerColor.WHITE)) {
+      UndoInfo undo = model.makeMove(move);
+      //the incrementally updated scores must match the scores of the same position built from scratch
+      MutableChessModel fromScratch = new BitboardChessModel.Builder(model.toString()).build();
+      Assert.assertEquals(fromScratch.getMiddlegameScore(), model.getMiddlegameScore());
+      Assert.assertEquals(fromScratch.getEndgameScore(), model.getEndgameScore());
+      Assert.assertEquals(fromScratch.getGamePhase(), model.getGamePhase());
+      model.unmakeMove(undo);
+    }
+    Assert.assertEquals(new BitboardChessModel.Builder(PROMOTIONS).build().getMiddlegameScore(), model.getMiddlegameScore());
+  }
+
+  @Test
+  public void startingPositionScoresAreBalanced() {
+    MutableChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    Assert.assertEquals(0, model.getMiddlegameScore());
+    Assert.assertEquals(0, model.getEndgameScore());
+    Assert.assertEquals(PieceSquareTables.MAX_GAME_PHASE, model.getGamePhase());
+  }
+
+  @Test
+  public void transposedPositionsHaveTheSameZobristKey() {
+    MutableChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    long initialKey = model.getZobristKey();
+    model.makeMove(new Move(new RowColPair(7, 6), new RowColPair(5, 5), Move.MoveFlag.NONE));
+    model.makeMove(new Move(new RowColPair(0, 6), new RowColPair(2, 5), Move.MoveFlag.NONE));
+    model.makeMove(new Move(new RowColPair(5, 5), new RowColPair(7, 6), Move.MoveFlag.NONE));
+    Assert.assertNotEquals(initialKey, model.getZobristKey());
+    model.makeMove(new Move(new RowColPair(2, 5), new RowColPair(0, 6), Move.MoveFlag.NONE));
+    //the move clocks differ, but the position is the same
+    Assert.assertEquals(initialKey, model.getZobristKey());
+  }
+
+  @Test
+  public void getFinalGameStatusDetectsCheckmate() {
+    //fool's mate
+    MutableChessModel model = new BitboardChessModel.Builder(
+            "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3").build();
+    model.startGame();
+    Assert.assertTrue(model.isGameOver());
+    Assert.assertEquals(GameResultStatus.CHECKMATE_BY_BLACK, model.getFinalGameStatus());
+  }
+
+  @Test
+  public void legalMovesRespectChecksAndPins() {
+    //the bishop on e2 is pinned along the e-file, so only the king can move
+    Assert.assertEquals(4, legalMoveCount("4k3/4r3/8/8/8/8/4B3/4K3 w - - 0 1"));
+    //the rook on b2 can block the check on b1, but the knight cannot reach the first rank
+    Assert.assertEquals(4, legalMoveCount("4k3/8/8/8/8/8/1R6/r3K1N1 w - - 0 1"));
+    //in double check only the king can move, even though the queen could capture the knight
+    Assert.assertEquals(2, legalMoveCount("4k3/8/8/8/8/5n2/6Q1/r3K3 w - - 0 1"));
+    //taking en passant would take both pawns off the fifth rank and expose the king to the rook
+    Assert.assertEquals(4, legalMoveCount("8/8/8/KPp4r/8/8/8/4k3 w - c6 0 2"));
+  }
+
+  @Test
+  public void pinnedPiecesStillAttackSquares() {
+    //the rook on e2 is pinned by the queen, so it cannot move to d2, but it still attacks d2
+    MutableChessModel model = new BitboardChessModel.Builder("4k3/4q3/8/8/8/8/4R3/4K3 w - - 0 1").build();
+    model.startGame();
+    RowColPair d2 = new RowColPair(6, 3);
+    Assert.assertTrue(model.isSquareAttacked(d2, PlayerColor.WHITE));
+    Assert.assertFalse(model.isSquareAttacked(d2, PlayerColor.BLACK));
+    Assert.assertTrue(model.getLegalMoves(PlayerColor.WHITE).stream()
+            .noneMatch(m -> m.getDestinationPosition().equals(d2) && m.getSourcePosition().getCol() == 4
+                    && m.getSourcePosition().getRow() == 6));
+  }
+
+  @Test
+  public void packedAndObjectMovesShareRepetitionHistory() {
+    BitboardChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    for (String uciMove : new String[]{"g1f3", "g8f6", "f3g1"}) {
+      model.makePackedMove(findPackedMove(model, uciMove));
+    }
+    UndoInfo undo = model.makeMove(PackedMove.toMove(findPackedMove(model, "f6g8")));
+    Assert.assertEquals(2, model.getRepetitionCount());
+    Assert.assertEquals(2, model.getStrictDeepCopy().getRepetitionCount());
+    model.unmakeMove(undo);
+    Assert.assertEquals(1, model.getRepetitionCount());
+    //the packed moves are still unmade with the keys they were made from
+    model.unmakePackedMove();
+    model.unmakePackedMove();
+    model.unmakePackedMove();
+    Assert.assertEquals(new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build().getZobristKey(),
+            model.getZobristKey());
+  }
+
+  @Test
+  public void fiftyMoveRuleTakesPrecedenceOnlyWithoutCheckmate() {
+    //the fifty-move rule has run out, but the side to move is checkmated, which ends the game first
+    BitboardChessModel model = new BitboardChessModel.Builder("R5k1/5ppp/8/8/8/8/8/6K1 b - - 100 80").build();
+    model.startGame();
+    Assert.assertTrue(model.isGameOver());
+    Assert.assertEquals(GameResultStatus.CHECKMATE_BY_WHITE, model.getFinalGameStatus());
+    model = new BitboardChessModel.Builder("7k/8/8/8/8/8/8/KQ6 b - - 100 80").build();
+    model.startGame();
+    Assert.assertEquals(GameResultStatus.DRAW_BY_FIFTY_MOVE_RULE, model.getFinalGameStatus());
+  }
+
+  @Test
+  public void pieceCountsMatchStrictModelAfterEachMove() {
+    BitboardChessModel model = new BitboardChessModel.Builder(PROMOTIONS).build();
+    model.startGame();
+    for (String uciMove : new String[]{"c4c5", "b2a1q", "d1a1", "b6c5", "b4c5"}) {
+      model.makePackedMove(findPackedMove(model, uciMove));
+      StrictChessModel strict = new StrictChessModel.Builder(model.toString()).build();
+      for (PlayerColor color : PlayerColor.values()) {
+        for (PieceType type : PieceType.values()) {
+          Assert.assertEquals(strict.getPieceCount(color, type), model.getPieceCount(color, type));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void cachedGameResultFollowsMovesMadeAndUnmade() {
+    BitboardChessModel model = new BitboardChessModel.Builder("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1").build();
+    model.startGame();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    Assert.assertFalse(model.isGameOver());
+    UndoInfo undo = model.makeMove(PackedMove.toMove(findPackedMove(model, "a1a8")));
+    Assert.assertTrue(model.isGameOver());
+    Assert.assertEquals(GameResultStatus.CHECKMATE_BY_WHITE, model.getFinalGameStatus());
+    Assert.assertTrue(model.getLegalMoves(PlayerColor.BLACK).isEmpty());
+    model.unmakeMove(undo);
+    Assert.assertFalse(model.isGameOver());
+    Assert.assertSame(moves, model.getLegalMoves(PlayerColor.WHITE));
+    //packed moves forget and restore the cache in the same way
+    model.makePackedMove(findPackedMove(model, "a1a7"));
+    Assert.assertFalse(model.isGameOver());
+    Assert.assertFalse(model.getLegalMoves(PlayerColor.BLACK).isEmpty());
+    model.unmakePackedMove();
+    Assert.assertSame(moves, model.getLegalMoves(PlayerColor.WHITE));
+    Assert.assertTrue(model.canMakeMove(PackedMove.toMove(findPackedMove(model, "a1a8"))));
+  }
+
+  @Test
+  public void castlingRightsWithoutKingAndRookAtHomeAreIgnored() {
+    //no rook, a king off its home square, and a bishop on the rook's home square
+    String[][] fens = {
+            {"4k3/8/8/8/8/8/8/4K3 w K - 0 1", "4k3/8/8/8/8/8/8/4K3 w - - 0 1"},
+            {"4k3/8/8/8/8/8/8/R2K3R w KQ - 0 1", "4k3/8/8/8/8/8/8/R2K3R w - - 0 1"},
+            {"4k3/8/8/8/8/8/8/4K2B w K - 0 1", "4k3/8/8/8/8/8/8/4K2B w - - 0 1"},
+            {"r3k3/8/8/8/8/8/8/R3K3 w KQkq - 0 1", "r3k3/8/8/8/8/8/8/R3K3 w Qq - 0 1"}
+    };
+    for (String[] fen : fens) {
+      BitboardChessModel model = new BitboardChessModel.Builder(fen[0]).build();
+      StrictChessModel strict = new StrictChessModel.Builder(fen[0]).build();
+      model.startGame();
+      strict.startGame();
+      Assert.assertEquals(fen[1], model.toString());
+      Assert.assertEquals(fen[1], strict.toString());
+      Assert.assertEquals(new BitboardChessModel.Builder(fen[1]).build().getZobristKey(), model.getZobristKey());
+      Assert.assertEquals(model.getZobristKey(), strict.getZobristKey());
+      Assert.assertEquals(strict.getLegalMoves(PlayerColor.WHITE), model.getLegalMoves(PlayerColor.WHITE));
+    }
+  }
+
+  @Test
+  public void enPassantSquareWithoutPassedPawnIsIgnored() {
+    //no black pawn stands behind e6, so it cannot have just been passed over
+    String fen = "4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1";
+    BitboardChessModel model = new BitboardChessModel.Builder(fen).build();
+    StrictChessModel strict = new StrictChessModel.Builder(fen).build();
+    model.startGame();
+    strict.startGame();
+    Assert.assertEquals("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1", model.toString());
+    Assert.assertEquals(model.toString(), strict.toString());
+    Assert.assertEquals(strict.getLegalMoves(PlayerColor.WHITE), model.getLegalMoves(PlayerColor.WHITE));
+    Assert.assertEquals(new BitboardChessModel.Builder(model.toString()).build().getZobristKey(), model.getZobristKey());
+    //with the pawn behind it, the square is kept
+    Assert.assertEquals(1, legalMoveCount("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1") - legalMoveCount(fen));
+  }
+
+  @Test
+  public void colorTargetSquaresMatchStrictModel() {
+    for (String fen : new String[]{StrictChessModel.STARTING_POSITION, KIWIPETE, PROMOTIONS}) {
+      BitboardChessModel model = new BitboardChessModel.Builder(fen).build();
+      StrictChessModel strict = new StrictChessModel.Builder(fen).build();
+      model.startGame();
+      strict.startGame();
+      for (PlayerColor color : PlayerColor.values()) {
+        Assert.assertEquals(fen, strict.getColorTargetSquares(color), model.getColorTargetSquares(color));
+      }
+    }
+    //the destinations of the 20 opening moves
+    BitboardChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    Assert.assertEquals(16, model.getColorTargetSquares(PlayerColor.WHITE).size());
+  }
+
+  private static int findPackedMove(BitboardChessModel model, String uciMove) {
+    IntMoveList moves = new IntMoveList();
+    model.generateLegalMoves(moves);
+    for (int i = 0; i < moves.size(); i++) {
+      if (PackedMove.toString(moves.get(i)).equals(uciMove)) {
+        return moves.get(i);
+      }
+    }
+    throw new AssertionError(uciMove + " is not a legal move in " + model);
+  }
+
+  private static void assertPerft(String fen, long[] positionsAtDepth) {
+    MutableChessModel model = new BitboardChessModel.Builder(fen).build();
+    model.startGame();
+    for (int i = 0; i < positionsAtDepth.length; i++) {
+      Assert.assertEquals(positionsAtDepth[i], countLegalMoves(model, i));
+    }
+  }
+
+  private static int legalMoveCount(String fen) {
+    MutableChessModel model = new BitboardChessModel.Builder(fen).build();
+    model.startGame();
+    return model.getLegalMoves(model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK).size();
+  }
+
+  private static void assertCapturesMatchFilteredLegalMoves(BitboardChessModel model) {
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    Set<Move> expected = new HashSet<>();
+    for (Move move : model.getLegalMoves(turn)) {
+      if (model.getPieceAt(move.getDestinationPosition()).isPresent() || move.getFlag() == Move.MoveFlag.EN_PASSANT
+              || move.getFlag().name().startsWith("PAWN_PROMOTION")) {
+        expected.add(move);
+      }
+    }
+    Assert.assertEquals(expected, model.getLegalCaptures(turn));
+    IntMoveList captures = new IntMoveList();
+    model.generateLegalCaptures(captures);
+    Assert.assertEquals(expected.size(), captures.size());
+  }
+
+  private static void assertPackedPerft(String fen, long[] positionsAtDepth) {
+    BitboardChessModel model = new BitboardChessModel.Builder(fen).build();
+    model.startGame();
+    //one reusable move list per depth
+    IntMoveList[] movesAtDepth = new IntMoveList[positionsAtDepth.length];
+    for (int i = 0; i < movesAtDepth.length; i++) {
+      movesAtDepth[i] = new IntMoveList();
+    }
+    for (int i = 0; i < positionsAtDepth.length; i++) {
+      Assert.assertEquals(positionsAtDepth[i], countPackedMoves(model, i, movesAtDepth));
+      Assert.assertEquals(fen, model.toString());
+    }
+  }
+
+  private static long countPackedMoves(BitboardChessModel model, int depth, IntMoveList[] movesAtDepth) {
+    if (depth == 0) {
+      return 1;
+    }
+    IntMoveList moves = movesAtDepth[depth];
+    model.generateLegalMoves(moves);
+    if (depth == 1) {
+      return moves.size();
+    }
+    long numPositions = 0;
+    for (int i = 0; i < moves.size(); i++) {
+      model.makePackedMove(moves.get(i));
+      numPositions += countPackedMoves(model, depth - 1, movesAtDepth);
+      model.unmakePackedMove();
+    }
+    return numPositions;
+  }
+
+  private static long countLegalMoves(MutableChessModel model, int depth) {
+    if (depth == 0) {
+      return 1;
+    }
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    long numPositions = 0;
+    for (Move move : model.getLegalMoves(turn)) {
+      UndoInfo undo = model.makeMove(move);
+      numPositions += countLegalMoves(model, depth - 1);
+      model.unmakeMove(undo);
+    }
+    return numPositions;
+  }
+}
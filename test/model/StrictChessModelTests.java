@@ -3,12 +3,14 @@ package model;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 public class StrictChessModelTests {
   private static final long[] numPositionsAtDepth = new long[]{
           1, 20, 400, 8902, 197281, 4865609, 119060324, 3195901860L, 84998978956L, 2439530234167L
   };
+  //the deeper counts take far too long to reach by walking the tree
+  private static final int MAX_TESTED_DEPTH = 5;
   @Test
   public void modelCorrectlyInitializesBoardForStartingPosition() {
     try {
@@ -18,27 +20,339 @@ public class StrictChessModelTests {
     }
   }
 
+  @Test
+  public void unmakeMoveRestoresPreviousPosition() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    UndoInfo undo = model.makeMove(
+            new Move(new RowColPair(6, 4), new RowColPair(4, 4), Move.MoveFlag.DOUBLE_PAWN_PUSH));
+    Assert.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+            model.toString());
+    model.unmakeMove(undo);
+    Assert.assertEquals(StrictChessModel.STARTING_POSITION, model.toString());
+  }
+
+  @Test
+  public void knightsAndKingsCanMoveToEmptySquares() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    Assert.assertEquals(20, model.getLegalMoves(PlayerColor.WHITE).size());
+    Assert.assertEquals(Set.of(new RowColPair(5, 5), new RowColPair(5, 7)),
+            model.getTargetSquares(new RowColPair(7, 6)).orElseThrow());
+  }
+
+  @Test
+  public void pawnsCannotDoublePushThroughAPiece() {
+    MutableChessModel model = new StrictChessModel.Builder(
+            "rnbqkbnr/pppppppp/8/8/8/4N3/PPPPPPPP/R1BQKBNR w KQkq - 0 1").build();
+    model.startGame();
+    Assert.assertEquals(Set.of(), model.getTargetSquares(new RowColPair(6, 4)).orElseThrow());
+  }
+
+  @Test
+  public void legalMovesMatchBitboardModel() {
+    String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    MutableChessModel model = new StrictChessModel.Builder(kiwipete).build();
+    MutableChessModel bitboardModel = new BitboardChessModel.Builder(kiwipete).build();
+    model.startGame();
+    bitboardModel.startGame();
+    Assert.assertEquals(bitboardModel.getLegalMoves(PlayerColor.WHITE), model.getLegalMoves(PlayerColor.WHITE));
+    Assert.assertEquals(bitboardModel.getLegalCaptures(PlayerColor.WHITE), model.getLegalCaptures(PlayerColor.WHITE));
+  }
+
+  @Test
+  public void legalMovesInCheckAndWithPinsMatchBitboardModel() {
+    String[] fens = {
+            "4k3/4r3/8/8/8/8/4B3/4K3 w - - 0 1",  //pinned bishop
+            "4k3/8/8/8/8/8/1R6/r3K1N1 w - - 0 1",  //single check
+            "4k3/8/8/8/8/5n2/6Q1/r3K3 w - - 0 1",  //double check
+            "8/8/8/KPp4r/8/8/8/4k3 w - c6 0 2",    //en passant exposing the king
+            "3rk2r/8/8/8/8/8/8/R3K2R w KQk - 0 1"  //castling through check
+    };
+    for (String fen : fens) {
+      MutableChessModel model = new StrictChessModel.Builder(fen).build();
+      MutableChessModel bitboardModel = new BitboardChessModel.Builder(fen).build();
+      model.startGame();
+      bitboardModel.startGame();
+      Assert.assertEquals(bitboardModel.getLegalMoves(PlayerColor.WHITE), model.getLegalMoves(PlayerColor.WHITE));
+    }
+  }
+
+  @Test
+  public void isSquareAttackedMatchesBitboardModel() {
+    String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    ReadOnlyChessModel model = new StrictChessModel.Builder(kiwipete).build();
+    ReadOnlyChessModel bitboardModel = new BitboardChessModel.Builder(kiwipete).build();
+    for (int row = 0; row < StrictChessModel.NUM_RANKS; row++) {
+      for (int col = 0; col < StrictChessModel.NUM_FILES; col++) {
+        RowColPair square = new RowColPair(row, col);
+        for (PlayerColor color : PlayerColor.values()) {
+          Assert.assertEquals(bitboardModel.isSquareAttacked(square, color), model.isSquareAttacked(square, color));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void getFinalGameStatusDetectsCheckmate() {
+    //fool's mate
+    MutableChessModel model = new StrictChessModel.Builder(
+            "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3").build();
+    model.startGame();
+    Assert.assertEquals(GameResultStatus.CHECKMATE_BY_BLACK, model.getFinalGameStatus());
+  }
+
+  @Test
+  public void threefoldRepetitionEndsGame() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    play(model, "g1f3", "g8f6", "f3g1", "f6g8");
+    Assert.assertEquals(2, model.getRepetitionCount());
+    Assert.assertFalse(model.isGameOver());
+    play(model, "g1f3", "g8f6", "f3g1", "f6g8");
+    Assert.assertEquals(3, model.getRepetitionCount());
+    Assert.assertTrue(model.isGameOver());
+    Assert.assertEquals(GameResultStatus.DRAW_BY_REPETITION, model.getFinalGameStatus());
+  }
+
+  @Test
+  public void doublePushNoPawnCanCaptureDoesNotPreventRepetition() {
+    MutableChessModel[] models = {new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build(),
+            new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build()};
+    for (MutableChessModel model : models) {
+      model.startGame();
+      //the position after 1.e4 comes up again after 3.Ng1 and 5.Ng1, although only 1.e4 set e3
+      play(model, "e2e4", "g8f6", "g1f3", "f6g8", "f3g1", "g8f6", "g1f3", "f6g8", "f3g1");
+      Assert.assertEquals(3, model.getRepetitionCount());
+      Assert.assertEquals(GameResultStatus.DRAW_BY_REPETITION, model.getFinalGameStatus());
+    }
+    //a pawn that can capture en passant still tells the positions apart
+    String capturable = "4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1";
+    Assert.assertNotEquals(new StrictChessModel.Builder(capturable.replace("e3", "-")).build().getZobristKey(),
+            new StrictChessModel.Builder(capturable).build().getZobristKey());
+    Assert.assertEquals(new StrictChessModel.Builder(capturable).build().getZobristKey(),
+            new BitboardChessModel.Builder(capturable).build().getZobristKey());
+  }
+
+  @Test
+  public void fiftyMoveRuleEndsGame() {
+    MutableChessModel model = new StrictChessModel.Builder("7k/8/8/8/8/8/8/KQ6 w - - 99 80").build();
+    model.startGame();
+    Assert.assertFalse(model.isGameOver());
+    play(model, "b1b2");
+    Assert.assertEquals(100, model.getHalfMoveClock());
+    Assert.assertTrue(model.isGameOver());
+    Assert.assertEquals(GameResultStatus.DRAW_BY_FIFTY_MOVE_RULE, model.getFinalGameStatus());
+  }
+
+  @Test
+  public void capturingLastPieceLeavesInsufficientMaterial() {
+    MutableChessModel model = new StrictChessModel.Builder("7k/8/8/8/8/8/1r6/K7 w - - 0 1").build();
+    model.startGame();
+    Assert.assertFalse(model.hasInsufficientMaterial());
+    UndoInfo undo = model.makeMove(findMove(model, "a1b2"));
+    Assert.assertEquals(0, model.getPieceCount(PlayerColor.BLACK, PieceType.ROOK));
+    Assert.assertTrue(model.isGameOver());
+    Assert.assertEquals(GameResultStatus.DRAW_BY_INSUFFICIENT_MATERIAL, model.getFinalGameStatus());
+    model.unmakeMove(undo);
+    Assert.assertEquals(1, model.getPieceCount(PlayerColor.BLACK, PieceType.ROOK));
+    Assert.assertFalse(model.isGameOver());
+  }
+
+  @Test
+  public void pieceCountsFollowPromotions() {
+    MutableChessModel model = new StrictChessModel.Builder("7k/1P6/8/8/8/8/8/K7 w - - 0 1").build();
+    model.startGame();
+    model.makeMove(findMove(model, "b7b8b"));
+    Assert.assertEquals(0, model.getPieceCount(PlayerColor.WHITE, PieceType.PAWN));
+    Assert.assertEquals(1, model.getPieceCount(PlayerColor.WHITE, PieceType.BISHOP));
+    //a lone bishop cannot mate
+    Assert.assertTrue(model.hasInsufficientMaterial());
+  }
+
+  @Test
+  public void insufficientMaterialMatchesBitboardModel() {
+    String[] fens = {
+            "8/8/4k3/8/8/3K4/8/8 w - - 0 1", //king against king
+            "8/8/4k3/8/8/3K4/8/5B2 w - - 0 1", //king and bishop against king
+            "8/8/4k3/8/8/3K4/8/6N1 b - - 0 1", //king and knight against king
+            "2b5/8/4k3/8/8/3K4/8/5B2 w - - 0 1", //bishops on squares of the same color
+            "1b6/8/4k3/8/8/3K4/8/5B2 w - - 0 1", //bishops on squares of different colors
+            "8/8/4k3/8/8/3K4/8/5NN1 w - - 0 1", //two knights
+            "8/8/4k3/8/8/3K4/8/5BN1 w - - 0 1", //bishop and knight
+            "8/8/4k3/8/8/3K4/7P/8 w - - 0 1" //a pawn can still promote
+    };
+    boolean[] expected = {true, true, true, true, false, false, false, false};
+    for (int i = 0; i < fens.length; i++) {
+      Assert.assertEquals(fens[i], expected[i], new StrictChessModel.Builder(fens[i]).build().hasInsufficientMaterial());
+      Assert.assertEquals(fens[i], expected[i], new BitboardChessModel.Builder(fens[i]).build().hasInsufficientMaterial());
+    }
+  }
+
+  @Test
+  public void deepCopyRemembersEarlierPositions() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    play(model, "g1f3", "g8f6", "f3g1");
+    UndoInfo undo = model.makeMove(findMove(model, "f6g8"));
+    MutableChessModel copy = model.getStrictDeepCopy();
+    Assert.assertEquals(2, copy.getRepetitionCount());
+    model.unmakeMove(undo);
+    Assert.assertEquals(1, model.getRepetitionCount());
+    //a capture or pawn move can never be undone, so positions before it cannot repeat
+    play(copy, "e2e4", "e7e5");
+    Assert.assertEquals(1, copy.getRepetitionCount());
+  }
+
+  @Test
+  public void legalMovesAreCachedUntilAMoveIsMade() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    Assert.assertSame(moves, model.getLegalMoves(PlayerColor.WHITE));
+    UndoInfo undo = model.makeMove(findMove(model, "e2e4"));
+    Assert.assertEquals(new StrictChessModel.Builder(model.toString()).build().getLegalMoves(PlayerColor.BLACK),
+            model.getLegalMoves(PlayerColor.BLACK));
+    Assert.assertTrue(model.canMakeMove(findMove(model, "e7e5")));
+    Assert.assertFalse(model.isGameOver());
+    model.unmakeMove(undo);
+    //taking the move back restores what was known about the position before it
+    Assert.assertSame(moves, model.getLegalMoves(PlayerColor.WHITE));
+    Assert.assertEquals(20, model.getStrictDeepCopy().getLegalMoves(PlayerColor.WHITE).size());
+  }
+
+  @Test
+  public void canMakeMoveChecksFlagAndSideToMove() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    Move knightMove = findMove(model, "g1f3");
+    Assert.assertTrue(model.canMakeMove(knightMove));
+    Assert.assertFalse(model.canMakeMove(new Move(knightMove.getSourcePosition(),
+            knightMove.getDestinationPosition(), Move.MoveFlag.EN_PASSANT)));
+    //black's moves cannot be made on white's turn
+    Assert.assertFalse(model.canMakeMove(
+            new Move(new RowColPair(1, 4), new RowColPair(3, 4), Move.MoveFlag.DOUBLE_PAWN_PUSH)));
+  }
+
+  @Test
+  public void failedCastlingMoveLeavesModelUnchanged() {
+    String fen = "4k3/8/8/8/8/8/8/4K3 w - - 0 1";
+    StrictChessModel model = new StrictChessModel.Builder(fen).build();
+    model.startGame();
+    long key = model.getZobristKey();
+    Set<Move> moves = model.getLegalMoves(PlayerColor.WHITE);
+    try {
+      //there is no rook to castle with
+      model.makePseudoLegalMove(new Move(new RowColPair(7, 4), new RowColPair(7, 6), Move.MoveFlag.CASTLE_KINGSIDE));
+      Assert.fail("Castling without a rook should not be possible");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals(fen, model.toString());
+      Assert.assertEquals(key, model.getZobristKey());
+      Assert.assertEquals(1, model.getRepetitionCount());
+      Assert.assertEquals(moves, model.getLegalMoves(PlayerColor.WHITE));
+      Assert.assertEquals(model, new StrictChessModel.Builder(fen).build());
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cachedLegalMovesCannotBeModified() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    model.getLegalMoves(PlayerColor.WHITE).clear();
+  }
+
+  @Test
+  public void getPieceAtMatchesBoardCopy() {
+    ReadOnlyChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    Optional<Piece>[][] board = model.getBoardCopy();
+    for (int row = 0; row < StrictChessModel.NUM_RANKS; row++) {
+      for (int col = 0; col < StrictChessModel.NUM_FILES; col++) {
+        Assert.assertEquals(board[row][col], model.getPieceAt(new RowColPair(row, col)));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getPieceAtRejectsOutOfBoundsPosition() {
+    new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build().getPieceAt(new RowColPair(8, 0));
+  }
+
+  @Test
+  public void zobristKeyIsUpdatedIncrementally() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    long initialKey = model.getZobristKey();
+    UndoInfo undo = model.makeMove(
+            new Move(new RowColPair(6, 4), new RowColPair(4, 4), Move.MoveFlag.DOUBLE_PAWN_PUSH));
+    Assert.assertEquals(new StrictChessModel.Builder(model.toString()).build().getZobristKey(),
+            model.getZobristKey());
+    model.unmakeMove(undo);
+    Assert.assertEquals(initialKey, model.getZobristKey());
+  }
+
+  @Test
+  public void pieceSquareScoresAreUpdatedIncrementally() {
+    //promotions with captures and castling, which move and replace the most pieces
+    String fen = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    MutableChessModel model = new StrictChessModel.Builder(fen).build();
+    model.startGame();
+    for (Move move : model.getLegalMoves(PlayerColor.WHITE)) {
+      UndoInfo undo = model.makeMove(move);
+      MutableChessModel fromScratch = new StrictChessModel.Builder(model.toString()).build();
+      Assert.assertEquals(fromScratch.getMiddlegameScore(), model.getMiddlegameScore());
+      Assert.assertEquals(fromScratch.getEndgameScore(), model.getEndgameScore());
+      Assert.assertEquals(fromScratch.getGamePhase(), model.getGamePhase());
+      model.unmakeMove(undo);
+    }
+    Assert.assertEquals(new StrictChessModel.Builder(fen).build().getMiddlegameScore(), model.getMiddlegameScore());
+  }
+
+  @Test
+  public void modelsForTheSamePositionAreEqual() {
+    MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    MutableChessModel other = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    UndoInfo undo = model.makeMove(
+            new Move(new RowColPair(6, 3), new RowColPair(5, 3), Move.MoveFlag.NONE));
+    Assert.assertNotEquals(other, model);
+    model.unmakeMove(undo);
+    Assert.assertEquals(other, model);
+    Assert.assertEquals(other.hashCode(), model.hashCode());
+  }
+
   @Test
   public void MoveGenerationTest(){
     MutableChessModel model = new StrictChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
     model.startGame();
-    for(int i = 0; i < numPositionsAtDepth.length; i++){
+    for(int i = 0; i <= MAX_TESTED_DEPTH; i++){
       Assert.assertEquals(numPositionsAtDepth[i], countLegalMoves(model, i));
     }
   }
 
-  private int countLegalMoves(MutableChessModel model, int depth) {
+  private long countLegalMoves(MutableChessModel model, int depth) {
     if (depth == 0) {
       return 1;
     }
-    Set<Move> moves = new HashSet<>();
-    moves.addAll(model.getLegalMoves(PlayerColor.BLACK));
-    moves.addAll(model.getLegalMoves(PlayerColor.WHITE));
-    int numPositions = 0;
-    for (Move move : moves) {
-      MutableChessModel copy = model.getStrictDeepCopy();
-      numPositions += countLegalMoves(copy, depth - 1);
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    long numPositions = 0;
+    for (Move move : model.getLegalMoves(turn)) {
+      UndoInfo undo = model.makeMove(move);
+      numPositions += countLegalMoves(model, depth - 1);
+      model.unmakeMove(undo);
     }
     return numPositions;
   }
+
+  private static void play(MutableChessModel model, String... uciMoves) {
+    for (String uciMove : uciMoves) {
+      model.makeMove(findMove(model, uciMove));
+    }
+  }
+
+  private static Move findMove(ReadOnlyChessModel model, String uciMove) {
+    PlayerColor turn = model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK;
+    return model.getLegalMoves(turn).stream()
+            .filter(m -> PackedMove.toString(PackedMove.fromMove(m)).equals(uciMove))
+            .findFirst().orElseThrow();
+  }
 }
@@ -0,0 +1,55 @@
+package perft;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.StrictChessModel;
+
+public class PerftTests {
+  private static final String KIWIPETE =
+          "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+  @Test
+  public void parallelCountMatchesPublishedCounts() {
+    MutableChessModel startingPosition = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    MutableChessModel kiwipete = new BitboardChessModel.Builder(KIWIPETE).build();
+    startingPosition.startGame();
+    kiwipete.startGame();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Assert.assertEquals(197281, Perft.countParallel(startingPosition, 4, pool));
+      Assert.assertEquals(97862, Perft.countParallel(kiwipete, 3, pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void divideSumsToSequentialCount() {
+    MutableChessModel model = new BitboardChessModel.Builder(KIWIPETE).build();
+    model.startGame();
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      Map<Move, Long> counts = Perft.divide(model, 2, pool);
+      Assert.assertEquals(48, counts.size());
+      Assert.assertEquals(Perft.count(model, 2), counts.values().stream().mapToLong(Long::longValue).sum());
+      //dividing works on copies, so the model itself is left untouched
+      Assert.assertEquals(KIWIPETE, model.toString());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void countRejectsNegativeDepth() {
+    MutableChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    Perft.count(model, -1);
+  }
+}
@@ -0,0 +1,126 @@
+package pgn;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.GameResultStatus;
+import model.Move;
+import model.MutableChessModel;
+import model.StrictChessModel;
+
+public class PgnReaderTests {
+  //Morphy against the Duke of Brunswick and Count Isouard, with comments, a variation and NAGs
+  private static final String OPERA_GAME = """
+          [Event "Paris Opera"]
+          [Site "Paris FRA"]
+          [White "Paul Morphy"]
+          [Black "Duke Karl / Count Isouard"]
+          [Result "1-0"]
+
+          1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move already.} 4. dxe5 Bxf3 5. Qxf3 dxe5
+          6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 b5?! (9... Qb4+ 10. Qxb4 {a (parenthesized) comment}
+          (10. c3) Bxb4) 10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7 14. Rd1 $1 Qe6
+          15. Bxd7+ Nxd7 16. Qb8+ ; a comment to the end of the line
+          Nxb8 17. Rd8# 1-0
+          """;
+  private static final String OPERA_FINAL_FEN = "1n1Rkb1r/p4ppp/4q3/4p1B1/4P3/8/PPP2PPP/2K5 b k - 1 17";
+  private static final int OPERA_PLIES = 33;
+
+  @Test
+  public void readsAndReplaysAnnotatedGame() throws IOException {
+    PgnGame game = new PgnReader(new StringReader(OPERA_GAME)).readGame().orElseThrow();
+    Assert.assertEquals(Optional.of("Paul Morphy"), game.getTag("White"));
+    Assert.assertEquals(PgnGame.WHITE_WINS, game.getResult());
+    Assert.assertEquals(OPERA_PLIES, game.getSanMoves().size());
+    Assert.assertEquals("b5", game.getSanMoves().get(17));
+    MutableChessModel model = new StrictChessModel.Builder(game.getStartingFen()).build();
+    model.startGame();
+    List<Move> moves = game.replay(model);
+    Assert.assertEquals(OPERA_PLIES, moves.size());
+    Assert.assertEquals(OPERA_FINAL_FEN, model.toString());
+    Assert.assertEquals(GameResultStatus.CHECKMATE_BY_WHITE, model.getFinalGameStatus());
+  }
+
+  @Test
+  public void handsGamesToConsumerOneAtATime() throws IOException {
+    String pgn = OPERA_GAME + "\n% an escape line, which is ignored\n"
+            + "[Event \"Two\"]\n[FEN \"4k3/8/8/8/8/8/4P3/4K3 b - - 0 40\"]\n\n40... Kd7 41. e4 *\n"
+            + "1. d4 d5"; //a game without tags or a result
+    List<PgnGame> games = new ArrayList<>();
+    long numGames = new PgnReader(new StringReader(pgn)).readGames(games::add);
+    Assert.assertEquals(3, numGames);
+    Assert.assertEquals(List.of("Kd7", "e4"), games.get(1).getSanMoves());
+    Assert.assertEquals(PgnGame.UNKNOWN_RESULT, games.get(1).getResult());
+    Assert.assertEquals("4k3/8/8/8/8/8/4P3/4K3 b - - 0 40", games.get(1).getStartingFen());
+    Assert.assertEquals(List.of("d4", "d5"), games.get(2).getSanMoves());
+    Assert.assertTrue(games.get(2).getTags().isEmpty());
+    Assert.assertEquals(PgnGame.UNKNOWN_RESULT, games.get(2).getResult());
+  }
+
+  @Test
+  public void writtenGamesReadBackUnchanged() throws IOException {
+    PgnGame opera = new PgnReader(new StringReader(OPERA_GAME)).readGame().orElseThrow();
+    MutableChessModel model = new StrictChessModel.Builder(opera.getStartingFen()).build();
+    model.startGame();
+    Map<String, String> tags = new LinkedHashMap<>(opera.getTags());
+    tags.put("Annotator", "a \"quoted\" name \\ with a backslash");
+    PgnGame written = PgnGame.fromMoves(tags, opera.replay(model));
+    Assert.assertEquals(opera.getSanMoves(), written.getSanMoves());
+    Assert.assertEquals(PgnGame.WHITE_WINS, written.getResult());
+
+    Map<String, String> blackToMove = new LinkedHashMap<>();
+    blackToMove.put(PgnGame.FEN_TAG, "4k3/8/8/8/8/8/4P3/4K3 b - - 0 40");
+    model = new StrictChessModel.Builder("4k3/8/8/8/8/8/4P3/4K3 b - - 0 40").build();
+    model.startGame();
+    PgnGame endgame = PgnGame.fromMoves(blackToMove, List.of(
+            SanNotation.fromSan(model, "Kd7")));
+
+    StringWriter output = new StringWriter();
+    PgnWriter writer = new PgnWriter(output);
+    writer.writeGame(written);
+    writer.writeGame(endgame);
+    for (String line : output.toString().split("\n")) {
+      Assert.assertTrue(line, line.length() <= 80);
+    }
+    Assert.assertTrue(output.toString().contains("\n40... Kd7 *\n"));
+    PgnReader reader = new PgnReader(new StringReader(output.toString()));
+    PgnGame readBack = reader.readGame().orElseThrow();
+    Assert.assertEquals(written.getTags(), readBack.getTags());
+    Assert.assertEquals(written.getSanMoves(), readBack.getSanMoves());
+    Assert.assertEquals(written.getResult(), readBack.getResult());
+    Assert.assertEquals(List.of("Kd7"), reader.readGame().orElseThrow().getSanMoves());
+    Assert.assertTrue(reader.readGame().isEmpty());
+  }
+
+  @Test
+  public void malformedTagPairDoesNotStopLaterGames() throws IOException {
+    PgnReader reader = new PgnReader(new StringReader("[Event Paris]\n1. e4 *\n\n" + OPERA_GAME));
+    Assert.assertThrows(IllegalArgumentException.class, reader::readGame);
+    //the moves of the game with the malformed tag are read as a game of their own
+    Assert.assertEquals(List.of("e4"), reader.readGame().orElseThrow().getSanMoves());
+    Assert.assertEquals(OPERA_PLIES, reader.readGame().orElseThrow().getSanMoves().size());
+  }
+
+  @Test
+  public void replayStopsBeforeIllegalMove() throws IOException {
+    PgnGame game = new PgnReader(new StringReader("1. e4 e5 2. Ke3 *")).readGame().orElseThrow();
+    MutableChessModel model = new StrictChessModel.Builder(game.getStartingFen()).build();
+    model.startGame();
+    Assert.assertThrows(IllegalArgumentException.class, () -> game.replay(model));
+    Assert.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2", model.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void gameRejectsInvalidResult() {
+    new PgnGame(Map.of(), List.of("e4"), "2-0");
+  }
+}
@@ -0,0 +1,125 @@
+package pgn;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.GameResultStatus;
+
+public class ReplayPipelineTests {
+  private static final String SCHOLARS_MATE = "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n";
+  private static final String SCHOLARS_MATE_FEN = "r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4";
+  //the fifth move is illegal, since neither white bishop can reach b6
+  private static final String ILLEGAL_MOVE = "1. e4 e5 2. Nf3 Nc6 3. Bb6 a6 *\n\n";
+  private static final String UNFINISHED = "1. d4 d5 2. c4 *\n\n";
+  private static final String MALFORMED_TAG = "[Event Paris]\n";
+
+  @Test
+  public void replaysGamesAndReportsErrorPositions() {
+    GameReplayResult mate = ReplayPipeline.replay(1, game(SCHOLARS_MATE));
+    Assert.assertTrue(mate.isValid());
+    Assert.assertEquals(7, mate.getPliesPlayed());
+    Assert.assertEquals(SCHOLARS_MATE_FEN, mate.getFinalFen());
+    Assert.assertEquals(Optional.of(GameResultStatus.CHECKMATE_BY_WHITE), mate.getStatus());
+    Assert.assertEquals(Optional.empty(), mate.getInvalidMove());
+
+    GameReplayResult illegal = ReplayPipeline.replay(2, game("1. e4 e5 2. Bb5 Nc6 3. Bb4 *"));
+    Assert.assertFalse(illegal.isValid());
+    Assert.assertEquals(4, illegal.getPliesPlayed());
+    Assert.assertEquals(Optional.of("Bb4"), illegal.getInvalidMove());
+    Assert.assertEquals("r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/8/PPPP1PPP/RNBQK1NR w KQkq - 2 3", illegal.getFinalFen());
+    Assert.assertEquals(Optional.empty(), illegal.getStatus());
+  }
+
+  @Test
+  public void rejectsGameWithInvalidStartingPosition() {
+    PgnGame game = new PgnGame(Map.of(PgnGame.FEN_TAG, "not a fen"), List.of("e4"), PgnGame.UNKNOWN_RESULT);
+    GameReplayResult result = ReplayPipeline.replay(1, game);
+    Assert.assertFalse(result.isValid());
+    Assert.assertEquals(0, result.getPliesPlayed());
+    Assert.assertTrue(result.getError().orElseThrow().startsWith("Unable to set up starting position"));
+  }
+
+  @Test
+  public void handsResultsToConsumerInCorpusOrder() throws IOException {
+    StringBuilder corpus = new StringBuilder();
+    String[] games = {SCHOLARS_MATE, ILLEGAL_MOVE, UNFINISHED};
+    int numGames = 60;
+    for (int i = 0; i < numGames; i++) {
+      corpus.append(games[i % games.length]);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<GameReplayResult> results = new ArrayList<>();
+      ReplayReport report = ReplayPipeline.run(new PgnReader(new StringReader(corpus.toString())), pool, 7,
+              results::add);
+      Assert.assertEquals(numGames, results.size());
+      for (int i = 0; i < numGames; i++) {
+        GameReplayResult result = results.get(i);
+        Assert.assertEquals(i + 1, result.getGameNumber());
+        Assert.assertEquals(i % games.length != 1, result.isValid());
+      }
+      Assert.assertEquals(numGames, report.getNumGames());
+      Assert.assertEquals(numGames / games.length, report.getNumInvalidGames());
+      //7 plies for each mate, 4 up to the illegal move and 3 for each unfinished game
+      Assert.assertEquals(numGames / games.length * (7 + 4 + 3), report.getNumMoves());
+      Assert.assertTrue(report.getMovesPerSecond() > report.getGamesPerSecond());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void unreadableGamesAreCountedAndKeepTheirNumber() throws IOException {
+    String corpus = SCHOLARS_MATE + MALFORMED_TAG + SCHOLARS_MATE;
+    List<GameReplayResult> results = new ArrayList<>();
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      ReplayReport report = ReplayPipeline.run(new PgnReader(new StringReader(corpus)), pool, 1, results::add);
+      Assert.assertEquals(2, report.getNumGames());
+      Assert.assertEquals(1, report.getNumUnreadableGames());
+      Assert.assertEquals(List.of(1L, 3L), results.stream().map(GameReplayResult::getGameNumber).toList());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void gameThatCannotBeReplayedDoesNotStopTheRun() throws IOException {
+    //white's castling privilege has no rook to castle with
+    String corpus = "[FEN \"4k3/8/8/8/8/8/8/4K3 w K - 0 1\"]\n\n1. O-O *\n\n" + SCHOLARS_MATE;
+    List<GameReplayResult> results = new ArrayList<>();
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      ReplayReport report = ReplayPipeline.run(new PgnReader(new StringReader(corpus)), pool, 1, results::add);
+      Assert.assertEquals(2, report.getNumGames());
+      Assert.assertEquals(1, report.getNumInvalidGames());
+      Assert.assertEquals(Optional.of("O-O"), results.get(0).getInvalidMove());
+      Assert.assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", results.get(0).getFinalFen());
+      Assert.assertTrue(results.get(1).isValid());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void runRejectsChunkSizeLessThanOne() throws IOException {
+    ReplayPipeline.run(new PgnReader(new StringReader("")), ForkJoinPool.commonPool(), 0, result -> {
+    });
+  }
+
+  private static PgnGame game(String pgn) {
+    try {
+      return new PgnReader(new StringReader(pgn)).readGame().orElseThrow();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package pgn;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import model.BitboardChessModel;
+import model.Move;
+import model.MutableChessModel;
+import model.PackedMove;
+import model.PlayerColor;
+import model.StrictChessModel;
+
+public class SanNotationTests {
+  //white can promote with capture, castle and take on f2 and f7
+  private static final String PROMOTION = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+  //three white queens can reach b2
+  private static final String THREE_QUEENS = "8/7k/8/8/8/Q7/8/Q1Q4K w - - 0 1";
+
+  @Test
+  public void everyLegalMoveRoundTripsThroughSan() {
+    String[] fens = {
+            StrictChessModel.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            PROMOTION,
+            THREE_QUEENS
+    };
+    for (String fen : fens) {
+      MutableChessModel model = new BitboardChessModel.Builder(fen).build();
+      model.startGame();
+      for (Move move : model.getLegalMoves(model.getWhiteToMove() ? PlayerColor.WHITE
+              : PlayerColor.BLACK)) {
+        String san = SanNotation.toSan(model, move);
+        Assert.assertEquals(fen + " " + san, move, SanNotation.fromSan(model, san));
+      }
+      //writing moves in SAN leaves the position as it was
+      Assert.assertEquals(fen, model.toString());
+    }
+  }
+
+  @Test
+  public void disambiguatesByFileThenRankThenSquare() {
+    MutableChessModel model = new BitboardChessModel.Builder(THREE_QUEENS).build();
+    model.startGame();
+    Assert.assertEquals("Qa1b2", SanNotation.toSan(model, findMove(model, "a1b2")));
+    Assert.assertEquals("Qcb2", SanNotation.toSan(model, findMove(model, "c1b2")));
+    Assert.assertEquals("Q3b2", SanNotation.toSan(model, findMove(model, "a3b2")));
+    Assert.assertEquals("Qab1+", SanNotation.toSan(model, findMove(model, "a1b1")));
+  }
+
+  @Test
+  public void writesCapturesPromotionsCastlingAndChecks() {
+    MutableChessModel model = new BitboardChessModel.Builder(PROMOTION).build();
+    model.startGame();
+    Assert.assertEquals("dxc8=Q", SanNotation.toSan(model, findMove(model, "d7c8q")));
+    Assert.assertEquals("dxc8=N", SanNotation.toSan(model, findMove(model, "d7c8n")));
+    Assert.assertEquals("O-O", SanNotation.toSan(model, findMove(model, "e1g1")));
+    Assert.assertEquals("Bxf7", SanNotation.toSan(model, findMove(model, "c4f7")));
+    Assert.assertEquals("Kxf2", SanNotation.toSan(model, findMove(model, "e1f2")));
+    model = new BitboardChessModel.Builder("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1").build();
+    model.startGame();
+    Assert.assertEquals("Ra8#", SanNotation.toSan(model, findMove(model, "a1a8")));
+    Assert.assertEquals("Ra7", SanNotation.toSan(model, findMove(model, "a1a7")));
+  }
+
+  @Test
+  public void readsLenientSan() {
+    MutableChessModel model = new BitboardChessModel.Builder(PROMOTION).build();
+    model.startGame();
+    Assert.assertEquals(findMove(model, "e1g1"), SanNotation.fromSan(model, "0-0"));
+    Assert.assertEquals(findMove(model, "d7c8q"), SanNotation.fromSan(model, "dxc8Q+!"));
+    Assert.assertEquals(findMove(model, "c4f7"), SanNotation.fromSan(model, "Bf7?!"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromSanRejectsAmbiguousMove() {
+    MutableChessModel model = new BitboardChessModel.Builder(THREE_QUEENS).build();
+    model.startGame();
+    SanNotation.fromSan(model, "Qb2");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromSanRejectsIllegalMove() {
+    MutableChessModel model = new BitboardChessModel.Builder(StrictChessModel.STARTING_POSITION).build();
+    model.startGame();
+    SanNotation.fromSan(model, "e5");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromSanRejectsPromotionWithoutPiece() {
+    MutableChessModel model = new BitboardChessModel.Builder(PROMOTION).build();
+    model.startGame();
+    SanNotation.fromSan(model, "dxc8");
+  }
+
+  private static Move findMove(MutableChessModel model, String uciMove) {
+    return model.getLegalMoves(model.getWhiteToMove() ? PlayerColor.WHITE : PlayerColor.BLACK)
+            .stream()
+            .filter(m -> PackedMove.toString(PackedMove.fromMove(m)).equals(uciMove))
+            .findFirst().orElseThrow();
+  }
+}
@@ -0,0 +1,35 @@
+package uci;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimeManagerTests {
+  @Test
+  public void spreadsRemainingTimeOverDefaultMovesToGo() {
+    long expected = (60_000 - TimeManager.MOVE_OVERHEAD_MILLIS) / TimeManager.DEFAULT_MOVES_TO_GO;
+    Assert.assertEquals(expected, TimeManager.allocateMillis(60_000, 0, 0));
+  }
+
+  @Test
+  public void spendsMostOfTheIncrement() {
+    Assert.assertTrue(TimeManager.allocateMillis(60_000, 2_000, 0) > TimeManager.allocateMillis(60_000, 0, 0) + 1_000);
+  }
+
+  @Test
+  public void neverPlansToUseMoreThanTheClock() {
+    //one move to the time control, with a huge increment
+    Assert.assertEquals(1_000 - TimeManager.MOVE_OVERHEAD_MILLIS, TimeManager.allocateMillis(1_000, 60_000, 1));
+    //less time on the clock than the overhead still allows a move
+    Assert.assertEquals(1, TimeManager.allocateMillis(10, 0, 0));
+  }
+
+  @Test
+  public void fixedMoveTimeKeepsOverheadInReserve() {
+    Assert.assertEquals(500 - TimeManager.MOVE_OVERHEAD_MILLIS, TimeManager.fixedMillis(500));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeIncrement() {
+    TimeManager.allocateMillis(1_000, -1, 0);
+  }
+}
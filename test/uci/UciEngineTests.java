@@ -0,0 +1,135 @@
+package uci;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UciEngineTests {
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private PrintWriter commands;
+  private BlockingQueue<String> lines;
+  private Thread engineThread;
+
+  @Before
+  public void startEngine() throws IOException {
+    PipedReader input = new PipedReader();
+    commands = new PrintWriter(new PipedWriter(input), true);
+    lines = new LinkedBlockingQueue<>();
+    UciEngine engine = new UciEngine(input, new PrintStream(new LineCollector(lines), true));
+    engineThread = new Thread(() -> {
+      try {
+        engine.run();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    engineThread.start();
+  }
+
+  @After
+  public void quitEngine() throws InterruptedException {
+    commands.println("quit");
+    engineThread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+    Assert.assertFalse(engineThread.isAlive());
+  }
+
+  @Test
+  public void answersHandshake() throws InterruptedException {
+    commands.println("uci");
+    Assert.assertEquals("uciok", awaitLineStartingWith("uciok"));
+    commands.println("isready");
+    Assert.assertEquals("readyok", awaitLineStartingWith("readyok"));
+  }
+
+  @Test
+  public void playsMovesOntoFenAndFindsMate() throws InterruptedException {
+    commands.println("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1 moves g1f1 g8h8");
+    commands.println("go depth 3");
+    Assert.assertTrue(awaitLineStartingWith("info").contains("score mate 1"));
+    Assert.assertEquals("bestmove a1a8", awaitLineStartingWith("bestmove"));
+  }
+
+  @Test
+  public void searchesToRequestedDepth() throws InterruptedException {
+    commands.println("position startpos moves e2e4");
+    commands.println("go depth 2");
+    Assert.assertTrue(awaitLineStartingWith("info").startsWith("info depth 2 "));
+    //black is to move, so the best move starts on one of black's two back ranks
+    String bestMove = awaitLineStartingWith("bestmove").split(" ")[1];
+    Assert.assertTrue(bestMove.charAt(1) == '7' || bestMove.charAt(1) == '8');
+  }
+
+  @Test
+  public void stopEndsInfiniteSearch() throws InterruptedException {
+    commands.println("position startpos");
+    //stop arrives before the search has had time to start, and must still end it
+    commands.println("go infinite");
+    commands.println("stop");
+    Assert.assertNotNull(awaitLineStartingWith("bestmove"));
+  }
+
+  @Test
+  public void infiniteSearchOnlyReportsAfterStop() throws InterruptedException {
+    //the search ends on its own at once, since it is mate in one, but must wait for stop
+    commands.println("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+    commands.println("go infinite");
+    Assert.assertNull(lines.poll(200, TimeUnit.MILLISECONDS));
+    commands.println("stop");
+    Assert.assertNotNull(awaitLineStartingWith("bestmove"));
+  }
+
+  @Test
+  public void reportsIllegalMoveAndKeepsPosition() throws InterruptedException {
+    commands.println("position startpos moves e2e5");
+    Assert.assertTrue(awaitLineStartingWith("info").startsWith("info string"));
+    commands.println("go depth 1");
+    //white is still to move in the starting position
+    String bestMove = awaitLineStartingWith("bestmove").split(" ")[1];
+    Assert.assertTrue(bestMove.charAt(1) == '1' || bestMove.charAt(1) == '2');
+  }
+
+  private String awaitLineStartingWith(String prefix) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (System.nanoTime() < deadline) {
+      String line = lines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      if (line != null && line.startsWith(prefix)) {
+        return line;
+      }
+    }
+    throw new AssertionError("Timed out waiting for a line starting with " + prefix);
+  }
+
+  /**
+   * Collects the engine's output one line at a time, so tests can wait for a particular line.
+   */
+  private static final class LineCollector extends OutputStream {
+    private final BlockingQueue<String> lines;
+    private final StringBuilder currentLine = new StringBuilder();
+
+    LineCollector(BlockingQueue<String> lines) {
+      this.lines = lines;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+      if (b == '\n') {
+        lines.add(currentLine.toString().strip());
+        currentLine.setLength(0);
+      } else {
+        currentLine.append((char) b);
+      }
+    }
+  }
+}